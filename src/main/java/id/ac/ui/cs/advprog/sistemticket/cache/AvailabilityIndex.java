@@ -0,0 +1,251 @@
+package id.ac.ui.cs.advprog.sistemticket.cache;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.inventory.RemainingQuotaReader;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Answers findAllAvailable from memory. Tickets that can still be sold are either waiting for their
+// sale window to open (keyed by saleStart) or open (keyed by saleEnd). Each query moves the tickets
+// whose window opened or closed since the previous one, so time passing never rebuilds the index.
+@Component
+public class AvailabilityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+    
+    private final TicketRepository ticketRepository;
+    private final RemainingQuotaReader remainingQuotaReader;
+    private final boolean enabled;
+    
+    // Every field below is guarded by this, except open, which the fast path reads without the lock
+    private final Map<String, Ticket> candidates = new HashMap<>();
+    private final NavigableMap<Long, Set<String>> opening = new TreeMap<>();
+    private final NavigableMap<Long, Set<String>> closing = new TreeMap<>();
+    private final NavigableMap<String, Ticket> open = new ConcurrentSkipListMap<>();
+    // Version and quota of the last view that left a ticket out, so a late view of an earlier write
+    // does not list it again. Only the version and quota are kept, and a rebuild starts it over
+    private final Map<String, Seen> dropped = new HashMap<>();
+    private volatile boolean built;
+    private volatile long watermark = Long.MIN_VALUE;
+    private volatile long nextTransition = Long.MIN_VALUE;
+    
+    public AvailabilityIndex(TicketRepository ticketRepository,
+                             RemainingQuotaReader remainingQuotaReader,
+                             @Value("${ticket.availability.index-enabled:true}") boolean enabled) {
+        this.ticketRepository = ticketRepository;
+        this.remainingQuotaReader = remainingQuotaReader;
+        this.enabled = enabled;
+    }
+    
+    // Empty when the caller has to query the database: index disabled, or a time before the
+    // index's watermark, which can only move forward
+    public Optional<List<Ticket>> available(Long currentTime) {
+        return availablePage(currentTime, "", Integer.MAX_VALUE);
+    }
+    
+    // Open tickets are kept in ID order, a page starts right after afterId without walking the ones before
+    public Optional<List<Ticket>> availablePage(Long currentTime, String afterId, int limit) {
+        if (!enabled || currentTime == null) {
+            return Optional.empty();
+        }
+        // Nothing opens or closes between the last query and this one, the open set is current
+        if (currentTime < watermark || currentTime >= nextTransition) {
+            synchronized (this) {
+                if (!built) {
+                    rebuild(currentTime);
+                } else if (currentTime < watermark) {
+                    return Optional.empty();
+                }
+                advance(currentTime);
+            }
+        }
+        List<Ticket> snapshot = new ArrayList<>();
+        for (Ticket ticket : open.tailMap(afterId, false).values()) {
+            if (snapshot.size() >= limit) {
+                break;
+            }
+            snapshot.add(ticket.copy());
+        }
+        return Optional.of(snapshot);
+    }
+    
+    // Called with the row or quota view the service just produced, a status, window or quota change
+    // moves the ticket between the sets or drops it
+    public synchronized void update(Ticket ticket) {
+        if (!built || ticket == null) {
+            return;
+        }
+        Ticket existing = candidates.get(ticket.getId());
+        Seen seen = existing != null ? Seen.of(existing) : dropped.get(ticket.getId());
+        if (seen != null && seen.isNewerThan(ticket)) {
+            return;
+        }
+        remove(ticket.getId());
+        add(ticket.copy());
+        if (candidates.containsKey(ticket.getId())) {
+            dropped.remove(ticket.getId());
+        } else {
+            dropped.put(ticket.getId(), Seen.of(ticket));
+        }
+    }
+    
+    // Re-reads a ticket whose quota changed without the service holding the new row
+    public void refresh(String id) {
+        if (!built) {
+            return;
+        }
+        ticketRepository.findById(id).ifPresentOrElse(this::update, () -> remove(id));
+    }
+    
+    public synchronized void remove(String id) {
+        Ticket existing = candidates.remove(id);
+        if (existing == null) {
+            return;
+        }
+        removeFrom(opening, existing.getSaleStart(), id);
+        removeFrom(closing, existing.getSaleEnd(), id);
+        open.remove(id);
+        updateNextTransition();
+    }
+    
+    // Only AVAILABLE tickets are indexed and a bulk change never moves a ticket back to AVAILABLE
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStatusChanged(TicketStatusChangedEvent event) {
+        if (!built) {
+            return;
+        }
+        Collection<Ticket> scope = event.getEventId() == null
+                ? event.getTicketIds().stream().map(candidates::get).filter(Objects::nonNull).toList()
+                : candidates.values();
+        List<String> changed = scope.stream().filter(event::changes).map(Ticket::getId).toList();
+        changed.forEach(this::remove);
+    }
+    
+    // Safety net for rows written around the service, normal traffic keeps the index current by itself
+    @Scheduled(fixedDelayString = "${ticket.availability.resync-interval-ms:300000}",
+            initialDelayString = "${ticket.availability.resync-interval-ms:300000}")
+    public synchronized void resync() {
+        if (enabled && built) {
+            rebuild(Math.max(watermark, System.currentTimeMillis()));
+        }
+    }
+    
+    private void rebuild(long currentTime) {
+        candidates.clear();
+        dropped.clear();
+        opening.clear();
+        closing.clear();
+        open.clear();
+        watermark = currentTime;
+        for (Ticket ticket : ticketRepository.findAllOnSaleOrUpcoming(currentTime)) {
+            add(ticket);
+        }
+        built = true;
+        logger.info("Availability index built with {} tickets, {} on sale", candidates.size(), open.size());
+    }
+    
+    private void advance(long currentTime) {
+        while (!opening.isEmpty() && opening.firstKey() <= currentTime) {
+            for (String id : opening.pollFirstEntry().getValue()) {
+                Ticket ticket = candidates.get(id);
+                if (ticket.getSaleEnd() < currentTime) {
+                    // The whole window fell between two queries
+                    candidates.remove(id);
+                } else {
+                    addTo(closing, ticket.getSaleEnd(), id);
+                    open.put(id, ticket);
+                }
+            }
+        }
+        while (!closing.isEmpty() && closing.firstKey() < currentTime) {
+            for (String id : closing.pollFirstEntry().getValue()) {
+                candidates.remove(id);
+                open.remove(id);
+            }
+        }
+        watermark = currentTime;
+        updateNextTransition();
+    }
+    
+    private void add(Ticket ticket) {
+        if (!TicketStatus.AVAILABLE.getValue().equals(ticket.getStatus())
+                || ticket.getSaleStart() == null || ticket.getSaleEnd() == null
+                || ticket.getSaleEnd() < watermark) {
+            return;
+        }
+        // LEDGER and SHARDED keep the live count outside the row
+        Integer remaining = remainingQuotaReader.remainingQuota(ticket);
+        if (remaining == null || remaining <= 0) {
+            return;
+        }
+        ticket.setRemainingQuota(remaining);
+        
+        candidates.put(ticket.getId(), ticket);
+        if (ticket.getSaleStart() <= watermark) {
+            addTo(closing, ticket.getSaleEnd(), ticket.getId());
+            open.put(ticket.getId(), ticket);
+        } else {
+            addTo(opening, ticket.getSaleStart(), ticket.getId());
+        }
+        updateNextTransition();
+    }
+    
+    // A ticket opens at saleStart and is still on sale at saleEnd, it closes one millisecond later
+    private void updateNextTransition() {
+        long next = Long.MAX_VALUE;
+        if (!opening.isEmpty()) {
+            next = opening.firstKey();
+        }
+        if (!closing.isEmpty() && closing.firstKey() < Long.MAX_VALUE) {
+            next = Math.min(next, closing.firstKey() + 1);
+        }
+        nextTransition = next;
+    }
+    
+    // Two purchases can report back out of order, a lower version never replaces a newer one. The callers
+    // of one batched purchase share a version, quota only goes down within it so the lowest view is the latest
+    private record Seen(long version, Integer remainingQuota) {
+        
+        static Seen of(Ticket ticket) {
+            return new Seen(ticket.getVersion(), ticket.getRemainingQuota());
+        }
+        
+        boolean isNewerThan(Ticket incoming) {
+            if (incoming.getVersion() != version) {
+                return incoming.getVersion() < version;
+            }
+            return incoming.getRemainingQuota() != null && remainingQuota != null
+                    && incoming.getRemainingQuota() > remainingQuota;
+        }
+    }
+    
+    private static void addTo(NavigableMap<Long, Set<String>> index, long key, String id) {
+        index.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+    }
+    
+    private static void removeFrom(NavigableMap<Long, Set<String>> index, long key, String id) {
+        Set<String> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
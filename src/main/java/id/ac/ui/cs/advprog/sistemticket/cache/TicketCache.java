@@ -0,0 +1,120 @@
+package id.ac.ui.cs.advprog.sistemticket.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+// Read-through cache in front of TicketService.findById. Entries are detached copies, so a caller
+// editing the ticket it got back cannot change what the next reader sees. Misses of single reads are cached too.
+@Component
+public class TicketCache {
+    
+    private final boolean enabled;
+    private final Cache<String, Optional<Ticket>> cache;
+    
+    public TicketCache(@Value("${ticket.cache.enabled:true}") boolean enabled,
+                       @Value("${ticket.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${ticket.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+    
+    public Ticket get(String id, Function<String, Optional<Ticket>> loader) {
+        if (!enabled || id == null) {
+            return loader.apply(id).orElse(null);
+        }
+        // An invalidate that races with this load waits for it and then removes the loaded value
+        Optional<Ticket> cached = cache.get(id, key -> loader.apply(key).map(Ticket::copy));
+        return cached.map(Ticket::copy).orElse(null);
+    }
+    
+    // Cached IDs are answered from memory, the rest go to the loader in one call. IDs the loader does
+    // not return are left out of the result and not cached, a lookup of made-up IDs would evict real entries
+    public Map<String, Ticket> getAll(Collection<String> ids, Function<Set<String>, Map<String, Ticket>> loader) {
+        Map<String, Ticket> found = new HashMap<>();
+        if (!enabled) {
+            loader.apply(new HashSet<>(ids)).forEach((id, ticket) -> found.put(id, ticket.copy()));
+            return found;
+        }
+        
+        Map<String, Optional<Ticket>> cached = cache.getAll(ids, missing -> {
+            Map<String, Optional<Ticket>> entries = new HashMap<>();
+            loader.apply(new HashSet<>(missing)).forEach((id, ticket) -> entries.put(id, Optional.of(ticket.copy())));
+            return entries;
+        });
+        cached.forEach((id, ticket) -> ticket.ifPresent(value -> found.put(id, value.copy())));
+        return found;
+    }
+    
+    // Replaces the entry with the row that was just written
+    public Ticket put(Ticket ticket) {
+        if (enabled && ticket != null) {
+            cache.put(ticket.getId(), Optional.of(ticket.copy()));
+        }
+        return ticket;
+    }
+    
+    public void invalidate(String id) {
+        if (id != null) {
+            cache.invalidate(id);
+        }
+    }
+    
+    // Inside a transaction the entries are dropped again after commit, a read in between would
+    // otherwise keep the pre-commit rows cached until the TTL runs out
+    public void invalidateAll(Collection<String> ids) {
+        cache.invalidateAll(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll(ids);
+                }
+            });
+        }
+    }
+    
+    // A bulk status change drops every cached copy in its scope, whatever status the copy shows
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(TicketStatusChangedEvent event) {
+        if (event.getEventId() == null) {
+            cache.invalidateAll(event.getTicketIds());
+        } else {
+            cache.asMap().values().removeIf(ticket -> ticket.isPresent() && event.targets(ticket.get()));
+        }
+    }
+    
+    public Map<String, Object> snapshot() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("enabled", enabled);
+        values.put("size", cache.estimatedSize());
+        values.put("hits", stats.hitCount());
+        values.put("misses", stats.missCount());
+        values.put("hitRatio", stats.hitRate());
+        values.put("missRatio", stats.missRate());
+        values.put("evictions", stats.evictionCount());
+        return values;
+    }
+}
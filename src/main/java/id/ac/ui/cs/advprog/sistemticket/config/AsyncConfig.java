@@ -1,7 +1,12 @@
 package id.ac.ui.cs.advprog.sistemticket.config;
 
+import id.ac.ui.cs.advprog.sistemticket.enums.RejectionPolicy;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ExecutorMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -11,8 +16,24 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
 
+    // Same switch that moves Tomcat request handling and scheduling onto virtual threads
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${ticket.async.virtual.concurrency-limit:1000}")
+    private int virtualConcurrencyLimit;
+
+    // Default for @Async work that does not name one of the bulkheads below
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+        if (virtualThreads) {
+            // A virtual thread per task, a task blocked on JDBC no longer holds one of a few pool threads
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("TicketAsync-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(virtualConcurrencyLimit);
+            return executor;
+        }
+        
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
@@ -21,4 +42,46 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    // Separate pools so a slow event listener or a large batch cannot starve ticket expiration
+    @Bean(name = "expirationExecutor")
+    public ThreadPoolTaskExecutor expirationExecutor(Environment environment, ExecutorMetrics executorMetrics) {
+        return bulkhead("expiration", "TicketExpiration-", 2, 4, 200, RejectionPolicy.DROP,
+                environment, executorMetrics);
+    }
+
+    @Bean(name = "eventExecutor")
+    public ThreadPoolTaskExecutor eventExecutor(Environment environment, ExecutorMetrics executorMetrics) {
+        return bulkhead("events", "TicketEvent-", 2, 8, 1000, RejectionPolicy.CALLER_RUNS,
+                environment, executorMetrics);
+    }
+
+    @Bean(name = "batchExecutor")
+    public ThreadPoolTaskExecutor batchExecutor(Environment environment, ExecutorMetrics executorMetrics) {
+        return bulkhead("batch", "TicketBatch-", 1, 2, 20, RejectionPolicy.BLOCK,
+                environment, executorMetrics);
+    }
+
+    // Sizes and policy come from ticket.executors.<name>.*, the arguments are the defaults
+    private ThreadPoolTaskExecutor bulkhead(String name, String threadNamePrefix, int coreSize, int maxSize,
+                                            int queueCapacity, RejectionPolicy policy,
+                                            Environment environment, ExecutorMetrics executorMetrics) {
+        String prefix = "ticket.executors." + name + ".";
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(environment.getProperty(prefix + "core-size", Integer.class, coreSize));
+        executor.setMaxPoolSize(environment.getProperty(prefix + "max-size", Integer.class, maxSize));
+        executor.setQueueCapacity(environment.getProperty(prefix + "queue-capacity", Integer.class, queueCapacity));
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(new BulkheadRejectionHandler(name,
+                environment.getProperty(prefix + "rejection-policy", RejectionPolicy.class, policy),
+                environment.getProperty(prefix + "block-timeout-ms", Long.class, 2000L),
+                executorMetrics));
+        if (virtualThreads) {
+            // Still bounded by the pool size, the bulkhead limit is the point of these executors
+            executor.setThreadFactory(Thread.ofVirtual().name(threadNamePrefix, 1).factory());
+        }
+        executor.initialize();
+        executorMetrics.register(name, executor);
+        return executor;
+    }
 }
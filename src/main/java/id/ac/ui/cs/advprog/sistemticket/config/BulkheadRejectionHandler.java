@@ -0,0 +1,56 @@
+package id.ac.ui.cs.advprog.sistemticket.config;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.RejectionPolicy;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ExecutorMetrics;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Applies the configured policy once a bulkhead's threads and queue are all taken
+public class BulkheadRejectionHandler implements RejectedExecutionHandler {
+    
+    private final String name;
+    private final RejectionPolicy policy;
+    private final long blockTimeoutMs;
+    private final ExecutorMetrics executorMetrics;
+    
+    public BulkheadRejectionHandler(String name, RejectionPolicy policy, long blockTimeoutMs,
+                                    ExecutorMetrics executorMetrics) {
+        this.name = name;
+        this.policy = policy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.executorMetrics = executorMetrics;
+    }
+    
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw reject();
+        }
+        
+        switch (policy) {
+            case CALLER_RUNS -> {
+                executorMetrics.recordCallerRuns(name);
+                task.run();
+            }
+            case BLOCK -> {
+                try {
+                    if (!executor.getQueue().offer(task, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        throw reject();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw reject();
+                }
+            }
+            default -> throw reject();
+        }
+    }
+    
+    private RejectedExecutionException reject() {
+        executorMetrics.recordRejection(name);
+        return new RejectedExecutionException("Executor " + name + " is saturated");
+    }
+}
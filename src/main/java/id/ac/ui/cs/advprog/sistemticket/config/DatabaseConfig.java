@@ -20,6 +20,8 @@ public class DatabaseConfig {
         dataSource.setDriverClassName("org.postgresql.Driver");
         dataSource.setMaximumPoolSize(5);
         dataSource.setConnectionTimeout(20000);
+        // Lets the driver send a JDBC batch of inserts as multi-row INSERTs
+        dataSource.addDataSourceProperty("reWriteBatchedInserts", "true");
         
         System.out.println("Creating datasource with hardcoded credentials");
         return dataSource;
@@ -37,11 +37,22 @@ public class SecurityConfig {
                 .and()
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Full exports - for Admin and Organizer, ahead of the public read matchers
+                        .requestMatchers("/api/tickets/export").hasAnyRole("ADMIN", "ORGANIZER")
+                        
+                        // Streaming imports and their progress - only for Organizer, ahead of the public read matchers
+                        .requestMatchers("/api/tickets/imports", "/api/tickets/imports/**").hasRole("ORGANIZER")
+                        
+                        // Bulk status changes - for Admin and Organizer, ahead of the public event matcher
+                        .requestMatchers(HttpMethod.PATCH, "/api/tickets/status", "/api/tickets/event/*/status")
+                                .hasAnyRole("ADMIN", "ORGANIZER")
+                        
                         // Read operations - permitted for all users (Guest, User, Admin, Organizer)
                         .requestMatchers("/api/tickets").permitAll()
                         .requestMatchers("/api/tickets/available").permitAll()
                         .requestMatchers("/api/tickets/event/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/tickets/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/tickets/lookup").permitAll()
                         
                         // Create operations - only for Organizer
                         .requestMatchers(HttpMethod.POST, "/api/tickets").hasRole("ORGANIZER")
@@ -52,13 +63,21 @@ public class SecurityConfig {
                         
                         // Purchase operations - only for authenticated users (User)
                         .requestMatchers("/api/tickets/*/purchase").hasAnyRole("ATTENDEE", "ADMIN")
+                        .requestMatchers("/api/tickets/*/hold").hasAnyRole("ATTENDEE", "ADMIN")
+                        .requestMatchers("/api/tickets/holds/**").hasAnyRole("ATTENDEE", "ADMIN")
                         
                         // Validate operations - for Admin and Organizer
                         .requestMatchers("/api/tickets/*/validate").hasAnyRole("ORGANIZER", "ADMIN")
                         
+                        // Waiting room polling - permitted for all, join needs an authenticated user
+                        .requestMatchers(HttpMethod.GET, "/api/waiting-room/position").permitAll()
+                        
                         // Status update - only for Admin
                         .requestMatchers("/api/tickets/*/status").hasAnyRole("ADMIN", "ORGANIZER")
                         
+                        // Event sales summaries - for Admin and Organizer
+                        .requestMatchers(HttpMethod.GET, "/api/events/*/summary").hasAnyRole("ADMIN", "ORGANIZER")
+                        
                         // Default for other endpoints
                         .anyRequest().authenticated()
                 )
@@ -77,6 +96,7 @@ public class SecurityConfig {
         config.setAllowedOrigins(Arrays.asList(allowedOrigin));
         config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         config.setAllowedHeaders(Arrays.asList("*"));
+        config.setExposedHeaders(Arrays.asList("X-Next-Cursor", "X-Total-Count"));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -1,16 +1,26 @@
 package id.ac.ui.cs.advprog.sistemticket.config;
 
+import id.ac.ui.cs.advprog.sistemticket.waitingroom.WaitingRoomInterceptor;
+import id.ac.ui.cs.advprog.sistemticket.waitingroom.WaitingRoomService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    private final ObjectProvider<WaitingRoomService> waitingRoomService;
+
+    public WebConfig(ObjectProvider<WaitingRoomService> waitingRoomService) {
+        this.waitingRoomService = waitingRoomService;
+    }
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -20,6 +30,13 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowCredentials(true);
     }
     
+    // Only purchases and holds wait in the queue, browsing stays open
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        waitingRoomService.ifAvailable(service -> registry.addInterceptor(new WaitingRoomInterceptor(service))
+                .addPathPatterns("/api/tickets/*/purchase", "/api/tickets/*/hold"));
+    }
+    
     @Bean
     public CorsFilter corsFilter() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
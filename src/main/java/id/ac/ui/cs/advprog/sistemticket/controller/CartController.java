@@ -0,0 +1,94 @@
+package id.ac.ui.cs.advprog.sistemticket.controller;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.CartItemDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.CartPurchaseDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketDto;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketMapper;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.service.TicketService;
+import id.ac.ui.cs.advprog.sistemticket.waitingroom.WaitingRoomInterceptor;
+import id.ac.ui.cs.advprog.sistemticket.waitingroom.WaitingRoomService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/tickets/cart")
+@Validated
+public class CartController {
+    
+    @Autowired
+    private TicketService ticketService;
+    
+    @Autowired
+    private TicketMapper ticketMapper;
+    
+    @Autowired(required = false)
+    private WaitingRoomService waitingRoomService;
+    
+    // All items are purchased or none is - only for Attendee
+    @PostMapping("/purchase")
+    @PreAuthorize("hasAnyRole('ATTENDEE', 'ADMIN')")
+    public ResponseEntity<List<TicketDto>> purchaseCart(
+            @Valid @RequestBody CartPurchaseDto cartDto,
+            @RequestHeader(value = WaitingRoomInterceptor.TOKEN_HEADER, required = false) String queueToken,
+            Authentication authentication) {
+        // The same ticket listed twice is bought as one item
+        Map<String, Integer> amounts = new LinkedHashMap<>();
+        for (CartItemDto item : cartDto.getItems()) {
+            amounts.merge(item.getTicketId(), item.getAmount(), Integer::sum);
+        }
+        
+        if (!isAdmitted(amounts, queueToken, authentication.getName())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .header("X-Error-Message", "Waiting room is open, join the queue and retry once admitted")
+                    .build();
+        }
+        
+        try {
+            Long timestamp = cartDto.getTimestamp() != null ?
+                    cartDto.getTimestamp() : System.currentTimeMillis();
+            
+            List<Ticket> purchased = ticketService.purchaseCart(amounts, timestamp);
+            return ResponseEntity.ok(purchased.stream()
+                    .map(ticketMapper::toDto)
+                    .collect(Collectors.toList()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .header("X-Error-Message", e.getMessage())
+                    .build();
+        }
+    }
+    
+    // The waiting room interceptor only sees a ticket ID in the path, a cart is checked once per event
+    private boolean isAdmitted(Map<String, Integer> amounts, String queueToken, String user) {
+        if (waitingRoomService == null || !waitingRoomService.hasOpenRooms()) {
+            return true;
+        }
+        Set<String> eventIds = new HashSet<>();
+        for (String ticketId : amounts.keySet()) {
+            String eventId = waitingRoomService.eventIdOfTicket(ticketId);
+            if (eventId != null && eventIds.add(eventId) && !waitingRoomService.tryEnter(eventId, queueToken, user)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
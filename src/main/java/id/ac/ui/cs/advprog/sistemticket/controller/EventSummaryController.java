@@ -0,0 +1,29 @@
+package id.ac.ui.cs.advprog.sistemticket.controller;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.EventSummaryDto;
+import id.ac.ui.cs.advprog.sistemticket.summary.EventSalesAggregator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/events")
+@PreAuthorize("hasAnyRole('ADMIN', 'ORGANIZER')")
+public class EventSummaryController {
+    
+    @Autowired
+    private EventSalesAggregator salesAggregator;
+    
+    // Served from the in-memory totals, an event without tickets is not known here
+    @GetMapping("/{eventId}/summary")
+    public ResponseEntity<EventSummaryDto> getSummary(@PathVariable String eventId) {
+        return salesAggregator.summarize(eventId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
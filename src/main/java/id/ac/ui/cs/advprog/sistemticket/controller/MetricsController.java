@@ -0,0 +1,73 @@
+package id.ac.ui.cs.advprog.sistemticket.controller;
+
+import id.ac.ui.cs.advprog.sistemticket.cache.TicketCache;
+import id.ac.ui.cs.advprog.sistemticket.metrics.BatchingMetrics;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ContentionMetrics;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ExecutorMetrics;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ExpirationMetrics;
+import id.ac.ui.cs.advprog.sistemticket.search.TicketSearchIndex;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+@PreAuthorize("hasRole('ADMIN')")
+public class MetricsController {
+    
+    @Autowired
+    private ContentionMetrics contentionMetrics;
+    
+    @Autowired
+    private BatchingMetrics batchingMetrics;
+    
+    @Autowired
+    private ExecutorMetrics executorMetrics;
+    
+    @Autowired
+    private ExpirationMetrics expirationMetrics;
+    
+    @Autowired
+    private TicketCache ticketCache;
+    
+    @Autowired
+    private TicketSearchIndex searchIndex;
+    
+    @GetMapping("/contention")
+    public ResponseEntity<Map<String, Map<String, Long>>> getContention(
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(contentionMetrics.hotspots(limit));
+    }
+    
+    @GetMapping("/batching")
+    public ResponseEntity<Map<String, Object>> getBatching() {
+        return ResponseEntity.ok(batchingMetrics.snapshot());
+    }
+    
+    @GetMapping("/executors")
+    public ResponseEntity<Map<String, Map<String, Object>>> getExecutors() {
+        return ResponseEntity.ok(executorMetrics.snapshot());
+    }
+    
+    @GetMapping("/expiration")
+    public ResponseEntity<Map<String, Object>> getExpiration() {
+        return ResponseEntity.ok(expirationMetrics.snapshot());
+    }
+    
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCache() {
+        return ResponseEntity.ok(ticketCache.snapshot());
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> getSearch() {
+        return ResponseEntity.ok(searchIndex.snapshot());
+    }
+}
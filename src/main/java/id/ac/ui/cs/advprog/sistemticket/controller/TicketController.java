@@ -1,12 +1,21 @@
 package id.ac.ui.cs.advprog.sistemticket.controller;
 
 import id.ac.ui.cs.advprog.sistemticket.dto.*;
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketFields;
 import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.exception.IdempotencyKeyReusedException;
+import id.ac.ui.cs.advprog.sistemticket.exception.TicketConflictException;
+import id.ac.ui.cs.advprog.sistemticket.idempotency.IdempotencyService;
 import id.ac.ui.cs.advprog.sistemticket.mapper.TicketMapper;
 import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.search.SearchHit;
 import id.ac.ui.cs.advprog.sistemticket.service.TicketService;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -16,10 +25,19 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import jakarta.validation.Valid;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -33,14 +51,40 @@ public class TicketController {
     @Autowired
     private TicketMapper ticketMapper;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    @Qualifier("batchExecutor")
+    private Executor batchExecutor;
+    
+    @Value("${ticket.pagination.default-limit:100}")
+    private int defaultPageLimit;
+    
+    @Value("${ticket.pagination.max-limit:1000}")
+    private int maxPageLimit;
+    
     // Read operations - accessible to all
+    // List endpoints are keyset paginated by ticket ID, the next page is requested with X-Next-Cursor
     @GetMapping
-    public ResponseEntity<List<TicketDto>> getAllTickets() {
-        List<Ticket> tickets = ticketService.findAll();
-        List<TicketDto> ticketDtos = tickets.stream()
-                .map(ticketMapper::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(ticketDtos);
+    // fields=summary leaves out the description column
+    public ResponseEntity<List<TicketView>> getAllTickets(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(defaultValue = "full") String fields) {
+        TicketFields columns;
+        try {
+            columns = TicketFields.fromValue(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return page(cursor, limit,
+                (afterId, size) -> toViews(ticketService.findPage(afterId, size, type, status, columns)),
+                TicketView::id,
+                includeTotal ? () -> ticketService.countTickets(type, status) : null);
     }
     
     @GetMapping("/{id}")
@@ -52,23 +96,71 @@ public class TicketController {
         return ResponseEntity.ok(ticketMapper.toDto(ticket));
     }
     
+    // Many tickets in one round trip, results follow the request order and unknown IDs are marked as not found
+    @PostMapping("/lookup")
+    public ResponseEntity<List<TicketLookupResult>> lookupTickets(@Valid @RequestBody TicketLookupDto lookupDto) {
+        Map<String, Ticket> tickets = ticketService.findAllByIds(lookupDto.getIds());
+        List<TicketLookupResult> results = new ArrayList<>(lookupDto.getIds().size());
+        for (String id : lookupDto.getIds()) {
+            Ticket ticket = tickets.get(id);
+            results.add(ticket != null
+                    ? TicketLookupResult.of(ticketMapper.toDto(ticket))
+                    : TicketLookupResult.missing(id));
+        }
+        return ResponseEntity.ok(results);
+    }
+    
+    // Ranked by relevance, X-Next-Cursor carries the score and ID of the last result
+    @GetMapping("/search")
+    public ResponseEntity<List<TicketSearchResult>> searchTickets(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String eventId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            return page(cursor, limit,
+                    (after, size) -> ticketService.search(q, type, eventId, searchCursor(after), size),
+                    hit -> hit.score() + ":" + hit.ticketId(),
+                    null,
+                    this::searchResults);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/event/{eventId}")
-    public ResponseEntity<List<TicketDto>> getTicketsByEventId(@PathVariable String eventId) {
-        List<Ticket> tickets = ticketService.findAllByEventId(eventId);
-        List<TicketDto> ticketDtos = tickets.stream()
-                .map(ticketMapper::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(ticketDtos);
+    public ResponseEntity<List<TicketView>> getTicketsByEventId(
+            @PathVariable String eventId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @RequestParam(defaultValue = "full") String fields) {
+        TicketFields columns;
+        try {
+            columns = TicketFields.fromValue(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return page(cursor, limit,
+                (afterId, size) -> toViews(ticketService.findPageByEventId(eventId, afterId, size, columns)),
+                TicketView::id,
+                includeTotal ? () -> ticketService.countByEventId(eventId) : null);
     }
     
     @GetMapping("/available")
-    public ResponseEntity<List<TicketDto>> getAvailableTickets() {
+    public ResponseEntity<List<TicketDto>> getAvailableTickets(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
         Long currentTime = System.currentTimeMillis();
-        List<Ticket> tickets = ticketService.findAllAvailable(currentTime);
-        List<TicketDto> ticketDtos = tickets.stream()
-                .map(ticketMapper::toDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(ticketDtos);
+        // Served from the availability index, so these are mapped from in-memory tickets
+        return page(cursor, limit,
+                (afterId, size) -> ticketService.findAvailablePage(currentTime, afterId, size).stream()
+                        .map(ticketMapper::toDto)
+                        .collect(Collectors.toList()),
+                TicketDto::getId,
+                includeTotal ? () -> ticketService.countAvailable(currentTime) : null);
     }
     
     // Create operations - only for Organizer
@@ -89,17 +181,13 @@ public class TicketController {
     public ResponseEntity<TicketDto> updateTicket(@PathVariable String id, 
                                                @Valid @RequestBody TicketUpdateDto ticketDto) {
         try {
-            Ticket existingTicket = ticketService.findById(id);
-            if (existingTicket == null) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            ticketMapper.updateEntityFromDto(ticketDto, existingTicket);
-            Ticket updatedTicket = ticketService.updateTicket(existingTicket);
-            
+            // Only the sent fields are written, the ticket is not loaded first
+            Ticket updatedTicket = ticketService.updateTicket(id, ticketMapper.toChanges(ticketDto));
             return ResponseEntity.ok(ticketMapper.toDto(updatedTicket));
         } catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
     
@@ -115,6 +203,32 @@ public class TicketController {
             return ResponseEntity.notFound().build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (TicketConflictException e) {
+            return conflict(e);
+        }
+    }
+    
+    // Bulk status changes - one UPDATE, tickets whose status cannot move to the new one are left out
+    @PatchMapping("/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ORGANIZER')")
+    public ResponseEntity<BulkStatusUpdateResult> updateTicketStatuses(@Valid @RequestBody BulkStatusUpdateDto statusDto) {
+        try {
+            int affected = ticketService.updateStatusByIds(statusDto.getIds(), statusDto.getStatus());
+            return ResponseEntity.ok(new BulkStatusUpdateResult(statusDto.getStatus(), affected));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PatchMapping("/event/{eventId}/status")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ORGANIZER')")
+    public ResponseEntity<BulkStatusUpdateResult> updateEventTicketStatuses(@PathVariable String eventId,
+                                                                            @Valid @RequestBody StatusUpdateDto statusDto) {
+        try {
+            int affected = ticketService.updateStatusByEventId(eventId, statusDto.getStatus());
+            return ResponseEntity.ok(new BulkStatusUpdateResult(statusDto.getStatus(), affected));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
     
@@ -122,15 +236,27 @@ public class TicketController {
     @PostMapping("/{id}/purchase")
     @PreAuthorize("hasAnyRole('ATTENDEE', 'ADMIN')")
     public ResponseEntity<TicketDto> purchaseTicket(@PathVariable String id, 
-                                                 @Valid @RequestBody TicketPurchaseDto purchaseDto) {
+                                                 @Valid @RequestBody TicketPurchaseDto purchaseDto,
+                                                 @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         try {
-            Long timestamp = purchaseDto.getTimestamp() != null ? 
-                    purchaseDto.getTimestamp() : System.currentTimeMillis();
-                    
-            Ticket updatedTicket = ticketService.purchaseTicket(id, purchaseDto.getAmount(), timestamp);
-            return ResponseEntity.ok(ticketMapper.toDto(updatedTicket));
-        } catch (NoSuchElementException e) {
-            return ResponseEntity.notFound().build();
+            String scopedKey = idempotencyService.scopedKey(idempotencyKey, "purchase:" + id);
+            return idempotencyService.execute(scopedKey, purchaseDto, new TypeReference<TicketDto>() { }, () -> {
+                try {
+                    Long timestamp = purchaseDto.getTimestamp() != null ? 
+                            purchaseDto.getTimestamp() : System.currentTimeMillis();
+                            
+                    Ticket updatedTicket = ticketService.purchaseTicket(id, purchaseDto.getAmount(), timestamp);
+                    return ResponseEntity.ok(ticketMapper.toDto(updatedTicket));
+                } catch (NoSuchElementException e) {
+                    return ResponseEntity.notFound().build();
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().build();
+                } catch (TicketConflictException e) {
+                    return conflict(e);
+                }
+            });
+        } catch (IdempotencyKeyReusedException e) {
+            return keyReused(e);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -147,6 +273,8 @@ public class TicketController {
             return ResponseEntity.notFound().build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (TicketConflictException e) {
+            return conflict(e);
         }
     }
     
@@ -178,27 +306,168 @@ public class TicketController {
     // Batch operations - only for Organizer
     @PostMapping("/batch")
     @PreAuthorize("hasRole('ORGANIZER')")
-    public CompletableFuture<ResponseEntity<List<TicketDto>>> createTicketsBatch(
-            @Valid @RequestBody List<TicketCreationDto> ticketDtos) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<TicketDto> createdTicketDtos = new ArrayList<>();
-            
-            for (TicketCreationDto dto : ticketDtos) {
+    public CompletableFuture<ResponseEntity<List<TicketBatchItemResult>>> createTicketsBatch(
+            @Valid @RequestBody List<TicketCreationDto> ticketDtos,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        String scopedKey;
+        try {
+            // Resolved here, the security context is not available on the async thread
+            scopedKey = idempotencyService.scopedKey(idempotencyKey, "batch");
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return idempotencyService.execute(scopedKey, ticketDtos,
+                            new TypeReference<List<TicketBatchItemResult>>() { }, () -> {
+                        List<TicketBatchItemResult> results = createBatch(ticketDtos);
+                        boolean anyCreated = results.stream().anyMatch(result -> result.status() == BatchItemStatus.CREATED);
+                        return ResponseEntity.status(anyCreated ? HttpStatus.CREATED : HttpStatus.OK).body(results);
+                    });
+                } catch (IdempotencyKeyReusedException e) {
+                    return keyReused(e);
+                }
+            }, batchExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(saturated(e));
+        }
+    }
+    
+    // Items the mapper rejects are reported here, the rest go to the service in one call
+    private List<TicketBatchItemResult> createBatch(List<TicketCreationDto> ticketDtos) {
+        TicketBatchItemResult[] results = new TicketBatchItemResult[ticketDtos.size()];
+        List<Ticket> tickets = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < ticketDtos.size(); i++) {
+            TicketCreationDto dto = ticketDtos.get(i);
+            try {
                 Ticket ticket = ticketMapper.toEntity(dto);
-                Ticket created = ticketService.createTicket(ticket);
-                if (created != null) {
-                    createdTicketDtos.add(ticketMapper.toDto(created));
+                if (ticket == null) {
+                    throw new IllegalArgumentException("Ticket is required");
                 }
+                tickets.add(ticket);
+                positions.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = TicketBatchItemResult.rejected(i, dto != null ? dto.getId() : null,
+                        BatchItemStatus.FAILED, e.getMessage());
             }
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdTicketDtos);
-        });
+        }
+        
+        List<BatchItemStatus> statuses = tickets.isEmpty() ? List.of() : ticketService.createTickets(tickets);
+        for (int k = 0; k < tickets.size(); k++) {
+            int i = positions.get(k);
+            Ticket ticket = tickets.get(k);
+            results[i] = switch (statuses.get(k)) {
+                case CREATED -> TicketBatchItemResult.created(i, ticketMapper.toDto(ticket));
+                case DUPLICATE -> TicketBatchItemResult.rejected(i, ticket.getId(), BatchItemStatus.DUPLICATE,
+                        "Ticket with ID " + ticket.getId() + " already exists");
+                case FAILED -> TicketBatchItemResult.rejected(i, ticket.getId(), BatchItemStatus.FAILED,
+                        "Ticket could not be stored");
+            };
+        }
+        return Arrays.asList(results);
     }
     
     @PostMapping("/{id}/expire-async")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<String> processExpirationAsync(@PathVariable String id) {
-        ticketService.processTicketExpiration(id);
-        return ResponseEntity.accepted().body("Expiration process started for ticket: " + id);
+        try {
+            ticketService.processTicketExpiration(id);
+            return ResponseEntity.accepted().body("Expiration process started for ticket: " + id);
+        } catch (RejectedExecutionException e) {
+            return saturated(e);
+        }
+    }
+    
+    // Asks for one row more than the page size, that row only tells whether there is a next page
+    private <T> ResponseEntity<List<T>> page(String cursor, Integer limit,
+                                             BiFunction<String, Integer, List<T>> query,
+                                             Function<T, String> idOf,
+                                             LongSupplier total) {
+        return page(cursor, limit, query, idOf, total, Function.identity());
+    }
+    
+    // The next page is decided on the rows the query returned, before render drops any of them
+    private <T, R> ResponseEntity<List<R>> page(String cursor, Integer limit,
+                                                BiFunction<String, Integer, List<T>> query,
+                                                Function<T, String> idOf,
+                                                LongSupplier total,
+                                                Function<List<T>, List<R>> render) {
+        int size = limit != null ? limit : defaultPageLimit;
+        if (size <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        size = Math.min(size, maxPageLimit);
+        
+        String afterId;
+        try {
+            afterId = cursor != null ? new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        List<T> rows = query.apply(afterId, size + 1);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            String lastId = idOf.apply(rows.get(size - 1));
+            response.header("X-Next-Cursor",
+                    Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8)));
+        }
+        if (total != null) {
+            response.header("X-Total-Count", String.valueOf(total.getAsLong()));
+        }
+        return response.body(render.apply(rows));
+    }
+    
+    private static SearchHit searchCursor(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        int separator = cursor.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed search cursor");
+        }
+        return new SearchHit(cursor.substring(separator + 1), Double.parseDouble(cursor.substring(0, separator)));
+    }
+    
+    // Hits are loaded in one lookup, a ticket deleted since it was indexed is left out
+    private List<TicketSearchResult> searchResults(List<SearchHit> hits) {
+        Map<String, Ticket> tickets = ticketService.findAllByIds(hits.stream().map(SearchHit::ticketId).toList());
+        List<TicketSearchResult> results = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) {
+            Ticket ticket = tickets.get(hit.ticketId());
+            if (ticket != null) {
+                results.add(new TicketSearchResult(ticketMapper.toDto(ticket), hit.score()));
+            }
+        }
+        return results;
+    }
+    
+    private List<TicketView> toViews(List<TicketView> views) {
+        return views.stream()
+                .map(ticketMapper::toView)
+                .collect(Collectors.toList());
+    }
+    
+    private <T> ResponseEntity<T> saturated(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .header("X-Error-Message", e.getMessage())
+                .build();
+    }
+    
+    private <T> ResponseEntity<T> keyReused(IdempotencyKeyReusedException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .header("X-Error-Message", e.getMessage())
+                .build();
+    }
+    
+    private <T> ResponseEntity<T> conflict(TicketConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header("X-Error-Message", e.getMessage())
+                .build();
     }
 }
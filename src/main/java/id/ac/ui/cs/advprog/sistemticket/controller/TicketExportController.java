@@ -0,0 +1,75 @@
+package id.ac.ui.cs.advprog.sistemticket.controller;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.ExportFormat;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketExportWriter;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketMapper;
+import id.ac.ui.cs.advprog.sistemticket.service.TicketService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/api/tickets/export")
+@PreAuthorize("hasAnyRole('ADMIN', 'ORGANIZER')")
+public class TicketExportController {
+    
+    @Autowired
+    private TicketService ticketService;
+    
+    @Autowired
+    private TicketMapper ticketMapper;
+    
+    @Autowired
+    private TicketExportWriter exportWriter;
+    
+    // Rows go from the database cursor straight to the response, memory does not grow with the result
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportTickets(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String eventId) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromValue(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            exportWriter.writeHeader(exportFormat, writer);
+            try {
+                ticketService.forEachTicket(eventId, ticket -> {
+                    try {
+                        exportWriter.writeRow(exportFormat, ticketMapper.toDto(ticket), writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        
+        String filename = "tickets." + exportFormat.name().toLowerCase();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
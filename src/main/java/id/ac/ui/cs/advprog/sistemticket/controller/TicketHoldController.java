@@ -0,0 +1,89 @@
+package id.ac.ui.cs.advprog.sistemticket.controller;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketHoldDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketPurchaseDto;
+import id.ac.ui.cs.advprog.sistemticket.exception.TicketConflictException;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketMapper;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketHold;
+import id.ac.ui.cs.advprog.sistemticket.service.TicketHoldService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/tickets")
+@Validated
+public class TicketHoldController {
+    
+    @Autowired
+    private TicketHoldService ticketHoldService;
+    
+    @Autowired
+    private TicketMapper ticketMapper;
+    
+    // Sets quota aside for a checkout window, the hold is released if not confirmed in time
+    @PostMapping("/{id}/hold")
+    @PreAuthorize("hasAnyRole('ATTENDEE', 'ADMIN')")
+    public ResponseEntity<TicketHoldDto> holdTicket(@PathVariable String id,
+                                                    @Valid @RequestBody TicketPurchaseDto purchaseDto,
+                                                    Authentication authentication) {
+        try {
+            Long timestamp = purchaseDto.getTimestamp() != null ?
+                    purchaseDto.getTimestamp() : System.currentTimeMillis();
+            
+            TicketHold hold = ticketHoldService.createHold(id, purchaseDto.getAmount(),
+                    authentication.getName(), timestamp);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ticketMapper.toHoldDto(hold, System.currentTimeMillis()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (TicketConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header("X-Error-Message", e.getMessage())
+                    .build();
+        }
+    }
+    
+    @PostMapping("/holds/{holdId}/confirm")
+    @PreAuthorize("hasAnyRole('ATTENDEE', 'ADMIN')")
+    public ResponseEntity<TicketDto> confirmHold(@PathVariable String holdId, Authentication authentication) {
+        try {
+            Ticket ticket = ticketHoldService.confirmHold(holdId, authentication.getName(), isAdmin(authentication));
+            return ResponseEntity.ok(ticketMapper.toDto(ticket));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.GONE)
+                    .header("X-Error-Message", e.getMessage())
+                    .build();
+        }
+    }
+    
+    @PostMapping("/holds/{holdId}/cancel")
+    @PreAuthorize("hasAnyRole('ATTENDEE', 'ADMIN')")
+    public ResponseEntity<Void> cancelHold(@PathVariable String holdId, Authentication authentication) {
+        try {
+            ticketHoldService.cancelHold(holdId, authentication.getName(), isAdmin(authentication));
+            return ResponseEntity.noContent().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    private boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+}
@@ -0,0 +1,110 @@
+package id.ac.ui.cs.advprog.sistemticket.controller;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketImportErrorDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketImportJobDto;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+import id.ac.ui.cs.advprog.sistemticket.exception.ImportJobConflictException;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketMapper;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportError;
+import id.ac.ui.cs.advprog.sistemticket.service.TicketImportService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/tickets/imports")
+@PreAuthorize("hasRole('ORGANIZER')")
+public class TicketImportController {
+    private static final int MAX_JOB_ID_LENGTH = 255;
+    
+    @Autowired
+    private TicketImportService importService;
+    
+    @Autowired
+    private TicketMapper ticketMapper;
+    
+    @Value("${ticket.pagination.default-limit:100}")
+    private int defaultPageLimit;
+    
+    @Value("${ticket.pagination.max-limit:1000}")
+    private int maxPageLimit;
+    
+    // The body is read as it arrives instead of being bound up front. Answers once the upload has been read,
+    // or with status INTERRUPTED if it broke off; sending it again with the same jobId resumes after committedLine
+    @PostMapping(consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<TicketImportJobDto> importTickets(
+            @RequestParam(required = false) String jobId,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body,
+            Authentication authentication) throws IOException {
+        if (jobId != null && (jobId.isBlank() || jobId.length() > MAX_JOB_ID_LENGTH)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(ticketMapper.toImportJobDto(importService.importTickets(jobId,
+                    authentication.getName(), ImportFormat.fromContentType(contentType), body)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .header("X-Error-Message", e.getMessage())
+                    .build();
+        } catch (ImportJobConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header("X-Error-Message", e.getMessage())
+                    .build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header("Retry-After", "1")
+                    .header("X-Error-Message", e.getMessage())
+                    .build();
+        }
+    }
+    
+    // Can be polled while the upload is running, progress moves once per committed chunk
+    @GetMapping("/{jobId}")
+    public ResponseEntity<TicketImportJobDto> getJob(@PathVariable String jobId, Authentication authentication) {
+        try {
+            return ResponseEntity.ok(ticketMapper.toImportJobDto(importService.getJob(jobId, authentication.getName())));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    // Rejected lines in line order, X-Next-Cursor is the afterLine of the next page
+    @GetMapping("/{jobId}/errors")
+    public ResponseEntity<List<TicketImportErrorDto>> getErrors(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") long afterLine,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
+        int size = limit != null ? limit : defaultPageLimit;
+        if (size <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        size = Math.min(size, maxPageLimit);
+        
+        List<TicketImportError> errors;
+        try {
+            errors = importService.getErrors(jobId, authentication.getName(), afterLine, size + 1);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (errors.size() > size) {
+            errors = errors.subList(0, size);
+            response.header("X-Next-Cursor", String.valueOf(errors.get(size - 1).getLine()));
+        }
+        return response.body(errors.stream().map(ticketMapper::toImportErrorDto).toList());
+    }
+}
@@ -0,0 +1,76 @@
+package id.ac.ui.cs.advprog.sistemticket.controller;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.QueueStatusDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.WaitingRoomConfigDto;
+import id.ac.ui.cs.advprog.sistemticket.waitingroom.WaitingRoomInterceptor;
+import id.ac.ui.cs.advprog.sistemticket.waitingroom.WaitingRoomService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/waiting-room")
+@Validated
+public class WaitingRoomController {
+    
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+    
+    // Open and close - only for Admin and Organizer
+    @PutMapping("/{eventId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ORGANIZER')")
+    public ResponseEntity<Void> openWaitingRoom(@PathVariable String eventId,
+                                                @Valid @RequestBody WaitingRoomConfigDto configDto) {
+        try {
+            waitingRoomService.open(eventId, configDto.getAdmissionsPerSecond(), configDto.getBurst());
+            return ResponseEntity.status(HttpStatus.CREATED).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header("X-Error-Message", e.getMessage())
+                    .build();
+        }
+    }
+    
+    @DeleteMapping("/{eventId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'ORGANIZER')")
+    public ResponseEntity<Void> closeWaitingRoom(@PathVariable String eventId) {
+        try {
+            waitingRoomService.close(eventId);
+            return ResponseEntity.noContent().build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    // The token is issued to the authenticated user and only admits their own purchases
+    @PostMapping("/{eventId}/join")
+    public ResponseEntity<QueueStatusDto> join(@PathVariable String eventId, Authentication authentication) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(waitingRoomService.join(eventId, authentication.getName()));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    // Polled by clients while they wait, answered from memory only
+    @GetMapping("/position")
+    public ResponseEntity<QueueStatusDto> getPosition(
+            @RequestHeader(WaitingRoomInterceptor.TOKEN_HEADER) String token) {
+        try {
+            return ResponseEntity.ok(waitingRoomService.status(token));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.io.Serializable;
+import java.util.List;
+
+public class BulkStatusUpdateDto implements Serializable {
+    @NotEmpty(message = "At least one ticket ID is required")
+    @Size(max = 5000, message = "At most 5000 tickets can be updated at once")
+    private List<@NotBlank String> ids;
+    
+    @NotBlank(message = "Status is required")
+    private String status;
+    
+    public List<String> getIds() {
+        return ids;
+    }
+    
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,5 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+// Outcome of a bulk status change, affected leaves out tickets whose status could not move to the new one
+public record BulkStatusUpdateResult(String status, int affected) {
+}
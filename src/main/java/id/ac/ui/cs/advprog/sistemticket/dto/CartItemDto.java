@@ -0,0 +1,31 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import java.io.Serializable;
+
+public class CartItemDto implements Serializable {
+    @NotBlank(message = "Ticket ID is required")
+    private String ticketId;
+    
+    @NotNull(message = "Amount is required")
+    @Min(value = 1, message = "Amount must be at least 1")
+    private Integer amount;
+    
+    public String getTicketId() {
+        return ticketId;
+    }
+    
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+    
+    public Integer getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+}
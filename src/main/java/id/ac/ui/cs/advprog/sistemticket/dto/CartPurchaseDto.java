@@ -0,0 +1,33 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.io.Serializable;
+import java.util.List;
+
+public class CartPurchaseDto implements Serializable {
+    @NotEmpty(message = "Cart must contain at least one item")
+    @Size(max = 20, message = "Cart can contain at most 20 items")
+    @Valid
+    private List<CartItemDto> items;
+    
+    // Optional - can be used to override current time for testing
+    private Long timestamp;
+    
+    public List<CartItemDto> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<CartItemDto> items) {
+        this.items = items;
+    }
+    
+    public Long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
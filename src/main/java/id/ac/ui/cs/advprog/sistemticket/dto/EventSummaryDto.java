@@ -0,0 +1,16 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import java.util.List;
+
+// Sales of one event, per ticket type and in total. Remaining is quota minus sold, held quota counts as remaining
+public record EventSummaryDto(
+        String eventId,
+        long quota,
+        long sold,
+        long remaining,
+        double revenue,
+        List<TypeSummary> types) {
+    
+    public record TypeSummary(String type, long quota, long sold, long remaining, double revenue) {
+    }
+}
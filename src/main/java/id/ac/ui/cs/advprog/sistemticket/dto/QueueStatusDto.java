@@ -0,0 +1,51 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import java.io.Serializable;
+
+public class QueueStatusDto implements Serializable {
+    private String eventId;
+    private String token;
+    private Long position;
+    private Boolean admitted;
+    private Long estimatedWaitSeconds;
+    
+    public String getEventId() {
+        return eventId;
+    }
+    
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+    
+    public String getToken() {
+        return token;
+    }
+    
+    public void setToken(String token) {
+        this.token = token;
+    }
+    
+    public Long getPosition() {
+        return position;
+    }
+    
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+    
+    public Boolean getAdmitted() {
+        return admitted;
+    }
+    
+    public void setAdmitted(Boolean admitted) {
+        this.admitted = admitted;
+    }
+    
+    public Long getEstimatedWaitSeconds() {
+        return estimatedWaitSeconds;
+    }
+    
+    public void setEstimatedWaitSeconds(Long estimatedWaitSeconds) {
+        this.estimatedWaitSeconds = estimatedWaitSeconds;
+    }
+}
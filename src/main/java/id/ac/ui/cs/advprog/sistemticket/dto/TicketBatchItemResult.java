@@ -0,0 +1,15 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+
+// One item of a batch create, index is its position in the request and ticket is only set when created
+public record TicketBatchItemResult(int index, String id, BatchItemStatus status, String error, TicketDto ticket) {
+    
+    public static TicketBatchItemResult created(int index, TicketDto ticket) {
+        return new TicketBatchItemResult(index, ticket.getId(), BatchItemStatus.CREATED, null, ticket);
+    }
+    
+    public static TicketBatchItemResult rejected(int index, String id, BatchItemStatus status, String error) {
+        return new TicketBatchItemResult(index, id, status, error, null);
+    }
+}
@@ -3,9 +3,14 @@ package id.ac.ui.cs.advprog.sistemticket.dto;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import java.io.Serializable;
 
 public class TicketCreationDto implements Serializable {
+    // Optional, a client that picks its own IDs can resend a batch without creating tickets twice
+    @Size(max = 255, message = "Ticket ID must be at most 255 characters")
+    private String id;
+    
     @NotBlank(message = "Event ID is required")
     private String eventId;
     
@@ -32,6 +37,14 @@ public class TicketCreationDto implements Serializable {
     private String userId; // Add this field
     
     // Getters and setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
     public String getEventId() {
         return eventId;
     }
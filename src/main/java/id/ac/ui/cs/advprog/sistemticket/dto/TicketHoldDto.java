@@ -0,0 +1,51 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import java.io.Serializable;
+
+public class TicketHoldDto implements Serializable {
+    private String holdId;
+    private String ticketId;
+    private Integer amount;
+    private Long expiresAt;
+    private Long ttlSeconds;
+    
+    public String getHoldId() {
+        return holdId;
+    }
+    
+    public void setHoldId(String holdId) {
+        this.holdId = holdId;
+    }
+    
+    public String getTicketId() {
+        return ticketId;
+    }
+    
+    public void setTicketId(String ticketId) {
+        this.ticketId = ticketId;
+    }
+    
+    public Integer getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+    
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    
+    public Long getTtlSeconds() {
+        return ttlSeconds;
+    }
+    
+    public void setTtlSeconds(Long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+
+// A rejected line of an import, status is DUPLICATE or FAILED as for a batch create
+public record TicketImportErrorDto(long line, String id, BatchItemStatus status, String error) {
+}
@@ -0,0 +1,10 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportJobStatus;
+
+// Progress of an import, committedLine is the last upload line whose outcome is stored
+public record TicketImportJobDto(String id, ImportFormat format, ImportJobStatus status, long committedLine,
+                                 long created, long duplicates, long failed, String error,
+                                 long createdAt, long updatedAt) {
+}
@@ -0,0 +1,21 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.io.Serializable;
+import java.util.List;
+
+public class TicketLookupDto implements Serializable {
+    @NotEmpty(message = "At least one ticket ID is required")
+    @Size(max = 5000, message = "At most 5000 ticket IDs can be looked up at once")
+    private List<@NotBlank String> ids;
+    
+    public List<String> getIds() {
+        return ids;
+    }
+    
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,13 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+// One requested ID of a bulk lookup, ticket is null when found is false
+public record TicketLookupResult(String id, boolean found, TicketDto ticket) {
+    
+    public static TicketLookupResult of(TicketDto ticket) {
+        return new TicketLookupResult(ticket.getId(), true, ticket);
+    }
+    
+    public static TicketLookupResult missing(String id) {
+        return new TicketLookupResult(id, false, null);
+    }
+}
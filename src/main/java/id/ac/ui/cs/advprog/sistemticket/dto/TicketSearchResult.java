@@ -0,0 +1,5 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+// One search result, higher scores are better matches
+public record TicketSearchResult(TicketDto ticket, double score) {
+}
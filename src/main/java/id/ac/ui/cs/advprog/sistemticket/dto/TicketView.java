@@ -0,0 +1,19 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+// Read-only row built directly by a JPQL constructor expression, so no entity is hydrated or
+// dirty-checked. Serializes with the same fields as TicketDto.
+public record TicketView(String id, String eventId, String type, Double price, Integer quota,
+                         Integer remainingQuota, String description, Long saleStart, Long saleEnd,
+                         String status, String userId) {
+    
+    // Summary column set, the description column is never read
+    public TicketView(String id, String eventId, String type, Double price, Integer quota,
+                      Integer remainingQuota, Long saleStart, Long saleEnd, String status, String userId) {
+        this(id, eventId, type, price, quota, remainingQuota, null, saleStart, saleEnd, status, userId);
+    }
+    
+    public TicketView withRemainingQuota(Integer remainingQuota) {
+        return new TicketView(id, eventId, type, price, quota, remainingQuota, description,
+                saleStart, saleEnd, status, userId);
+    }
+}
@@ -0,0 +1,32 @@
+package id.ac.ui.cs.advprog.sistemticket.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.io.Serializable;
+
+public class WaitingRoomConfigDto implements Serializable {
+    @NotNull(message = "Admission rate is required")
+    @Positive(message = "Admission rate must be positive")
+    private Double admissionsPerSecond;
+    
+    @NotNull(message = "Burst is required")
+    @Min(value = 1, message = "Burst must be at least 1")
+    private Integer burst;
+    
+    public Double getAdmissionsPerSecond() {
+        return admissionsPerSecond;
+    }
+    
+    public void setAdmissionsPerSecond(Double admissionsPerSecond) {
+        this.admissionsPerSecond = admissionsPerSecond;
+    }
+    
+    public Integer getBurst() {
+        return burst;
+    }
+    
+    public void setBurst(Integer burst) {
+        this.burst = burst;
+    }
+}
@@ -0,0 +1,8 @@
+package id.ac.ui.cs.advprog.sistemticket.enums;
+
+// Outcome of one ticket in a batch create
+public enum BatchItemStatus {
+    CREATED,   // Inserted with this batch
+    DUPLICATE, // A ticket with the ID already exists, or the ID came earlier in the same batch
+    FAILED     // Rejected by validation or by the database
+}
@@ -0,0 +1,25 @@
+package id.ac.ui.cs.advprog.sistemticket.enums;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson"), // One JSON ticket per line
+    CSV("text/csv");                // Header row, then one ticket per line
+    
+    private final String contentType;
+    
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public static ExportFormat fromValue(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + value);
+    }
+}
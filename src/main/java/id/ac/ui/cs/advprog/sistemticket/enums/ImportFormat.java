@@ -0,0 +1,31 @@
+package id.ac.ui.cs.advprog.sistemticket.enums;
+
+import org.springframework.http.MediaType;
+
+public enum ImportFormat {
+    NDJSON("application/x-ndjson"), // One JSON ticket per line
+    CSV("text/csv");                // Header row naming the columns, then one ticket per line
+    
+    private final String contentType;
+    
+    ImportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    // Parameters such as charset are ignored, uploads are always read as UTF-8
+    public static ImportFormat fromContentType(String value) {
+        if (value != null) {
+            MediaType mediaType = MediaType.parseMediaType(value);
+            for (ImportFormat format : values()) {
+                if (MediaType.parseMediaType(format.contentType).equalsTypeAndSubtype(mediaType)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + value);
+    }
+}
@@ -0,0 +1,8 @@
+package id.ac.ui.cs.advprog.sistemticket.enums;
+
+// State of a streaming ticket import, every state but a live RUNNING one can be resumed
+public enum ImportJobStatus {
+    RUNNING,     // An upload is being written, updatedAt moves with every committed chunk
+    INTERRUPTED, // The upload or a write broke off, lines up to committedLine are stored
+    COMPLETED    // The whole upload was read
+}
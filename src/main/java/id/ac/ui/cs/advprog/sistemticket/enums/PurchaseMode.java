@@ -0,0 +1,12 @@
+package id.ac.ui.cs.advprog.sistemticket.enums;
+
+public enum PurchaseMode {
+    // Load the entity, decrease the quota in memory, then save it back
+    ENTITY,
+    // Single conditional UPDATE that checks and decrements the quota in one statement
+    ATOMIC,
+    // In-process ledger accepts purchases from memory and flushes net decrements in batches
+    LEDGER,
+    // Quota split across bucket rows so concurrent purchases lock different rows
+    SHARDED
+}
@@ -0,0 +1,7 @@
+package id.ac.ui.cs.advprog.sistemticket.enums;
+
+public enum RejectionPolicy {
+    CALLER_RUNS, // The submitting thread runs the task itself, which slows the producer down
+    DROP,        // The task is refused at once, request paths answer 503
+    BLOCK;       // The submitter waits up to a timeout for queue space, then the task is refused
+}
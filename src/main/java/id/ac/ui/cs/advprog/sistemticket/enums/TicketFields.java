@@ -0,0 +1,16 @@
+package id.ac.ui.cs.advprog.sistemticket.enums;
+
+// Column set loaded by the projection queries behind the list endpoints
+public enum TicketFields {
+    FULL,    // Every TicketDto field
+    SUMMARY; // Everything except the TEXT description
+    
+    public static TicketFields fromValue(String value) {
+        for (TicketFields fields : values()) {
+            if (fields.name().equalsIgnoreCase(value)) {
+                return fields;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported field set: " + value);
+    }
+}
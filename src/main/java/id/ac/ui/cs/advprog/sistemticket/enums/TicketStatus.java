@@ -2,6 +2,8 @@ package id.ac.ui.cs.advprog.sistemticket.enums;
 
 import lombok.Getter;
 
+import java.util.Set;
+
 @Getter
 public enum TicketStatus {
     AVAILABLE("AVAILABLE"),
@@ -15,6 +17,26 @@ public enum TicketStatus {
         this.value = value;
     }
 
+    // Statuses a ticket may move to this one from, the bulk updates check them in the WHERE clause.
+    // AVAILABLE is only ever the initial status
+    public Set<String> allowedFrom() {
+        return switch (this) {
+            case AVAILABLE -> Set.of();
+            case PURCHASED -> Set.of(AVAILABLE.value);
+            case EXPIRED -> Set.of(AVAILABLE.value, PURCHASED.value);
+            case USED -> Set.of(PURCHASED.value);
+        };
+    }
+
+    public static TicketStatus fromValue(String value) {
+        for (TicketStatus ticketStatus : TicketStatus.values()) {
+            if (ticketStatus.value.equals(value)) {
+                return ticketStatus;
+            }
+        }
+        throw new IllegalArgumentException("Invalid ticket status: " + value);
+    }
+
     public static boolean contains(String params) {
         for (TicketStatus ticketStatus : TicketStatus.values()) {
             if (ticketStatus.value.equals(params)) {
@@ -0,0 +1,32 @@
+package id.ac.ui.cs.advprog.sistemticket.event;
+
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+
+import java.util.List;
+import java.util.Map;
+
+public class TicketCartPurchasedEvent {
+    private final List<Ticket> tickets;
+    private final Map<String, Integer> amounts;
+    
+    public TicketCartPurchasedEvent(List<Ticket> tickets, Map<String, Integer> amounts) {
+        this.tickets = List.copyOf(tickets);
+        this.amounts = Map.copyOf(amounts);
+    }
+    
+    public List<Ticket> getTickets() {
+        return tickets;
+    }
+    
+    public Map<String, Integer> getAmounts() {
+        return amounts;
+    }
+    
+    public int getAmount(String ticketId) {
+        return amounts.getOrDefault(ticketId, 0);
+    }
+    
+    public int getTotalAmount() {
+        return amounts.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
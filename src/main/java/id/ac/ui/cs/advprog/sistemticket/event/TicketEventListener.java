@@ -10,7 +10,7 @@ import org.slf4j.LoggerFactory;
 public class TicketEventListener {
     private static final Logger logger = LoggerFactory.getLogger(TicketEventListener.class);
     
-    @Async
+    @Async("eventExecutor")
     @EventListener
     public void handleTicketPurchasedEvent(TicketPurchasedEvent event) {
         // This method runs asynchronously when a ticket is purchased
@@ -25,4 +25,12 @@ public class TicketEventListener {
         // 3. Notify event organizers
         // 4. Generate PDF tickets
     }
+    
+    @Async("eventExecutor")
+    @EventListener
+    public void handleTicketCartPurchasedEvent(TicketCartPurchasedEvent event) {
+        logger.info("Cart purchase event received: {} tickets across {} ticket types",
+                   event.getTotalAmount(),
+                   event.getTickets().size());
+    }
 }
@@ -0,0 +1,78 @@
+package id.ac.ui.cs.advprog.sistemticket.event;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+
+import java.util.Set;
+
+// One bulk status change: the tickets of eventId, or the listed ticket IDs, that were in one of
+// fromStatuses are now in status. An expiry only hit rows whose sale ended before saleEndBefore.
+// Listeners patch their copies instead of reloading every row
+public class TicketStatusChangedEvent {
+    private final String eventId;
+    private final Set<String> ticketIds;
+    private final String status;
+    private final Set<String> fromStatuses;
+    private final Long saleEndBefore;
+    private final int affected;
+    
+    private TicketStatusChangedEvent(String eventId, Set<String> ticketIds, String status,
+                                     Set<String> fromStatuses, Long saleEndBefore, int affected) {
+        this.eventId = eventId;
+        this.ticketIds = ticketIds;
+        this.status = status;
+        this.fromStatuses = Set.copyOf(fromStatuses);
+        this.saleEndBefore = saleEndBefore;
+        this.affected = affected;
+    }
+    
+    public static TicketStatusChangedEvent forEvent(String eventId, String status, Set<String> fromStatuses, int affected) {
+        return new TicketStatusChangedEvent(eventId, Set.of(), status, fromStatuses, null, affected);
+    }
+    
+    public static TicketStatusChangedEvent forTickets(Set<String> ticketIds, String status, Set<String> fromStatuses,
+                                                      int affected) {
+        return new TicketStatusChangedEvent(null, Set.copyOf(ticketIds), status, fromStatuses, null, affected);
+    }
+    
+    public static TicketStatusChangedEvent forExpiry(Set<String> ticketIds, Set<String> fromStatuses, long saleEndBefore,
+                                                     int affected) {
+        return new TicketStatusChangedEvent(null, Set.copyOf(ticketIds), TicketStatus.EXPIRED.getValue(),
+                fromStatuses, saleEndBefore, affected);
+    }
+    
+    // The ticket was in scope of the update, whatever status a cached copy of it shows
+    public boolean targets(Ticket ticket) {
+        return eventId != null ? eventId.equals(ticket.getEventId()) : ticketIds.contains(ticket.getId());
+    }
+    
+    // The update changed this copy's row, provided the copy's status is current
+    public boolean changes(Ticket ticket) {
+        return targets(ticket) && fromStatuses.contains(ticket.getStatus())
+                && (saleEndBefore == null || ticket.getSaleEnd() < saleEndBefore);
+    }
+    
+    public String getEventId() {
+        return eventId;
+    }
+    
+    public Set<String> getTicketIds() {
+        return ticketIds;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public Set<String> getFromStatuses() {
+        return fromStatuses;
+    }
+    
+    public Long getSaleEndBefore() {
+        return saleEndBefore;
+    }
+    
+    public int getAffected() {
+        return affected;
+    }
+}
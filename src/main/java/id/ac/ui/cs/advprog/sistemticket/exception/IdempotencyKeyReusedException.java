@@ -0,0 +1,9 @@
+package id.ac.ui.cs.advprog.sistemticket.exception;
+
+// The same Idempotency-Key was sent again with a different request body
+public class IdempotencyKeyReusedException extends RuntimeException {
+    
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
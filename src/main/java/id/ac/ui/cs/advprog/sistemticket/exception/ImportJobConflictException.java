@@ -0,0 +1,9 @@
+package id.ac.ui.cs.advprog.sistemticket.exception;
+
+// The import job is still running, belongs to someone else or was started with another format
+public class ImportJobConflictException extends RuntimeException {
+    
+    public ImportJobConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package id.ac.ui.cs.advprog.sistemticket.exception;
+
+// Thrown when a ticket keeps being modified concurrently and the write cannot be applied
+public class TicketConflictException extends RuntimeException {
+    private final String ticketId;
+    
+    public TicketConflictException(String ticketId, String message, Throwable cause) {
+        super(message, cause);
+        this.ticketId = ticketId;
+    }
+    
+    public String getTicketId() {
+        return ticketId;
+    }
+}
@@ -0,0 +1,4 @@
+package id.ac.ui.cs.advprog.sistemticket.expiration;
+
+public record ExpirationDeadline(String ticketId, long saleEnd) {
+}
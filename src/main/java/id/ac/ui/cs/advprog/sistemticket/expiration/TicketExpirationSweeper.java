@@ -0,0 +1,229 @@
+package id.ac.ui.cs.advprog.sistemticket.expiration;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ExpirationMetrics;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.SchedulerLeaseRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.PriorityBlockingQueue;
+
+// Expires tickets once their sale has ended. The sale ends due within horizon-ms are kept in a priority
+// queue loaded from the database, and every tick expires the passed ones with one guarded UPDATE per
+// batch. Only the node holding the scheduler lease sweeps; a second sweeper would only repeat no-op UPDATEs.
+@Component
+public class TicketExpirationSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(TicketExpirationSweeper.class);
+    static final String LEASE_NAME = "ticket-expiration";
+    private static final Set<String> EXPIRABLE = TicketStatus.EXPIRED.allowedFrom();
+    
+    private final TicketRepository ticketRepository;
+    private final SchedulerLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExpirationMetrics metrics;
+    private final boolean enabled;
+    private final long leaseMs;
+    private final long horizonMs;
+    private final long refreshIntervalMs;
+    private final int maxLoaded;
+    private final int batchSize;
+    private final String owner = UUID.randomUUID().toString();
+    
+    private final PriorityBlockingQueue<ExpirationDeadline> deadlines =
+            new PriorityBlockingQueue<>(1024, Comparator.comparingLong(ExpirationDeadline::saleEnd));
+    // Every expirable sale end up to here is queued, -1 while this node does not hold the lease
+    private volatile long loadedUntil = -1;
+    private long nextRefreshAt;
+    private volatile long leaseUntil;
+    
+    public TicketExpirationSweeper(TicketRepository ticketRepository,
+                                   SchedulerLeaseRepository leaseRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   ExpirationMetrics metrics,
+                                   @Value("${ticket.expiration.enabled:true}") boolean enabled,
+                                   @Value("${ticket.expiration.lease-ms:30000}") long leaseMs,
+                                   @Value("${ticket.expiration.horizon-ms:600000}") long horizonMs,
+                                   @Value("${ticket.expiration.refresh-interval-ms:60000}") long refreshIntervalMs,
+                                   @Value("${ticket.expiration.max-loaded:10000}") int maxLoaded,
+                                   @Value("${ticket.expiration.batch-size:500}") int batchSize) {
+        this.ticketRepository = ticketRepository;
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.leaseMs = leaseMs;
+        this.horizonMs = horizonMs;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.maxLoaded = maxLoaded;
+        this.batchSize = batchSize;
+    }
+    
+    @Scheduled(fixedDelayString = "${ticket.expiration.tick-ms:1000}")
+    public void tick() {
+        if (enabled) {
+            sweep(System.currentTimeMillis());
+        }
+    }
+    
+    // Expires every queued ticket whose sale ended before now, returns how many rows changed
+    public int sweep(long now) {
+        if (!holdLease(now)) {
+            deadlines.clear();
+            loadedUntil = -1;
+            metrics.recordState(false, 0);
+            return 0;
+        }
+        
+        int due = 0;
+        int expired = 0;
+        long totalLagMs = 0;
+        long oldestLagMs = 0;
+        try {
+            boolean more = true;
+            while (more) {
+                if (loadedUntil < now || now >= nextRefreshAt) {
+                    refill(now);
+                }
+                int expiredBefore = expired;
+                List<ExpirationDeadline> batch = new ArrayList<>();
+                ExpirationDeadline next;
+                while ((next = deadlines.peek()) != null && next.saleEnd() < now) {
+                    // Only this thread polls, whatever comes out is no later than what was peeked
+                    next = deadlines.poll();
+                    batch.add(next);
+                    due++;
+                    totalLagMs += now - next.saleEnd();
+                    oldestLagMs = Math.max(oldestLagMs, now - next.saleEnd());
+                    if (batch.size() >= batchSize) {
+                        expired += expire(ticketIds(batch), now);
+                        batch.clear();
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    expired += expire(ticketIds(batch), now);
+                }
+                // A load cut short by max-loaded has been used up, the deadlines after it may be due as well
+                more = loadedUntil < now && expired > expiredBefore;
+            }
+        } catch (RuntimeException e) {
+            // Reloaded from the database on the next tick, so nothing dropped from the queue is lost
+            loadedUntil = -1;
+            logger.error("Failed to expire tickets, will retry", e);
+        }
+        
+        metrics.recordSweep(due, expired, totalLagMs, oldestLagMs);
+        metrics.recordState(true, deadlines.size());
+        return expired;
+    }
+    
+    // One guarded UPDATE for the batch and one event for the caches, a ticket that is no longer
+    // expirable or whose sale end moved past now is left as it is
+    public int expire(Collection<String> ticketIds, long now) {
+        Set<String> ids = new HashSet<>(ticketIds);
+        Integer expired = transactionTemplate.execute(status -> {
+            int rows = ticketRepository.expireByIds(ids, EXPIRABLE, now);
+            if (rows > 0) {
+                eventPublisher.publishEvent(TicketStatusChangedEvent.forExpiry(ids, EXPIRABLE, now, rows));
+            }
+            return rows;
+        });
+        return expired != null ? expired : 0;
+    }
+    
+    // Written on this node: queued now if it falls within what is loaded, later sale ends and
+    // tickets written on other nodes are picked up by the next refresh
+    public void track(Ticket ticket) {
+        if (ticket != null && ticket.getSaleEnd() != null && ticket.getSaleEnd() <= loadedUntil
+                && EXPIRABLE.contains(ticket.getStatus())) {
+            deadlines.add(new ExpirationDeadline(ticket.getId(), ticket.getSaleEnd()));
+        }
+    }
+    
+    public int getPendingDeadlines() {
+        return deadlines.size();
+    }
+    
+    // Gives the lease up on shutdown so another node takes over without waiting for it to run out
+    @PreDestroy
+    public void releaseLease() {
+        if (leaseUntil > System.currentTimeMillis()) {
+            try {
+                leaseRepository.release(LEASE_NAME, owner);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to release the expiration lease", e);
+            }
+            leaseUntil = 0;
+        }
+    }
+    
+    private void refill(long now) {
+        long until = now + horizonMs;
+        List<ExpirationDeadline> loaded = ticketRepository.findExpirationDeadlines(until, EXPIRABLE,
+                Limit.of(maxLoaded));
+        deadlines.clear();
+        deadlines.addAll(loaded);
+        loadedUntil = loaded.size() < maxLoaded ? until : loaded.get(loaded.size() - 1).saleEnd();
+        nextRefreshAt = now + refreshIntervalMs;
+    }
+    
+    // Renewed once half of it has run out, so the holder writes the lease row every lease-ms / 2
+    private boolean holdLease(long now) {
+        if (leaseUntil - leaseMs / 2 > now) {
+            return true;
+        }
+        
+        long until = now + leaseMs;
+        try {
+            boolean held = leaseRepository.renew(LEASE_NAME, owner, until, now) == 1 || createLease(until);
+            if (held && leaseUntil <= now) {
+                logger.info("Took the expiration lease as {}", owner);
+            }
+            leaseUntil = held ? until : 0;
+        } catch (RuntimeException e) {
+            // Kept until it runs out, a node that lost the database cannot sweep anyway
+            logger.error("Failed to renew the expiration lease", e);
+        }
+        return leaseUntil > now;
+    }
+    
+    private boolean createLease(long until) {
+        if (leaseRepository.existsById(LEASE_NAME)) {
+            return false;
+        }
+        try {
+            return leaseRepository.create(LEASE_NAME, owner, until) == 1;
+        } catch (DataIntegrityViolationException e) {
+            // Another node created it first
+            return false;
+        }
+    }
+    
+    private static Set<String> ticketIds(List<ExpirationDeadline> batch) {
+        Set<String> ids = new HashSet<>();
+        for (ExpirationDeadline deadline : batch) {
+            ids.add(deadline.ticketId());
+        }
+        return ids;
+    }
+}
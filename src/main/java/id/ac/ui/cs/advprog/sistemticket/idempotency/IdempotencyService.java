@@ -0,0 +1,191 @@
+package id.ac.ui.cs.advprog.sistemticket.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import id.ac.ui.cs.advprog.sistemticket.exception.IdempotencyKeyReusedException;
+import id.ac.ui.cs.advprog.sistemticket.model.IdempotencyRecord;
+import id.ac.ui.cs.advprog.sistemticket.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Runs a request at most once per Idempotency-Key. Successful results are kept in a bounded
+// TTL cache in front of the idempotency_keys table; duplicates arriving while the first
+// execution is still running wait for its result. Replays never write to the database.
+@Component
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final long ttlMs;
+    private final Cache<String, StoredResponse> cache;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${ticket.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                              @Value("${ticket.idempotency.cache-size:10000}") long cacheSize) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.ttlMs = ttlSeconds * 1000;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+    
+    // Must be called on the request thread, the key is scoped to the authenticated user
+    public String scopedKey(String idempotencyKey, String operation) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return null;
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String user = authentication != null ? authentication.getName() : "anonymous";
+        return sha256(user + "\n" + operation + "\n" + idempotencyKey);
+    }
+    
+    public <T> ResponseEntity<T> execute(String scopedKey, Object request, TypeReference<T> bodyType,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (scopedKey == null) {
+            return action.get();
+        }
+        String fingerprint = sha256(toJson(request));
+        
+        StoredResponse cached = cache.getIfPresent(scopedKey);
+        if (cached != null) {
+            return replay(cached, fingerprint, bodyType);
+        }
+        
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            return replay(await(running), fingerprint, bodyType);
+        }
+        
+        try {
+            // A result from before a restart or evicted from the cache is still in the table
+            Optional<StoredResponse> stored = recordRepository.findById(scopedKey)
+                    .filter(record -> record.getExpiresAt() > System.currentTimeMillis())
+                    .map(StoredResponse::of);
+            if (stored.isPresent()) {
+                cache.put(scopedKey, stored.get());
+                mine.complete(stored.get());
+                return replay(stored.get(), fingerprint, bodyType);
+            }
+            
+            ResponseEntity<T> response = action.get();
+            StoredResponse result = new StoredResponse(fingerprint, response.getStatusCode().value(),
+                    toJson(response.getBody()));
+            // Only successes are remembered, a failed request may be retried with the same key
+            if (response.getStatusCode().is2xxSuccessful()) {
+                store(scopedKey, result);
+            }
+            mine.complete(result);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${ticket.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = recordRepository.deleteExpired(System.currentTimeMillis());
+        if (purged > 0) {
+            logger.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+    
+    public long getCachedCount() {
+        return cache.estimatedSize();
+    }
+    
+    private void store(String scopedKey, StoredResponse result) {
+        long now = System.currentTimeMillis();
+        try {
+            recordRepository.save(new IdempotencyRecord(scopedKey, result.fingerprint(), result.statusCode(),
+                    result.body(), now, now + ttlMs));
+        } catch (RuntimeException e) {
+            // The request itself succeeded, a retry after a restart is the only thing at risk
+            logger.error("Failed to store idempotency key, keeping it in memory only", e);
+        }
+        cache.put(scopedKey, result);
+    }
+    
+    private static StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String fingerprint, TypeReference<T> bodyType) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key was already used for a different request");
+        }
+        try {
+            T body = stored.body() != null ? objectMapper.readValue(stored.body(), bodyType) : null;
+            return ResponseEntity.status(stored.statusCode())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+    
+    private String toJson(Object value) {
+        try {
+            return value != null ? objectMapper.writeValueAsString(value) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize idempotent request or response", e);
+        }
+    }
+    
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private record StoredResponse(String fingerprint, int statusCode, String body) {
+        private static StoredResponse of(IdempotencyRecord record) {
+            return new StoredResponse(record.getFingerprint(), record.getStatusCode(), record.getResponseBody());
+        }
+    }
+}
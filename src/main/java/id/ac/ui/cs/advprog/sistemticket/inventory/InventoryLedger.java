@@ -0,0 +1,238 @@
+package id.ac.ui.cs.advprog.sistemticket.inventory;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.PurchaseMode;
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Remaining quota of every ticket kept in memory for LEDGER mode. Purchases are accepted with a CAS
+// on the counter and the net decrements are written behind in batches. Only valid for a single instance.
+@Component
+public class InventoryLedger implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedger.class);
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${ticket.purchase.mode:ATOMIC}")
+    private PurchaseMode purchaseMode;
+    
+    @Value("${ticket.ledger.flush-batch-size:100}")
+    private int flushBatchSize;
+    
+    private final Map<String, LedgerEntry> entries = new ConcurrentHashMap<>();
+    
+    // Runs before the web server starts, so no purchase can see a half-built ledger
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (isEnabled()) {
+            rebuild();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return purchaseMode == PurchaseMode.LEDGER;
+    }
+    
+    public void rebuild() {
+        entries.clear();
+        for (Ticket ticket : ticketRepository.findAll()) {
+            entries.put(ticket.getId(), new LedgerEntry(ticket));
+        }
+        logger.info("Inventory ledger rebuilt with {} tickets", entries.size());
+    }
+    
+    public Ticket reserve(String id, int amount, Long currentTime) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Cannot purchase tickets: Amount must be positive");
+        }
+        
+        LedgerEntry entry = entry(id);
+        if (!entry.isOnSale(currentTime)) {
+            throw new IllegalArgumentException("Ticket is not available for purchase at this time");
+        }
+        
+        while (true) {
+            int current = entry.remaining.get();
+            if (current < amount) {
+                throw new IllegalArgumentException("Cannot purchase tickets: Not enough tickets available");
+            }
+            if (entry.remaining.compareAndSet(current, current - amount)) {
+                entry.pendingDecrement.addAndGet(amount);
+                return entry.view(current - amount);
+            }
+        }
+    }
+    
+    // Returns quota from a released hold, the flush then writes a net increment for the row
+    public void release(String id, int amount) {
+        LedgerEntry entry = entry(id);
+        entry.remaining.addAndGet(amount);
+        entry.pendingDecrement.addAndGet(-amount);
+    }
+    
+    // The ledger's count wins over the row while a decrement is still waiting to be flushed
+    public Integer remainingQuota(Ticket ticket) {
+        return remainingQuota(ticket.getId(), ticket.getRemainingQuota());
+    }
+    
+    public Integer remainingQuota(String id, Integer rowRemainingQuota) {
+        LedgerEntry entry = entries.get(id);
+        return entry != null ? Integer.valueOf(entry.remaining.get()) : rowRemainingQuota;
+    }
+    
+    // Refreshes the metadata of a ticket that was written through the repository
+    public void track(Ticket ticket) {
+        LedgerEntry existing = entries.putIfAbsent(ticket.getId(), new LedgerEntry(ticket));
+        if (existing != null) {
+            existing.snapshot = ticket.copy();
+        }
+    }
+    
+    public void forget(String id) {
+        entries.remove(id);
+    }
+    
+    // A bulk status change only swaps the status of the copies, the counts stay as they are
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(TicketStatusChangedEvent event) {
+        for (LedgerEntry entry : entries.values()) {
+            Ticket snapshot = entry.snapshot;
+            if (event.changes(snapshot)) {
+                Ticket changed = snapshot.copy();
+                changed.setStatus(event.getStatus());
+                entry.snapshot = changed;
+            }
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${ticket.ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (!isEnabled()) {
+            return;
+        }
+        
+        List<Map.Entry<String, Integer>> batch = new ArrayList<>();
+        for (Map.Entry<String, LedgerEntry> entry : entries.entrySet()) {
+            int delta = entry.getValue().pendingDecrement.getAndSet(0);
+            if (delta != 0) {
+                batch.add(Map.entry(entry.getKey(), delta));
+            }
+            if (batch.size() >= flushBatchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+    
+    private void writeBatch(List<Map.Entry<String, Integer>> batch) {
+        List<String> written = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Map.Entry<String, Integer> delta : batch) {
+                    if (ticketRepository.applyQuotaDecrement(delta.getKey(), delta.getValue()) == 1) {
+                        written.add(delta.getKey());
+                    }
+                }
+            });
+            // Each flushed UPDATE bumped the row's version, the views handed out from now on carry it too,
+            // otherwise a reader holding the row would take them for stale
+            for (String id : written) {
+                LedgerEntry entry = entries.get(id);
+                if (entry != null) {
+                    entry.advanceVersion();
+                }
+            }
+        } catch (RuntimeException e) {
+            // Put the decrements back so the next flush writes them again
+            for (Map.Entry<String, Integer> delta : batch) {
+                LedgerEntry entry = entries.get(delta.getKey());
+                if (entry != null) {
+                    entry.pendingDecrement.addAndGet(delta.getValue());
+                }
+            }
+            logger.error("Failed to flush {} ledger entries, will retry", batch.size(), e);
+        }
+    }
+    
+    private LedgerEntry entry(String id) {
+        LedgerEntry entry = entries.get(id);
+        if (entry != null) {
+            return entry;
+        }
+        
+        // Ticket created after the rebuild by something other than this service
+        Ticket ticket = ticketRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Ticket with ID " + id + " not found"));
+        LedgerEntry loaded = new LedgerEntry(ticket);
+        LedgerEntry existing = entries.putIfAbsent(id, loaded);
+        return existing != null ? existing : loaded;
+    }
+    
+    public int getPendingDecrement(String id) {
+        LedgerEntry entry = entries.get(id);
+        return entry != null ? entry.pendingDecrement.get() : 0;
+    }
+    
+    private static class LedgerEntry {
+        private final AtomicInteger remaining;
+        private final AtomicInteger pendingDecrement = new AtomicInteger();
+        private volatile Ticket snapshot;
+        
+        private LedgerEntry(Ticket ticket) {
+            this.snapshot = ticket.copy();
+            this.remaining = new AtomicInteger(ticket.getRemainingQuota());
+        }
+        
+        // Same rule as Ticket.isAvailableForPurchase, but against the ledger's count
+        private boolean isOnSale(Long currentTime) {
+            Ticket ticket = snapshot;
+            return currentTime != null
+                    && TicketStatus.AVAILABLE.getValue().equals(ticket.getStatus())
+                    && remaining.get() > 0
+                    && currentTime >= ticket.getSaleStart()
+                    && currentTime <= ticket.getSaleEnd();
+        }
+        
+        private void advanceVersion() {
+            Ticket advanced = snapshot.copy();
+            advanced.setVersion(advanced.getVersion() + 1);
+            snapshot = advanced;
+        }
+        
+        private Ticket view(int remainingQuota) {
+            Ticket view = snapshot.copy();
+            view.setRemainingQuota(remainingQuota);
+            return view;
+        }
+    }
+}
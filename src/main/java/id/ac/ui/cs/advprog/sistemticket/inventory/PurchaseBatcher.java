@@ -0,0 +1,245 @@
+package id.ac.ui.cs.advprog.sistemticket.inventory;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.PurchaseMode;
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.exception.TicketConflictException;
+import id.ac.ui.cs.advprog.sistemticket.metrics.BatchingMetrics;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Group commit for purchases of the same ticket: requests arriving within the wait window are
+// decided in arrival order against one read of the row and written with a single conditional UPDATE.
+// Only used in ENTITY and ATOMIC mode, LEDGER and SHARDED do not run a transaction per purchase.
+@Component
+public class PurchaseBatcher {
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseBatcher.class);
+    private static final int MAX_ATTEMPTS = 3;
+    
+    private final TicketRepository ticketRepository;
+    private final BatchingMetrics batchingMetrics;
+    private final boolean enabled;
+    private final long maxWaitMicros;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    
+    private final Map<String, TicketQueue> queues = new ConcurrentHashMap<>();
+    
+    public PurchaseBatcher(TicketRepository ticketRepository,
+                           BatchingMetrics batchingMetrics,
+                           @Value("${ticket.purchase.mode:ATOMIC}") PurchaseMode purchaseMode,
+                           @Value("${ticket.batching.enabled:false}") boolean batchingEnabled,
+                           @Value("${ticket.batching.max-wait-micros:2000}") long maxWaitMicros,
+                           @Value("${ticket.batching.max-batch-size:256}") int maxBatchSize,
+                           @Value("${ticket.batching.workers:4}") int workers) {
+        this.ticketRepository = ticketRepository;
+        this.batchingMetrics = batchingMetrics;
+        this.enabled = batchingEnabled
+                && (purchaseMode == PurchaseMode.ENTITY || purchaseMode == PurchaseMode.ATOMIC);
+        this.maxWaitMicros = maxWaitMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newScheduledThreadPool(workers);
+        batchingMetrics.setMaxBatchSize(maxBatchSize);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    // Blocks the caller until its batch has been written
+    public Ticket purchase(String id, int amount, Long currentTime) {
+        try {
+            return submit(id, amount, currentTime).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    public CompletableFuture<Ticket> submit(String id, int amount, Long currentTime) {
+        PendingPurchase purchase = new PendingPurchase(amount, currentTime, new CompletableFuture<>());
+        if (amount <= 0) {
+            purchase.result.completeExceptionally(
+                    new IllegalArgumentException("Cannot purchase tickets: Amount must be positive"));
+            return purchase.result;
+        }
+        
+        // A drain retires an empty queue and removes it, so an enqueue that lost that race takes a new one
+        TicketQueue queue;
+        int size;
+        do {
+            queue = queues.computeIfAbsent(id, key -> new TicketQueue());
+            size = queue.offer(purchase);
+        } while (size < 0);
+        
+        TicketQueue submitted = queue;
+        if (size >= maxBatchSize) {
+            // A full batch does not wait for the window
+            scheduler.execute(() -> drain(id, submitted));
+        } else if (queue.scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(() -> drain(id, submitted), maxWaitMicros, TimeUnit.MICROSECONDS);
+        }
+        return purchase.result;
+    }
+    
+    int queuedTickets() {
+        return queues.size();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+    
+    // One drain per ticket at a time, it keeps cutting batches until the queue is empty and then
+    // drops the queue, so IDs nobody is buying (or that do not exist) do not stay in the map
+    private void drain(String id, TicketQueue queue) {
+        synchronized (queue) {
+            queue.scheduled.set(false);
+            while (true) {
+                List<PendingPurchase> batch = new ArrayList<>();
+                PendingPurchase purchase;
+                while (batch.size() < maxBatchSize && (purchase = queue.pending.poll()) != null) {
+                    batch.add(purchase);
+                }
+                if (batch.isEmpty()) {
+                    if (queue.retireIfEmpty()) {
+                        queues.remove(id, queue);
+                        return;
+                    }
+                    continue;
+                }
+                queue.size.addAndGet(-batch.size());
+                
+                try {
+                    applyBatch(id, batch);
+                } catch (RuntimeException e) {
+                    logger.error("Failed to apply purchase batch of {} for ticket {}", batch.size(), id, e);
+                    batch.forEach(pending -> pending.result.completeExceptionally(e));
+                }
+            }
+        }
+    }
+    
+    void applyBatch(String id, List<PendingPurchase> batch) {
+        batchingMetrics.recordBatch(batch.size());
+        
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Ticket ticket = ticketRepository.findById(id).orElse(null);
+            if (ticket == null) {
+                RuntimeException notFound = new NoSuchElementException("Ticket with ID " + id + " not found");
+                batch.forEach(pending -> pending.result.completeExceptionally(notFound));
+                return;
+            }
+            
+            // Greedy in arrival order: a request that does not fit is sold out, later smaller ones may still fit
+            List<PendingPurchase> accepted = new ArrayList<>();
+            int available = ticket.getRemainingQuota();
+            int total = 0;
+            long latestTime = 0;
+            for (PendingPurchase pending : batch) {
+                if (!isOnSale(ticket, pending.currentTime)) {
+                    pending.result.completeExceptionally(
+                            new IllegalArgumentException("Ticket is not available for purchase at this time"));
+                } else if (pending.amount <= available - total) {
+                    accepted.add(pending);
+                    total += pending.amount;
+                    latestTime = Math.max(latestTime, pending.currentTime);
+                } else {
+                    pending.result.completeExceptionally(
+                            new IllegalArgumentException("Cannot purchase tickets: Not enough tickets available"));
+                    batchingMetrics.recordSoldOut(1);
+                }
+            }
+            
+            // The UPDATE re-checks status, window and quota, so a concurrent writer makes it match nothing
+            if (accepted.isEmpty() || ticketRepository.decrementRemainingQuota(id, total, latestTime) == 1) {
+                complete(ticket, accepted);
+                return;
+            }
+            
+            // Another writer changed the row between the read and the update, decide again on a fresh read
+            batch = accepted;
+        }
+        
+        // Losing every race says nothing about the quota, so the callers get a conflict instead of sold out
+        RuntimeException exhausted = new TicketConflictException(id,
+                "Ticket with ID " + id + " is being modified concurrently, gave up after "
+                        + MAX_ATTEMPTS + " attempts", null);
+        batch.forEach(pending -> pending.result.completeExceptionally(exhausted));
+    }
+    
+    // Each caller sees the remaining quota as it was right after its own purchase in the batch
+    private static void complete(Ticket ticket, List<PendingPurchase> accepted) {
+        int remaining = ticket.getRemainingQuota();
+        for (PendingPurchase pending : accepted) {
+            remaining -= pending.amount;
+            Ticket view = ticket.copy();
+            view.setRemainingQuota(remaining);
+            view.setVersion(ticket.getVersion() + 1);
+            pending.result.complete(view);
+        }
+    }
+    
+    // Same rule as Ticket.isAvailableForPurchase, quota is decided by the batch instead
+    private static boolean isOnSale(Ticket ticket, Long currentTime) {
+        return currentTime != null
+                && TicketStatus.AVAILABLE.getValue().equals(ticket.getStatus())
+                && currentTime >= ticket.getSaleStart()
+                && currentTime <= ticket.getSaleEnd();
+    }
+    
+    record PendingPurchase(int amount, Long currentTime, CompletableFuture<Ticket> result) {
+    }
+    
+    private static class TicketQueue {
+        private final Queue<PendingPurchase> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final Object retireLock = new Object();
+        private boolean retired;
+        
+        // Returns the queue size after adding, or -1 when the queue was already retired
+        private int offer(PendingPurchase purchase) {
+            synchronized (retireLock) {
+                if (retired) {
+                    return -1;
+                }
+                pending.add(purchase);
+                return size.incrementAndGet();
+            }
+        }
+        
+        // Re-checked under the same lock as offer, a purchase added after the last poll keeps the queue alive
+        private boolean retireIfEmpty() {
+            synchronized (retireLock) {
+                if (!pending.isEmpty()) {
+                    return false;
+                }
+                retired = true;
+                return true;
+            }
+        }
+    }
+}
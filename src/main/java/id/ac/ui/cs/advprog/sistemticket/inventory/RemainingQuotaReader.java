@@ -0,0 +1,39 @@
+package id.ac.ui.cs.advprog.sistemticket.inventory;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Picks the authoritative remaining quota for the active purchase mode
+@Component
+public class RemainingQuotaReader {
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    @Autowired
+    private ShardedQuotaService shardedQuotaService;
+    
+    public Integer remainingQuota(Ticket ticket) {
+        return remainingQuota(ticket.getId(), ticket.getRemainingQuota());
+    }
+    
+    public Integer remainingQuota(String id, Integer rowRemainingQuota) {
+        if (inventoryLedger.isEnabled()) {
+            return inventoryLedger.remainingQuota(id, rowRemainingQuota);
+        }
+        if (shardedQuotaService.isEnabled()) {
+            return shardedQuotaService.remainingQuota(id, rowRemainingQuota);
+        }
+        return rowRemainingQuota;
+    }
+    
+    // Projection rows are immutable, only copied when the row is not the authoritative count
+    public TicketView overlay(TicketView view) {
+        if (!inventoryLedger.isEnabled() && !shardedQuotaService.isEnabled()) {
+            return view;
+        }
+        return view.withRemainingQuota(remainingQuota(view.id(), view.remainingQuota()));
+    }
+}
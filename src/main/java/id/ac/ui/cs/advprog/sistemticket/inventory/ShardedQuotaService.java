@@ -0,0 +1,231 @@
+package id.ac.ui.cs.advprog.sistemticket.inventory;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.PurchaseMode;
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketQuotaBucket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketQuotaBucketRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// SHARDED purchase mode: a ticket's quota lives in several bucket rows and each purchase only
+// locks the bucket it decrements. The sum is cached for reads and written back to the ticket row.
+@Component
+public class ShardedQuotaService implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedQuotaService.class);
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private TicketQuotaBucketRepository bucketRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${ticket.purchase.mode:ATOMIC}")
+    private PurchaseMode purchaseMode;
+    
+    @Value("${ticket.sharding.buckets:8}")
+    private int bucketsPerTicket;
+    
+    @Value("${ticket.sharding.sum-cache-ttl-ms:1000}")
+    private long sumCacheTtlMs;
+    
+    private final Map<String, Integer> bucketCounts = new ConcurrentHashMap<>();
+    private final Map<String, CachedSum> cachedSums = new ConcurrentHashMap<>();
+    private final Set<String> dirtyTickets = ConcurrentHashMap.newKeySet();
+    
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (isEnabled()) {
+            for (String ticketId : bucketRepository.findShardedTicketIds()) {
+                bucketCounts.put(ticketId, bucketRepository.countByTicketId(ticketId));
+            }
+            logger.info("Sharded quota mode active for {} tickets", bucketCounts.size());
+        }
+    }
+    
+    public boolean isEnabled() {
+        return purchaseMode == PurchaseMode.SHARDED;
+    }
+    
+    public Ticket reserve(String id, int amount, Long currentTime) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Cannot purchase tickets: Amount must be positive");
+        }
+        
+        Ticket ticket = ticketRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Ticket with ID " + id + " not found"));
+        if (!isOnSale(ticket, currentTime)) {
+            throw new IllegalArgumentException("Ticket is not available for purchase at this time");
+        }
+        
+        int buckets = ensureBuckets(id);
+        if (!decrementAnyBucket(id, buckets, amount) && !reserveAcrossBuckets(id, amount)) {
+            refreshSum(id);
+            throw new IllegalArgumentException("Cannot purchase tickets: Not enough tickets available");
+        }
+        
+        dirtyTickets.add(id);
+        Ticket view = ticket.copy();
+        view.setRemainingQuota(adjustCachedSum(id, -amount));
+        return view;
+    }
+    
+    // Returns quota from a released hold to one bucket, or to the row if the ticket was never sharded
+    public void release(String id, int amount) {
+        Integer buckets = bucketCounts.get(id);
+        if (buckets == null) {
+            ticketRepository.incrementRemainingQuota(id, amount);
+            return;
+        }
+        
+        bucketRepository.incrementBucket(id, ThreadLocalRandom.current().nextInt(buckets), amount);
+        dirtyTickets.add(id);
+        adjustCachedSum(id, amount);
+    }
+    
+    // Cached sum of the buckets, the ticket row is used for tickets that were never sharded
+    public Integer remainingQuota(Ticket ticket) {
+        return remainingQuota(ticket.getId(), ticket.getRemainingQuota());
+    }
+    
+    public Integer remainingQuota(String id, Integer rowRemainingQuota) {
+        if (!bucketCounts.containsKey(id)) {
+            return rowRemainingQuota;
+        }
+        CachedSum cached = cachedSums.get(id);
+        if (cached == null || System.currentTimeMillis() - cached.loadedAt > sumCacheTtlMs) {
+            return refreshSum(id);
+        }
+        return cached.value;
+    }
+    
+    public void forget(String id) {
+        if (bucketCounts.remove(id) != null) {
+            bucketRepository.deleteAllByTicketId(id);
+        }
+        cachedSums.remove(id);
+        dirtyTickets.remove(id);
+    }
+    
+    // Writes the bucket sums back so queries on the tickets table still see a recent remaining quota
+    @Scheduled(fixedDelayString = "${ticket.sharding.reconcile-interval-ms:1000}")
+    public void reconcile() {
+        if (!isEnabled()) {
+            return;
+        }
+        
+        for (String id : new ArrayList<>(dirtyTickets)) {
+            dirtyTickets.remove(id);
+            try {
+                ticketRepository.updateRemainingQuota(id, refreshSum(id));
+            } catch (RuntimeException e) {
+                dirtyTickets.add(id);
+                logger.error("Failed to reconcile quota buckets of ticket {}", id, e);
+            }
+        }
+    }
+    
+    // Splits the ticket's remaining quota into buckets the first time it is purchased in this mode
+    private int ensureBuckets(String id) {
+        Integer count = bucketCounts.get(id);
+        if (count != null) {
+            return count;
+        }
+        
+        Integer created = transactionTemplate.execute(status -> {
+            // The row lock makes concurrent first purchases wait for one split instead of doing two
+            Ticket locked = ticketRepository.findByIdForUpdate(id)
+                    .orElseThrow(() -> new NoSuchElementException("Ticket with ID " + id + " not found"));
+            int existing = bucketRepository.countByTicketId(id);
+            if (existing > 0) {
+                return existing;
+            }
+            
+            int quota = locked.getRemainingQuota();
+            List<TicketQuotaBucket> buckets = new ArrayList<>();
+            for (int bucketNo = 0; bucketNo < bucketsPerTicket; bucketNo++) {
+                buckets.add(new TicketQuotaBucket(id, bucketNo, share(quota, bucketsPerTicket, bucketNo)));
+            }
+            bucketRepository.saveAll(buckets);
+            return bucketsPerTicket;
+        });
+        
+        bucketCounts.put(id, created);
+        return created;
+    }
+    
+    // Starts at a random bucket so concurrent buyers spread over different rows
+    private boolean decrementAnyBucket(String id, int buckets, int amount) {
+        int start = ThreadLocalRandom.current().nextInt(buckets);
+        for (int i = 0; i < buckets; i++) {
+            if (bucketRepository.decrementBucket(id, (start + i) % buckets, amount) == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // No single bucket can cover the amount: lock them all, take the amount and spread the rest evenly
+    private boolean reserveAcrossBuckets(String id, int amount) {
+        Boolean reserved = transactionTemplate.execute(status -> {
+            List<TicketQuotaBucket> buckets = bucketRepository.findAllByTicketIdForUpdate(id);
+            int total = buckets.stream().mapToInt(TicketQuotaBucket::getRemaining).sum();
+            if (buckets.isEmpty() || total < amount) {
+                return false;
+            }
+            
+            int left = total - amount;
+            for (int i = 0; i < buckets.size(); i++) {
+                buckets.get(i).setRemaining(share(left, buckets.size(), i));
+            }
+            bucketRepository.saveAll(buckets);
+            return true;
+        });
+        return Boolean.TRUE.equals(reserved);
+    }
+    
+    private static int share(int total, int buckets, int bucketNo) {
+        return total / buckets + (bucketNo < total % buckets ? 1 : 0);
+    }
+    
+    private int refreshSum(String id) {
+        int sum = (int) bucketRepository.sumRemaining(id);
+        cachedSums.put(id, new CachedSum(sum, System.currentTimeMillis()));
+        return sum;
+    }
+    
+    private int adjustCachedSum(String id, int delta) {
+        CachedSum updated = cachedSums.computeIfPresent(id,
+                (key, cached) -> new CachedSum(cached.value + delta, cached.loadedAt));
+        return updated != null ? updated.value : refreshSum(id);
+    }
+    
+    // Same rule as Ticket.isAvailableForPurchase, the row's remaining quota is not authoritative here
+    private static boolean isOnSale(Ticket ticket, Long currentTime) {
+        return currentTime != null
+                && TicketStatus.AVAILABLE.getValue().equals(ticket.getStatus())
+                && currentTime >= ticket.getSaleStart()
+                && currentTime <= ticket.getSaleEnd();
+    }
+    
+    private record CachedSum(int value, long loadedAt) {
+    }
+}
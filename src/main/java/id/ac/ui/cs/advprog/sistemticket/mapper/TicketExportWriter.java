@@ -0,0 +1,53 @@
+package id.ac.ui.cs.advprog.sistemticket.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketDto;
+import id.ac.ui.cs.advprog.sistemticket.enums.ExportFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+
+// Writes tickets one line at a time, nothing is kept once a line has been handed to the writer
+@Component
+public class TicketExportWriter {
+    
+    private static final String CSV_HEADER =
+            "id,eventId,type,price,quota,remainingQuota,description,saleStart,saleEnd,status,userId";
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    public void writeHeader(ExportFormat format, Writer writer) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+    }
+    
+    public void writeRow(ExportFormat format, TicketDto ticket, Writer writer) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(ticket));
+        } else {
+            writer.write(String.join(",",
+                    csv(ticket.getId()), csv(ticket.getEventId()), csv(ticket.getType()),
+                    csv(ticket.getPrice()), csv(ticket.getQuota()), csv(ticket.getRemainingQuota()),
+                    csv(ticket.getDescription()), csv(ticket.getSaleStart()), csv(ticket.getSaleEnd()),
+                    csv(ticket.getStatus()), csv(ticket.getUserId())));
+        }
+        writer.write('\n');
+    }
+    
+    // RFC 4180 quoting, only for values that need it
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
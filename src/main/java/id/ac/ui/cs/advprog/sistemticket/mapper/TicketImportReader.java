@@ -0,0 +1,210 @@
+package id.ac.ui.cs.advprog.sistemticket.mapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketCreationDto;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Reads an upload one record at a time, the counterpart of TicketExportWriter. Only the current record
+// is buffered, and one longer than max-line-length is reported and skipped without being kept
+@Component
+public class TicketImportReader {
+    
+    private static final List<String> CSV_COLUMNS = List.of(
+            "id", "eventId", "type", "price", "quota", "description", "saleStart", "saleEnd", "userId");
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of(
+            "eventId", "type", "price", "quota", "saleStart", "saleEnd");
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${ticket.import.max-line-length:65536}")
+    private int maxLineLength;
+    
+    // A CSV header is read and checked here, so a wrong header fails before anything is written
+    public Records open(ImportFormat format, Reader reader) throws IOException {
+        Records records = new Records(format, new BufferedReader(reader));
+        if (format == ImportFormat.CSV) {
+            records.readHeader();
+        }
+        return records;
+    }
+    
+    public final class Records {
+        private final ImportFormat format;
+        private final Reader reader;
+        private final StringBuilder buffer = new StringBuilder();
+        private String[] columns;
+        private long line;
+        private boolean tooLong;
+        
+        private Records(ImportFormat format, Reader reader) {
+            this.format = format;
+            this.reader = reader;
+        }
+        
+        // Physical lines read so far
+        public long getLine() {
+            return line;
+        }
+        
+        // Next non-blank record, null once the upload has been read to the end
+        public TicketImportRecord next() throws IOException {
+            while (true) {
+                long start = line + 1;
+                if (!readRecord()) {
+                    return null;
+                }
+                if (tooLong) {
+                    return TicketImportRecord.failed(start, line, "Line is longer than " + maxLineLength + " characters");
+                }
+                if (!buffer.toString().isBlank()) {
+                    return parse(start);
+                }
+            }
+        }
+        
+        // Reads past every line up to and including lastLine without parsing it, for a resumed upload
+        public void skipThrough(long lastLine) throws IOException {
+            while (line < lastLine && readRecord()) {
+                // Nothing to do, the record is dropped
+            }
+        }
+        
+        private void readHeader() throws IOException {
+            if (!readRecord() || tooLong || buffer.toString().isBlank()) {
+                throw new IllegalArgumentException("CSV header is missing");
+            }
+            Map<String, String> known = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            CSV_COLUMNS.forEach(column -> known.put(column, column));
+            List<String> names = splitCsv(buffer);
+            columns = new String[names.size()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = known.get(names.get(i).trim());
+                if (columns[i] == null) {
+                    throw new IllegalArgumentException("Unknown CSV column: " + names.get(i));
+                }
+            }
+            for (String required : REQUIRED_CSV_COLUMNS) {
+                if (!List.of(columns).contains(required)) {
+                    throw new IllegalArgumentException("CSV column " + required + " is missing");
+                }
+            }
+        }
+        
+        private TicketImportRecord parse(long start) {
+            if (format == ImportFormat.NDJSON) {
+                try {
+                    return TicketImportRecord.parsed(start, line,
+                            objectMapper.readValue(buffer.toString(), TicketCreationDto.class));
+                } catch (JsonProcessingException e) {
+                    return TicketImportRecord.failed(start, line, "Malformed JSON: " + e.getOriginalMessage());
+                }
+            }
+            
+            List<String> values = splitCsv(buffer);
+            if (values.size() != columns.length) {
+                return TicketImportRecord.failed(start, line,
+                        "Expected " + columns.length + " columns, found " + values.size());
+            }
+            TicketCreationDto ticket = new TicketCreationDto();
+            for (int i = 0; i < columns.length; i++) {
+                String value = values.get(i).isEmpty() ? null : values.get(i);
+                try {
+                    set(ticket, columns[i], value);
+                } catch (NumberFormatException e) {
+                    return TicketImportRecord.failed(start, line, "Invalid " + columns[i] + ": " + value);
+                }
+            }
+            return TicketImportRecord.parsed(start, line, ticket);
+        }
+        
+        // One record into buffer, a CSV record ends at the first line break outside quotes. False at the end
+        private boolean readRecord() throws IOException {
+            buffer.setLength(0);
+            tooLong = false;
+            boolean quoted = false;
+            int c = reader.read();
+            if (c < 0) {
+                return false;
+            }
+            while (c >= 0) {
+                if (c == '\n' && !quoted) {
+                    break;
+                }
+                if (c == '\n') {
+                    line++;
+                }
+                if (c == '"' && format == ImportFormat.CSV) {
+                    quoted = !quoted;
+                }
+                if (buffer.length() < maxLineLength) {
+                    buffer.append((char) c);
+                } else {
+                    tooLong = true;
+                }
+                c = reader.read();
+            }
+            line++;
+            if (buffer.length() > 0 && buffer.charAt(buffer.length() - 1) == '\r') {
+                buffer.setLength(buffer.length() - 1);
+            }
+            return true;
+        }
+    }
+    
+    private static void set(TicketCreationDto ticket, String column, String value) {
+        switch (column) {
+            case "id" -> ticket.setId(value);
+            case "eventId" -> ticket.setEventId(value);
+            case "type" -> ticket.setType(value);
+            case "price" -> ticket.setPrice(value != null ? Double.valueOf(value) : null);
+            case "quota" -> ticket.setQuota(value != null ? Integer.valueOf(value) : null);
+            case "description" -> ticket.setDescription(value);
+            case "saleStart" -> ticket.setSaleStart(value != null ? Long.valueOf(value) : null);
+            case "saleEnd" -> ticket.setSaleEnd(value != null ? Long.valueOf(value) : null);
+            case "userId" -> ticket.setUserId(value);
+            default -> throw new IllegalStateException("Unmapped CSV column: " + column);
+        }
+    }
+    
+    // RFC 4180, the same quoting TicketExportWriter writes
+    private static List<String> splitCsv(CharSequence record) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
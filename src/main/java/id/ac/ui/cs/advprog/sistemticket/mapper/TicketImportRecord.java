@@ -0,0 +1,16 @@
+package id.ac.ui.cs.advprog.sistemticket.mapper;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketCreationDto;
+
+// One record of an upload. line is where it starts and lastLine where it ends, which differ only for
+// a CSV value spanning lines; error is set instead of ticket when the record could not be parsed
+public record TicketImportRecord(long line, long lastLine, TicketCreationDto ticket, String error) {
+    
+    public static TicketImportRecord parsed(long line, long lastLine, TicketCreationDto ticket) {
+        return new TicketImportRecord(line, lastLine, ticket, null);
+    }
+    
+    public static TicketImportRecord failed(long line, long lastLine, String error) {
+        return new TicketImportRecord(line, lastLine, null, error);
+    }
+}
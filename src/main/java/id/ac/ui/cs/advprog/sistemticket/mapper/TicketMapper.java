@@ -2,12 +2,28 @@ package id.ac.ui.cs.advprog.sistemticket.mapper;
 
 import id.ac.ui.cs.advprog.sistemticket.dto.TicketCreationDto;
 import id.ac.ui.cs.advprog.sistemticket.dto.TicketDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketHoldDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketImportErrorDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketImportJobDto;
 import id.ac.ui.cs.advprog.sistemticket.dto.TicketUpdateDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+import id.ac.ui.cs.advprog.sistemticket.inventory.RemainingQuotaReader;
 import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketHold;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportError;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportJob;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Component
 public class TicketMapper {
+    
+    @Autowired(required = false)
+    private RemainingQuotaReader remainingQuotaReader;
 
     public TicketDto toDto(Ticket ticket) {
         if (ticket == null) {
@@ -20,7 +36,7 @@ public class TicketMapper {
         dto.setType(ticket.getType());
         dto.setPrice(ticket.getPrice());
         dto.setQuota(ticket.getQuota());
-        dto.setRemainingQuota(ticket.getRemainingQuota());
+        dto.setRemainingQuota(remainingQuota(ticket));
         dto.setDescription(ticket.getDescription());
         dto.setSaleStart(ticket.getSaleStart());
         dto.setSaleEnd(ticket.getSaleEnd());
@@ -30,12 +46,61 @@ public class TicketMapper {
         return dto;
     }
     
+    // Projection rows already have the DTO's shape, only the remaining quota may need replacing
+    public TicketView toView(TicketView view) {
+        if (view == null || remainingQuotaReader == null) {
+            return view;
+        }
+        return remainingQuotaReader.overlay(view);
+    }
+    
+    public TicketHoldDto toHoldDto(TicketHold hold, long currentTime) {
+        if (hold == null) {
+            return null;
+        }
+        
+        TicketHoldDto dto = new TicketHoldDto();
+        dto.setHoldId(hold.getId());
+        dto.setTicketId(hold.getTicketId());
+        dto.setAmount(hold.getAmount());
+        dto.setExpiresAt(hold.getExpiresAt());
+        dto.setTtlSeconds(Math.max(0, (hold.getExpiresAt() - currentTime) / 1000));
+        
+        return dto;
+    }
+    
+    public TicketImportJobDto toImportJobDto(TicketImportJob job) {
+        if (job == null) {
+            return null;
+        }
+        return new TicketImportJobDto(job.getId(), job.getFormat(), job.getStatus(), job.getCommittedLine(),
+                job.getCreated(), job.getDuplicates(), job.getFailed(), job.getError(),
+                job.getCreatedAt(), job.getUpdatedAt());
+    }
+    
+    public TicketImportErrorDto toImportErrorDto(TicketImportError error) {
+        if (error == null) {
+            return null;
+        }
+        return new TicketImportErrorDto(error.getLine(), error.getTicketId(),
+                BatchItemStatus.valueOf(error.getStatus()), error.getMessage());
+    }
+    
+    // In LEDGER and SHARDED mode the row can lag behind the authoritative count
+    private Integer remainingQuota(Ticket ticket) {
+        if (remainingQuotaReader != null) {
+            return remainingQuotaReader.remainingQuota(ticket);
+        }
+        return ticket.getRemainingQuota();
+    }
+    
     public Ticket toEntity(TicketCreationDto dto) {
         if (dto == null) {
             return null;
         }
         
         return new Ticket.Builder()
+            .id(dto.getId() != null && !dto.getId().isBlank() ? dto.getId() : null)
             .eventId(dto.getEventId())
             .type(dto.getType())
             .price(dto.getPrice())
@@ -47,6 +112,53 @@ public class TicketMapper {
             .build();
     }
     
+    // The fields the client sent, keyed by Ticket attribute and checked like the setters would.
+    // PUT /{id} writes them with one targeted UPDATE instead of loading and saving the whole row
+    public Map<String, Object> toChanges(TicketUpdateDto dto) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (dto == null) {
+            return changes;
+        }
+        
+        if (dto.getType() != null) {
+            if (!Ticket.isValidType(dto.getType())) {
+                throw new IllegalArgumentException("Invalid ticket type: " + dto.getType());
+            }
+            changes.put("type", dto.getType());
+        }
+        
+        if (dto.getPrice() != null) {
+            if (dto.getPrice() < 0) {
+                throw new IllegalArgumentException("Price cannot be negative");
+            }
+            changes.put("price", dto.getPrice());
+        }
+        
+        if (dto.getQuota() != null) {
+            if (dto.getQuota() <= 0) {
+                throw new IllegalArgumentException("Quota must be positive");
+            }
+            changes.put("quota", dto.getQuota());
+        }
+        
+        if (dto.getDescription() != null) {
+            changes.put("description", dto.getDescription());
+        }
+        
+        if (dto.getSaleStart() != null) {
+            changes.put("saleStart", dto.getSaleStart());
+        }
+        
+        if (dto.getSaleEnd() != null) {
+            changes.put("saleEnd", dto.getSaleEnd());
+        }
+        
+        if (dto.getSaleStart() != null && dto.getSaleEnd() != null && dto.getSaleEnd() <= dto.getSaleStart()) {
+            throw new IllegalArgumentException("Sale end must be after sale start");
+        }
+        return changes;
+    }
+    
     public void updateEntityFromDto(TicketUpdateDto dto, Ticket ticket) {
         if (dto == null || ticket == null) {
             return;
@@ -0,0 +1,64 @@
+package id.ac.ui.cs.advprog.sistemticket.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class BatchingMetrics {
+    
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder fullBatches = new LongAdder();
+    private final LongAdder soldOut = new LongAdder();
+    private final AtomicLong largestBatch = new AtomicLong();
+    private volatile int maxBatchSize = 1;
+    
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+    
+    public void recordBatch(int size) {
+        batches.increment();
+        requests.add(size);
+        if (size >= maxBatchSize) {
+            fullBatches.increment();
+        }
+        largestBatch.accumulateAndGet(size, Math::max);
+    }
+    
+    public void recordSoldOut(int count) {
+        soldOut.add(count);
+    }
+    
+    // Average batch size as a share of the configured maximum
+    public double getFillRatio() {
+        long batchCount = batches.sum();
+        return batchCount == 0 ? 0.0 : (double) requests.sum() / batchCount / maxBatchSize;
+    }
+    
+    public long getBatches() {
+        return batches.sum();
+    }
+    
+    public long getRequests() {
+        return requests.sum();
+    }
+    
+    public Map<String, Object> snapshot() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        long batchCount = batches.sum();
+        values.put("batches", batchCount);
+        values.put("requests", requests.sum());
+        values.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) requests.sum() / batchCount);
+        values.put("maxBatchSize", maxBatchSize);
+        values.put("fillRatio", getFillRatio());
+        values.put("fullBatches", fullBatches.sum());
+        values.put("largestBatch", largestBatch.get());
+        values.put("soldOut", soldOut.sum());
+        return values;
+    }
+}
@@ -0,0 +1,66 @@
+package id.ac.ui.cs.advprog.sistemticket.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class ContentionMetrics {
+    
+    private final Map<String, Counters> countersByTicket = new ConcurrentHashMap<>();
+    
+    public void recordConflict(String ticketId) {
+        counters(ticketId).conflicts.increment();
+    }
+    
+    public void recordRetry(String ticketId) {
+        counters(ticketId).retries.increment();
+    }
+    
+    public void recordExhausted(String ticketId) {
+        counters(ticketId).exhausted.increment();
+    }
+    
+    public long getConflicts(String ticketId) {
+        Counters counters = countersByTicket.get(ticketId);
+        return counters != null ? counters.conflicts.sum() : 0;
+    }
+    
+    public long getRetries(String ticketId) {
+        Counters counters = countersByTicket.get(ticketId);
+        return counters != null ? counters.retries.sum() : 0;
+    }
+    
+    // Tickets with the most conflicts first, so a hot row shows up at the top
+    public Map<String, Map<String, Long>> hotspots(int limit) {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        countersByTicket.entrySet().stream()
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<String, Counters> entry) -> entry.getValue().conflicts.sum()).reversed())
+                .limit(limit)
+                .forEach(entry -> result.put(entry.getKey(), entry.getValue().toMap()));
+        return result;
+    }
+    
+    private Counters counters(String ticketId) {
+        return countersByTicket.computeIfAbsent(ticketId, key -> new Counters());
+    }
+    
+    private static class Counters {
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder exhausted = new LongAdder();
+        
+        private Map<String, Long> toMap() {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("conflicts", conflicts.sum());
+            values.put("retries", retries.sum());
+            values.put("exhausted", exhausted.sum());
+            return values;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package id.ac.ui.cs.advprog.sistemticket.metrics;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class ExecutorMetrics {
+    
+    private final Map<String, ThreadPoolTaskExecutor> executors = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> callerRuns = new ConcurrentHashMap<>();
+    
+    public void register(String name, ThreadPoolTaskExecutor executor) {
+        executors.put(name, executor);
+        rejections.putIfAbsent(name, new LongAdder());
+        callerRuns.putIfAbsent(name, new LongAdder());
+    }
+    
+    public void recordRejection(String name) {
+        rejections.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+    
+    public void recordCallerRuns(String name) {
+        callerRuns.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+    
+    public long getRejections(String name) {
+        LongAdder counter = rejections.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+    
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        executors.keySet().stream().sorted().forEach(name -> {
+            ThreadPoolExecutor pool = executors.get(name).getThreadPoolExecutor();
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("activeThreads", pool.getActiveCount());
+            values.put("poolSize", pool.getPoolSize());
+            values.put("maxPoolSize", pool.getMaximumPoolSize());
+            values.put("queueDepth", pool.getQueue().size());
+            values.put("queueRemainingCapacity", pool.getQueue().remainingCapacity());
+            values.put("completedTasks", pool.getCompletedTaskCount());
+            values.put("rejections", getRejections(name));
+            values.put("callerRuns", callerRuns.get(name).sum());
+            result.put(name, values);
+        });
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package id.ac.ui.cs.advprog.sistemticket.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Expiry lag is how long after its sale end a ticket was actually expired
+@Component
+public class ExpirationMetrics {
+    
+    private final LongAdder sweeps = new LongAdder();
+    private final LongAdder deadlines = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder totalLagMs = new LongAdder();
+    private final AtomicLong largestSweep = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+    private volatile int lastSweepExpired;
+    private volatile long lastLagMs;
+    private volatile int pendingDeadlines;
+    private volatile boolean leaseHeld;
+    
+    // One sweep, the lags are summed over the deadlines it handled and oldestLagMs is the largest of them
+    public void recordSweep(int dueDeadlines, int expiredRows, long sweepLagMs, long oldestLagMs) {
+        sweeps.increment();
+        deadlines.add(dueDeadlines);
+        expired.add(expiredRows);
+        totalLagMs.add(sweepLagMs);
+        largestSweep.accumulateAndGet(expiredRows, Math::max);
+        lastSweepExpired = expiredRows;
+        if (dueDeadlines > 0) {
+            lastLagMs = oldestLagMs;
+            maxLagMs.accumulateAndGet(oldestLagMs, Math::max);
+        }
+    }
+    
+    public void recordState(boolean leaseHeld, int pendingDeadlines) {
+        this.leaseHeld = leaseHeld;
+        this.pendingDeadlines = pendingDeadlines;
+    }
+    
+    public long getExpired() {
+        return expired.sum();
+    }
+    
+    public long getMaxLagMs() {
+        return maxLagMs.get();
+    }
+    
+    public Map<String, Object> snapshot() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        long sweepCount = sweeps.sum();
+        long expiredCount = expired.sum();
+        long deadlineCount = deadlines.sum();
+        values.put("leaseHeld", leaseHeld);
+        values.put("pendingDeadlines", pendingDeadlines);
+        values.put("sweeps", sweepCount);
+        values.put("expired", expiredCount);
+        values.put("averageExpiredPerSweep", sweepCount == 0 ? 0.0 : (double) expiredCount / sweepCount);
+        values.put("lastSweepExpired", lastSweepExpired);
+        values.put("largestSweep", largestSweep.get());
+        values.put("deadlines", deadlineCount);
+        values.put("averageLagMs", deadlineCount == 0 ? 0.0 : (double) totalLagMs.sum() / deadlineCount);
+        values.put("lastLagMs", lastLagMs);
+        values.put("maxLagMs", maxLagMs.get());
+        return values;
+    }
+}
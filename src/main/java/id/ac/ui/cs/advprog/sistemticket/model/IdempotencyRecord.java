@@ -0,0 +1,72 @@
+package id.ac.ui.cs.advprog.sistemticket.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Stored outcome of a request made with an Idempotency-Key, replayed for retries of the same request
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_expires", columnList = "expiresAt"))
+public class IdempotencyRecord {
+    
+    // SHA-256 of user, operation and client key
+    @Id
+    @Column(length = 64)
+    private String id;
+    
+    // SHA-256 of the request body, a reused key with a different body is rejected
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+    
+    @Column(nullable = false)
+    private Integer statusCode;
+    
+    @Column(columnDefinition = "text")
+    private String responseBody;
+    
+    @Column(nullable = false)
+    private Long createdAt;
+    
+    @Column(nullable = false)
+    private Long expiresAt;
+    
+    // Default constructor required by JPA
+    public IdempotencyRecord() {
+    }
+    
+    public IdempotencyRecord(String id, String fingerprint, int statusCode, String responseBody,
+                             long createdAt, long expiresAt) {
+        this.id = id;
+        this.fingerprint = fingerprint;
+        this.statusCode = statusCode;
+        this.responseBody = responseBody;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getFingerprint() {
+        return fingerprint;
+    }
+    
+    public Integer getStatusCode() {
+        return statusCode;
+    }
+    
+    public String getResponseBody() {
+        return responseBody;
+    }
+    
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+    
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,43 @@
+package id.ac.ui.cs.advprog.sistemticket.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Row per background job that must run on one node at a time, held by owner until expiresAt
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+    
+    @Id
+    private String name;
+    
+    @Column(nullable = false)
+    private String owner;
+    
+    @Column(nullable = false)
+    private Long expiresAt;
+    
+    // Default constructor required by JPA
+    public SchedulerLease() {
+    }
+    
+    public SchedulerLease(String name, String owner, long expiresAt) {
+        this.name = name;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -1,12 +1,17 @@
 package id.ac.ui.cs.advprog.sistemticket.model;
 
 import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.search.TicketSearchListener;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.Arrays;
 import java.util.HashSet;
@@ -14,7 +19,16 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "tickets")
+// Mirrors db/migration/V2, where idx_tickets_on_sale is partial on remaining_quota > 0
+@Table(name = "tickets", indexes = {
+        @Index(name = "idx_tickets_event_id", columnList = "eventId, id"),
+        @Index(name = "idx_tickets_user_id", columnList = "userId"),
+        @Index(name = "idx_tickets_type", columnList = "type"),
+        @Index(name = "idx_tickets_on_sale", columnList = "status, saleStart, saleEnd")
+})
+@EntityListeners(TicketSearchListener.class)
+// UPDATEs list only the changed columns, so a purchase does not rewrite the TEXT description
+@DynamicUpdate
 public class Ticket {
     // Valid ticket types
     private static final Set<String> VALID_TYPES = new HashSet<>(
@@ -54,6 +68,11 @@ public class Ticket {
     @Column
     private String userId;
     
+    // Optimistic locking, every write checks and bumps this
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+    
     // Default constructor required by JPA
     public Ticket() {
         this.id = UUID.randomUUID().toString();
@@ -103,6 +122,10 @@ public class Ticket {
                 .status(status));
     }
     
+    public static boolean isValidType(String type) {
+        return type != null && VALID_TYPES.contains(type);
+    }
+    
     // Add validation methods to the main class
     private void validateTicketType(String type) {
         if (type == null || !VALID_TYPES.contains(type)) {
@@ -295,6 +318,24 @@ public class Ticket {
                currentTime <= saleEnd;
     }
     
+    // Detached copy of every column, safe to hand out from in-memory structures
+    public Ticket copy() {
+        Ticket copy = new Ticket();
+        copy.id = this.id;
+        copy.eventId = this.eventId;
+        copy.type = this.type;
+        copy.price = this.price;
+        copy.quota = this.quota;
+        copy.remainingQuota = this.remainingQuota;
+        copy.description = this.description;
+        copy.saleStart = this.saleStart;
+        copy.saleEnd = this.saleEnd;
+        copy.status = this.status;
+        copy.userId = this.userId;
+        copy.version = this.version;
+        return copy;
+    }
+    
     // Getters and setters
     public String getId() {
         return id;
@@ -391,4 +432,12 @@ public class Ticket {
     public void setUserId(String userId) {
         this.userId = userId;
     }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,73 @@
+package id.ac.ui.cs.advprog.sistemticket.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.util.UUID;
+
+// Quota set aside for a buyer until the hold is confirmed, cancelled or expires
+@Entity
+@Table(name = "ticket_holds", indexes = @Index(name = "idx_ticket_hold_expires", columnList = "expiresAt"))
+public class TicketHold {
+    
+    @Id
+    private String id;
+    
+    @Column(nullable = false)
+    private String ticketId;
+    
+    @Column(nullable = false)
+    private Integer amount;
+    
+    private String userId;
+    
+    @Column(nullable = false)
+    private Long createdAt;
+    
+    @Column(nullable = false)
+    private Long expiresAt;
+    
+    // Default constructor required by JPA
+    public TicketHold() {
+    }
+    
+    public TicketHold(String ticketId, int amount, String userId, long createdAt, long expiresAt) {
+        this.id = UUID.randomUUID().toString();
+        this.ticketId = ticketId;
+        this.amount = amount;
+        this.userId = userId;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+    
+    public boolean isExpired(long currentTime) {
+        return currentTime >= expiresAt;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getTicketId() {
+        return ticketId;
+    }
+    
+    public Integer getAmount() {
+        return amount;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+    
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+}
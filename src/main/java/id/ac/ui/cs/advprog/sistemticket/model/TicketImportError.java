@@ -0,0 +1,71 @@
+package id.ac.ui.cs.advprog.sistemticket.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.util.UUID;
+
+// One rejected line of an import, stored with the chunk it belongs to instead of being kept in memory
+@Entity
+@Table(name = "ticket_import_errors", indexes = @Index(name = "idx_ticket_import_errors_job", columnList = "jobId, line"))
+public class TicketImportError {
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+    
+    @Id
+    private String id;
+    
+    @Column(nullable = false)
+    private String jobId;
+    
+    @Column(nullable = false)
+    private Long line;
+    
+    private String ticketId;
+    
+    @Column(nullable = false)
+    private String status;
+    
+    @Column(length = MAX_MESSAGE_LENGTH)
+    private String message;
+    
+    // Default constructor required by JPA
+    public TicketImportError() {
+    }
+    
+    public TicketImportError(String jobId, long line, String ticketId, String status, String message) {
+        this.id = UUID.randomUUID().toString();
+        this.jobId = jobId;
+        this.line = line;
+        this.ticketId = ticketId;
+        this.status = status;
+        this.message = message != null && message.length() > MAX_MESSAGE_LENGTH
+                ? message.substring(0, MAX_MESSAGE_LENGTH) : message;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public Long getLine() {
+        return line;
+    }
+    
+    public String getTicketId() {
+        return ticketId;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+}
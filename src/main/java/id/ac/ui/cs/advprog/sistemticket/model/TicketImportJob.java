@@ -0,0 +1,101 @@
+package id.ac.ui.cs.advprog.sistemticket.model;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportJobStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Progress of one streaming import. committedLine and the counts only move together with the
+// chunk they describe, so a resumed upload carries on right after the last stored line
+@Entity
+@Table(name = "ticket_import_jobs")
+public class TicketImportJob {
+    
+    @Id
+    private String id;
+    
+    @Column(nullable = false)
+    private String owner;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportFormat format;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportJobStatus status;
+    
+    @Column(nullable = false)
+    private Long committedLine;
+    
+    @Column(nullable = false)
+    private Long created;
+    
+    @Column(nullable = false)
+    private Long duplicates;
+    
+    @Column(nullable = false)
+    private Long failed;
+    
+    @Column(length = 1000)
+    private String error;
+    
+    @Column(nullable = false)
+    private Long createdAt;
+    
+    @Column(nullable = false)
+    private Long updatedAt;
+    
+    // Default constructor required by JPA
+    public TicketImportJob() {
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public ImportFormat getFormat() {
+        return format;
+    }
+    
+    public ImportJobStatus getStatus() {
+        return status;
+    }
+    
+    public Long getCommittedLine() {
+        return committedLine;
+    }
+    
+    public Long getCreated() {
+        return created;
+    }
+    
+    public Long getDuplicates() {
+        return duplicates;
+    }
+    
+    public Long getFailed() {
+        return failed;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+    
+    public Long getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,60 @@
+package id.ac.ui.cs.advprog.sistemticket.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// One slice of a ticket's quota in SHARDED purchase mode
+@Entity
+@Table(name = "ticket_quota_buckets", indexes = @Index(name = "idx_quota_bucket_ticket", columnList = "ticketId"))
+public class TicketQuotaBucket {
+    
+    @Id
+    private String id;
+    
+    @Column(nullable = false)
+    private String ticketId;
+    
+    @Column(nullable = false)
+    private Integer bucketNo;
+    
+    @Column(nullable = false)
+    private Integer remaining;
+    
+    // Default constructor required by JPA
+    public TicketQuotaBucket() {
+    }
+    
+    public TicketQuotaBucket(String ticketId, int bucketNo, int remaining) {
+        this.id = bucketId(ticketId, bucketNo);
+        this.ticketId = ticketId;
+        this.bucketNo = bucketNo;
+        this.remaining = remaining;
+    }
+    
+    public static String bucketId(String ticketId, int bucketNo) {
+        return ticketId + "#" + bucketNo;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getTicketId() {
+        return ticketId;
+    }
+    
+    public Integer getBucketNo() {
+        return bucketNo;
+    }
+    
+    public Integer getRemaining() {
+        return remaining;
+    }
+    
+    public void setRemaining(Integer remaining) {
+        this.remaining = remaining;
+    }
+}
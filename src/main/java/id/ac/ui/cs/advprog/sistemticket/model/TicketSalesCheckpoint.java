@@ -0,0 +1,76 @@
+package id.ac.ui.cs.advprog.sistemticket.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Last checkpointed sales figures of one ticket, the event summaries are rebuilt from these on startup
+@Entity
+@Table(name = "ticket_sales_checkpoints")
+public class TicketSalesCheckpoint {
+    
+    @Id
+    private String ticketId;
+    
+    @Column(nullable = false)
+    private String eventId;
+    
+    @Column(nullable = false)
+    private String type;
+    
+    @Column(nullable = false)
+    private Integer quota;
+    
+    @Column(nullable = false)
+    private Long sold;
+    
+    @Column(nullable = false)
+    private Double revenue;
+    
+    @Column(nullable = false)
+    private Long checkpointedAt;
+    
+    // Default constructor required by JPA
+    public TicketSalesCheckpoint() {
+    }
+    
+    public TicketSalesCheckpoint(String ticketId, String eventId, String type,
+                                 int quota, long sold, double revenue, long checkpointedAt) {
+        this.ticketId = ticketId;
+        this.eventId = eventId;
+        this.type = type;
+        this.quota = quota;
+        this.sold = sold;
+        this.revenue = revenue;
+        this.checkpointedAt = checkpointedAt;
+    }
+    
+    public String getTicketId() {
+        return ticketId;
+    }
+    
+    public String getEventId() {
+        return eventId;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public Integer getQuota() {
+        return quota;
+    }
+    
+    public Long getSold() {
+        return sold;
+    }
+    
+    public Double getRevenue() {
+        return revenue;
+    }
+    
+    public Long getCheckpointedAt() {
+        return checkpointedAt;
+    }
+}
@@ -0,0 +1,37 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import id.ac.ui.cs.advprog.sistemticket.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+    
+    // Renews our own lease or takes over one that ran out, 0 rows means another node holds it
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.expiresAt = :expiresAt " +
+           "WHERE l.name = :name AND (l.owner = :owner OR l.expiresAt < :now)")
+    int renew(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("expiresAt") long expiresAt,
+              @Param("now") long now);
+    
+    // A plain INSERT, two nodes creating the lease at once get a key violation instead of both winning
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_leases (name, owner, expires_at) VALUES (:name, :owner, :expiresAt)",
+           nativeQuery = true)
+    int create(@Param("name") String name,
+               @Param("owner") String owner,
+               @Param("expiresAt") long expiresAt);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = 0 WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,35 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import id.ac.ui.cs.advprog.sistemticket.model.TicketHold;
+import id.ac.ui.cs.advprog.sistemticket.summary.HeldQuota;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TicketHoldRepository extends JpaRepository<TicketHold, String> {
+    
+    // Holds still in the table, locked in ID order until the caller's transaction deletes them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM TicketHold h WHERE h.id IN :ids ORDER BY h.id")
+    List<TicketHold> findAllByIdForUpdate(@Param("ids") Collection<String> ids);
+    
+    // One statement for a whole batch of finished holds
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TicketHold h WHERE h.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<String> ids);
+    
+    // Quota taken by holds that are neither confirmed nor released yet, per ticket
+    @Query("SELECT new id.ac.ui.cs.advprog.sistemticket.summary.HeldQuota(h.ticketId, SUM(h.amount)) " +
+           "FROM TicketHold h GROUP BY h.ticketId")
+    List<HeldQuota> sumAmountByTicket();
+}
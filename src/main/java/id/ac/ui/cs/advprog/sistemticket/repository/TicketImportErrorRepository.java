@@ -0,0 +1,15 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportError;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TicketImportErrorRepository extends JpaRepository<TicketImportError, String> {
+    
+    // Keyset page by line number, served by idx_ticket_import_errors_job
+    List<TicketImportError> findByJobIdAndLineGreaterThanOrderByLine(String jobId, long line, Limit limit);
+}
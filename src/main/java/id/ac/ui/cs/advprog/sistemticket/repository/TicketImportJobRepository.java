@@ -0,0 +1,62 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportJobStatus;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+// Updates clear the persistence context, a job read before them is never handed out stale
+@Repository
+public interface TicketImportJobRepository extends JpaRepository<TicketImportJob, String> {
+    
+    // Takes the job for one more upload; a RUNNING job is only taken over once it has stopped reporting
+    // progress, so two uploads never write the same job at once. 0 rows when it cannot be taken
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TicketImportJob j SET j.status = :running, j.error = null, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.owner = :owner AND j.format = :format " +
+           "AND (j.status <> :running OR j.updatedAt < :staleBefore)")
+    int claim(@Param("id") String id,
+              @Param("owner") String owner,
+              @Param("format") ImportFormat format,
+              @Param("running") ImportJobStatus running,
+              @Param("now") long now,
+              @Param("staleBefore") long staleBefore);
+    
+    // A plain INSERT, so a job ID sent twice at once gives a key violation instead of two jobs
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO ticket_import_jobs (id, owner, format, status, committed_line, created, duplicates, " +
+                   "failed, created_at, updated_at) " +
+                   "VALUES (:id, :owner, :format, 'RUNNING', 0, 0, 0, 0, :now, :now)",
+           nativeQuery = true)
+    int create(@Param("id") String id,
+               @Param("owner") String owner,
+               @Param("format") String format,
+               @Param("now") long now);
+    
+    // Runs in the transaction that stores the chunk's error rows
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TicketImportJob j SET j.committedLine = :line, j.created = j.created + :created, " +
+           "j.duplicates = j.duplicates + :duplicates, j.failed = j.failed + :failed, j.updatedAt = :now " +
+           "WHERE j.id = :id")
+    int recordProgress(@Param("id") String id,
+                       @Param("line") long line,
+                       @Param("created") long created,
+                       @Param("duplicates") long duplicates,
+                       @Param("failed") long failed,
+                       @Param("now") long now);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TicketImportJob j SET j.status = :status, j.error = :error, j.updatedAt = :now WHERE j.id = :id")
+    int finish(@Param("id") String id,
+               @Param("status") ImportJobStatus status,
+               @Param("error") String error,
+               @Param("now") long now);
+}
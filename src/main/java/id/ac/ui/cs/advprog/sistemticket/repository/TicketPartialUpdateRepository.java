@@ -0,0 +1,10 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import java.util.Map;
+
+public interface TicketPartialUpdateRepository {
+    
+    // Sets only the given attributes and bumps the version with one UPDATE, nothing is read first.
+    // Returns 0 when the ticket does not exist or a new sale start or end would cross the stored one
+    int updateFields(String id, Map<String, Object> changes);
+}
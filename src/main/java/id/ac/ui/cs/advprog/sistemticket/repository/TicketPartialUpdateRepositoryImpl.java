@@ -0,0 +1,56 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class TicketPartialUpdateRepositoryImpl implements TicketPartialUpdateRepository {
+    // Columns a ticket edit may change, quota counters, status and ownership have their own writes
+    private static final Set<String> UPDATABLE = Set.of("type", "price", "quota", "description", "saleStart", "saleEnd");
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    @Transactional
+    public int updateFields(String id, Map<String, Object> changes) {
+        for (String attribute : changes.keySet()) {
+            if (!UPDATABLE.contains(attribute)) {
+                throw new IllegalArgumentException("Field cannot be updated: " + attribute);
+            }
+        }
+        
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Ticket> update = cb.createCriteriaUpdate(Ticket.class);
+        Root<Ticket> ticket = update.from(Ticket.class);
+        changes.forEach(update::set);
+        update.set(ticket.<Long>get("version"), cb.sum(ticket.<Long>get("version"), cb.literal(1L)));
+        
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.equal(ticket.get("id"), id));
+        // Only one end of the sale window is sent, the row must still end after it starts
+        if (changes.containsKey("saleStart") && !changes.containsKey("saleEnd")) {
+            where.add(cb.greaterThan(ticket.get("saleEnd"), (Long) changes.get("saleStart")));
+        }
+        if (changes.containsKey("saleEnd") && !changes.containsKey("saleStart")) {
+            where.add(cb.lessThan(ticket.get("saleStart"), (Long) changes.get("saleEnd")));
+        }
+        update.where(where.toArray(new Predicate[0]));
+        
+        // Same as clearAutomatically on the @Modifying queries, a managed copy would now be stale
+        entityManager.flush();
+        int rows = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return rows;
+    }
+}
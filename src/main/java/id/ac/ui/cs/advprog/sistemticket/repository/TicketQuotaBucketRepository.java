@@ -0,0 +1,55 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import id.ac.ui.cs.advprog.sistemticket.model.TicketQuotaBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface TicketQuotaBucketRepository extends JpaRepository<TicketQuotaBucket, String> {
+    
+    List<TicketQuotaBucket> findAllByTicketIdOrderByBucketNo(String ticketId);
+    
+    // Buckets are always locked in bucket order so two rebalances cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM TicketQuotaBucket b WHERE b.ticketId = :ticketId ORDER BY b.bucketNo")
+    List<TicketQuotaBucket> findAllByTicketIdForUpdate(@Param("ticketId") String ticketId);
+    
+    @Query("SELECT COALESCE(SUM(b.remaining), 0) FROM TicketQuotaBucket b WHERE b.ticketId = :ticketId")
+    long sumRemaining(@Param("ticketId") String ticketId);
+    
+    @Query("SELECT COUNT(b) FROM TicketQuotaBucket b WHERE b.ticketId = :ticketId")
+    int countByTicketId(@Param("ticketId") String ticketId);
+    
+    @Query("SELECT DISTINCT b.ticketId FROM TicketQuotaBucket b")
+    List<String> findShardedTicketIds();
+    
+    // Only locks the one bucket row, the other buckets of the ticket stay free
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TicketQuotaBucket b SET b.remaining = b.remaining - :amount " +
+           "WHERE b.ticketId = :ticketId AND b.bucketNo = :bucketNo AND b.remaining >= :amount")
+    int decrementBucket(@Param("ticketId") String ticketId,
+                        @Param("bucketNo") int bucketNo,
+                        @Param("amount") int amount);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TicketQuotaBucket b SET b.remaining = b.remaining + :amount " +
+           "WHERE b.ticketId = :ticketId AND b.bucketNo = :bucketNo")
+    int incrementBucket(@Param("ticketId") String ticketId,
+                        @Param("bucketNo") int bucketNo,
+                        @Param("amount") int amount);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TicketQuotaBucket b WHERE b.ticketId = :ticketId")
+    int deleteAllByTicketId(@Param("ticketId") String ticketId);
+}
@@ -1,15 +1,28 @@
 package id.ac.ui.cs.advprog.sistemticket.repository;
 
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.expiration.ExpirationDeadline;
 import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TicketRepository extends JpaRepository<Ticket, String> {
+public interface TicketRepository extends JpaRepository<Ticket, String>, TicketPartialUpdateRepository {
     
     List<Ticket> findAllByEventId(String eventId);
     
@@ -20,6 +33,160 @@ public interface TicketRepository extends JpaRepository<Ticket, String> {
     @Query("SELECT t FROM Ticket t WHERE t.status = 'AVAILABLE' AND t.remainingQuota > 0 AND :currentTime BETWEEN t.saleStart AND t.saleEnd")
     List<Ticket> findAllAvailable(@Param("currentTime") Long currentTime);
     
+    // Keyset pages ordered by ID: the first page passes an empty afterId, later pages the last ID
+    // they returned, so a deep page costs the same index range scan as the first one
+    @Query("SELECT t FROM Ticket t WHERE t.id > :afterId AND (:type IS NULL OR t.type = :type) " +
+           "AND (:status IS NULL OR t.status = :status) ORDER BY t.id")
+    List<Ticket> findPage(@Param("afterId") String afterId,
+                          @Param("type") String type,
+                          @Param("status") String status,
+                          Limit limit);
+    
+    @Query("SELECT COUNT(t) FROM Ticket t WHERE (:type IS NULL OR t.type = :type) " +
+           "AND (:status IS NULL OR t.status = :status)")
+    long countPage(@Param("type") String type, @Param("status") String status);
+    
+    List<Ticket> findByEventIdAndIdGreaterThanOrderByIdAsc(String eventId, String afterId, Limit limit);
+    
+    // Projections of the same pages, built straight from the result set without managed entities.
+    // The summary variants leave the TEXT description column out of the SELECT.
+    String FULL_VIEW = "SELECT new id.ac.ui.cs.advprog.sistemticket.dto.TicketView(t.id, t.eventId, t.type, " +
+            "t.price, t.quota, t.remainingQuota, t.description, t.saleStart, t.saleEnd, t.status, t.userId) ";
+    String SUMMARY_VIEW = "SELECT new id.ac.ui.cs.advprog.sistemticket.dto.TicketView(t.id, t.eventId, t.type, " +
+            "t.price, t.quota, t.remainingQuota, t.saleStart, t.saleEnd, t.status, t.userId) ";
+    String PAGE_WHERE = "FROM Ticket t WHERE t.id > :afterId AND (:type IS NULL OR t.type = :type) " +
+            "AND (:status IS NULL OR t.status = :status) ORDER BY t.id";
+    String EVENT_PAGE_WHERE = "FROM Ticket t WHERE t.eventId = :eventId AND t.id > :afterId ORDER BY t.id";
+    
+    @Query(FULL_VIEW + PAGE_WHERE)
+    List<TicketView> findViewPage(@Param("afterId") String afterId,
+                                  @Param("type") String type,
+                                  @Param("status") String status,
+                                  Limit limit);
+    
+    @Query(SUMMARY_VIEW + PAGE_WHERE)
+    List<TicketView> findSummaryPage(@Param("afterId") String afterId,
+                                     @Param("type") String type,
+                                     @Param("status") String status,
+                                     Limit limit);
+    
+    @Query(FULL_VIEW + EVENT_PAGE_WHERE)
+    List<TicketView> findViewPageByEventId(@Param("eventId") String eventId,
+                                           @Param("afterId") String afterId,
+                                           Limit limit);
+    
+    @Query(SUMMARY_VIEW + EVENT_PAGE_WHERE)
+    List<TicketView> findSummaryPageByEventId(@Param("eventId") String eventId,
+                                              @Param("afterId") String afterId,
+                                              Limit limit);
+    
+    long countByEventId(String eventId);
+    
+    @Query("SELECT t FROM Ticket t WHERE t.status = 'AVAILABLE' AND t.remainingQuota > 0 " +
+           "AND :currentTime BETWEEN t.saleStart AND t.saleEnd AND t.id > :afterId ORDER BY t.id")
+    List<Ticket> findAvailablePage(@Param("currentTime") Long currentTime,
+                                   @Param("afterId") String afterId,
+                                   Limit limit);
+    
+    @Query("SELECT COUNT(t) FROM Ticket t WHERE t.status = 'AVAILABLE' AND t.remainingQuota > 0 " +
+           "AND :currentTime BETWEEN t.saleStart AND t.saleEnd")
+    long countAvailable(@Param("currentTime") Long currentTime);
+    
+    // Forward-only cursors for exports, rows arrive in fetch-size chunks and are loaded read-only.
+    // The caller must consume them inside a transaction and detach each ticket once it is written.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT t FROM Ticket t ORDER BY t.id")
+    Stream<Ticket> streamAll();
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT t FROM Ticket t WHERE t.eventId = :eventId ORDER BY t.id")
+    Stream<Ticket> streamAllByEventId(@Param("eventId") String eventId);
+    
+    // Tickets that are on sale now or will be later, used to build the availability index
+    @Query("SELECT t FROM Ticket t WHERE t.status = 'AVAILABLE' AND t.saleEnd >= :currentTime")
+    List<Ticket> findAllOnSaleOrUpcoming(@Param("currentTime") Long currentTime);
+    
     @Query("SELECT t FROM Ticket t WHERE t.userId = :userId")
     List<Ticket> findAllByUserId(@Param("userId") String userId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Ticket t WHERE t.id = :id")
+    Optional<Ticket> findByIdForUpdate(@Param("id") String id);
+    
+    // Which of the given IDs are taken, reads only the primary key index
+    @Query("SELECT t.id FROM Ticket t WHERE t.id IN :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
+    
+    // Rows are locked in ID order, so two carts sharing tickets always queue up instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Ticket t WHERE t.id IN :ids ORDER BY t.id")
+    List<Ticket> findAllByIdForUpdate(@Param("ids") Collection<String> ids);
+    
+    // Set-based status changes, a row whose current status is not in fromStatuses is left as it is
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.status = :status, t.version = t.version + 1 " +
+           "WHERE t.eventId = :eventId AND t.status IN :fromStatuses")
+    int updateStatusByEventId(@Param("eventId") String eventId,
+                              @Param("status") String status,
+                              @Param("fromStatuses") Collection<String> fromStatuses);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.status = :status, t.version = t.version + 1 " +
+           "WHERE t.id IN :ids AND t.status IN :fromStatuses")
+    int updateStatusByIds(@Param("ids") Collection<String> ids,
+                          @Param("status") String status,
+                          @Param("fromStatuses") Collection<String> fromStatuses);
+    
+    // Next sale ends of tickets that can still expire, soonest first
+    @Query("SELECT new id.ac.ui.cs.advprog.sistemticket.expiration.ExpirationDeadline(t.id, t.saleEnd) " +
+           "FROM Ticket t WHERE t.saleEnd <= :until AND t.status IN :fromStatuses ORDER BY t.saleEnd")
+    List<ExpirationDeadline> findExpirationDeadlines(@Param("until") long until,
+                                                     @Param("fromStatuses") Collection<String> fromStatuses,
+                                                     Limit limit);
+    
+    // A ticket whose sale end was moved past now since it was queued is left on sale
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.status = 'EXPIRED', t.version = t.version + 1 " +
+           "WHERE t.id IN :ids AND t.status IN :fromStatuses AND t.saleEnd < :now")
+    int expireByIds(@Param("ids") Collection<String> ids,
+                    @Param("fromStatuses") Collection<String> fromStatuses,
+                    @Param("now") long now);
+    
+    // Checks availability and decrements the quota in a single statement, returns the affected row count
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.remainingQuota = t.remainingQuota - :amount, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND t.status = 'AVAILABLE' AND t.remainingQuota >= :amount " +
+           "AND :currentTime BETWEEN t.saleStart AND t.saleEnd")
+    int decrementRemainingQuota(@Param("id") String id,
+                                @Param("amount") int amount,
+                                @Param("currentTime") Long currentTime);
+    
+    // Unconditional decrement used to persist quota already accepted by the inventory ledger
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.remainingQuota = t.remainingQuota - :amount, t.version = t.version + 1 " +
+           "WHERE t.id = :id")
+    int applyQuotaDecrement(@Param("id") String id, @Param("amount") int amount);
+    
+    // Gives back quota from a released hold, never above the ticket's total quota
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.remainingQuota = CASE WHEN t.remainingQuota + :amount > t.quota " +
+           "THEN t.quota ELSE t.remainingQuota + :amount END, t.version = t.version + 1 WHERE t.id = :id")
+    int incrementRemainingQuota(@Param("id") String id, @Param("amount") int amount);
+    
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ticket t SET t.remainingQuota = :remainingQuota, t.version = t.version + 1 " +
+           "WHERE t.id = :id AND t.remainingQuota <> :remainingQuota")
+    int updateRemainingQuota(@Param("id") String id, @Param("remainingQuota") int remainingQuota);
 }
@@ -0,0 +1,9 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import id.ac.ui.cs.advprog.sistemticket.model.TicketSalesCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TicketSalesCheckpointRepository extends JpaRepository<TicketSalesCheckpoint, String> {
+}
@@ -0,0 +1,165 @@
+package id.ac.ui.cs.advprog.sistemticket.search;
+
+import java.util.Arrays;
+
+// Ascending doc IDs of one term with their term frequency, stored as varint (delta, tf) pairs. A skip
+// entry every SKIP_INTERVAL postings lets an intersection jump over whole blocks without decoding them,
+// and the block's highest tf and shortest doc bound the best score any of its docs can reach.
+final class PostingList {
+    static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+    static final int SKIP_INTERVAL = 64;
+    
+    private byte[] bytes = new byte[16];
+    private int length;
+    private int count;
+    private int lastDoc = -1;
+    
+    // Doc ID of the posting right before each block and the byte offset the block starts at
+    private int[] skipDocs = new int[4];
+    private int[] skipOffsets = new int[4];
+    private int[] blockMaxFrequency = new int[4];
+    private int[] blockMinLength = new int[4];
+    private int skips;
+    
+    // Doc IDs are handed out in increasing order, so postings are only ever appended
+    void add(int doc, int termFrequency, int docLength) {
+        if (doc <= lastDoc) {
+            throw new IllegalArgumentException("Doc " + doc + " is not after " + lastDoc);
+        }
+        if (count % SKIP_INTERVAL == 0) {
+            if (skips == skipDocs.length) {
+                skipDocs = Arrays.copyOf(skipDocs, skips * 2);
+                skipOffsets = Arrays.copyOf(skipOffsets, skips * 2);
+                blockMaxFrequency = Arrays.copyOf(blockMaxFrequency, skips * 2);
+                blockMinLength = Arrays.copyOf(blockMinLength, skips * 2);
+            }
+            skipDocs[skips] = lastDoc;
+            skipOffsets[skips] = length;
+            blockMaxFrequency[skips] = termFrequency;
+            blockMinLength[skips] = docLength;
+            skips++;
+        }
+        int block = skips - 1;
+        blockMaxFrequency[block] = Math.max(blockMaxFrequency[block], termFrequency);
+        blockMinLength[block] = Math.min(blockMinLength[block], docLength);
+        writeVarInt(doc - lastDoc);
+        writeVarInt(termFrequency);
+        lastDoc = doc;
+        count++;
+    }
+    
+    int count() {
+        return count;
+    }
+    
+    long sizeInBytes() {
+        return bytes.length + 16L * skipDocs.length;
+    }
+    
+    Cursor cursor() {
+        return new Cursor();
+    }
+    
+    // Block holding the first doc at or after target, every doc from target up to blockEnd(block) is in it
+    int blockAt(int target) {
+        int low = 0;
+        int high = skips - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (skipDocs[mid] < target) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+    
+    int blockEnd(int block) {
+        return block + 1 < skips ? skipDocs[block + 1] : lastDoc;
+    }
+    
+    int blockMaxFrequency(int block) {
+        return blockMaxFrequency[block];
+    }
+    
+    int blockMinLength(int block) {
+        return blockMinLength[block];
+    }
+    
+    // Drops dead docs and renumbers the rest, newDocs maps an old doc ID to its new one or -1
+    PostingList remap(int[] newDocs, int[] newLengths) {
+        PostingList remapped = new PostingList();
+        Cursor cursor = cursor();
+        for (int doc = cursor.nextDoc(); doc != NO_MORE_DOCS; doc = cursor.nextDoc()) {
+            if (newDocs[doc] >= 0) {
+                remapped.add(newDocs[doc], cursor.termFrequency(), newLengths[newDocs[doc]]);
+            }
+        }
+        return remapped;
+    }
+    
+    private void writeVarInt(int value) {
+        if (length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+    
+    // Readers hold the shard's read lock, so the list does not grow under a cursor
+    final class Cursor {
+        private int offset;
+        private int index;
+        private int doc = -1;
+        private int termFrequency;
+        
+        int termFrequency() {
+            return termFrequency;
+        }
+        
+        int nextDoc() {
+            if (index >= count) {
+                doc = NO_MORE_DOCS;
+                return doc;
+            }
+            doc += readVarInt();
+            termFrequency = readVarInt();
+            index++;
+            return doc;
+        }
+        
+        // First doc ID at or after target, later blocks whose preceding doc is still below it are skipped
+        int advance(int target) {
+            if (doc >= target) {
+                return doc;
+            }
+            int block = blockAt(target);
+            if (block * SKIP_INTERVAL > index) {
+                offset = skipOffsets[block];
+                doc = skipDocs[block];
+                index = block * SKIP_INTERVAL;
+            }
+            int next = nextDoc();
+            while (next < target) {
+                next = nextDoc();
+            }
+            return next;
+        }
+        
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
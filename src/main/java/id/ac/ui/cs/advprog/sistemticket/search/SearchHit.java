@@ -0,0 +1,15 @@
+package id.ac.ui.cs.advprog.sistemticket.search;
+
+import java.util.Comparator;
+
+// A ranked search result, also the keyset cursor for the page after it
+public record SearchHit(String ticketId, double score) {
+    
+    // Best score first, ties broken by ticket ID so the order is total
+    public static final Comparator<SearchHit> RANKING = Comparator.comparingDouble(SearchHit::score).reversed()
+            .thenComparing(SearchHit::ticketId);
+    
+    public boolean ranksAfter(SearchHit cursor) {
+        return cursor == null || RANKING.compare(this, cursor) > 0;
+    }
+}
@@ -0,0 +1,56 @@
+package id.ac.ui.cs.advprog.sistemticket.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Lower-cased runs of letters and digits. A hyphenated word is kept whole and also split into its parts,
+// so "front-row" is found by "front-row" as well as by "front" or "row"
+final class SearchTokenizer {
+    private static final int MAX_TOKEN_LENGTH = 64;
+    
+    private SearchTokenizer() {
+    }
+    
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && isWordChar(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addWord(lower.substring(start, i), tokens);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+    
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+    }
+    
+    private static void addWord(String word, List<String> tokens) {
+        String[] parts = word.split("[-_]+");
+        List<String> nonEmpty = new ArrayList<>(parts.length);
+        for (String part : parts) {
+            if (!part.isEmpty()) {
+                nonEmpty.add(truncate(part));
+            }
+        }
+        if (nonEmpty.size() > 1) {
+            tokens.add(truncate(String.join("-", nonEmpty)));
+        }
+        tokens.addAll(nonEmpty);
+    }
+    
+    private static String truncate(String token) {
+        return token.length() > MAX_TOKEN_LENGTH ? token.substring(0, MAX_TOKEN_LENGTH) : token;
+    }
+}
@@ -0,0 +1,456 @@
+package id.ac.ui.cs.advprog.sistemticket.search;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+// Inverted index over ticket description, type and event ID. Tickets are spread over shards by ID, each
+// shard numbers its docs in insertion order and keeps compressed postings per term. Queries intersect the
+// postings of all terms, rank with BM25 and keep the top k after the cursor, shards are searched in parallel.
+@Component
+public class TicketSearchIndex implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(TicketSearchIndex.class);
+    
+    // Terms that only filter, the tokenizer never produces a ':' so they cannot clash with words
+    private static final String TYPE_PREFIX = "type:";
+    private static final String EVENT_PREFIX = "event:";
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    
+    private final TicketRepository ticketRepository;
+    private final int shardCount;
+    private final int rebuildPageSize;
+    private final int parallelThreshold;
+    
+    private volatile Shard[] shards;
+    
+    public TicketSearchIndex(TicketRepository ticketRepository,
+                             @Value("${ticket.search.shards:8}") int shardCount,
+                             @Value("${ticket.search.rebuild-page-size:5000}") int rebuildPageSize,
+                             @Value("${ticket.search.parallel-threshold:20000}") int parallelThreshold) {
+        this.ticketRepository = ticketRepository;
+        this.shardCount = shardCount;
+        this.rebuildPageSize = rebuildPageSize;
+        this.parallelThreshold = parallelThreshold;
+        this.shards = newShards();
+    }
+    
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+    
+    // Reads the tickets page by page and indexes each page on all shards at once
+    public void rebuild() {
+        Shard[] fresh = newShards();
+        String afterId = "";
+        int indexed = 0;
+        List<TicketView> page;
+        do {
+            page = ticketRepository.findViewPage(afterId, null, null, Limit.of(rebuildPageSize));
+            List<List<TicketView>> byShard = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                byShard.add(new ArrayList<>());
+            }
+            for (TicketView view : page) {
+                byShard.get(shardOf(view.id())).add(view);
+            }
+            IntStream.range(0, shardCount).parallel().forEach(i -> {
+                for (TicketView view : byShard.get(i)) {
+                    fresh[i].put(document(view.id(), view.eventId(), view.type(), view.description()));
+                }
+            });
+            indexed += page.size();
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == rebuildPageSize);
+        
+        shards = fresh;
+        logger.info("Ticket search index rebuilt with {} tickets on {} shards", indexed, shardCount);
+    }
+    
+    public void index(String ticketId, String eventId, String type, String description) {
+        if (ticketId == null) {
+            return;
+        }
+        Document document = document(ticketId, eventId, type, description);
+        shards[shardOf(ticketId)].put(document);
+    }
+    
+    public void remove(String ticketId) {
+        if (ticketId != null) {
+            shards[shardOf(ticketId)].remove(ticketId);
+        }
+    }
+    
+    // Every word of text must match, type and eventId filter without changing the score. Without any
+    // words all matches score 0 and come back in ticket ID order
+    public List<SearchHit> search(String text, String type, String eventId, SearchHit after, int limit) {
+        Set<String> words = new LinkedHashSet<>(SearchTokenizer.tokenize(text));
+        List<String> filters = new ArrayList<>();
+        if (type != null && !type.isBlank()) {
+            filters.add(TYPE_PREFIX + type.trim().toLowerCase(Locale.ROOT));
+        }
+        if (eventId != null && !eventId.isBlank()) {
+            filters.add(EVENT_PREFIX + eventId.trim());
+        }
+        if (words.isEmpty() && filters.isEmpty()) {
+            throw new IllegalArgumentException("Search needs a query, a type or an event ID");
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
+        
+        Shard[] current = shards;
+        Query query = query(current, new ArrayList<>(words), filters, after, limit);
+        // Handing shards to the common pool only pays off for long lists and when it has more than one worker
+        IntStream shardIds = IntStream.range(0, current.length);
+        if (query.candidates() >= parallelThreshold && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            shardIds = shardIds.parallel();
+        }
+        return shardIds.mapToObj(i -> current[i].search(query))
+                .flatMap(List::stream)
+                .sorted(SearchHit.RANKING)
+                .limit(limit)
+                .toList();
+    }
+    
+    public Map<String, Object> snapshot() {
+        long documents = 0;
+        long deleted = 0;
+        long terms = 0;
+        long bytes = 0;
+        for (Shard shard : shards) {
+            ShardStats stats = shard.stats();
+            documents += stats.live;
+            deleted += stats.deleted;
+            terms += stats.terms;
+            bytes += stats.postingBytes;
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("shards", shardCount);
+        values.put("documents", documents);
+        values.put("deletedDocuments", deleted);
+        values.put("terms", terms);
+        values.put("postingBytes", bytes);
+        return values;
+    }
+    
+    // Document frequencies and lengths are summed over all shards, so a ticket scores the same on any shard.
+    // The shortest list bounds how many docs the intersection visits
+    private static Query query(Shard[] shards, List<String> words, List<String> filters, SearchHit after, int limit) {
+        List<String> terms = new ArrayList<>(words);
+        terms.addAll(filters);
+        long[] totals = new long[2];
+        long[] frequencies = new long[terms.size()];
+        for (Shard shard : shards) {
+            shard.addStatistics(terms, totals, frequencies);
+        }
+        long documents = totals[0];
+        long totalLength = totals[1];
+        
+        double[] idf = new double[words.size()];
+        for (int i = 0; i < idf.length; i++) {
+            idf[i] = Math.log(1 + (documents - frequencies[i] + 0.5) / (frequencies[i] + 0.5));
+        }
+        double averageLength = documents > 0 ? (double) totalLength / documents : 1;
+        long candidates = Arrays.stream(frequencies).min().orElse(0);
+        return new Query(words, filters, idf, averageLength, candidates, after, limit);
+    }
+    
+    private int shardOf(String ticketId) {
+        return Math.floorMod(ticketId.hashCode(), shardCount);
+    }
+    
+    private Shard[] newShards() {
+        Shard[] created = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            created[i] = new Shard();
+        }
+        return created;
+    }
+    
+    // Tokenized outside the shard lock, the indexed fields let a write that did not touch them skip the shard
+    private static Document document(String ticketId, String eventId, String type, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        for (String token : SearchTokenizer.tokenize(description)) {
+            frequencies.merge(token, 1, Integer::sum);
+            length++;
+        }
+        for (String token : SearchTokenizer.tokenize(type)) {
+            frequencies.merge(token, 1, Integer::sum);
+            frequencies.putIfAbsent(TYPE_PREFIX + token, 0);
+            length++;
+        }
+        for (String token : SearchTokenizer.tokenize(eventId)) {
+            frequencies.merge(token, 1, Integer::sum);
+            length++;
+        }
+        if (eventId != null) {
+            frequencies.putIfAbsent(EVENT_PREFIX + eventId, 0);
+        }
+        return new Document(ticketId, frequencies, length, new IndexedFields(eventId, type, description));
+    }
+    
+    private record Document(String ticketId, Map<String, Integer> frequencies, int length, IndexedFields fields) {
+    }
+    
+    // Compared by value, a hash of the fields can collide and leave an edit unindexed
+    private record IndexedFields(String eventId, String type, String description) {
+    }
+    
+    private record Query(List<String> words, List<String> filters, double[] idf, double averageLength,
+                         long candidates, SearchHit after, int limit) {
+    }
+    
+    private record ShardStats(int live, int deleted, int terms, long postingBytes) {
+    }
+    
+    // Deleted or replaced docs stay in the postings as tombstones until they outnumber the live ones,
+    // then the shard is compacted by renumbering its postings
+    private static final class Shard {
+        private static final int MIN_COMPACTION_SIZE = 1024;
+        
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private Map<String, PostingList> postings = new HashMap<>();
+        private final Map<String, Integer> docsByTicket = new HashMap<>();
+        private String[] ticketIds = new String[64];
+        private int[] lengths = new int[64];
+        private IndexedFields[] fields = new IndexedFields[64];
+        private int size;
+        private int live;
+        private long totalLength;
+        
+        private void put(Document document) {
+            lock.writeLock().lock();
+            try {
+                Integer existing = docsByTicket.get(document.ticketId());
+                if (existing != null) {
+                    if (fields[existing].equals(document.fields())) {
+                        return;
+                    }
+                    delete(existing);
+                }
+                
+                if (size == ticketIds.length) {
+                    ticketIds = Arrays.copyOf(ticketIds, size * 2);
+                    lengths = Arrays.copyOf(lengths, size * 2);
+                    fields = Arrays.copyOf(fields, size * 2);
+                }
+                int doc = size++;
+                ticketIds[doc] = document.ticketId();
+                lengths[doc] = document.length();
+                fields[doc] = document.fields();
+                for (Map.Entry<String, Integer> term : document.frequencies().entrySet()) {
+                    postings.computeIfAbsent(term.getKey(), key -> new PostingList())
+                            .add(doc, term.getValue(), document.length());
+                }
+                docsByTicket.put(document.ticketId(), doc);
+                live++;
+                totalLength += document.length();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        private void remove(String ticketId) {
+            lock.writeLock().lock();
+            try {
+                Integer existing = docsByTicket.remove(ticketId);
+                if (existing != null) {
+                    delete(existing);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        
+        private void delete(int doc) {
+            docsByTicket.remove(ticketIds[doc]);
+            ticketIds[doc] = null;
+            fields[doc] = null;
+            live--;
+            totalLength -= lengths[doc];
+            if (size - live > live && size - live >= MIN_COMPACTION_SIZE) {
+                compact();
+            }
+        }
+        
+        private void compact() {
+            int[] newDocs = new int[size];
+            int next = 0;
+            for (int doc = 0; doc < size; doc++) {
+                if (ticketIds[doc] != null) {
+                    ticketIds[next] = ticketIds[doc];
+                    lengths[next] = lengths[doc];
+                    fields[next] = fields[doc];
+                    docsByTicket.put(ticketIds[next], next);
+                    newDocs[doc] = next++;
+                } else {
+                    newDocs[doc] = -1;
+                }
+            }
+            Arrays.fill(ticketIds, next, size, null);
+            Arrays.fill(fields, next, size, null);
+            size = next;
+            
+            Map<String, PostingList> compacted = new HashMap<>();
+            for (Map.Entry<String, PostingList> term : postings.entrySet()) {
+                PostingList remapped = term.getValue().remap(newDocs, lengths);
+                if (remapped.count() > 0) {
+                    compacted.put(term.getKey(), remapped);
+                }
+            }
+            postings = compacted;
+        }
+        
+        private ShardStats stats() {
+            lock.readLock().lock();
+            try {
+                long bytes = 0;
+                for (PostingList list : postings.values()) {
+                    bytes += list.sizeInBytes();
+                }
+                return new ShardStats(live, size - live, postings.size(), bytes);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        // Live docs and their total length go to totals, the number of postings of each term to frequencies
+        private void addStatistics(List<String> terms, long[] totals, long[] frequencies) {
+            lock.readLock().lock();
+            try {
+                totals[0] += live;
+                totals[1] += totalLength;
+                for (int i = 0; i < terms.size(); i++) {
+                    PostingList list = postings.get(terms.get(i));
+                    frequencies[i] += list != null ? list.count() : 0;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        // Leapfrog intersection led by the shortest list. Once k hits are held, a run of docs whose blocks
+        // cannot add up to the k-th best score is skipped without decoding the other lists
+        private List<SearchHit> search(Query query) {
+            lock.readLock().lock();
+            try {
+                int words = query.words().size();
+                int termCount = words + query.filters().size();
+                PostingList[] lists = new PostingList[termCount];
+                PostingList.Cursor[] cursors = new PostingList.Cursor[termCount];
+                Integer[] byLength = new Integer[termCount];
+                for (int i = 0; i < termCount; i++) {
+                    lists[i] = postings.get(i < words ? query.words().get(i) : query.filters().get(i - words));
+                    if (lists[i] == null) {
+                        return List.of();
+                    }
+                    cursors[i] = lists[i].cursor();
+                    byLength[i] = i;
+                }
+                Arrays.sort(byLength, Comparator.comparingInt(i -> lists[i].count()));
+                
+                PriorityQueue<SearchHit> top = new PriorityQueue<>(Math.min(query.limit(), 1024) + 1,
+                        SearchHit.RANKING.reversed());
+                PostingList.Cursor lead = cursors[byLength[0]];
+                int regionEnd = -1;
+                double regionBound = 0;
+                int doc = lead.nextDoc();
+                candidates:
+                while (doc != PostingList.NO_MORE_DOCS) {
+                    if (words > 0 && top.size() == query.limit()) {
+                        if (doc > regionEnd) {
+                            regionEnd = Integer.MAX_VALUE;
+                            regionBound = 0;
+                            for (int i = 0; i < words; i++) {
+                                int block = lists[i].blockAt(doc);
+                                int blockEnd = lists[i].blockEnd(block);
+                                if (blockEnd < doc) {
+                                    // This word has no docs left, nothing further can match
+                                    break candidates;
+                                }
+                                regionEnd = Math.min(regionEnd, blockEnd);
+                                regionBound += termScore(query, i, lists[i].blockMaxFrequency(block),
+                                        lists[i].blockMinLength(block));
+                            }
+                        }
+                        if (regionBound < top.peek().score()) {
+                            doc = lead.advance(regionEnd + 1);
+                            continue;
+                        }
+                    }
+                    for (int k = 1; k < byLength.length; k++) {
+                        int other = cursors[byLength[k]].advance(doc);
+                        if (other > doc) {
+                            doc = lead.advance(other);
+                            continue candidates;
+                        }
+                    }
+                    if (ticketIds[doc] != null) {
+                        collect(doc, score(query, cursors, doc), query, top);
+                    }
+                    doc = lead.nextDoc();
+                }
+                return new ArrayList<>(top);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+        
+        private double score(Query query, PostingList.Cursor[] cursors, int doc) {
+            double score = 0;
+            for (int i = 0; i < query.words().size(); i++) {
+                score += termScore(query, i, cursors[i].termFrequency(), lengths[doc]);
+            }
+            return score;
+        }
+        
+        // BM25 of one word, grows with the frequency and shrinks with the doc length
+        private static double termScore(Query query, int word, int frequency, int length) {
+            double norm = K1 * (1 - B + B * length / query.averageLength());
+            return query.idf()[word] * frequency * (K1 + 1) / (frequency + norm);
+        }
+        
+        // The hit is only allocated once it beats the current k-th best
+        private void collect(int doc, double score, Query query, PriorityQueue<SearchHit> top) {
+            if (top.size() == query.limit()) {
+                SearchHit worst = top.peek();
+                if (score < worst.score() || score == worst.score() && ticketIds[doc].compareTo(worst.ticketId()) > 0) {
+                    return;
+                }
+            }
+            SearchHit hit = new SearchHit(ticketIds[doc], score);
+            if (!hit.ranksAfter(query.after())) {
+                return;
+            }
+            top.add(hit);
+            if (top.size() > query.limit()) {
+                top.poll();
+            }
+        }
+    }
+}
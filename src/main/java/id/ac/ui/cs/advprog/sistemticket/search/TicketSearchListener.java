@@ -0,0 +1,56 @@
+package id.ac.ui.cs.advprog.sistemticket.search;
+
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+// Entity listener on Ticket, so every insert, update and delete through JPA reaches the search index.
+// Bulk JPQL updates bypass it, they only touch quota and status, which are not indexed, and the
+// partial update behind PUT /api/tickets/{id} indexes the row it reads back itself.
+public class TicketSearchListener {
+    
+    // Resolved per event, the listener is created while the EntityManagerFactory is still starting
+    @Autowired
+    private ObjectProvider<TicketSearchIndex> searchIndex;
+    
+    @PostPersist
+    @PostUpdate
+    public void afterSave(Ticket ticket) {
+        String id = ticket.getId();
+        String eventId = ticket.getEventId();
+        String type = ticket.getType();
+        String description = ticket.getDescription();
+        afterCommit(index -> index.index(id, eventId, type, description));
+    }
+    
+    @PostRemove
+    public void afterRemove(Ticket ticket) {
+        String id = ticket.getId();
+        afterCommit(index -> index.remove(id));
+    }
+    
+    // A rolled back write never reaches the index
+    private void afterCommit(Consumer<TicketSearchIndex> change) {
+        TicketSearchIndex index = searchIndex != null ? searchIndex.getIfAvailable() : null;
+        if (index == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.accept(index);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.accept(index);
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package id.ac.ui.cs.advprog.sistemticket.service;
+
+import id.ac.ui.cs.advprog.sistemticket.exception.TicketConflictException;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ContentionMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Component
+public class OptimisticRetryExecutor {
+    
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final ContentionMetrics contentionMetrics;
+    
+    public OptimisticRetryExecutor(@Value("${ticket.retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${ticket.retry.base-backoff-ms:5}") long baseBackoffMs,
+                                   @Value("${ticket.retry.max-backoff-ms:100}") long maxBackoffMs,
+                                   ContentionMetrics contentionMetrics) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMs = baseBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.contentionMetrics = contentionMetrics;
+    }
+    
+    // The operation must re-read the ticket on every call, otherwise a retry just repeats the stale write
+    public <T> T execute(String ticketId, Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (OptimisticLockingFailureException e) {
+                contentionMetrics.recordConflict(ticketId);
+                if (attempt >= maxAttempts) {
+                    contentionMetrics.recordExhausted(ticketId);
+                    throw new TicketConflictException(ticketId,
+                            "Ticket with ID " + ticketId + " is being modified concurrently, gave up after "
+                                    + attempt + " attempts", e);
+                }
+                contentionMetrics.recordRetry(ticketId);
+                backoff(attempt);
+            }
+        }
+    }
+    
+    // Full jitter: sleep a random time up to the exponential ceiling so retries don't collide again
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+    
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
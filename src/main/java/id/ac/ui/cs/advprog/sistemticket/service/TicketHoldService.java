@@ -0,0 +1,11 @@
+package id.ac.ui.cs.advprog.sistemticket.service;
+
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketHold;
+
+public interface TicketHoldService {
+    public TicketHold createHold(String ticketId, int amount, String userId, Long currentTime);
+    public Ticket confirmHold(String holdId, String userId, boolean admin);
+    public void cancelHold(String holdId, String userId, boolean admin);
+    public int expireHolds(long currentTime);
+}
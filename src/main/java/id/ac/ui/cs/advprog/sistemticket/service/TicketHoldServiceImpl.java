@@ -0,0 +1,239 @@
+package id.ac.ui.cs.advprog.sistemticket.service;
+
+import id.ac.ui.cs.advprog.sistemticket.event.TicketPurchasedEvent;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketHold;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketHoldRepository;
+import id.ac.ui.cs.advprog.sistemticket.timer.HashedTimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Holds take quota through TicketService.reserveQuota and give it back through releaseQuota.
+// Active holds live in memory and in a timing wheel; the table is only read back after a restart.
+@Service
+public class TicketHoldServiceImpl implements TicketHoldService {
+    private static final Logger logger = LoggerFactory.getLogger(TicketHoldServiceImpl.class);
+    
+    private final TicketService ticketService;
+    private final TicketHoldRepository holdRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final long ttlMs;
+    private final int releaseBatchSize;
+    private final HashedTimingWheel<String> wheel;
+    
+    private final Map<String, TicketHold> activeHolds = new ConcurrentHashMap<>();
+    // Released quota summed per ticket until the next tick writes it back
+    private final Map<String, Integer> pendingReleases = new ConcurrentHashMap<>();
+    private final Queue<TicketHold> finishedHolds = new ConcurrentLinkedQueue<>();
+    
+    public TicketHoldServiceImpl(TicketService ticketService,
+                                 TicketHoldRepository holdRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${ticket.hold.ttl-seconds:600}") long ttlSeconds,
+                                 @Value("${ticket.hold.tick-ms:250}") long tickMs,
+                                 @Value("${ticket.hold.wheel-size:4096}") int wheelSize,
+                                 @Value("${ticket.hold.release-batch-size:500}") int releaseBatchSize) {
+        this.ticketService = ticketService;
+        this.holdRepository = holdRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.ttlMs = ttlSeconds * 1000;
+        this.releaseBatchSize = releaseBatchSize;
+        this.wheel = new HashedTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+    
+    @Override
+    public TicketHold createHold(String ticketId, int amount, String userId, Long currentTime) {
+        ticketService.reserveQuota(ticketId, amount, currentTime);
+        
+        long now = System.currentTimeMillis();
+        TicketHold hold = new TicketHold(ticketId, amount, userId, now, now + ttlMs);
+        try {
+            holdRepository.save(hold);
+        } catch (RuntimeException e) {
+            // Without a stored hold nothing could release the quota after a restart
+            ticketService.releaseQuota(ticketId, amount);
+            throw e;
+        }
+        
+        activeHolds.put(hold.getId(), hold);
+        wheel.schedule(hold.getId(), hold.getExpiresAt());
+        return hold;
+    }
+    
+    @Override
+    public Ticket confirmHold(String holdId, String userId, boolean admin) {
+        TicketHold hold = takeHold(holdId, userId, admin);
+        if (hold.isExpired(System.currentTimeMillis())) {
+            queueRelease(hold);
+            throw new IllegalArgumentException("Hold " + holdId + " has expired");
+        }
+        
+        // Another node may have expired the same hold and released its quota already
+        if (deleteHolds(List.of(hold)).isEmpty()) {
+            throw new NoSuchElementException("Hold with ID " + holdId + " not found");
+        }
+        Ticket ticket = ticketService.findById(hold.getTicketId());
+        if (ticket == null) {
+            throw new NoSuchElementException("Ticket with ID " + hold.getTicketId() + " not found");
+        }
+        
+        // The quota was already taken when the hold was placed, this only finalizes the purchase
+        eventPublisher.publishEvent(new TicketPurchasedEvent(ticket, hold.getAmount()));
+        return ticket;
+    }
+    
+    @Override
+    public void cancelHold(String holdId, String userId, boolean admin) {
+        queueRelease(takeHold(holdId, userId, admin));
+    }
+    
+    // The wheel entry of a confirmed or cancelled hold is left in place and ignored when it fires
+    @Override
+    public int expireHolds(long currentTime) {
+        int expired = wheel.advance(currentTime, holdId -> {
+            TicketHold hold = activeHolds.remove(holdId);
+            if (hold != null) {
+                queueRelease(hold);
+            }
+        });
+        flushReleases();
+        return expired;
+    }
+    
+    @Scheduled(fixedDelayString = "${ticket.hold.tick-ms:250}")
+    public void tick() {
+        expireHolds(System.currentTimeMillis());
+    }
+    
+    // Runs once every bean is up, so releases go through a fully initialized ledger or bucket service
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverHolds() {
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        for (TicketHold hold : holdRepository.findAll()) {
+            if (hold.isExpired(now)) {
+                queueRelease(hold);
+            } else {
+                activeHolds.put(hold.getId(), hold);
+                wheel.schedule(hold.getId(), hold.getExpiresAt());
+                restored++;
+            }
+        }
+        flushReleases();
+        logger.info("Restored {} active ticket holds", restored);
+    }
+    
+    public int getActiveHoldCount() {
+        return activeHolds.size();
+    }
+    
+    private TicketHold takeHold(String holdId, String userId, boolean admin) {
+        TicketHold hold = activeHolds.get(holdId);
+        if (hold == null) {
+            throw new NoSuchElementException("Hold with ID " + holdId + " not found");
+        }
+        if (!admin && (hold.getUserId() == null || !hold.getUserId().equals(userId))) {
+            throw new AccessDeniedException("Hold " + holdId + " belongs to another user");
+        }
+        // Only one of confirm, cancel and expiry can win the removal
+        if (!activeHolds.remove(holdId, hold)) {
+            throw new NoSuchElementException("Hold with ID " + holdId + " not found");
+        }
+        return hold;
+    }
+    
+    private void queueRelease(TicketHold hold) {
+        finishedHolds.add(hold);
+    }
+    
+    // One delete per batch of holds and one quota update per ticket, however many expired in the tick.
+    // Rows go first: a crash in between leaves quota unreleased rather than released twice.
+    private void flushReleases() {
+        List<TicketHold> batch = new ArrayList<>();
+        TicketHold hold;
+        while ((hold = finishedHolds.poll()) != null) {
+            batch.add(hold);
+            if (batch.size() >= releaseBatchSize) {
+                if (!releaseBatch(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty() && !releaseBatch(batch)) {
+            return;
+        }
+        
+        for (String ticketId : new ArrayList<>(pendingReleases.keySet())) {
+            Integer amount = pendingReleases.remove(ticketId);
+            if (amount == null) {
+                continue;
+            }
+            try {
+                ticketService.releaseQuota(ticketId, amount);
+            } catch (RuntimeException e) {
+                pendingReleases.merge(ticketId, amount, Integer::sum);
+                logger.error("Failed to release {} held tickets of ticket {}, will retry", amount, ticketId, e);
+            }
+        }
+    }
+    
+    // Only a hold whose row this node deleted gives its quota back, one that another node confirmed
+    // or expired in the meantime was already settled there
+    private boolean releaseBatch(List<TicketHold> holds) {
+        Set<String> deleted;
+        try {
+            deleted = deleteHolds(holds);
+        } catch (RuntimeException e) {
+            finishedHolds.addAll(holds);
+            logger.error("Failed to delete {} finished holds, will retry", holds.size(), e);
+            return false;
+        }
+        for (TicketHold hold : holds) {
+            if (deleted.contains(hold.getId())) {
+                pendingReleases.merge(hold.getTicketId(), hold.getAmount(), Integer::sum);
+            } else {
+                logger.debug("Hold {} was already finished elsewhere, its quota is not released again", hold.getId());
+            }
+        }
+        return true;
+    }
+    
+    // The rows are locked before the delete, so of two nodes finishing the same hold only one sees it
+    private Set<String> deleteHolds(List<TicketHold> holds) {
+        List<String> holdIds = holds.stream().map(TicketHold::getId).toList();
+        Set<String> deleted = transactionTemplate.execute(status -> {
+            Set<String> locked = new HashSet<>();
+            for (TicketHold row : holdRepository.findAllByIdForUpdate(holdIds)) {
+                locked.add(row.getId());
+            }
+            if (!locked.isEmpty()) {
+                holdRepository.deleteAllByIdIn(locked);
+            }
+            return locked;
+        });
+        return deleted != null ? deleted : Set.of();
+    }
+}
@@ -0,0 +1,15 @@
+package id.ac.ui.cs.advprog.sistemticket.service;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportError;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportJob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface TicketImportService {
+    public TicketImportJob importTickets(String jobId, String owner, ImportFormat format, InputStream body) throws IOException;
+    public TicketImportJob getJob(String jobId, String owner);
+    public List<TicketImportError> getErrors(String jobId, String owner, long afterLine, int limit);
+}
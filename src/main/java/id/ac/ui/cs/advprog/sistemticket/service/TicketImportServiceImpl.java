@@ -0,0 +1,238 @@
+package id.ac.ui.cs.advprog.sistemticket.service;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportJobStatus;
+import id.ac.ui.cs.advprog.sistemticket.exception.ImportJobConflictException;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketImportReader;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketImportRecord;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketMapper;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportError;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportJob;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketImportErrorRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketImportJobRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+// Uploads are read one record at a time and written through TicketService.createTickets in chunks of
+// chunk-size, so memory is bounded by the chunk and not by the upload. The next chunk is only read once
+// the previous one is committed, which leaves a faster client waiting on TCP flow control.
+@Service
+public class TicketImportServiceImpl implements TicketImportService {
+    private static final Logger logger = LoggerFactory.getLogger(TicketImportServiceImpl.class);
+    
+    private final TicketService ticketService;
+    private final TicketMapper ticketMapper;
+    private final TicketImportReader importReader;
+    private final TicketImportJobRepository jobRepository;
+    private final TicketImportErrorRepository errorRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long staleAfterMs;
+    // Each running import holds a request thread and writes a chunk at a time, more are turned away
+    private final Semaphore running;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    public TicketImportServiceImpl(TicketService ticketService,
+                                   TicketMapper ticketMapper,
+                                   TicketImportReader importReader,
+                                   TicketImportJobRepository jobRepository,
+                                   TicketImportErrorRepository errorRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${ticket.import.chunk-size:500}") int chunkSize,
+                                   @Value("${ticket.import.stale-after-ms:300000}") long staleAfterMs,
+                                   @Value("${ticket.import.max-concurrent:2}") int maxConcurrent) {
+        this.ticketService = ticketService;
+        this.ticketMapper = ticketMapper;
+        this.importReader = importReader;
+        this.jobRepository = jobRepository;
+        this.errorRepository = errorRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.staleAfterMs = staleAfterMs;
+        this.running = new Semaphore(maxConcurrent);
+    }
+    
+    // A new job unless jobId names one of the owner's jobs, which then carries on after its committed
+    // line. The body is the whole upload either way, the lines already stored are skipped unparsed
+    @Override
+    public TicketImportJob importTickets(String jobId, String owner, ImportFormat format, InputStream body)
+            throws IOException {
+        if (!running.tryAcquire()) {
+            throw new RejectedExecutionException("Too many imports are running");
+        }
+        try {
+            TicketImportReader.Records records = importReader.open(format,
+                    new InputStreamReader(body, StandardCharsets.UTF_8));
+            TicketImportJob job = claim(jobId != null ? jobId : UUID.randomUUID().toString(), owner, format);
+            run(job, records);
+            return jobRepository.findById(job.getId()).orElseThrow();
+        } finally {
+            running.release();
+        }
+    }
+    
+    @Override
+    public TicketImportJob getJob(String jobId, String owner) {
+        return jobRepository.findById(jobId)
+                .filter(job -> job.getOwner().equals(owner))
+                .orElseThrow(() -> new NoSuchElementException("Import job not found with ID: " + jobId));
+    }
+    
+    @Override
+    public List<TicketImportError> getErrors(String jobId, String owner, long afterLine, int limit) {
+        getJob(jobId, owner);
+        return errorRepository.findByJobIdAndLineGreaterThanOrderByLine(jobId, afterLine, Limit.of(limit));
+    }
+    
+    private TicketImportJob claim(String jobId, String owner, ImportFormat format) {
+        long now = System.currentTimeMillis();
+        if (jobRepository.claim(jobId, owner, format, ImportJobStatus.RUNNING, now, now - staleAfterMs) == 0) {
+            if (jobRepository.existsById(jobId)) {
+                throw new ImportJobConflictException("Import job " + jobId + " is running or was started otherwise");
+            }
+            try {
+                jobRepository.create(jobId, owner, format.name(), now);
+            } catch (DataIntegrityViolationException e) {
+                throw new ImportJobConflictException("Import job " + jobId + " was just started by another upload");
+            }
+        }
+        return jobRepository.findById(jobId).orElseThrow();
+    }
+    
+    private void run(TicketImportJob job, TicketImportReader.Records records) throws IOException {
+        Chunk chunk = new Chunk(job.getId(), job.getCommittedLine());
+        try {
+            records.skipThrough(job.getCommittedLine());
+            TicketImportRecord record;
+            while ((record = records.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() >= chunkSize) {
+                    commit(chunk, record.lastLine());
+                }
+            }
+            // Trailing blank lines count as read as well
+            commit(chunk, records.getLine());
+            jobRepository.finish(job.getId(), ImportJobStatus.COMPLETED, null, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            // The open chunk is dropped, a resumed upload reads it again from the line after committedLine
+            logger.warn("Import {} stopped after line {}", job.getId(), chunk.committedLine, e);
+            try {
+                jobRepository.finish(job.getId(), ImportJobStatus.INTERRUPTED, e.getMessage(), System.currentTimeMillis());
+            } catch (RuntimeException finishFailure) {
+                // Left RUNNING, it can be taken over once stale-after-ms has passed
+                e.addSuppressed(finishFailure);
+            }
+            if (e instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+        }
+    }
+    
+    // The tickets are committed by createTickets, then the error rows and the new committedLine together
+    private void commit(Chunk chunk, long throughLine) {
+        if (chunk.size() == 0 && throughLine <= chunk.committedLine) {
+            return;
+        }
+        List<BatchItemStatus> statuses = chunk.tickets.isEmpty() ? List.of() : ticketService.createTickets(chunk.tickets);
+        long created = 0;
+        long duplicates = 0;
+        for (int k = 0; k < chunk.tickets.size(); k++) {
+            Ticket ticket = chunk.tickets.get(k);
+            long line = chunk.ticketLines.get(k);
+            switch (statuses.get(k)) {
+                case CREATED -> created++;
+                // Only this job derives that ID, so the row is its own from a run that stopped before committing
+                case DUPLICATE -> {
+                    if (ticket.getId().equals(lineTicketId(chunk.jobId, line))) {
+                        created++;
+                    } else {
+                        duplicates++;
+                        chunk.errors.add(new TicketImportError(chunk.jobId, line, ticket.getId(),
+                                BatchItemStatus.DUPLICATE.name(), "Ticket with ID " + ticket.getId() + " already exists"));
+                    }
+                }
+                case FAILED -> chunk.errors.add(new TicketImportError(chunk.jobId, line, ticket.getId(),
+                        BatchItemStatus.FAILED.name(), "Ticket could not be stored"));
+            }
+        }
+        long failed = chunk.errors.size() - duplicates;
+        long createdCount = created;
+        long duplicateCount = duplicates;
+        transactionTemplate.executeWithoutResult(status -> {
+            chunk.errors.forEach(entityManager::persist);
+            jobRepository.recordProgress(chunk.jobId, throughLine, createdCount, duplicateCount, failed,
+                    System.currentTimeMillis());
+        });
+        chunk.committedLine = throughLine;
+        chunk.clear();
+    }
+    
+    // Lines without an ID get one derived from the job and line, so a line read again after a resume
+    // finds its ticket instead of creating a second one
+    static String lineTicketId(String jobId, long line) {
+        return UUID.nameUUIDFromBytes((jobId + ":" + line).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+    
+    // Records read since the last commit, validated with Ticket.Builder through the mapper like POST /batch
+    private final class Chunk {
+        private final String jobId;
+        private final List<Ticket> tickets = new ArrayList<>();
+        private final List<Long> ticketLines = new ArrayList<>();
+        private final List<TicketImportError> errors = new ArrayList<>();
+        private long committedLine;
+        
+        private Chunk(String jobId, long committedLine) {
+            this.jobId = jobId;
+            this.committedLine = committedLine;
+        }
+        
+        private void add(TicketImportRecord record) {
+            if (record.error() != null) {
+                errors.add(new TicketImportError(jobId, record.line(), null, BatchItemStatus.FAILED.name(), record.error()));
+                return;
+            }
+            if (record.ticket().getId() == null || record.ticket().getId().isBlank()) {
+                record.ticket().setId(lineTicketId(jobId, record.line()));
+            }
+            try {
+                tickets.add(ticketMapper.toEntity(record.ticket()));
+                ticketLines.add(record.line());
+            } catch (IllegalArgumentException e) {
+                errors.add(new TicketImportError(jobId, record.line(), record.ticket().getId(),
+                        BatchItemStatus.FAILED.name(), e.getMessage()));
+            }
+        }
+        
+        private int size() {
+            return tickets.size() + errors.size();
+        }
+        
+        private void clear() {
+            tickets.clear();
+            ticketLines.clear();
+            errors.clear();
+        }
+    }
+}
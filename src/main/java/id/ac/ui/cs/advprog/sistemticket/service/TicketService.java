@@ -1,19 +1,41 @@
 package id.ac.ui.cs.advprog.sistemticket.service;
 
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketFields;
 import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.search.SearchHit;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface TicketService {
     public Ticket createTicket(Ticket ticket);
+    public List<BatchItemStatus> createTickets(List<Ticket> tickets);
     public Ticket findById(String id);
+    public Map<String, Ticket> findAllByIds(Collection<String> ids);
+    public List<SearchHit> search(String query, String type, String eventId, SearchHit after, int limit);
     public List<Ticket> findAll();
     public List<Ticket> findAllByEventId(String eventId);
     public List<Ticket> findAllByType(String type);
     public List<Ticket> findAllAvailable(Long currentTime);
-    public Ticket updateTicket(Ticket ticket);
+    public List<TicketView> findPage(String afterId, int limit, String type, String status, TicketFields fields);
+    public List<TicketView> findPageByEventId(String eventId, String afterId, int limit, TicketFields fields);
+    public List<Ticket> findAvailablePage(Long currentTime, String afterId, int limit);
+    public long countTickets(String type, String status);
+    public long countByEventId(String eventId);
+    public long countAvailable(Long currentTime);
+    public long forEachTicket(String eventId, Consumer<Ticket> action);
+    public Ticket updateTicket(String id, Map<String, Object> changes);
     public Ticket updateStatus(String id, String status);
+    public int updateStatusByEventId(String eventId, String status);
+    public int updateStatusByIds(Collection<String> ids, String status);
     public Ticket purchaseTicket(String id, int amount, Long currentTime);
+    public Ticket reserveQuota(String id, int amount, Long currentTime);
+    public void releaseQuota(String id, int amount);
+    public List<Ticket> purchaseCart(Map<String, Integer> amountsByTicket, Long currentTime);
     public void deleteTicket(String id);
     public CompletableFuture<Void> processTicketExpiration(String id);
 }
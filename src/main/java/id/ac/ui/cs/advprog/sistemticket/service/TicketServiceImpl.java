@@ -1,18 +1,51 @@
 package id.ac.ui.cs.advprog.sistemticket.service;
 
+import id.ac.ui.cs.advprog.sistemticket.cache.AvailabilityIndex;
+import id.ac.ui.cs.advprog.sistemticket.cache.TicketCache;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+import id.ac.ui.cs.advprog.sistemticket.enums.PurchaseMode;
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketFields;
 import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketCartPurchasedEvent;
 import id.ac.ui.cs.advprog.sistemticket.event.TicketPurchasedEvent;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.expiration.TicketExpirationSweeper;
+import id.ac.ui.cs.advprog.sistemticket.inventory.InventoryLedger;
+import id.ac.ui.cs.advprog.sistemticket.inventory.PurchaseBatcher;
+import id.ac.ui.cs.advprog.sistemticket.inventory.ShardedQuotaService;
 import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
 import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import id.ac.ui.cs.advprog.sistemticket.search.SearchHit;
+import id.ac.ui.cs.advprog.sistemticket.search.TicketSearchIndex;
+import id.ac.ui.cs.advprog.sistemticket.summary.EventSalesAggregator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class TicketServiceImpl implements TicketService {
@@ -23,18 +56,143 @@ public class TicketServiceImpl implements TicketService {
     @Autowired
     private ApplicationEventPublisher eventPublisher;
     
+    @Autowired
+    private OptimisticRetryExecutor retryExecutor;
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    @Autowired
+    private ShardedQuotaService shardedQuotaService;
+    
+    @Autowired
+    private PurchaseBatcher purchaseBatcher;
+    
+    @Autowired
+    private TicketCache ticketCache;
+    
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    
+    @Autowired
+    private EventSalesAggregator salesAggregator;
+    
+    @Autowired
+    private TicketSearchIndex searchIndex;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private TicketExpirationSweeper expirationSweeper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Value("${ticket.purchase.mode:ATOMIC}")
+    private PurchaseMode purchaseMode;
+    
+    @Value("${ticket.lookup.chunk-size:500}")
+    private int lookupChunkSize;
+    
+    @Value("${ticket.batch.chunk-size:500}")
+    private int batchChunkSize;
+    
     @Override
     public Ticket createTicket(Ticket ticket) {
         if (ticketRepository.findById(ticket.getId()).isPresent()) {
             return null;
         }
-        return ticketRepository.save(ticket);
+        // Overwrites a cached miss for this ID
+        return afterWrite(ticketRepository.save(ticket));
+    }
+    
+    // One IN query per chunk finds the taken IDs, then each chunk is inserted as JDBC batches and
+    // committed on its own. The statuses line up with tickets
+    @Override
+    public List<BatchItemStatus> createTickets(List<Ticket> tickets) {
+        BatchItemStatus[] statuses = new BatchItemStatus[tickets.size()];
+        List<String> ids = tickets.stream().map(Ticket::getId).distinct().toList();
+        Set<String> taken = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += batchChunkSize) {
+            taken.addAll(ticketRepository.findExistingIds(ids.subList(from, Math.min(from + batchChunkSize, ids.size()))));
+        }
+        
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < tickets.size(); i++) {
+            // The first ticket with an ID claims it, later ones in the same batch are duplicates
+            if (taken.add(tickets.get(i).getId())) {
+                pending.add(i);
+            } else {
+                statuses[i] = BatchItemStatus.DUPLICATE;
+            }
+        }
+        
+        for (int from = 0; from < pending.size(); from += batchChunkSize) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + batchChunkSize, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertAll(chunk.stream().map(tickets::get).toList()));
+                chunk.forEach(i -> statuses[i] = BatchItemStatus.CREATED);
+            } catch (RuntimeException e) {
+                // One bad row rolls back its whole chunk, the rows are then tried alone to single it out
+                for (int i : chunk) {
+                    statuses[i] = insertOne(tickets.get(i));
+                }
+            }
+        }
+        
+        for (int i = 0; i < statuses.length; i++) {
+            if (statuses[i] == BatchItemStatus.CREATED) {
+                afterWrite(tickets.get(i));
+            }
+        }
+        return Arrays.asList(statuses);
+    }
+    
+    // persist rather than save: with an assigned ID save merges, which reads every row before inserting it
+    private void insertAll(List<Ticket> chunk) {
+        for (Ticket ticket : chunk) {
+            entityManager.persist(ticket);
+        }
+        entityManager.flush();
+    }
+    
+    // A row created by someone else since the ID check is a duplicate, anything else a failure
+    private BatchItemStatus insertOne(Ticket ticket) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertAll(List.of(ticket)));
+            return BatchItemStatus.CREATED;
+        } catch (RuntimeException e) {
+            return ticketRepository.existsById(ticket.getId()) ? BatchItemStatus.DUPLICATE : BatchItemStatus.FAILED;
+        }
     }
     
     @Override
     public Ticket findById(String id) {
-        Optional<Ticket> ticketOpt = ticketRepository.findById(id);
-        return ticketOpt.orElse(null);
+        return ticketCache.get(id, ticketRepository::findById);
+    }
+    
+    @Override
+    public Map<String, Ticket> findAllByIds(Collection<String> ids) {
+        return ticketCache.getAll(ids, this::loadByIds);
+    }
+    
+    @Override
+    public List<SearchHit> search(String query, String type, String eventId, SearchHit after, int limit) {
+        return searchIndex.search(query, type, eventId, after, limit);
+    }
+    
+    // Cache misses are read with one IN query per chunk, so a few thousand IDs never make one huge statement
+    private Map<String, Ticket> loadByIds(Set<String> ids) {
+        List<String> missing = new ArrayList<>(ids);
+        Map<String, Ticket> loaded = new HashMap<>();
+        for (int from = 0; from < missing.size(); from += lookupChunkSize) {
+            List<String> chunk = missing.subList(from, Math.min(from + lookupChunkSize, missing.size()));
+            for (Ticket ticket : ticketRepository.findAllById(chunk)) {
+                loaded.put(ticket.getId(), ticket);
+            }
+        }
+        return loaded;
     }
     
     @Override
@@ -54,67 +212,314 @@ public class TicketServiceImpl implements TicketService {
     
     @Override
     public List<Ticket> findAllAvailable(Long currentTime) {
-        return ticketRepository.findAllAvailable(currentTime);
+        return availabilityIndex.available(currentTime)
+                .orElseGet(() -> ticketRepository.findAllAvailable(currentTime));
+    }
+    
+    // Projection pages, read-only rows that never enter the persistence context
+    @Override
+    public List<TicketView> findPage(String afterId, int limit, String type, String status, TicketFields fields) {
+        String after = keyOrFirst(afterId);
+        return fields == TicketFields.SUMMARY
+                ? ticketRepository.findSummaryPage(after, type, status, Limit.of(limit))
+                : ticketRepository.findViewPage(after, type, status, Limit.of(limit));
     }
     
     @Override
-    public Ticket updateTicket(Ticket ticket) {
-        Optional<Ticket> existingTicket = ticketRepository.findById(ticket.getId());
-        if (existingTicket.isEmpty()) {
-            throw new NoSuchElementException("Ticket with ID " + ticket.getId() + " not found");
+    public List<TicketView> findPageByEventId(String eventId, String afterId, int limit, TicketFields fields) {
+        String after = keyOrFirst(afterId);
+        return fields == TicketFields.SUMMARY
+                ? ticketRepository.findSummaryPageByEventId(eventId, after, Limit.of(limit))
+                : ticketRepository.findViewPageByEventId(eventId, after, Limit.of(limit));
+    }
+    
+    @Override
+    public List<Ticket> findAvailablePage(Long currentTime, String afterId, int limit) {
+        String after = keyOrFirst(afterId);
+        return availabilityIndex.availablePage(currentTime, after, limit)
+                .orElseGet(() -> ticketRepository.findAvailablePage(currentTime, after, Limit.of(limit)));
+    }
+    
+    @Override
+    public long countTickets(String type, String status) {
+        return ticketRepository.countPage(type, status);
+    }
+    
+    @Override
+    public long countByEventId(String eventId) {
+        return ticketRepository.countByEventId(eventId);
+    }
+    
+    @Override
+    public long countAvailable(Long currentTime) {
+        return ticketRepository.countAvailable(currentTime);
+    }
+    
+    // Streams every ticket, or every ticket of one event, in ID order. Each ticket is detached after
+    // the action so the persistence context stays empty however many rows the cursor returns.
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachTicket(String eventId, Consumer<Ticket> action) {
+        long count = 0;
+        try (Stream<Ticket> tickets = eventId != null
+                ? ticketRepository.streamAllByEventId(eventId)
+                : ticketRepository.streamAll()) {
+            Iterator<Ticket> iterator = tickets.iterator();
+            while (iterator.hasNext()) {
+                Ticket ticket = iterator.next();
+                action.accept(ticket);
+                entityManager.detach(ticket);
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    // Every ID sorts after the empty string, so the first page needs no separate query
+    private static String keyOrFirst(String afterId) {
+        return afterId != null ? afterId : "";
+    }
+    
+    // Writes only the sent columns with one UPDATE and no read before it, so concurrent purchases never
+    // conflict with an edit. The row is read back once for the response and the in-memory copies
+    @Override
+    public Ticket updateTicket(String id, Map<String, Object> changes) {
+        if (!changes.isEmpty() && ticketRepository.updateFields(id, changes) == 0) {
+            if (!ticketRepository.existsById(id)) {
+                throw new NoSuchElementException("Ticket with ID " + id + " not found");
+            }
+            throw new IllegalArgumentException("Sale end must be after sale start");
         }
         
-        // Update the ticket
-        return ticketRepository.save(ticket);
+        Ticket ticket = ticketRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Ticket with ID " + id + " not found"));
+        if (changes.isEmpty()) {
+            return ticket;
+        }
+        // The bulk UPDATE skips the entity listener, type and description are indexed here instead
+        searchIndex.index(ticket.getId(), ticket.getEventId(), ticket.getType(), ticket.getDescription());
+        return afterWrite(ticket);
     }
     
     @Override
     public Ticket updateStatus(String id, String status) {
-        Optional<Ticket> optionalTicket = ticketRepository.findById(id);
-        if (optionalTicket.isEmpty()) {
-            throw new NoSuchElementException("Ticket with ID " + id + " not found");
+        return retryExecutor.execute(id, () -> {
+            Optional<Ticket> optionalTicket = ticketRepository.findById(id);
+            if (optionalTicket.isEmpty()) {
+                throw new NoSuchElementException("Ticket with ID " + id + " not found");
+            }
+            
+            Ticket ticket = optionalTicket.get();
+            
+            // Validate the status
+            if (!TicketStatus.contains(status)) {
+                throw new IllegalArgumentException("Invalid ticket status: " + status);
+            }
+            
+            ticket.setStatus(status);
+            return afterWrite(ticketRepository.save(ticket));
+        });
+    }
+    
+    // One guarded UPDATE for all of the event's tickets, the caches follow from a single event after commit
+    @Override
+    @Transactional
+    public int updateStatusByEventId(String eventId, String status) {
+        TicketStatus target = TicketStatus.fromValue(status);
+        Set<String> fromStatuses = allowedFrom(target);
+        int affected = ticketRepository.updateStatusByEventId(eventId, target.getValue(), fromStatuses);
+        if (affected > 0) {
+            eventPublisher.publishEvent(TicketStatusChangedEvent.forEvent(eventId, target.getValue(), fromStatuses, affected));
+        }
+        return affected;
+    }
+    
+    @Override
+    @Transactional
+    public int updateStatusByIds(Collection<String> ids, String status) {
+        TicketStatus target = TicketStatus.fromValue(status);
+        Set<String> fromStatuses = allowedFrom(target);
+        Set<String> distinctIds = new HashSet<>(ids);
+        int affected = ticketRepository.updateStatusByIds(distinctIds, target.getValue(), fromStatuses);
+        if (affected > 0) {
+            eventPublisher.publishEvent(TicketStatusChangedEvent.forTickets(distinctIds, target.getValue(), fromStatuses, affected));
+        }
+        return affected;
+    }
+    
+    private static Set<String> allowedFrom(TicketStatus target) {
+        Set<String> fromStatuses = target.allowedFrom();
+        if (fromStatuses.isEmpty()) {
+            throw new IllegalArgumentException("Tickets cannot be moved to status " + target.getValue());
+        }
+        return fromStatuses;
+    }
+    
+    @Override
+    public Ticket purchaseTicket(String id, int amount, Long currentTime) {
+        // With batching on, concurrent purchases of the same ticket share one UPDATE
+        Ticket updatedTicket;
+        if (purchaseBatcher.isEnabled()) {
+            updatedTicket = purchaseBatcher.purchase(id, amount, currentTime);
+            afterQuotaChange(updatedTicket);
+        } else {
+            updatedTicket = reserveQuota(id, amount, currentTime);
         }
         
-        Ticket ticket = optionalTicket.get();
+        // Publish event for asynchronous processing
+        eventPublisher.publishEvent(new TicketPurchasedEvent(updatedTicket, amount));
         
-        // Validate the status
-        if (!TicketStatus.contains(status)) {
-            throw new IllegalArgumentException("Invalid ticket status: " + status);
+        return updatedTicket;
+    }
+    
+    @Override
+    public Ticket reserveQuota(String id, int amount, Long currentTime) {
+        return afterQuotaChange(reserveQuotaForMode(id, amount, currentTime));
+    }
+    
+    private Ticket reserveQuotaForMode(String id, int amount, Long currentTime) {
+        if (purchaseMode == PurchaseMode.ATOMIC) {
+            return reserveAtomically(id, amount, currentTime);
+        }
+        if (purchaseMode == PurchaseMode.LEDGER) {
+            // Accepted in memory, the row is brought up to date by the ledger's write-behind flush
+            return inventoryLedger.reserve(id, amount, currentTime);
+        }
+        if (purchaseMode == PurchaseMode.SHARDED) {
+            return shardedQuotaService.reserve(id, amount, currentTime);
         }
         
-        ticket.setStatus(status);
-        return ticketRepository.save(ticket);
+        // Each attempt re-reads the ticket so a lost race is retried against fresh quota
+        return retryExecutor.execute(id, () -> {
+            Optional<Ticket> optionalTicket = ticketRepository.findById(id);
+            if (optionalTicket.isEmpty()) {
+                throw new NoSuchElementException("Ticket with ID " + id + " not found");
+            }
+            
+            Ticket ticket = optionalTicket.get();
+            
+            // Check if ticket is available for purchase
+            if (!ticket.isAvailableForPurchase(currentTime)) {
+                throw new IllegalArgumentException("Ticket is not available for purchase at this time");
+            }
+            
+            // Try to decrease the quota
+            try {
+                ticket.decreaseRemainingQuota(amount);
+            } catch (IllegalArgumentException e) {
+                // Rethrow with additional context if needed
+                throw new IllegalArgumentException("Cannot purchase tickets: " + e.getMessage());
+            }
+            
+            return ticketRepository.save(ticket);
+        });
     }
     
     @Override
-    public Ticket purchaseTicket(String id, int amount, Long currentTime) {
-        Optional<Ticket> optionalTicket = ticketRepository.findById(id);
-        if (optionalTicket.isEmpty()) {
-            throw new NoSuchElementException("Ticket with ID " + id + " not found");
+    public void releaseQuota(String id, int amount) {
+        if (amount <= 0) {
+            return;
+        }
+        if (purchaseMode == PurchaseMode.LEDGER) {
+            inventoryLedger.release(id, amount);
+        } else if (purchaseMode == PurchaseMode.SHARDED) {
+            shardedQuotaService.release(id, amount);
+        } else {
+            ticketRepository.incrementRemainingQuota(id, amount);
+        }
+        ticketCache.invalidate(id);
+        // A released hold can put a sold-out ticket back on sale
+        availabilityIndex.refresh(id);
+    }
+    
+    @Override
+    @Transactional
+    public List<Ticket> purchaseCart(Map<String, Integer> amountsByTicket, Long currentTime) {
+        if (amountsByTicket == null || amountsByTicket.isEmpty()) {
+            throw new IllegalArgumentException("Cart is empty");
+        }
+        SortedMap<String, Integer> amounts = new TreeMap<>(amountsByTicket);
+        if (amounts.values().stream().anyMatch(amount -> amount == null || amount <= 0)) {
+            throw new IllegalArgumentException("Cannot purchase tickets: Amount must be positive");
         }
         
-        Ticket ticket = optionalTicket.get();
+        List<Ticket> purchased = purchaseMode == PurchaseMode.LEDGER || purchaseMode == PurchaseMode.SHARDED
+                ? reserveCartWithCompensation(amounts, currentTime)
+                : purchaseCartWithLocks(amounts, currentTime);
+        ticketCache.invalidateAll(amounts.keySet());
+        purchased.forEach(availabilityIndex::update);
         
-        // Check if ticket is available for purchase
-        if (!ticket.isAvailableForPurchase(currentTime)) {
-            throw new IllegalArgumentException("Ticket is not available for purchase at this time");
+        // One event for the whole cart
+        eventPublisher.publishEvent(new TicketCartPurchasedEvent(purchased, amounts));
+        
+        return purchased;
+    }
+    
+    // Every row is checked before any is changed; the changes go out as one JDBC batch on flush
+    private List<Ticket> purchaseCartWithLocks(SortedMap<String, Integer> amounts, Long currentTime) {
+        List<Ticket> locked = ticketRepository.findAllByIdForUpdate(amounts.keySet());
+        if (locked.size() != amounts.size()) {
+            List<String> found = locked.stream().map(Ticket::getId).toList();
+            String missing = amounts.keySet().stream().filter(id -> !found.contains(id)).findFirst().orElse(null);
+            throw new NoSuchElementException("Ticket with ID " + missing + " not found");
         }
         
-        // Try to decrease the quota
-        try {
-            ticket.decreaseRemainingQuota(amount);
-        } catch (IllegalArgumentException e) {
-            // Rethrow with additional context if needed
-            throw new IllegalArgumentException("Cannot purchase tickets: " + e.getMessage());
+        for (Ticket ticket : locked) {
+            if (!ticket.isAvailableForPurchase(currentTime)) {
+                throw new IllegalArgumentException("Ticket " + ticket.getId() + " is not available for purchase at this time");
+            }
+            if (ticket.getRemainingQuota() < amounts.get(ticket.getId())) {
+                throw new IllegalArgumentException("Cannot purchase tickets: Not enough tickets available for " + ticket.getId());
+            }
         }
         
-        // Save and return the updated ticket
-        Ticket updatedTicket = ticketRepository.save(ticket);
+        for (Ticket ticket : locked) {
+            ticket.decreaseRemainingQuota(amounts.get(ticket.getId()));
+        }
+        return ticketRepository.saveAllAndFlush(locked);
+    }
+    
+    // LEDGER and SHARDED quota is not guarded by the row lock, so a failed item undoes the earlier ones
+    private List<Ticket> reserveCartWithCompensation(SortedMap<String, Integer> amounts, Long currentTime) {
+        List<Ticket> reserved = new ArrayList<>();
+        try {
+            for (Map.Entry<String, Integer> item : amounts.entrySet()) {
+                reserved.add(reserveQuota(item.getKey(), item.getValue(), currentTime));
+            }
+        } catch (RuntimeException e) {
+            for (Ticket ticket : reserved) {
+                releaseQuota(ticket.getId(), amounts.get(ticket.getId()));
+            }
+            throw e;
+        }
+        return reserved;
+    }
+    
+    private Ticket reserveAtomically(String id, int amount, Long currentTime) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Cannot purchase tickets: Amount must be positive");
+        }
         
-        // Publish event for asynchronous processing
-        eventPublisher.publishEvent(new TicketPurchasedEvent(updatedTicket, amount));
+        // Availability, sale window and quota are all checked by the UPDATE itself
+        int updatedRows = ticketRepository.decrementRemainingQuota(id, amount, currentTime);
+        if (updatedRows == 0) {
+            throw purchaseRejection(id, currentTime);
+        }
         
-        return updatedTicket;
+        return ticketRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("Ticket with ID " + id + " not found"));
+    }
+    
+    // Works out why a conditional decrement matched no row, only runs on the failure path
+    private RuntimeException purchaseRejection(String id, Long currentTime) {
+        Optional<Ticket> optionalTicket = ticketRepository.findById(id);
+        if (optionalTicket.isEmpty()) {
+            return new NoSuchElementException("Ticket with ID " + id + " not found");
+        }
+        if (!optionalTicket.get().isAvailableForPurchase(currentTime)) {
+            return new IllegalArgumentException("Ticket is not available for purchase at this time");
+        }
+        return new IllegalArgumentException("Cannot purchase tickets: Not enough tickets available");
     }
     
     @Override
@@ -125,17 +530,44 @@ public class TicketServiceImpl implements TicketService {
         }
         
         ticketRepository.deleteById(id);
+        ticketCache.invalidate(id);
+        availabilityIndex.remove(id);
+        salesAggregator.forget(id);
+        if (purchaseMode == PurchaseMode.LEDGER) {
+            inventoryLedger.forget(id);
+        }
+        if (purchaseMode == PurchaseMode.SHARDED) {
+            shardedQuotaService.forget(id);
+        }
     }
     
-    @Async("taskExecutor")
+    // Already on the expiration bulkhead, the work runs here instead of hopping to another pool.
+    // The sweeper expires ended sales on its own, this only lets an admin push one ticket through now
+    @Async("expirationExecutor")
     public CompletableFuture<Void> processTicketExpiration(String ticketId) {
-        return CompletableFuture.runAsync(() -> {
-            Optional<Ticket> optionalTicket = ticketRepository.findById(ticketId);
-            if (optionalTicket.isPresent() && optionalTicket.get().getSaleEnd() < System.currentTimeMillis()) {
-                Ticket ticket = optionalTicket.get();
-                ticket.setStatus(TicketStatus.EXPIRED.getValue());
-                ticketRepository.save(ticket);
-            }
-        });
+        try {
+            expirationSweeper.expire(List.of(ticketId), System.currentTimeMillis());
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    // Keeps the ledger's copy, cache, availability index and sales summary in step with a written row
+    private Ticket afterWrite(Ticket ticket) {
+        if (purchaseMode == PurchaseMode.LEDGER && ticket != null) {
+            inventoryLedger.track(ticket);
+        }
+        availabilityIndex.update(ticket);
+        salesAggregator.track(ticket);
+        expirationSweeper.track(ticket);
+        return ticketCache.put(ticket);
+    }
+    
+    // The cached row is dropped, the index takes the new quota and removes the ticket once sold out
+    private Ticket afterQuotaChange(Ticket ticket) {
+        ticketCache.invalidate(ticket.getId());
+        availabilityIndex.update(ticket);
+        return ticket;
     }
 }
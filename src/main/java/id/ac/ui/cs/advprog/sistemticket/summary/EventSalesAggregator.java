@@ -0,0 +1,298 @@
+package id.ac.ui.cs.advprog.sistemticket.summary;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.EventSummaryDto;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketCartPurchasedEvent;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketPurchasedEvent;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketSalesCheckpoint;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketHoldRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketSalesCheckpointRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Sold, remaining and revenue per event and ticket type, kept in memory and moved by every ticket write
+// and committed purchase, so a summary never touches the tickets table. Each ticket's share is
+// checkpointed to ticket_sales_checkpoints in the background. Only valid for a single instance.
+@Component
+public class EventSalesAggregator implements SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(EventSalesAggregator.class);
+    
+    private final TicketRepository ticketRepository;
+    private final TicketSalesCheckpointRepository checkpointRepository;
+    private final TicketHoldRepository holdRepository;
+    private final int checkpointBatchSize;
+    
+    // A ticket's share only changes inside compute on its key, which also moves the event totals
+    private final Map<String, Share> shares = new ConcurrentHashMap<>();
+    private final Map<String, EventTotals> events = new ConcurrentHashMap<>();
+    private final Set<String> dirtyTickets = ConcurrentHashMap.newKeySet();
+    
+    public EventSalesAggregator(TicketRepository ticketRepository,
+                                TicketSalesCheckpointRepository checkpointRepository,
+                                TicketHoldRepository holdRepository,
+                                @Value("${ticket.summary.checkpoint-batch-size:500}") int checkpointBatchSize) {
+        this.ticketRepository = ticketRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.holdRepository = holdRepository;
+        this.checkpointBatchSize = checkpointBatchSize;
+    }
+    
+    // Restores from the last checkpoint and reconciles it with one read of the tickets table, so sales and
+    // tickets written after the last checkpoint before a crash are not lost. Summaries never read the table
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<String, TicketSalesCheckpoint> checkpoints = new HashMap<>();
+        for (TicketSalesCheckpoint checkpoint : checkpointRepository.findAll()) {
+            checkpoints.put(checkpoint.getTicketId(), checkpoint);
+        }
+        // Quota under an open hold is not sold yet, the confirmation will report it as a purchase
+        Map<String, Long> held = new HashMap<>();
+        for (HeldQuota hold : holdRepository.sumAmountByTicket()) {
+            held.put(hold.ticketId(), hold.amount());
+        }
+        
+        int corrected = 0;
+        for (Ticket ticket : ticketRepository.findAll()) {
+            TicketSalesCheckpoint checkpoint = checkpoints.remove(ticket.getId());
+            long heldAmount = held.getOrDefault(ticket.getId(), 0L);
+            Share share = checkpoint == null
+                    ? Share.seed(ticket, heldAmount)
+                    : new Share(checkpoint.getEventId(), checkpoint.getType(), checkpoint.getQuota(),
+                            checkpoint.getSold(), checkpoint.getRevenue()).reconcile(ticket, heldAmount);
+            apply(ticket.getId(), share);
+            if (checkpoint == null || !share.matches(checkpoint)) {
+                dirtyTickets.add(ticket.getId());
+                corrected++;
+            }
+        }
+        // Checkpoints of tickets deleted after the last checkpoint are removed on the next one
+        dirtyTickets.addAll(checkpoints.keySet());
+        logger.info("Event summaries restored for {} tickets, {} seeded or corrected from the tickets table, "
+                + "{} stale checkpoints dropped", shares.size(), corrected, checkpoints.size());
+    }
+    
+    // Created or updated ticket: quota, event and type follow the row, sales carry over
+    public void track(Ticket ticket) {
+        if (ticket == null) {
+            return;
+        }
+        shares.compute(ticket.getId(), (id, previous) -> {
+            Share next = previous == null ? Share.seed(ticket) : previous.retarget(ticket);
+            move(previous, next);
+            return next;
+        });
+        dirtyTickets.add(ticket.getId());
+    }
+    
+    public void forget(String id) {
+        shares.computeIfPresent(id, (key, previous) -> {
+            move(previous, null);
+            return null;
+        });
+        dirtyTickets.add(id);
+    }
+    
+    // After commit, so a purchase that rolled back is never counted
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketPurchased(TicketPurchasedEvent event) {
+        recordSale(event.getTicket(), event.getAmount());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartPurchased(TicketCartPurchasedEvent event) {
+        for (Ticket ticket : event.getTickets()) {
+            recordSale(ticket, event.getAmount(ticket.getId()));
+        }
+    }
+    
+    public void recordSale(Ticket ticket, int amount) {
+        if (amount <= 0) {
+            return;
+        }
+        shares.compute(ticket.getId(), (id, previous) -> {
+            // Ticket written by another instance, the row it came with already includes this sale
+            Share next = previous == null
+                    ? Share.seed(ticket)
+                    : previous.sell(amount, amount * ticket.getPrice());
+            move(previous, next);
+            return next;
+        });
+        dirtyTickets.add(ticket.getId());
+    }
+    
+    // Reads one event's running totals, the cost depends on the number of ticket types only
+    public Optional<EventSummaryDto> summarize(String eventId) {
+        EventTotals totals = events.get(eventId);
+        return totals != null ? Optional.of(totals.summary(eventId)) : Optional.empty();
+    }
+    
+    @Scheduled(fixedDelayString = "${ticket.summary.checkpoint-interval-ms:10000}")
+    public void checkpoint() {
+        List<String> batch = new ArrayList<>();
+        for (String id : dirtyTickets) {
+            dirtyTickets.remove(id);
+            batch.add(id);
+            if (batch.size() >= checkpointBatchSize) {
+                writeCheckpoints(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeCheckpoints(batch);
+        }
+    }
+    
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+    
+    private void writeCheckpoints(List<String> ids) {
+        long now = System.currentTimeMillis();
+        List<TicketSalesCheckpoint> saved = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        for (String id : ids) {
+            Share share = shares.get(id);
+            if (share == null) {
+                deleted.add(id);
+            } else {
+                saved.add(new TicketSalesCheckpoint(id, share.eventId, share.type,
+                        share.quota, share.sold, share.revenue, now));
+            }
+        }
+        
+        try {
+            checkpointRepository.saveAll(saved);
+            if (!deleted.isEmpty()) {
+                checkpointRepository.deleteAllByIdInBatch(deleted);
+            }
+        } catch (RuntimeException e) {
+            // Marked again so the next checkpoint writes the current figures
+            dirtyTickets.addAll(ids);
+            logger.error("Failed to checkpoint sales of {} tickets, will retry", ids.size(), e);
+        }
+    }
+    
+    private void apply(String id, Share share) {
+        shares.compute(id, (key, previous) -> {
+            move(previous, share);
+            return share;
+        });
+    }
+    
+    // Takes the old share off its event and type and adds the new one, an event without tickets is dropped
+    private void move(Share previous, Share next) {
+        if (previous != null) {
+            events.computeIfPresent(previous.eventId, (eventId, totals) ->
+                    totals.add(previous.type, -1, -previous.quota, -previous.sold, -previous.revenue) ? totals : null);
+        }
+        if (next != null) {
+            events.compute(next.eventId, (eventId, totals) -> {
+                EventTotals target = totals != null ? totals : new EventTotals();
+                target.add(next.type, 1, next.quota, next.sold, next.revenue);
+                return target;
+            });
+        }
+    }
+    
+    private record Share(String eventId, String type, int quota, long sold, double revenue) {
+        
+        // Without a sales history, whatever is no longer remaining counts as sold at the current price
+        private static Share seed(Ticket ticket) {
+            return seed(ticket, 0);
+        }
+        
+        private static Share seed(Ticket ticket, long held) {
+            long sold = sold(ticket, held);
+            return new Share(ticket.getEventId(), ticket.getType(), ticket.getQuota(), sold, sold * ticket.getPrice());
+        }
+        
+        private static long sold(Ticket ticket, long held) {
+            return Math.max(0, ticket.getQuota() - ticket.getRemainingQuota() - held);
+        }
+        
+        private Share retarget(Ticket ticket) {
+            return new Share(ticket.getEventId(), ticket.getType(), ticket.getQuota(), sold, revenue);
+        }
+        
+        // The row without its open holds is the truth for what is sold, a difference is priced at the current price
+        private Share reconcile(Ticket ticket, long held) {
+            long rowSold = sold(ticket, held);
+            return new Share(ticket.getEventId(), ticket.getType(), ticket.getQuota(), rowSold,
+                    revenue + (rowSold - sold) * ticket.getPrice());
+        }
+        
+        private boolean matches(TicketSalesCheckpoint checkpoint) {
+            return Objects.equals(eventId, checkpoint.getEventId()) && Objects.equals(type, checkpoint.getType())
+                    && quota == checkpoint.getQuota() && sold == checkpoint.getSold();
+        }
+        
+        private Share sell(int amount, double amountRevenue) {
+            return new Share(eventId, type, quota, sold + amount, revenue + amountRevenue);
+        }
+    }
+    
+    // Writers go through ConcurrentHashMap.compute on the event, readers only need the monitor
+    private static class EventTotals {
+        private final NavigableMap<String, TypeTotals> types = new TreeMap<>();
+        
+        // False once the event has no tickets left
+        private synchronized boolean add(String type, int tickets, long quota, long sold, double revenue) {
+            TypeTotals totals = types.computeIfAbsent(type, key -> new TypeTotals());
+            totals.tickets += tickets;
+            totals.quota += quota;
+            totals.sold += sold;
+            totals.revenue += revenue;
+            if (totals.tickets == 0) {
+                types.remove(type);
+            }
+            return !types.isEmpty();
+        }
+        
+        private synchronized EventSummaryDto summary(String eventId) {
+            List<EventSummaryDto.TypeSummary> typeSummaries = new ArrayList<>(types.size());
+            long quota = 0;
+            long sold = 0;
+            double revenue = 0;
+            for (Map.Entry<String, TypeTotals> entry : types.entrySet()) {
+                TypeTotals totals = entry.getValue();
+                typeSummaries.add(new EventSummaryDto.TypeSummary(entry.getKey(), totals.quota, totals.sold,
+                        remaining(totals.quota, totals.sold), totals.revenue));
+                quota += totals.quota;
+                sold += totals.sold;
+                revenue += totals.revenue;
+            }
+            return new EventSummaryDto(eventId, quota, sold, remaining(quota, sold), revenue, typeSummaries);
+        }
+        
+        // A quota lowered below what was already sold leaves nothing, not a negative count
+        private static long remaining(long quota, long sold) {
+            return Math.max(0, quota - sold);
+        }
+    }
+    
+    private static class TypeTotals {
+        private int tickets;
+        private long quota;
+        private long sold;
+        private double revenue;
+    }
+}
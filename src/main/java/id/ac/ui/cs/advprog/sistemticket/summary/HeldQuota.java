@@ -0,0 +1,4 @@
+package id.ac.ui.cs.advprog.sistemticket.summary;
+
+public record HeldQuota(String ticketId, long amount) {
+}
@@ -0,0 +1,77 @@
+package id.ac.ui.cs.advprog.sistemticket.timer;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+// Hashed timing wheel: a deadline is hashed into one of wheelSize slots by its tick, and each tick
+// only looks at its own slot. With a wheel that spans the longest timeout every entry is visited
+// once, so scheduling and expiring are O(1) no matter how many timeouts are outstanding.
+// Entries can be added from any thread, advance() is meant to be driven by a single scheduler thread.
+public class HashedTimingWheel<T> {
+    private final long tickMs;
+    private final int wheelSize;
+    private final Queue<Timeout<T>>[] slots;
+    private volatile long currentTick;
+    
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.slots = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.currentTick = startMs / tickMs;
+    }
+    
+    public void schedule(T value, long deadlineMs) {
+        // A deadline already in the past fires on the next tick
+        long deadlineTick = Math.max(ceilTick(deadlineMs), currentTick + 1);
+        slots[slot(deadlineTick)].add(new Timeout<>(value, deadlineTick));
+    }
+    
+    // Moves the wheel up to nowMs and hands every expired value to the consumer, returns how many expired
+    public int advance(long nowMs, Consumer<T> expired) {
+        long targetTick = nowMs / tickMs;
+        int count = 0;
+        while (currentTick < targetTick) {
+            long tick = currentTick + 1;
+            Iterator<Timeout<T>> it = slots[slot(tick)].iterator();
+            while (it.hasNext()) {
+                Timeout<T> timeout = it.next();
+                // Entries hashed here for a later revolution stay in the slot
+                if (timeout.deadlineTick <= tick) {
+                    it.remove();
+                    expired.accept(timeout.value);
+                    count++;
+                }
+            }
+            currentTick = tick;
+        }
+        return count;
+    }
+    
+    public int size() {
+        int size = 0;
+        for (Queue<Timeout<T>> slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+    
+    private long ceilTick(long timeMs) {
+        return (timeMs + tickMs - 1) / tickMs;
+    }
+    
+    private int slot(long tick) {
+        return (int) (tick % wheelSize);
+    }
+    
+    private record Timeout<T>(T value, long deadlineTick) {
+    }
+}
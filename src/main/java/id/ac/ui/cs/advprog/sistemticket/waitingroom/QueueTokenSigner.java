@@ -0,0 +1,78 @@
+package id.ac.ui.cs.advprog.sistemticket.waitingroom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+// Position tokens are HMAC signed, so checking one needs no database read. The user who joined is
+// signed in as well, a token handed to someone else is not admitted for them
+public class QueueTokenSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+    
+    private final SecretKeySpec key;
+    
+    public QueueTokenSigner(String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+    
+    public String sign(QueueToken token) {
+        String payload = payload(token);
+        return payload + "." + mac(payload);
+    }
+    
+    // Null for anything malformed or not signed with our key
+    public QueueToken verify(String value) {
+        if (value == null) {
+            return null;
+        }
+        int lastDot = value.lastIndexOf('.');
+        if (lastDot < 0) {
+            return null;
+        }
+        String payload = value.substring(0, lastDot);
+        byte[] expected = mac(payload).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = value.substring(lastDot + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+        
+        String[] parts = payload.split("\\.");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            return new QueueToken(decode(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]), decode(parts[3]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private static String payload(QueueToken token) {
+        return encode(token.eventId()) + "." + token.sequence() + "." + token.issuedAt() + "." + encode(token.user());
+    }
+    
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String decode(String value) {
+        return new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+    }
+    
+    private String mac(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC not available", e);
+        }
+    }
+    
+    public record QueueToken(String eventId, long sequence, long issuedAt, String user) {
+    }
+}
@@ -0,0 +1,42 @@
+package id.ac.ui.cs.advprog.sistemticket.waitingroom;
+
+// Refills at a fixed rate up to the burst size, admissions are taken out as whole tokens
+public class TokenBucket {
+    private final double ratePerSecond;
+    private final int burst;
+    private double tokens;
+    private long lastRefillNanos;
+    
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = nowNanos;
+    }
+    
+    public synchronized int take(int wanted, long nowNanos) {
+        refill(nowNanos);
+        int taken = (int) Math.min(wanted, Math.floor(tokens));
+        tokens -= taken;
+        return taken;
+    }
+    
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+    
+    public int getBurst() {
+        return burst;
+    }
+    
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed * ratePerSecond / 1_000_000_000.0);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package id.ac.ui.cs.advprog.sistemticket.waitingroom;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// FIFO queue of one event reduced to two counters: the last sequence handed out and the
+// highest sequence admitted. A position is the distance between a token's sequence and the latter.
+public class WaitingRoom {
+    private final String eventId;
+    private final TokenBucket admissions;
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong admittedUpTo = new AtomicLong();
+    // Gated requests per admitted sequence, kept for as long as its token is valid
+    private final Cache<Long, AtomicInteger> entries;
+    private final int maxEntries;
+    
+    public WaitingRoom(String eventId, TokenBucket admissions, Duration tokenTtl, int maxEntries) {
+        this.eventId = eventId;
+        this.admissions = admissions;
+        this.entries = Caffeine.newBuilder().expireAfterWrite(tokenTtl).build();
+        this.maxEntries = maxEntries;
+    }
+    
+    public long join() {
+        return issued.incrementAndGet();
+    }
+    
+    public long position(long sequence) {
+        return Math.max(0, sequence - admittedUpTo.get());
+    }
+    
+    public boolean isAdmitted(long sequence) {
+        return sequence <= admittedUpTo.get();
+    }
+    
+    // Counts one gated request against an admitted sequence, false once it has used up max-entries
+    public boolean enter(long sequence) {
+        if (!isAdmitted(sequence)) {
+            return false;
+        }
+        return entries.get(sequence, key -> new AtomicInteger()).incrementAndGet() <= maxEntries;
+    }
+    
+    // Called from a single scheduler thread, returns how many were let in
+    public int admit(long nowNanos) {
+        long waiting = issued.get() - admittedUpTo.get();
+        if (waiting <= 0) {
+            return 0;
+        }
+        int admitted = admissions.take((int) Math.min(waiting, Integer.MAX_VALUE), nowNanos);
+        admittedUpTo.addAndGet(admitted);
+        return admitted;
+    }
+    
+    public long estimatedWaitSeconds(long sequence) {
+        return (long) Math.ceil(position(sequence) / admissions.getRatePerSecond());
+    }
+    
+    public String getEventId() {
+        return eventId;
+    }
+    
+    public long getIssued() {
+        return issued.get();
+    }
+    
+    public long getAdmittedUpTo() {
+        return admittedUpTo.get();
+    }
+    
+    public TokenBucket getAdmissions() {
+        return admissions;
+    }
+}
@@ -0,0 +1,47 @@
+package id.ac.ui.cs.advprog.sistemticket.waitingroom;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+// Turns purchase requests away before they reach the controller unless the caller's own queue token
+// has been admitted and has requests left. Costs nothing while no waiting room is open.
+public class WaitingRoomInterceptor implements HandlerInterceptor {
+    public static final String TOKEN_HEADER = "X-Queue-Token";
+    
+    private final WaitingRoomService waitingRoomService;
+    
+    public WaitingRoomInterceptor(WaitingRoomService waitingRoomService) {
+        this.waitingRoomService = waitingRoomService;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!waitingRoomService.hasOpenRooms()) {
+            return true;
+        }
+        
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String ticketId = pathVariables != null ? pathVariables.get("id") : null;
+        String eventId = ticketId != null ? waitingRoomService.eventIdOfTicket(ticketId) : null;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String user = authentication != null ? authentication.getName() : null;
+        if (eventId == null || waitingRoomService.tryEnter(eventId, request.getHeader(TOKEN_HEADER), user)) {
+            return true;
+        }
+        
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", "1");
+        response.setHeader("X-Error-Message", "Waiting room is open for event " + eventId
+                + ", join the queue and retry once admitted");
+        return false;
+    }
+}
@@ -0,0 +1,137 @@
+package id.ac.ui.cs.advprog.sistemticket.waitingroom;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.QueueStatusDto;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import id.ac.ui.cs.advprog.sistemticket.waitingroom.QueueTokenSigner.QueueToken;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-event waiting rooms opened around a sale start. Joining and polling only touch memory,
+// admissions are released by a token bucket per event on every scheduler tick.
+@Component
+public class WaitingRoomService {
+    
+    private final TicketRepository ticketRepository;
+    private final QueueTokenSigner signer;
+    private final long tokenTtlMs;
+    private final int maxEntriesPerAdmission;
+    
+    private final Map<String, WaitingRoom> rooms = new ConcurrentHashMap<>();
+    // Event of each ticket seen at the purchase gate, so the gate only reads a ticket row once
+    private final Map<String, String> eventIdByTicket = new ConcurrentHashMap<>();
+    
+    public WaitingRoomService(TicketRepository ticketRepository,
+                              @Value("${ticket.waiting-room.secret:${jwt.secret:bGud7AS5fJz9XcnZpQWtLEDk3RHvM8y6gNTFxV2q4PwC}}") String secret,
+                              @Value("${ticket.waiting-room.token-ttl-seconds:3600}") long tokenTtlSeconds,
+                              @Value("${ticket.waiting-room.entries-per-admission:5}") int maxEntriesPerAdmission) {
+        this.ticketRepository = ticketRepository;
+        this.signer = new QueueTokenSigner(secret);
+        this.tokenTtlMs = tokenTtlSeconds * 1000;
+        this.maxEntriesPerAdmission = maxEntriesPerAdmission;
+    }
+    
+    public WaitingRoom open(String eventId, double ratePerSecond, int burst) {
+        WaitingRoom room = new WaitingRoom(eventId, new TokenBucket(ratePerSecond, burst, System.nanoTime()),
+                Duration.ofMillis(tokenTtlMs), maxEntriesPerAdmission);
+        WaitingRoom existing = rooms.putIfAbsent(eventId, room);
+        if (existing != null) {
+            throw new IllegalArgumentException("Waiting room for event " + eventId + " is already open");
+        }
+        return room;
+    }
+    
+    public void close(String eventId) {
+        if (rooms.remove(eventId) == null) {
+            throw new NoSuchElementException("No waiting room open for event " + eventId);
+        }
+    }
+    
+    public boolean isOpen(String eventId) {
+        return rooms.containsKey(eventId);
+    }
+    
+    public boolean hasOpenRooms() {
+        return !rooms.isEmpty();
+    }
+    
+    public QueueStatusDto join(String eventId, String user) {
+        WaitingRoom room = room(eventId);
+        QueueToken token = new QueueToken(eventId, room.join(), System.currentTimeMillis(), user);
+        return status(room, token, signer.sign(token));
+    }
+    
+    public QueueStatusDto status(String tokenValue) {
+        QueueToken token = verify(tokenValue);
+        return status(room(token.eventId()), token, tokenValue);
+    }
+    
+    // True when the room of the event is closed, or the user's own token has been let through it and
+    // has requests left. Each call that passes counts as one of the admission's entries-per-admission
+    public boolean tryEnter(String eventId, String tokenValue, String user) {
+        WaitingRoom room = rooms.get(eventId);
+        if (room == null) {
+            return true;
+        }
+        QueueToken token = signer.verify(tokenValue);
+        return token != null
+                && token.eventId().equals(eventId)
+                && token.user().equals(user)
+                && !isExpired(token)
+                && room.enter(token.sequence());
+    }
+    
+    public String eventIdOfTicket(String ticketId) {
+        String eventId = eventIdByTicket.get(ticketId);
+        if (eventId == null) {
+            eventId = ticketRepository.findById(ticketId).map(ticket -> ticket.getEventId()).orElse(null);
+            if (eventId != null) {
+                eventIdByTicket.put(ticketId, eventId);
+            }
+        }
+        return eventId;
+    }
+    
+    @Scheduled(fixedDelayString = "${ticket.waiting-room.tick-ms:100}")
+    public void admit() {
+        long now = System.nanoTime();
+        for (WaitingRoom room : rooms.values()) {
+            room.admit(now);
+        }
+    }
+    
+    private QueueToken verify(String tokenValue) {
+        QueueToken token = signer.verify(tokenValue);
+        if (token == null || isExpired(token)) {
+            throw new IllegalArgumentException("Invalid or expired queue token");
+        }
+        return token;
+    }
+    
+    private boolean isExpired(QueueToken token) {
+        return System.currentTimeMillis() - token.issuedAt() > tokenTtlMs;
+    }
+    
+    private WaitingRoom room(String eventId) {
+        WaitingRoom room = rooms.get(eventId);
+        if (room == null) {
+            throw new NoSuchElementException("No waiting room open for event " + eventId);
+        }
+        return room;
+    }
+    
+    private static QueueStatusDto status(WaitingRoom room, QueueToken token, String tokenValue) {
+        QueueStatusDto dto = new QueueStatusDto();
+        dto.setEventId(room.getEventId());
+        dto.setToken(tokenValue);
+        dto.setPosition(room.position(token.sequence()));
+        dto.setAdmitted(room.isAdmitted(token.sequence()));
+        dto.setEstimatedWaitSeconds(room.estimatedWaitSeconds(token.sequence()));
+        return dto;
+    }
+}
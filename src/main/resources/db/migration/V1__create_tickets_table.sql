@@ -0,0 +1,15 @@
+-- Matches the table ddl-auto=update has been creating, so existing databases are left untouched
+CREATE TABLE IF NOT EXISTS tickets (
+    id              VARCHAR(255) NOT NULL PRIMARY KEY,
+    event_id        VARCHAR(255) NOT NULL,
+    type            VARCHAR(255) NOT NULL,
+    price           FLOAT(53)    NOT NULL,
+    quota           INTEGER      NOT NULL,
+    remaining_quota INTEGER      NOT NULL,
+    description     TEXT,
+    sale_start      BIGINT       NOT NULL,
+    sale_end        BIGINT       NOT NULL,
+    status          VARCHAR(255) NOT NULL,
+    user_id         VARCHAR(255),
+    version         BIGINT       NOT NULL DEFAULT 0
+);
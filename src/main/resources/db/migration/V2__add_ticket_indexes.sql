@@ -0,0 +1,10 @@
+-- Keyset pages of one event filter on event_id and walk id, one index serves both
+CREATE INDEX IF NOT EXISTS idx_tickets_event_id ON tickets (event_id, id);
+
+CREATE INDEX IF NOT EXISTS idx_tickets_user_id ON tickets (user_id);
+
+CREATE INDEX IF NOT EXISTS idx_tickets_type ON tickets (type);
+
+-- findAllAvailable and the conditional purchase UPDATE, sold-out rows are left out of the index
+CREATE INDEX IF NOT EXISTS idx_tickets_on_sale ON tickets (status, sale_start, sale_end)
+    WHERE remaining_quota > 0;
@@ -0,0 +1,3 @@
+-- Sale ends the expiration sweeper loads, tickets that can no longer expire are left out of the index
+CREATE INDEX IF NOT EXISTS idx_tickets_expiring ON tickets (sale_end)
+    WHERE status IN ('AVAILABLE', 'PURCHASED');
@@ -0,0 +1,232 @@
+package id.ac.ui.cs.advprog.sistemticket.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.inventory.RemainingQuotaReader;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+    
+    @Mock
+    private TicketRepository ticketRepository;
+    
+    @Mock
+    private RemainingQuotaReader remainingQuotaReader;
+    
+    private AvailabilityIndex availabilityIndex;
+    private List<Ticket> rows;
+    private long now;
+    
+    @BeforeEach
+    void setUp() {
+        availabilityIndex = new AvailabilityIndex(ticketRepository, remainingQuotaReader, true);
+        now = 1_000_000L;
+        rows = new ArrayList<>();
+        lenient().when(ticketRepository.findAllOnSaleOrUpcoming(anyLong())).thenReturn(rows);
+        lenient().when(remainingQuotaReader.remainingQuota(any(Ticket.class)))
+                .thenAnswer(invocation -> invocation.<Ticket>getArgument(0).getRemainingQuota());
+    }
+    
+    private Ticket ticket(String id, long saleStart, long saleEnd) {
+        Ticket ticket = new Ticket("event-1", "REGULAR", 100.0, 10, "Ticket " + id, saleStart, saleEnd);
+        ticket.setId(id);
+        return ticket;
+    }
+    
+    private List<String> availableIds(long time) {
+        return availabilityIndex.available(time).orElseThrow().stream().map(Ticket::getId).sorted().toList();
+    }
+    
+    @Test
+    void testBuildsOnFirstQuery() {
+        rows.add(ticket("open", now - 10, now + 10));
+        rows.add(ticket("later", now + 5, now + 20));
+        
+        assertEquals(List.of("open"), availableIds(now));
+        verify(ticketRepository, times(1)).findAllOnSaleOrUpcoming(now);
+    }
+    
+    @Test
+    void testWindowsOpenAndCloseWithoutRebuilding() {
+        rows.add(ticket("early", now - 10, now + 10));
+        rows.add(ticket("late", now + 5, now + 20));
+        
+        assertEquals(List.of("early"), availableIds(now));
+        assertEquals(List.of("early", "late"), availableIds(now + 10));
+        assertEquals(List.of("late"), availableIds(now + 11));
+        assertEquals(List.of(), availableIds(now + 21));
+        verify(ticketRepository, times(1)).findAllOnSaleOrUpcoming(anyLong());
+    }
+    
+    @Test
+    void testBulkStatusChangeDropsTheEventsTickets() {
+        rows.add(ticket("open", now - 10, now + 10));
+        rows.add(ticket("later", now + 5, now + 20));
+        Ticket other = ticket("other", now - 10, now + 10);
+        other.setEventId("event-2");
+        rows.add(other);
+        availableIds(now);
+        
+        availabilityIndex.onStatusChanged(TicketStatusChangedEvent.forEvent("event-1", "EXPIRED",
+                TicketStatus.EXPIRED.allowedFrom(), 2));
+        
+        assertEquals(List.of("other"), availableIds(now + 10));
+        verify(ticketRepository, times(1)).findAllOnSaleOrUpcoming(anyLong());
+    }
+    
+    @Test
+    void testBulkStatusChangeByIdsLeavesTheRest() {
+        rows.add(ticket("a", now - 10, now + 10));
+        rows.add(ticket("b", now - 10, now + 10));
+        availableIds(now);
+        
+        availabilityIndex.onStatusChanged(TicketStatusChangedEvent.forTickets(Set.of("a", "missing"), "PURCHASED",
+                TicketStatus.PURCHASED.allowedFrom(), 1));
+        
+        assertEquals(List.of("b"), availableIds(now));
+    }
+    
+    @Test
+    void testWindowBetweenTwoQueriesIsSkipped() {
+        rows.add(ticket("short", now + 5, now + 6));
+        
+        assertEquals(List.of(), availableIds(now));
+        assertEquals(List.of(), availableIds(now + 100));
+    }
+    
+    @Test
+    void testTimeBeforeWatermarkFallsBack() {
+        availableIds(now);
+        
+        assertTrue(availabilityIndex.available(now - 1).isEmpty());
+    }
+    
+    @Test
+    void testSellOutRemovesTicket() {
+        Ticket ticket = ticket("hot", now - 10, now + 10);
+        rows.add(ticket);
+        availableIds(now);
+        
+        Ticket soldOut = ticket.copy();
+        soldOut.setRemainingQuota(0);
+        availabilityIndex.update(soldOut);
+        
+        assertEquals(List.of(), availableIds(now));
+    }
+    
+    @Test
+    void testStaleUpdateIsIgnored() {
+        Ticket ticket = ticket("hot", now - 10, now + 10);
+        rows.add(ticket);
+        availableIds(now);
+        Ticket newer = ticket.copy();
+        newer.setRemainingQuota(3);
+        newer.setVersion(2L);
+        Ticket older = ticket.copy();
+        older.setRemainingQuota(7);
+        older.setVersion(1L);
+        
+        availabilityIndex.update(newer);
+        availabilityIndex.update(older);
+        
+        assertEquals(3, availabilityIndex.available(now).orElseThrow().get(0).getRemainingQuota());
+    }
+    
+    @Test
+    void testSameVersionViewsKeepTheLowerQuota() {
+        Ticket ticket = ticket("hot", now - 10, now + 10);
+        rows.add(ticket);
+        availableIds(now);
+        Ticket soldOut = ticket.copy();
+        soldOut.setRemainingQuota(0);
+        soldOut.setVersion(2L);
+        Ticket earlierCaller = ticket.copy();
+        earlierCaller.setRemainingQuota(4);
+        earlierCaller.setVersion(2L);
+        
+        Ticket olderWrite = ticket.copy();
+        olderWrite.setRemainingQuota(6);
+        olderWrite.setVersion(1L);
+        
+        availabilityIndex.update(soldOut);
+        availabilityIndex.update(earlierCaller);
+        availabilityIndex.update(olderWrite);
+        
+        assertEquals(List.of(), availableIds(now));
+    }
+    
+    @Test
+    void testExpiredStatusAndDeleteRemoveTicket() {
+        Ticket first = ticket("first", now - 10, now + 10);
+        rows.add(first);
+        rows.add(ticket("second", now - 10, now + 10));
+        availableIds(now);
+        
+        Ticket expired = first.copy();
+        expired.setStatus(TicketStatus.EXPIRED.getValue());
+        availabilityIndex.update(expired);
+        availabilityIndex.remove("second");
+        
+        assertEquals(List.of(), availableIds(now));
+    }
+    
+    @Test
+    void testCreatedAndRefreshedTicketsAreAdded() {
+        availableIds(now);
+        Ticket created = ticket("new", now + 1, now + 10);
+        availabilityIndex.update(created);
+        Ticket released = ticket("released", now - 1, now + 10);
+        when(ticketRepository.findById("released")).thenReturn(Optional.of(released));
+        availabilityIndex.refresh("released");
+        
+        assertEquals(List.of("released"), availableIds(now));
+        assertEquals(List.of("new", "released"), availableIds(now + 1));
+    }
+    
+    @Test
+    void testCallerCannotChangeIndexedTicket() {
+        rows.add(ticket("open", now - 10, now + 10));
+        availabilityIndex.available(now).orElseThrow().get(0).setRemainingQuota(0);
+        
+        assertEquals(10, availabilityIndex.available(now).orElseThrow().get(0).getRemainingQuota());
+    }
+    
+    @Test
+    void testPagesFollowIdOrder() {
+        rows.add(ticket("c", now - 10, now + 10));
+        rows.add(ticket("a", now - 10, now + 10));
+        rows.add(ticket("b", now - 10, now + 10));
+        
+        List<Ticket> first = availabilityIndex.availablePage(now, "", 2).orElseThrow();
+        List<Ticket> second = availabilityIndex.availablePage(now, "b", 2).orElseThrow();
+        
+        assertEquals(List.of("a", "b"), first.stream().map(Ticket::getId).toList());
+        assertEquals(List.of("c"), second.stream().map(Ticket::getId).toList());
+    }
+    
+    @Test
+    void testDisabledIndexFallsBack() {
+        AvailabilityIndex disabled = new AvailabilityIndex(ticketRepository, remainingQuotaReader, false);
+        
+        assertTrue(disabled.available(now).isEmpty());
+        verify(ticketRepository, never()).findAllOnSaleOrUpcoming(anyLong());
+    }
+}
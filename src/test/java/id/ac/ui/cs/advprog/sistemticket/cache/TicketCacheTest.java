@@ -0,0 +1,131 @@
+package id.ac.ui.cs.advprog.sistemticket.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+
+class TicketCacheTest {
+    
+    private TicketCache ticketCache;
+    private Ticket ticket;
+    private AtomicInteger loads;
+    
+    @BeforeEach
+    void setUp() {
+        ticketCache = new TicketCache(true, 100, 60);
+        long now = System.currentTimeMillis();
+        ticket = new Ticket("event-1", "VIP", 100.0, 10, "Front row", now, now + 60000);
+        ticket.setId("ticket-1");
+        loads = new AtomicInteger();
+    }
+    
+    private Optional<Ticket> load(String id) {
+        loads.incrementAndGet();
+        return id.equals(ticket.getId()) ? Optional.of(ticket) : Optional.empty();
+    }
+    
+    @Test
+    void testSecondReadIsAHit() {
+        ticketCache.get("ticket-1", this::load);
+        ticketCache.get("ticket-1", this::load);
+        
+        assertEquals(1, loads.get());
+        assertEquals(1L, ticketCache.snapshot().get("hits"));
+        assertEquals(1L, ticketCache.snapshot().get("misses"));
+        assertEquals(0.5, ticketCache.snapshot().get("hitRatio"));
+    }
+    
+    @Test
+    void testMissesAreCached() {
+        assertNull(ticketCache.get("missing", this::load));
+        assertNull(ticketCache.get("missing", this::load));
+        
+        assertEquals(1, loads.get());
+    }
+    
+    @Test
+    void testGetAllLoadsMissesInOneCallWithoutCachingThem() {
+        List<Set<String>> requested = new ArrayList<>();
+        Function<Set<String>, Map<String, Ticket>> loader = ids -> {
+            requested.add(ids);
+            return ids.contains("ticket-1") ? Map.of("ticket-1", ticket) : Map.of();
+        };
+        
+        ticketCache.get("ticket-1", this::load);
+        Map<String, Ticket> found = ticketCache.getAll(List.of("ticket-1", "missing-1", "missing-2"), loader);
+        ticketCache.getAll(List.of("missing-1", "missing-2"), loader);
+        
+        assertEquals(Set.of("ticket-1"), found.keySet());
+        // Bulk misses are not cached, they go to the loader again
+        assertEquals(List.of(Set.of("missing-1", "missing-2"), Set.of("missing-1", "missing-2")), requested);
+        assertEquals(1L, ticketCache.snapshot().get("size"));
+    }
+    
+    @Test
+    void testCallerCannotChangeCachedCopy() {
+        Ticket first = ticketCache.get("ticket-1", this::load);
+        first.setDescription("Edited");
+        
+        assertEquals("Front row", ticketCache.get("ticket-1", this::load).getDescription());
+    }
+    
+    @Test
+    void testStatusChangeDropsTicketsOfTheEvent() {
+        ticketCache.get("ticket-1", this::load);
+        ticketCache.get("missing", this::load);
+        
+        ticketCache.onStatusChanged(TicketStatusChangedEvent.forEvent("event-2", "EXPIRED", Set.of("AVAILABLE"), 1));
+        ticketCache.get("ticket-1", this::load);
+        assertEquals(2, loads.get());
+        
+        ticketCache.onStatusChanged(TicketStatusChangedEvent.forEvent("event-1", "EXPIRED", Set.of("AVAILABLE"), 1));
+        ticketCache.get("ticket-1", this::load);
+        ticketCache.get("missing", this::load);
+        assertEquals(3, loads.get());
+    }
+    
+    @Test
+    void testPutReplacesEntry() {
+        ticketCache.get("ticket-1", this::load);
+        Ticket updated = ticket.copy();
+        updated.setPrice(250.0);
+        
+        ticketCache.put(updated);
+        
+        assertEquals(250.0, ticketCache.get("ticket-1", this::load).getPrice());
+        assertEquals(1, loads.get());
+    }
+    
+    @Test
+    void testInvalidateForcesReload() {
+        ticketCache.get("ticket-1", this::load);
+        
+        ticketCache.invalidate("ticket-1");
+        ticketCache.invalidateAll(List.of("ticket-1"));
+        ticketCache.get("ticket-1", this::load);
+        
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    void testDisabledCacheAlwaysLoads() {
+        TicketCache disabled = new TicketCache(false, 100, 60);
+        
+        disabled.get("ticket-1", this::load);
+        disabled.get("ticket-1", this::load);
+        
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,127 @@
+package id.ac.ui.cs.advprog.sistemticket.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import id.ac.ui.cs.advprog.sistemticket.metrics.ExecutorMetrics;
+
+class BulkheadExecutorTest {
+    
+    private AsyncConfig asyncConfig;
+    private MockEnvironment environment;
+    private ExecutorMetrics executorMetrics;
+    private CountDownLatch release;
+    
+    @BeforeEach
+    void setUp() {
+        asyncConfig = new AsyncConfig();
+        executorMetrics = new ExecutorMetrics();
+        release = new CountDownLatch(1);
+        // One thread and one queue slot each, so the third task saturates a bulkhead
+        environment = new MockEnvironment();
+        for (String name : new String[] {"expiration", "events", "batch"}) {
+            environment.setProperty("ticket.executors." + name + ".core-size", "1");
+            environment.setProperty("ticket.executors." + name + ".max-size", "1");
+            environment.setProperty("ticket.executors." + name + ".queue-capacity", "1");
+        }
+        environment.setProperty("ticket.executors.batch.block-timeout-ms", "100");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+    
+    private void blockOn(ThreadPoolTaskExecutor executor, int tasks) {
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+    }
+    
+    @Test
+    void testDropRejectsWhenSaturated() {
+        ThreadPoolTaskExecutor executor = asyncConfig.expirationExecutor(environment, executorMetrics);
+        blockOn(executor, 2);
+        
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertEquals(1, executorMetrics.getRejections("expiration"));
+        assertEquals(1, executorMetrics.snapshot().get("expiration").get("queueDepth"));
+    }
+    
+    @Test
+    void testCallerRunsWhenSaturated() {
+        ThreadPoolTaskExecutor executor = asyncConfig.eventExecutor(environment, executorMetrics);
+        blockOn(executor, 2);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+        
+        assertEquals(Thread.currentThread(), ranOn.get());
+        assertEquals(1L, executorMetrics.snapshot().get("events").get("callerRuns"));
+    }
+    
+    @Test
+    void testBlockTimesOutWhenQueueStaysFull() {
+        ThreadPoolTaskExecutor executor = asyncConfig.batchExecutor(environment, executorMetrics);
+        blockOn(executor, 2);
+        
+        long start = System.nanoTime();
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+    }
+    
+    @Test
+    void testBlockWaitsForQueueSpace() throws Exception {
+        environment.setProperty("ticket.executors.batch.block-timeout-ms", "5000");
+        ThreadPoolTaskExecutor executor = asyncConfig.batchExecutor(environment, executorMetrics);
+        blockOn(executor, 2);
+        CountDownLatch ran = new CountDownLatch(1);
+        
+        new Thread(() -> {
+            sleep(100);
+            release.countDown();
+        }).start();
+        executor.execute(ran::countDown);
+        
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executorMetrics.getRejections("batch"));
+    }
+    
+    @Test
+    void testSlowListenersDoNotStarveExpiration() throws Exception {
+        environment.setProperty("ticket.executors.events.rejection-policy", "DROP");
+        ThreadPoolTaskExecutor events = asyncConfig.eventExecutor(environment, executorMetrics);
+        ThreadPoolTaskExecutor expiration = asyncConfig.expirationExecutor(environment, executorMetrics);
+        blockOn(events, 2);
+        assertThrows(RejectedExecutionException.class, () -> events.execute(() -> { }));
+        CountDownLatch expired = new CountDownLatch(1);
+        
+        expiration.execute(expired::countDown);
+        
+        assertTrue(expired.await(1, TimeUnit.SECONDS));
+    }
+    
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package id.ac.ui.cs.advprog.sistemticket.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.bean.override.convention.TestBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import id.ac.ui.cs.advprog.sistemticket.cache.TicketCache;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+// Compares throughput of the platform and virtual thread modes for GET /api/tickets/{id} against an
+// embedded PostgreSQL, with the application's Hikari pool and every read missing the ticket cache.
+// Excluded from the regular test run, use ./gradlew benchmark
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class VirtualThreadBenchmarkTest {
+    
+    private static final int TICKETS = 4000;
+    // Tomcat's default server.tomcat.threads.max
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int CONCURRENT_CLIENTS = 1000;
+    
+    private static EmbeddedPostgres postgres;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private TicketCache ticketCache;
+    
+    @TestBean
+    private DataSource dataSource;
+    
+    private List<String> ticketIds;
+    
+    @BeforeAll
+    static void startPostgres() {
+        try {
+            postgres = EmbeddedPostgres.start();
+        } catch (Exception | LinkageError e) {
+            Assumptions.abort("Embedded PostgreSQL is not available: " + e.getMessage());
+        }
+    }
+    
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+    
+    // Replaces DatabaseConfig's pool with one of the same size on the embedded database
+    static DataSource dataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        dataSource.setMaximumPoolSize(5);
+        dataSource.setConnectionTimeout(20000);
+        return dataSource;
+    }
+    
+    @BeforeEach
+    void seedTickets() {
+        if (ticketRepository.count() < TICKETS) {
+            List<Ticket> tickets = new ArrayList<>(TICKETS);
+            for (int i = 0; i < TICKETS; i++) {
+                tickets.add(new Ticket.Builder()
+                        .eventId("event-" + (i % 50))
+                        .type("REGULAR")
+                        .price(100.0)
+                        .quota(100)
+                        .description("Benchmark ticket " + i)
+                        .saleStart(0L)
+                        .saleEnd(Long.MAX_VALUE)
+                        .build());
+            }
+            ticketRepository.saveAll(tickets);
+        }
+        ticketIds = ticketRepository.findAll().stream().map(Ticket::getId).toList();
+        // Warms up the request path, so the first measured mode does not pay for class loading and JIT
+        ticketCache.invalidateAll(ticketIds);
+        throughput(Executors.newVirtualThreadPerTaskExecutor(), 500, 100);
+    }
+    
+    @Test
+    void benchmarkRequestHandling() {
+        double platform = throughput(Executors.newFixedThreadPool(TOMCAT_MAX_THREADS), TICKETS, CONCURRENT_CLIENTS);
+        double virtual = throughput(Executors.newVirtualThreadPerTaskExecutor(), TICKETS, CONCURRENT_CLIENTS);
+        
+        report("request handling", platform, virtual);
+        assertTrue(platform > 0 && virtual > 0);
+    }
+    
+    @Test
+    void benchmarkAsyncExecutor() {
+        // At most 100 outstanding, so the platform executor's queue of 100 never rejects
+        double platform = throughput(asyncExecutor(false), 500, 100);
+        double virtual = throughput(asyncExecutor(true), 500, 100);
+        
+        report("@Async taskExecutor", platform, virtual);
+        assertTrue(platform > 0 && virtual > 0);
+    }
+    
+    private static Executor asyncExecutor(boolean virtualThreads) {
+        AsyncConfig asyncConfig = new AsyncConfig();
+        ReflectionTestUtils.setField(asyncConfig, "virtualThreads", virtualThreads);
+        ReflectionTestUtils.setField(asyncConfig, "virtualConcurrencyLimit", 1000);
+        return asyncConfig.taskExecutor();
+    }
+    
+    // Each client waits for its answer before sending the next request. Every request reads a different
+    // ticket with an empty cache, so each one takes a pooled connection and a round trip to the database
+    private double throughput(Executor executor, int requests, int clients) {
+        ticketCache.invalidateAll(ticketIds);
+        CountDownLatch done = new CountDownLatch(requests);
+        Semaphore outstanding = new Semaphore(clients);
+        AtomicInteger failed = new AtomicInteger();
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                String id = ticketIds.get(i % ticketIds.size());
+                outstanding.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        if (mockMvc.perform(get("/api/tickets/{id}", id)).andReturn().getResponse().getStatus() != 200) {
+                            failed.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failed.incrementAndGet();
+                    } finally {
+                        outstanding.release();
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.MINUTES));
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            assertEquals(0, failed.get());
+            return requests / seconds;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            shutdown(executor);
+        }
+    }
+    
+    // ThreadPoolTaskExecutor is not an ExecutorService, its pool threads only stop on shutdown()
+    private static void shutdown(Executor executor) {
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        } else if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+    
+    private static void report(String name, double platform, double virtual) {
+        System.out.printf("%s: platform %.0f req/s, virtual %.0f req/s (x%.1f)%n",
+                name, platform, virtual, virtual / platform);
+    }
+}
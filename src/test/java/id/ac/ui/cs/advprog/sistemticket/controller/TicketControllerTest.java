@@ -1,6 +1,17 @@
 package id.ac.ui.cs.advprog.sistemticket.controller;
 
+import id.ac.ui.cs.advprog.sistemticket.config.AsyncConfig;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketFields;
+import id.ac.ui.cs.advprog.sistemticket.config.SecurityConfig;
+import id.ac.ui.cs.advprog.sistemticket.exception.TicketConflictException;
+import id.ac.ui.cs.advprog.sistemticket.idempotency.IdempotencyService;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketMapper;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ExecutorMetrics;
 import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.IdempotencyRecordRepository;
+import id.ac.ui.cs.advprog.sistemticket.search.SearchHit;
 import id.ac.ui.cs.advprog.sistemticket.service.TicketService;
 import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
 
@@ -9,12 +20,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import static org.mockito.Mockito.times;
@@ -24,11 +41,17 @@ import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.*;
 
 @WebMvcTest(TicketController.class)
+@Import({TicketMapper.class, SecurityConfig.class, AsyncConfig.class, ExecutorMetrics.class, IdempotencyService.class})
+@WithMockUser(roles = {"ADMIN", "ORGANIZER", "ATTENDEE"})
 public class TicketControllerTest {
 
     @Autowired
@@ -37,6 +60,9 @@ public class TicketControllerTest {
     @MockBean
     private TicketService ticketService;
 
+    @MockBean
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -83,15 +109,92 @@ public class TicketControllerTest {
     // Core CRUD operations
     @Test
     void testGetAllTickets() throws Exception {
-        when(ticketService.findAll()).thenReturn(tickets);
+        when(ticketService.findPage(null, 101, null, null, TicketFields.FULL)).thenReturn(views());
 
         mockMvc.perform(get("/api/tickets"))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$", hasSize(2)))
                .andExpect(jsonPath("$[0].id", is(ticketId)))
-               .andExpect(jsonPath("$[0].type", is("REGULAR")));
+               .andExpect(jsonPath("$[0].type", is("REGULAR")))
+               .andExpect(header().doesNotExist("X-Next-Cursor"));
                
-        verify(ticketService, times(1)).findAll();
+        verify(ticketService, times(1)).findPage(null, 101, null, null, TicketFields.FULL);
+    }
+
+    @Test
+    void testGetAllTicketsReturnsNextCursor() throws Exception {
+        when(ticketService.findPage(null, 2, "VIP", null, TicketFields.FULL)).thenReturn(views());
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ticketId.getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/api/tickets").param("limit", "1").param("type", "VIP"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)))
+               .andExpect(header().string("X-Next-Cursor", cursor));
+    }
+
+    @Test
+    void testGetAllTicketsFollowsCursorWithTotal() throws Exception {
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ticketId.getBytes(StandardCharsets.UTF_8));
+        when(ticketService.findPage(ticketId, 2, null, null, TicketFields.FULL)).thenReturn(views().subList(1, 2));
+        when(ticketService.countTickets(null, null)).thenReturn(2L);
+
+        mockMvc.perform(get("/api/tickets").param("cursor", cursor).param("limit", "1")
+                       .param("includeTotal", "true"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)))
+               .andExpect(header().doesNotExist("X-Next-Cursor"))
+               .andExpect(header().string("X-Total-Count", "2"));
+    }
+
+    @Test
+    void testGetAllTicketsRejectsBadPageArguments() throws Exception {
+        mockMvc.perform(get("/api/tickets").param("cursor", "not base64!"))
+               .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tickets").param("limit", "0"))
+               .andExpect(status().isBadRequest());
+        verify(ticketService, never()).findPage(any(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void testGetTicketsByEventIdPage() throws Exception {
+        when(ticketService.findPageByEventId(eventId, null, 101, TicketFields.FULL)).thenReturn(views());
+
+        mockMvc.perform(get("/api/tickets/event/{eventId}", eventId))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(2)));
+    }
+
+    @Test
+    void testGetTicketsSummaryFields() throws Exception {
+        when(ticketService.findPage(null, 101, null, null, TicketFields.SUMMARY)).thenReturn(List.of(
+                new TicketView(ticketId, eventId, "REGULAR", 150.0, 100, 100, currentTime, currentTime + 1000,
+                        "AVAILABLE", null)));
+
+        mockMvc.perform(get("/api/tickets").param("fields", "summary"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].id", is(ticketId)))
+               .andExpect(jsonPath("$[0].description").value(nullValue()));
+        mockMvc.perform(get("/api/tickets").param("fields", "everything"))
+               .andExpect(status().isBadRequest());
+    }
+
+    private List<TicketView> views() {
+        return tickets.stream()
+                .map(t -> new TicketView(t.getId(), t.getEventId(), t.getType(), t.getPrice(), t.getQuota(),
+                        t.getRemainingQuota(), t.getDescription(), t.getSaleStart(), t.getSaleEnd(),
+                        t.getStatus(), t.getUserId()))
+                .toList();
+    }
+
+    @Test
+    void testGetAvailableTicketsPageClampsLimit() throws Exception {
+        when(ticketService.findAvailablePage(anyLong(), isNull(), eq(1001))).thenReturn(tickets);
+
+        mockMvc.perform(get("/api/tickets/available").param("limit", "5000"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(2)));
     }
 
     @Test
@@ -107,6 +210,121 @@ public class TicketControllerTest {
         verify(ticketService, times(1)).findById(ticketId);
     }
 
+    @Test
+    void testLookupTicketsKeepsRequestOrderAndMarksMissing() throws Exception {
+        List<String> ids = List.of(tickets.get(1).getId(), "unknown", ticketId);
+        when(ticketService.findAllByIds(ids)).thenReturn(Map.of(
+                ticketId, tickets.get(0), tickets.get(1).getId(), tickets.get(1)));
+
+        mockMvc.perform(post("/api/tickets/lookup")
+                       .contentType(MediaType.APPLICATION_JSON)
+                       .content(objectMapper.writeValueAsString(Map.of("ids", ids))))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(3)))
+               .andExpect(jsonPath("$[0].ticket.type", is("VIP")))
+               .andExpect(jsonPath("$[1].id", is("unknown")))
+               .andExpect(jsonPath("$[1].found", is(false)))
+               .andExpect(jsonPath("$[1].ticket").value(nullValue()))
+               .andExpect(jsonPath("$[2].found", is(true)))
+               .andExpect(jsonPath("$[2].id", is(ticketId)));
+    }
+
+    @Test
+    void testSearchTicketsReturnsRankedResultsWithCursor() throws Exception {
+        SearchHit first = new SearchHit(tickets.get(1).getId(), 2.5);
+        SearchHit second = new SearchHit(ticketId, 1.25);
+        when(ticketService.search("concert", null, null, null, 2)).thenReturn(List.of(first, second));
+        when(ticketService.findAllByIds(List.of(first.ticketId())))
+                .thenReturn(Map.of(first.ticketId(), tickets.get(1)));
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("2.5:" + first.ticketId()).getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/api/tickets/search").param("q", "concert").param("limit", "1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)))
+               .andExpect(jsonPath("$[0].ticket.type", is("VIP")))
+               .andExpect(jsonPath("$[0].score", is(2.5)))
+               .andExpect(header().string("X-Next-Cursor", cursor));
+    }
+
+    @Test
+    void testSearchTicketsKeepsCursorPastDeletedTicket() throws Exception {
+        SearchHit deleted = new SearchHit("deleted-id", 3.0);
+        SearchHit next = new SearchHit(ticketId, 1.25);
+        when(ticketService.search("concert", null, null, null, 2)).thenReturn(List.of(deleted, next));
+        when(ticketService.findAllByIds(List.of(deleted.ticketId()))).thenReturn(Map.of());
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("3.0:" + deleted.ticketId()).getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/api/tickets/search").param("q", "concert").param("limit", "1"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(0)))
+               .andExpect(header().string("X-Next-Cursor", cursor));
+    }
+
+    @Test
+    void testSearchTicketsFollowsCursor() throws Exception {
+        SearchHit after = new SearchHit(tickets.get(1).getId(), 2.5);
+        when(ticketService.search("concert", "VIP", null, after, 101)).thenReturn(List.of());
+        when(ticketService.findAllByIds(List.of())).thenReturn(Map.of());
+        String cursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("2.5:" + after.ticketId()).getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/api/tickets/search").param("q", "concert").param("type", "VIP").param("cursor", cursor))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    void testSearchTicketsWithoutQueryIsBadRequest() throws Exception {
+        when(ticketService.search(null, null, null, null, 101))
+                .thenThrow(new IllegalArgumentException("Search needs a query, a type or an event ID"));
+
+        mockMvc.perform(get("/api/tickets/search"))
+               .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCreateTicketsBatchReportsEachItem() throws Exception {
+        List<Map<String, Object>> batch = List.of(
+                creation("batch-1", currentTime + 1000),
+                creation("batch-2", currentTime - 1000), // Sale ends before it starts
+                creation("batch-3", currentTime + 1000));
+        when(ticketService.createTickets(any())).thenReturn(List.of(BatchItemStatus.CREATED, BatchItemStatus.DUPLICATE));
+
+        MvcResult result = mockMvc.perform(post("/api/tickets/batch")
+                       .contentType(MediaType.APPLICATION_JSON)
+                       .content(objectMapper.writeValueAsString(batch)))
+               .andExpect(request().asyncStarted())
+               .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isCreated())
+               .andExpect(jsonPath("$", hasSize(3)))
+               .andExpect(jsonPath("$[0].status", is("CREATED")))
+               .andExpect(jsonPath("$[0].ticket.id", is("batch-1")))
+               .andExpect(jsonPath("$[1].index", is(1)))
+               .andExpect(jsonPath("$[1].status", is("FAILED")))
+               .andExpect(jsonPath("$[1].ticket").value(nullValue()))
+               .andExpect(jsonPath("$[2].id", is("batch-3")))
+               .andExpect(jsonPath("$[2].status", is("DUPLICATE")));
+    }
+
+    private Map<String, Object> creation(String id, long saleEnd) {
+        return Map.of("id", id, "eventId", eventId, "type", "REGULAR", "price", 10.0, "quota", 5,
+                "description", "Batch ticket", "saleStart", currentTime, "saleEnd", saleEnd);
+    }
+
+    @Test
+    void testLookupTicketsRejectsEmptyRequest() throws Exception {
+        mockMvc.perform(post("/api/tickets/lookup")
+                       .contentType(MediaType.APPLICATION_JSON)
+                       .content("{\"ids\":[]}"))
+               .andExpect(status().isBadRequest());
+
+        verify(ticketService, never()).findAllByIds(any());
+    }
+
     @Test
     void testCreateTicket() throws Exception {
         Ticket ticket = tickets.get(0);
@@ -124,7 +342,7 @@ public class TicketControllerTest {
     @Test
     void testUpdateTicket() throws Exception {
         Ticket ticket = tickets.get(0);
-        when(ticketService.updateTicket(any(Ticket.class))).thenReturn(ticket);
+        when(ticketService.updateTicket(eq(ticketId), anyMap())).thenReturn(ticket);
 
         mockMvc.perform(put("/api/tickets/{id}", ticketId)
                .contentType(MediaType.APPLICATION_JSON)
@@ -132,7 +350,39 @@ public class TicketControllerTest {
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.id", is(ticketId)));
                
-        verify(ticketService, times(1)).updateTicket(any(Ticket.class));
+        verify(ticketService, times(1)).updateTicket(eq(ticketId), anyMap());
+        verify(ticketService, never()).findById(ticketId);
+    }
+
+    @Test
+    void testUpdateTicketSendsOnlyGivenFields() throws Exception {
+        when(ticketService.updateTicket(ticketId, Map.of("price", 250.0))).thenReturn(tickets.get(0));
+
+        mockMvc.perform(put("/api/tickets/{id}", ticketId)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"price\": 250.0}"))
+               .andExpect(status().isOk());
+    }
+
+    @Test
+    void testUpdateTicketInvalidType() throws Exception {
+        mockMvc.perform(put("/api/tickets/{id}", ticketId)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"type\": \"BALCONY\"}"))
+               .andExpect(status().isBadRequest());
+
+        verify(ticketService, never()).updateTicket(any(), anyMap());
+    }
+
+    @Test
+    void testUpdateTicketNotFound() throws Exception {
+        when(ticketService.updateTicket(eq(ticketId), anyMap()))
+                .thenThrow(new NoSuchElementException("Ticket with ID " + ticketId + " not found"));
+
+        mockMvc.perform(put("/api/tickets/{id}", ticketId)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"price\": 250.0}"))
+               .andExpect(status().isNotFound());
     }
 
     @Test
@@ -163,6 +413,29 @@ public class TicketControllerTest {
         verify(ticketService, times(1)).updateStatus(eq(ticketId), eq(TicketStatus.PURCHASED.getValue()));
     }
 
+    @Test
+    void testUpdateEventTicketStatuses() throws Exception {
+        when(ticketService.updateStatusByEventId(eventId, TicketStatus.EXPIRED.getValue())).thenReturn(3);
+
+        mockMvc.perform(patch("/api/tickets/event/{eventId}/status", eventId)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"status\":\"EXPIRED\"}"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.status", is("EXPIRED")))
+               .andExpect(jsonPath("$.affected", is(3)));
+    }
+
+    @Test
+    void testUpdateTicketStatusesRejectsInvalidStatus() throws Exception {
+        when(ticketService.updateStatusByIds(List.of(ticketId), "AVAILABLE"))
+                .thenThrow(new IllegalArgumentException("Tickets cannot be moved to status AVAILABLE"));
+
+        mockMvc.perform(patch("/api/tickets/status")
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"ids\":[\"" + ticketId + "\"],\"status\":\"AVAILABLE\"}"))
+               .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testPurchaseTicket() throws Exception {
         Ticket ticket = tickets.get(0);
@@ -178,4 +451,41 @@ public class TicketControllerTest {
                
         verify(ticketService, times(1)).purchaseTicket(eq(ticketId), eq(5), anyLong());
     }
+
+    @Test
+    void testPurchaseTicketConflict() throws Exception {
+        when(ticketService.purchaseTicket(eq(ticketId), eq(5), anyLong()))
+                .thenThrow(new TicketConflictException(ticketId, "Ticket is being modified concurrently", null));
+
+        mockMvc.perform(post("/api/tickets/{id}/purchase", ticketId)
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"amount\": 5}"))
+               .andExpect(status().isConflict())
+               .andExpect(header().exists("X-Error-Message"));
+    }
+
+    @Test
+    void testPurchaseTicketReplaysIdempotencyKey() throws Exception {
+        Ticket ticket = tickets.get(0);
+        ticket.setRemainingQuota(95);
+        
+        when(ticketService.purchaseTicket(eq(ticketId), eq(5), anyLong())).thenReturn(ticket);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/tickets/{id}/purchase", ticketId)
+                   .header(IdempotencyService.HEADER, "retry-1")
+                   .contentType(MediaType.APPLICATION_JSON)
+                   .content("{\"amount\": 5}"))
+                   .andExpect(status().isOk())
+                   .andExpect(jsonPath("$.remainingQuota", is(95)));
+        }
+
+        verify(ticketService, times(1)).purchaseTicket(eq(ticketId), eq(5), anyLong());
+        
+        mockMvc.perform(post("/api/tickets/{id}/purchase", ticketId)
+               .header(IdempotencyService.HEADER, "retry-1")
+               .contentType(MediaType.APPLICATION_JSON)
+               .content("{\"amount\": 6}"))
+               .andExpect(status().isUnprocessableEntity());
+    }
 }
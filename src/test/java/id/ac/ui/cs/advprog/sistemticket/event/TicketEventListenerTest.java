@@ -3,6 +3,9 @@ package id.ac.ui.cs.advprog.sistemticket.event;
 import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
 import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
 
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -34,4 +37,16 @@ public class TicketEventListenerTest {
         // Verify event handler doesn't throw exceptions
         assertDoesNotThrow(() -> ticketEventListener.handleTicketPurchasedEvent(event));
     }
+    
+    @Test
+    void testHandleTicketCartPurchasedEvent() {
+        Ticket ticket = new Ticket();
+        ticket.setId("test-id");
+        ticket.setEventId("event-id");
+        ticket.setType("VIP");
+        
+        TicketCartPurchasedEvent event = new TicketCartPurchasedEvent(List.of(ticket), Map.of("test-id", 2));
+        
+        assertDoesNotThrow(() -> ticketEventListener.handleTicketCartPurchasedEvent(event));
+    }
 }
@@ -0,0 +1,173 @@
+package id.ac.ui.cs.advprog.sistemticket.expiration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ExpirationMetrics;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.SchedulerLeaseRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TicketExpirationSweeperTest {
+    
+    @Mock
+    private TicketRepository ticketRepository;
+    
+    @Mock
+    private SchedulerLeaseRepository leaseRepository;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    private ExpirationMetrics metrics;
+    private TicketExpirationSweeper sweeper;
+    
+    @BeforeEach
+    void setUp() {
+        metrics = new ExpirationMetrics();
+        sweeper = sweeper(10);
+        lenient().when(leaseRepository.renew(eq(TicketExpirationSweeper.LEASE_NAME), any(), anyLong(), anyLong()))
+                .thenReturn(1);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().doAnswer(invocation -> invocation.<Set<String>>getArgument(0).size())
+                .when(ticketRepository).expireByIds(any(), any(), anyLong());
+    }
+    
+    private TicketExpirationSweeper sweeper(int maxLoaded) {
+        return new TicketExpirationSweeper(ticketRepository, leaseRepository, transactionTemplate, eventPublisher,
+                metrics, true, 30000, 600000, 60000, maxLoaded, 2);
+    }
+    
+    private void loads(List<ExpirationDeadline> first, List<ExpirationDeadline> second) {
+        when(ticketRepository.findExpirationDeadlines(anyLong(), any(), any(Limit.class))).thenReturn(first, second);
+    }
+    
+    @Test
+    void testSweepExpiresPassedDeadlinesInBatches() {
+        loads(List.of(new ExpirationDeadline("a", 100), new ExpirationDeadline("b", 200),
+                new ExpirationDeadline("c", 400), new ExpirationDeadline("d", 5000)), List.of());
+        
+        assertEquals(3, sweeper.sweep(1000));
+        
+        verify(ticketRepository).expireByIds(eq(Set.of("a", "b")), eq(TicketStatus.EXPIRED.allowedFrom()), eq(1000L));
+        verify(ticketRepository).expireByIds(eq(Set.of("c")), any(), eq(1000L));
+        assertEquals(1, sweeper.getPendingDeadlines());
+        assertEquals(3L, metrics.getExpired());
+        assertEquals(900L, metrics.getMaxLagMs());
+    }
+    
+    @Test
+    void testOneEventPerBatch() {
+        loads(List.of(new ExpirationDeadline("a", 100)), List.of());
+        
+        sweeper.sweep(1000);
+        
+        ArgumentCaptor<TicketStatusChangedEvent> event = ArgumentCaptor.forClass(TicketStatusChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Set.of("a"), event.getValue().getTicketIds());
+        assertEquals("EXPIRED", event.getValue().getStatus());
+        assertEquals(1000L, event.getValue().getSaleEndBefore());
+    }
+    
+    @Test
+    void testNothingPublishedWhenNoRowChanged() {
+        doReturn(0).when(ticketRepository).expireByIds(any(), any(), anyLong());
+        
+        assertEquals(0, sweeper.expire(List.of("a"), 1000));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+    
+    @Test
+    void testOtherNodeHoldsTheLease() {
+        when(leaseRepository.renew(any(), any(), anyLong(), anyLong())).thenReturn(0);
+        when(leaseRepository.existsById(TicketExpirationSweeper.LEASE_NAME)).thenReturn(true);
+        
+        assertEquals(0, sweeper.sweep(1000));
+        
+        verify(leaseRepository, never()).create(any(), any(), anyLong());
+        verifyNoInteractions(ticketRepository);
+    }
+    
+    @Test
+    void testFirstNodeCreatesTheLease() {
+        when(leaseRepository.renew(any(), any(), anyLong(), anyLong())).thenReturn(0);
+        when(leaseRepository.create(eq(TicketExpirationSweeper.LEASE_NAME), any(), eq(31000L))).thenReturn(1);
+        loads(List.of(new ExpirationDeadline("a", 100)), List.of());
+        
+        assertEquals(1, sweeper.sweep(1000));
+    }
+    
+    @Test
+    void testLeaseRenewedOnceHalfOfItRanOut() {
+        loads(List.of(), List.of());
+        
+        sweeper.sweep(1000);
+        sweeper.sweep(2000);
+        verify(leaseRepository, times(1)).renew(any(), any(), anyLong(), anyLong());
+        
+        sweeper.sweep(17000);
+        verify(leaseRepository, times(2)).renew(any(), any(), anyLong(), anyLong());
+    }
+    
+    @Test
+    void testTrackedWriteIsExpiredWithoutReload() {
+        loads(List.of(), List.of());
+        sweeper.sweep(1000);
+        
+        Ticket ticket = new Ticket.Builder().id("t1").eventId("event-1").type("VIP").price(10.0).quota(5)
+                .saleStart(0L).saleEnd(1500L).build();
+        Ticket used = new Ticket.Builder().id("t2").eventId("event-1").type("VIP").price(10.0).quota(5)
+                .saleStart(0L).saleEnd(1500L).status(TicketStatus.USED.getValue()).build();
+        sweeper.track(ticket);
+        sweeper.track(used);
+        
+        assertEquals(1, sweeper.sweep(2000));
+        verify(ticketRepository).expireByIds(eq(Set.of("t1")), any(), eq(2000L));
+        verify(ticketRepository, times(1)).findExpirationDeadlines(anyLong(), any(), any(Limit.class));
+    }
+    
+    @Test
+    void testTruncatedLoadIsContinuedInTheSameSweep() {
+        sweeper = sweeper(2);
+        loads(List.of(new ExpirationDeadline("a", 100), new ExpirationDeadline("b", 200)),
+                List.of(new ExpirationDeadline("c", 300)));
+        
+        assertEquals(3, sweeper.sweep(1000));
+        verify(ticketRepository, times(2)).findExpirationDeadlines(anyLong(), any(), any(Limit.class));
+    }
+    
+    @Test
+    void testFailedBatchIsReloadedOnTheNextTick() {
+        loads(List.of(new ExpirationDeadline("a", 100)), List.of(new ExpirationDeadline("a", 100)));
+        doThrow(new IllegalStateException("db down")).doReturn(1)
+                .when(ticketRepository).expireByIds(any(), any(), anyLong());
+        
+        assertEquals(0, sweeper.sweep(1000));
+        assertEquals(1, sweeper.sweep(2000));
+        verify(ticketRepository, times(2)).findExpirationDeadlines(anyLong(), any(), any(Limit.class));
+    }
+}
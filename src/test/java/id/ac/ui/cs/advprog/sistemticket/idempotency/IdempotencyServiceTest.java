@@ -0,0 +1,145 @@
+package id.ac.ui.cs.advprog.sistemticket.idempotency;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import id.ac.ui.cs.advprog.sistemticket.exception.IdempotencyKeyReusedException;
+import id.ac.ui.cs.advprog.sistemticket.model.IdempotencyRecord;
+import id.ac.ui.cs.advprog.sistemticket.repository.IdempotencyRecordRepository;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+    
+    private static final TypeReference<Map<String, Integer>> BODY = new TypeReference<>() { };
+    
+    @Mock
+    private IdempotencyRecordRepository recordRepository;
+    
+    private IdempotencyService idempotencyService;
+    private AtomicInteger executions;
+    
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(recordRepository, new ObjectMapper(), 3600, 100);
+        executions = new AtomicInteger();
+    }
+    
+    private ResponseEntity<Map<String, Integer>> purchase() {
+        return ResponseEntity.ok(Map.of("remaining", 100 - executions.incrementAndGet()));
+    }
+    
+    @Test
+    void testWithoutKeyAlwaysExecutes() {
+        idempotencyService.execute(null, Map.of("amount", 1), BODY, this::purchase);
+        idempotencyService.execute(null, Map.of("amount", 1), BODY, this::purchase);
+        
+        assertEquals(2, executions.get());
+        verifyNoInteractions(recordRepository);
+    }
+    
+    @Test
+    void testReplayReturnsStoredResultWithoutWriting() {
+        String key = idempotencyService.scopedKey("key-1", "purchase:ticket-1");
+        
+        ResponseEntity<Map<String, Integer>> first = idempotencyService.execute(key, Map.of("amount", 1), BODY, this::purchase);
+        ResponseEntity<Map<String, Integer>> second = idempotencyService.execute(key, Map.of("amount", 1), BODY, this::purchase);
+        
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        verify(recordRepository, times(1)).save(any(IdempotencyRecord.class));
+    }
+    
+    @Test
+    void testKeyReusedWithDifferentBodyIsRejected() {
+        String key = idempotencyService.scopedKey("key-1", "purchase:ticket-1");
+        idempotencyService.execute(key, Map.of("amount", 1), BODY, this::purchase);
+        
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> idempotencyService.execute(key, Map.of("amount", 2), BODY, this::purchase));
+        assertEquals(1, executions.get());
+    }
+    
+    @Test
+    void testFailedResponseIsNotStored() {
+        String key = idempotencyService.scopedKey("key-1", "purchase:ticket-1");
+        
+        idempotencyService.execute(key, Map.of("amount", 1), BODY,
+                () -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+        idempotencyService.execute(key, Map.of("amount", 1), BODY, this::purchase);
+        
+        assertEquals(1, executions.get());
+        verify(recordRepository, times(1)).save(any(IdempotencyRecord.class));
+    }
+    
+    @Test
+    void testStoredRecordIsReplayedAfterRestart() {
+        String key = idempotencyService.scopedKey("key-1", "purchase:ticket-1");
+        idempotencyService.execute(key, Map.of("amount", 1), BODY, this::purchase);
+        ArgumentCaptor<IdempotencyRecord> saved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(recordRepository).save(saved.capture());
+        
+        IdempotencyService restarted = new IdempotencyService(recordRepository, new ObjectMapper(), 3600, 100);
+        when(recordRepository.findById(key)).thenReturn(Optional.of(saved.getValue()));
+        ResponseEntity<Map<String, Integer>> replayed = restarted.execute(key, Map.of("amount", 1), BODY, this::purchase);
+        
+        assertEquals(1, executions.get());
+        assertEquals(99, replayed.getBody().get("remaining"));
+    }
+    
+    @Test
+    void testConcurrentDuplicateWaitsForFirstExecution() throws Exception {
+        String key = idempotencyService.scopedKey("key-1", "purchase:ticket-1");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        
+        CompletableFuture<ResponseEntity<Map<String, Integer>>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(key, Map.of("amount", 1), BODY, () -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return purchase();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ResponseEntity<Map<String, Integer>>> duplicate = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute(key, Map.of("amount", 1), BODY, this::purchase));
+        
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+        
+        assertEquals(first.get(5, TimeUnit.SECONDS).getBody(), duplicate.get(5, TimeUnit.SECONDS).getBody());
+        assertEquals(1, executions.get());
+    }
+    
+    @Test
+    void testScopedKeyRejectsOverlongKey() {
+        assertNull(idempotencyService.scopedKey(null, "batch"));
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.scopedKey("k".repeat(256), "batch"));
+        assertNotEquals(idempotencyService.scopedKey("key-1", "batch"),
+                idempotencyService.scopedKey("key-1", "purchase:ticket-1"));
+    }
+}
@@ -0,0 +1,220 @@
+package id.ac.ui.cs.advprog.sistemticket.inventory;
+
+import id.ac.ui.cs.advprog.sistemticket.cache.AvailabilityIndex;
+import id.ac.ui.cs.advprog.sistemticket.enums.PurchaseMode;
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryLedgerTest {
+    
+    @InjectMocks
+    private InventoryLedger inventoryLedger;
+    
+    @Mock
+    private TicketRepository ticketRepository;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    private Ticket ticket;
+    private Long currentTime;
+    
+    @BeforeEach
+    void setUp() {
+        currentTime = System.currentTimeMillis();
+        ticket = new Ticket(
+            "eb558e9f-1c39-460e-8860-71af6af63bd6",
+            "VIP",
+            300.0,
+            50,
+            "VIP ticket for concert",
+            currentTime,
+            currentTime + 86400000
+        );
+        
+        ReflectionTestUtils.setField(inventoryLedger, "purchaseMode", PurchaseMode.LEDGER);
+        ReflectionTestUtils.setField(inventoryLedger, "flushBatchSize", 100);
+        when(ticketRepository.findAll()).thenReturn(List.of(ticket));
+        inventoryLedger.afterSingletonsInstantiated();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+    
+    @Test
+    void testReserveDecrementsInMemory() {
+        Ticket result = inventoryLedger.reserve(ticket.getId(), 5, currentTime + 1000);
+        
+        assertEquals(45, result.getRemainingQuota());
+        assertEquals(45, inventoryLedger.remainingQuota(ticket));
+        assertEquals(5, inventoryLedger.getPendingDecrement(ticket.getId()));
+        verify(ticketRepository, never()).save(any(Ticket.class));
+    }
+    
+    @Test
+    void testReserveRejectsOverselling() {
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryLedger.reserve(ticket.getId(), 51, currentTime + 1000));
+        assertEquals(50, inventoryLedger.remainingQuota(ticket));
+    }
+    
+    @Test
+    void testReserveOutsideSaleWindow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryLedger.reserve(ticket.getId(), 1, ticket.getSaleEnd() + 1000));
+    }
+    
+    @Test
+    void testReserveUsesTrackedStatus() {
+        Ticket expired = ticket.copy();
+        expired.setStatus(TicketStatus.EXPIRED.getValue());
+        inventoryLedger.track(expired);
+        
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryLedger.reserve(ticket.getId(), 1, currentTime + 1000));
+    }
+    
+    @Test
+    void testReserveFollowsBulkStatusChange() {
+        inventoryLedger.onStatusChanged(TicketStatusChangedEvent.forEvent(ticket.getEventId(), "EXPIRED",
+                TicketStatus.EXPIRED.allowedFrom(), 1));
+        
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryLedger.reserve(ticket.getId(), 1, currentTime + 1000));
+        assertEquals(50, inventoryLedger.remainingQuota(ticket));
+    }
+    
+    @Test
+    void testReserveUnknownTicket() {
+        when(ticketRepository.findById("non-existent-id")).thenReturn(Optional.empty());
+        
+        assertThrows(NoSuchElementException.class,
+                () -> inventoryLedger.reserve("non-existent-id", 1, currentTime + 1000));
+    }
+    
+    @Test
+    void testConcurrentReservesNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(executor.submit(() -> {
+                try {
+                    inventoryLedger.reserve(ticket.getId(), 1, currentTime + 1000);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }));
+        }
+        
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                accepted++;
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        
+        assertEquals(50, accepted);
+        assertEquals(0, inventoryLedger.remainingQuota(ticket));
+        assertEquals(50, inventoryLedger.getPendingDecrement(ticket.getId()));
+    }
+    
+    @Test
+    void testFlushWritesNetDecrements() {
+        runTransactionsInline();
+        inventoryLedger.reserve(ticket.getId(), 2, currentTime + 1000);
+        inventoryLedger.reserve(ticket.getId(), 3, currentTime + 1000);
+        
+        inventoryLedger.flush();
+        
+        verify(ticketRepository, times(1)).applyQuotaDecrement(ticket.getId(), 5);
+        assertEquals(0, inventoryLedger.getPendingDecrement(ticket.getId()));
+        
+        inventoryLedger.flush();
+        verify(ticketRepository, times(1)).applyQuotaDecrement(anyString(), anyInt());
+    }
+    
+    @Test
+    void testViewsAfterFlushAreNotStaleForTheAvailabilityIndex() {
+        runTransactionsInline();
+        RemainingQuotaReader remainingQuotaReader = mock(RemainingQuotaReader.class);
+        when(remainingQuotaReader.remainingQuota(any(Ticket.class)))
+                .thenAnswer(invocation -> inventoryLedger.remainingQuota(invocation.<Ticket>getArgument(0)));
+        AvailabilityIndex availabilityIndex = new AvailabilityIndex(ticketRepository, remainingQuotaReader, true);
+        when(ticketRepository.findAllOnSaleOrUpcoming(anyLong())).thenReturn(List.of(ticket.copy()));
+        Long buyTime = currentTime + 1000;
+        assertEquals(1, availabilityIndex.available(buyTime).orElseThrow().size());
+        
+        availabilityIndex.update(inventoryLedger.reserve(ticket.getId(), 10, buyTime));
+        when(ticketRepository.applyQuotaDecrement(ticket.getId(), 10)).thenReturn(1);
+        inventoryLedger.flush();
+        // The resync reads the row the flush wrote, one version ahead of the rebuild
+        Ticket flushed = ticket.copy();
+        flushed.setRemainingQuota(40);
+        flushed.setVersion(ticket.getVersion() + 1);
+        when(ticketRepository.findAllOnSaleOrUpcoming(anyLong())).thenReturn(List.of(flushed));
+        availabilityIndex.resync();
+        
+        availabilityIndex.update(inventoryLedger.reserve(ticket.getId(), 40, buyTime));
+        
+        assertTrue(availabilityIndex.available(buyTime).orElseThrow().isEmpty());
+    }
+    
+    @Test
+    void testFailedFlushKeepsDecrementsPending() {
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .when(transactionTemplate).executeWithoutResult(any());
+        inventoryLedger.reserve(ticket.getId(), 4, currentTime + 1000);
+        
+        inventoryLedger.flush();
+        
+        assertEquals(4, inventoryLedger.getPendingDecrement(ticket.getId()));
+        assertEquals(46, inventoryLedger.remainingQuota(ticket));
+    }
+    
+    @Test
+    void testFlushDoesNothingOutsideLedgerMode() {
+        ReflectionTestUtils.setField(inventoryLedger, "purchaseMode", PurchaseMode.ATOMIC);
+        
+        inventoryLedger.flush();
+        
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+}
@@ -0,0 +1,199 @@
+package id.ac.ui.cs.advprog.sistemticket.inventory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.PurchaseMode;
+import id.ac.ui.cs.advprog.sistemticket.exception.TicketConflictException;
+import id.ac.ui.cs.advprog.sistemticket.metrics.BatchingMetrics;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+
+@ExtendWith(MockitoExtension.class)
+class PurchaseBatcherTest {
+    
+    @Mock
+    private TicketRepository ticketRepository;
+    
+    private BatchingMetrics batchingMetrics;
+    private PurchaseBatcher batcher;
+    private Ticket ticket;
+    private Long currentTime;
+    
+    @BeforeEach
+    void setUp() {
+        currentTime = System.currentTimeMillis();
+        batchingMetrics = new BatchingMetrics();
+        ticket = new Ticket.Builder()
+                .eventId("event-1")
+                .type("REGULAR")
+                .price(100.0)
+                .quota(5)
+                .saleStart(currentTime - 1000)
+                .saleEnd(currentTime + 86400000L)
+                .build();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.shutdown();
+        }
+    }
+    
+    private PurchaseBatcher batcher(long maxWaitMicros, int maxBatchSize) {
+        return new PurchaseBatcher(ticketRepository, batchingMetrics, PurchaseMode.ATOMIC,
+                true, maxWaitMicros, maxBatchSize, 2);
+    }
+    
+    @Test
+    void testRequestsInWindowShareOneUpdate() throws Exception {
+        batcher = batcher(200_000, 256);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.decrementRemainingQuota(eq(ticket.getId()), eq(4), anyLong())).thenReturn(1);
+        
+        List<CompletableFuture<Ticket>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(batcher.submit(ticket.getId(), 1, currentTime));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        
+        verify(ticketRepository, times(1)).decrementRemainingQuota(eq(ticket.getId()), eq(4), anyLong());
+        // Arrival order decides the remaining quota each caller sees
+        assertEquals(4, futures.get(0).get().getRemainingQuota());
+        assertEquals(1, futures.get(3).get().getRemainingQuota());
+        assertEquals(1, batchingMetrics.getBatches());
+        assertEquals(4, batchingMetrics.getRequests());
+    }
+    
+    @Test
+    void testFullBatchDoesNotWaitForWindow() throws Exception {
+        batcher = batcher(60_000_000, 2);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.decrementRemainingQuota(eq(ticket.getId()), eq(2), anyLong())).thenReturn(1);
+        
+        CompletableFuture<Ticket> first = batcher.submit(ticket.getId(), 1, currentTime);
+        CompletableFuture<Ticket> second = batcher.submit(ticket.getId(), 1, currentTime);
+        
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertEquals(1.0, batchingMetrics.getFillRatio());
+    }
+    
+    @Test
+    void testRequestsThatDoNotFitAreSoldOut() {
+        batcher = batcher(2000, 256);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.decrementRemainingQuota(eq(ticket.getId()), eq(5), anyLong())).thenReturn(1);
+        List<PurchaseBatcher.PendingPurchase> batch = List.of(
+                new PurchaseBatcher.PendingPurchase(3, currentTime, new CompletableFuture<>()),
+                new PurchaseBatcher.PendingPurchase(3, currentTime, new CompletableFuture<>()),
+                new PurchaseBatcher.PendingPurchase(2, currentTime, new CompletableFuture<>()));
+        
+        batcher.applyBatch(ticket.getId(), batch);
+        
+        assertEquals(2, batch.get(0).result().join().getRemainingQuota());
+        CompletionException soldOut = assertThrows(CompletionException.class, () -> batch.get(1).result().join());
+        assertInstanceOf(IllegalArgumentException.class, soldOut.getCause());
+        assertEquals(0, batch.get(2).result().join().getRemainingQuota());
+    }
+    
+    @Test
+    void testLostRaceIsDecidedAgainOnFreshRow() {
+        batcher = batcher(2000, 256);
+        Ticket drained = ticket.copy();
+        drained.setRemainingQuota(1);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket), Optional.of(drained));
+        when(ticketRepository.decrementRemainingQuota(eq(ticket.getId()), eq(4), anyLong())).thenReturn(0);
+        when(ticketRepository.decrementRemainingQuota(eq(ticket.getId()), eq(1), anyLong())).thenReturn(1);
+        List<PurchaseBatcher.PendingPurchase> batch = List.of(
+                new PurchaseBatcher.PendingPurchase(1, currentTime, new CompletableFuture<>()),
+                new PurchaseBatcher.PendingPurchase(3, currentTime, new CompletableFuture<>()));
+        
+        batcher.applyBatch(ticket.getId(), batch);
+        
+        assertEquals(0, batch.get(0).result().join().getRemainingQuota());
+        assertThrows(CompletionException.class, () -> batch.get(1).result().join());
+    }
+    
+    @Test
+    void testLosingEveryRaceIsAConflictNotSoldOut() {
+        batcher = batcher(2000, 256);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.decrementRemainingQuota(eq(ticket.getId()), eq(2), anyLong())).thenReturn(0);
+        List<PurchaseBatcher.PendingPurchase> batch = List.of(
+                new PurchaseBatcher.PendingPurchase(1, currentTime, new CompletableFuture<>()),
+                new PurchaseBatcher.PendingPurchase(1, currentTime, new CompletableFuture<>()));
+        
+        batcher.applyBatch(ticket.getId(), batch);
+        
+        verify(ticketRepository, times(3)).decrementRemainingQuota(eq(ticket.getId()), eq(2), anyLong());
+        CompletionException conflict = assertThrows(CompletionException.class, () -> batch.get(0).result().join());
+        assertInstanceOf(TicketConflictException.class, conflict.getCause());
+        assertEquals(0L, batchingMetrics.snapshot().get("soldOut"));
+    }
+    
+    @Test
+    void testDrainedQueueIsRemoved() throws Exception {
+        batcher = batcher(1000, 256);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.decrementRemainingQuota(eq(ticket.getId()), eq(1), anyLong())).thenReturn(1);
+        when(ticketRepository.findById("missing")).thenReturn(Optional.empty());
+        
+        assertNotNull(batcher.purchase(ticket.getId(), 1, currentTime));
+        assertThrows(NoSuchElementException.class, () -> batcher.purchase("missing", 1, currentTime));
+        
+        // The drain drops the queue right after completing the last batch
+        long deadline = System.currentTimeMillis() + 5000;
+        while (batcher.queuedTickets() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, batcher.queuedTickets());
+        // A later purchase gets a fresh queue
+        assertNotNull(batcher.purchase(ticket.getId(), 1, currentTime));
+    }
+    
+    @Test
+    void testPurchaseOutsideSaleWindow() {
+        batcher = batcher(1000, 256);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        
+        assertThrows(IllegalArgumentException.class,
+                () -> batcher.purchase(ticket.getId(), 1, currentTime + 2 * 86400000L));
+        verify(ticketRepository, never()).decrementRemainingQuota(any(), anyInt(), any());
+    }
+    
+    @Test
+    void testPurchaseUnknownTicket() {
+        batcher = batcher(1000, 256);
+        when(ticketRepository.findById("missing")).thenReturn(Optional.empty());
+        
+        assertThrows(NoSuchElementException.class, () -> batcher.purchase("missing", 1, currentTime));
+    }
+    
+    @Test
+    void testDisabledOutsideRowModes() {
+        batcher = new PurchaseBatcher(ticketRepository, batchingMetrics, PurchaseMode.LEDGER, true, 2000, 256, 1);
+        
+        assertFalse(batcher.isEnabled());
+    }
+}
@@ -0,0 +1,106 @@
+package id.ac.ui.cs.advprog.sistemticket.inventory;
+
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketQuotaBucket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketQuotaBucketRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(ShardedQuotaService.class)
+@TestPropertySource(properties = {"ticket.purchase.mode=SHARDED", "ticket.sharding.buckets=4"})
+class ShardedQuotaServiceTest {
+    
+    @Autowired
+    private ShardedQuotaService shardedQuotaService;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private TicketQuotaBucketRepository bucketRepository;
+    
+    private Ticket ticket;
+    private Long currentTime;
+    
+    @BeforeEach
+    void setUp() {
+        currentTime = System.currentTimeMillis();
+        ticket = ticketRepository.save(new Ticket(
+            "eb558e9f-1c39-460e-8860-71af6af63bd6",
+            "VIP",
+            300.0,
+            10,
+            "VIP ticket for concert",
+            currentTime,
+            currentTime + 86400000
+        ));
+    }
+    
+    @Test
+    void testFirstPurchaseSplitsQuotaIntoBuckets() {
+        Ticket result = shardedQuotaService.reserve(ticket.getId(), 1, currentTime + 1000);
+        
+        List<TicketQuotaBucket> buckets = bucketRepository.findAllByTicketIdOrderByBucketNo(ticket.getId());
+        assertEquals(4, buckets.size());
+        assertEquals(9, bucketRepository.sumRemaining(ticket.getId()));
+        assertEquals(9, result.getRemainingQuota());
+        assertEquals(9, shardedQuotaService.remainingQuota(ticket));
+    }
+    
+    @Test
+    void testPurchaseLargerThanAnyBucketRebalances() {
+        // 10 over 4 buckets is 3, 3, 2, 2 so 7 only fits after the buckets are merged
+        Ticket result = shardedQuotaService.reserve(ticket.getId(), 7, currentTime + 1000);
+        
+        assertEquals(3, result.getRemainingQuota());
+        List<TicketQuotaBucket> buckets = bucketRepository.findAllByTicketIdOrderByBucketNo(ticket.getId());
+        assertEquals(3, buckets.stream().mapToInt(TicketQuotaBucket::getRemaining).sum());
+        assertTrue(buckets.stream().allMatch(bucket -> bucket.getRemaining() <= 1));
+    }
+    
+    @Test
+    void testPurchaseRejectsOverselling() {
+        assertThrows(IllegalArgumentException.class,
+                () -> shardedQuotaService.reserve(ticket.getId(), 11, currentTime + 1000));
+        assertEquals(10, bucketRepository.sumRemaining(ticket.getId()));
+    }
+    
+    @Test
+    void testPurchaseOutsideSaleWindow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> shardedQuotaService.reserve(ticket.getId(), 1, ticket.getSaleEnd() + 1000));
+        assertEquals(0, bucketRepository.countByTicketId(ticket.getId()));
+    }
+    
+    @Test
+    void testReconcileWritesSumToTicketRow() {
+        shardedQuotaService.reserve(ticket.getId(), 4, currentTime + 1000);
+        
+        shardedQuotaService.reconcile();
+        
+        assertEquals(6, ticketRepository.findById(ticket.getId()).get().getRemainingQuota());
+    }
+    
+    @Test
+    void testForgetRemovesBuckets() {
+        shardedQuotaService.reserve(ticket.getId(), 1, currentTime + 1000);
+        
+        shardedQuotaService.forget(ticket.getId());
+        
+        assertEquals(0, bucketRepository.countByTicketId(ticket.getId()));
+        assertEquals(ticket.getRemainingQuota(), shardedQuotaService.remainingQuota(ticket));
+    }
+}
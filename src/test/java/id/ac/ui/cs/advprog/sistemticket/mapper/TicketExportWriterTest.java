@@ -0,0 +1,75 @@
+package id.ac.ui.cs.advprog.sistemticket.mapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketDto;
+import id.ac.ui.cs.advprog.sistemticket.enums.ExportFormat;
+
+class TicketExportWriterTest {
+    
+    private TicketExportWriter exportWriter;
+    private ObjectMapper objectMapper;
+    private TicketDto ticket;
+    
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper();
+        exportWriter = new TicketExportWriter();
+        ReflectionTestUtils.setField(exportWriter, "objectMapper", objectMapper);
+        
+        ticket = new TicketDto();
+        ticket.setId("ticket-1");
+        ticket.setEventId("event-1");
+        ticket.setType("VIP");
+        ticket.setPrice(150.0);
+        ticket.setQuota(10);
+        ticket.setRemainingQuota(4);
+        ticket.setDescription("Front row, \"best\" seats");
+        ticket.setSaleStart(1000L);
+        ticket.setSaleEnd(2000L);
+        ticket.setStatus("AVAILABLE");
+    }
+    
+    @Test
+    void testNdjsonWritesOneObjectPerLine() throws Exception {
+        StringWriter out = new StringWriter();
+        
+        exportWriter.writeHeader(ExportFormat.NDJSON, out);
+        exportWriter.writeRow(ExportFormat.NDJSON, ticket, out);
+        exportWriter.writeRow(ExportFormat.NDJSON, ticket, out);
+        
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("ticket-1", first.get("id").asText());
+        assertEquals(4, first.get("remainingQuota").asInt());
+    }
+    
+    @Test
+    void testCsvQuotesOnlyWhenNeeded() throws Exception {
+        StringWriter out = new StringWriter();
+        
+        exportWriter.writeHeader(ExportFormat.CSV, out);
+        exportWriter.writeRow(ExportFormat.CSV, ticket, out);
+        
+        String[] lines = out.toString().split("\n");
+        assertTrue(lines[0].startsWith("id,eventId,type"));
+        assertEquals("ticket-1,event-1,VIP,150.0,10,4,\"Front row, \"\"best\"\" seats\",1000,2000,AVAILABLE,",
+                lines[1]);
+    }
+    
+    @Test
+    void testFormatFromValue() {
+        assertEquals(ExportFormat.CSV, ExportFormat.fromValue("csv"));
+        assertThrows(IllegalArgumentException.class, () -> ExportFormat.fromValue("xml"));
+    }
+}
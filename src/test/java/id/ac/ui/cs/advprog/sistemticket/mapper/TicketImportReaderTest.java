@@ -0,0 +1,136 @@
+package id.ac.ui.cs.advprog.sistemticket.mapper;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+
+class TicketImportReaderTest {
+    
+    private static final String CSV_HEADER = "id,eventId,type,price,quota,description,saleStart,saleEnd\n";
+    
+    private TicketImportReader importReader;
+    
+    @BeforeEach
+    void setUp() {
+        importReader = new TicketImportReader();
+        ReflectionTestUtils.setField(importReader, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importReader, "maxLineLength", 200);
+    }
+    
+    private TicketImportReader.Records open(ImportFormat format, String upload) throws IOException {
+        return importReader.open(format, new StringReader(upload));
+    }
+    
+    @Test
+    void testNdjsonReadsOneTicketPerLine() throws Exception {
+        TicketImportReader.Records records = open(ImportFormat.NDJSON,
+                "{\"eventId\":\"event-1\",\"type\":\"VIP\",\"price\":150.0,\"quota\":10,\"saleStart\":1000,\"saleEnd\":2000}\n"
+                + "\n"
+                + "{\"eventId\":\"event-1\",\"type\":\"REGULAR\",\"price\":50.0,\"quota\":100,\"saleStart\":1000,\"saleEnd\":2000}");
+        
+        TicketImportRecord first = records.next();
+        TicketImportRecord second = records.next();
+        
+        assertEquals(1L, first.line());
+        assertEquals("VIP", first.ticket().getType());
+        assertEquals(10, first.ticket().getQuota());
+        assertEquals(3L, second.line());
+        assertEquals(50.0, second.ticket().getPrice());
+        assertNull(records.next());
+    }
+    
+    @Test
+    void testMalformedJsonIsReportedForItsLine() throws Exception {
+        TicketImportReader.Records records = open(ImportFormat.NDJSON, "{\"eventId\":\n{\"eventId\":\"event-1\"}\n");
+        
+        TicketImportRecord broken = records.next();
+        
+        assertEquals(1L, broken.line());
+        assertTrue(broken.error().startsWith("Malformed JSON"));
+        assertEquals("event-1", records.next().ticket().getEventId());
+    }
+    
+    @Test
+    void testCsvReadsQuotedValuesAcrossLines() throws Exception {
+        TicketImportReader.Records records = open(ImportFormat.CSV, CSV_HEADER
+                + "t1,event-1,VIP,150.0,10,\"Front row, \"\"best\"\" seats\",1000,2000\r\n"
+                + "t2,event-1,REGULAR,50.0,100,\"Two\nlines\",1000,2000\n"
+                + ",event-2,VIP,75.5,5,,1000,2000\n");
+        
+        TicketImportRecord first = records.next();
+        TicketImportRecord second = records.next();
+        TicketImportRecord third = records.next();
+        
+        assertEquals("Front row, \"best\" seats", first.ticket().getDescription());
+        assertEquals(2000L, first.ticket().getSaleEnd());
+        assertEquals("Two\nlines", second.ticket().getDescription());
+        assertEquals(3L, second.line());
+        assertEquals(4L, second.lastLine());
+        assertEquals(5L, third.line());
+        assertNull(third.ticket().getId());
+        assertNull(third.ticket().getDescription());
+        assertNull(records.next());
+    }
+    
+    @Test
+    void testCsvColumnsAreMatchedByName() throws Exception {
+        TicketImportReader.Records records = open(ImportFormat.CSV,
+                "SaleEnd,saleStart,QUOTA,price,type,eventId\n2000,1000,10,99.0,VIP,event-1\n");
+        
+        TicketImportRecord record = records.next();
+        
+        assertEquals(2000L, record.ticket().getSaleEnd());
+        assertEquals(10, record.ticket().getQuota());
+        assertEquals("event-1", record.ticket().getEventId());
+    }
+    
+    @Test
+    void testCsvRowErrorsAreReportedPerLine() throws Exception {
+        TicketImportReader.Records records = open(ImportFormat.CSV, CSV_HEADER
+                + "t1,event-1,VIP,cheap,10,Seat,1000,2000\n"
+                + "t2,event-1,VIP\n");
+        
+        assertEquals("Invalid price: cheap", records.next().error());
+        assertEquals("Expected 8 columns, found 3", records.next().error());
+    }
+    
+    @Test
+    void testCsvHeaderIsChecked() {
+        assertThrows(IllegalArgumentException.class, () -> open(ImportFormat.CSV, ""));
+        assertThrows(IllegalArgumentException.class, () -> open(ImportFormat.CSV, "eventId,type,colour\n"));
+        assertThrows(IllegalArgumentException.class, () -> open(ImportFormat.CSV, "eventId,type,price,quota,saleStart\n"));
+    }
+    
+    @Test
+    void testTooLongLineIsSkippedWithoutBuffering() throws Exception {
+        TicketImportReader.Records records = open(ImportFormat.NDJSON,
+                "{\"description\":\"" + "x".repeat(10_000) + "\"}\n{\"eventId\":\"event-1\"}\n");
+        
+        TicketImportRecord tooLong = records.next();
+        
+        assertEquals("Line is longer than 200 characters", tooLong.error());
+        assertEquals(2L, records.next().line());
+    }
+    
+    @Test
+    void testSkipThroughResumesAfterALine() throws Exception {
+        TicketImportReader.Records records = open(ImportFormat.CSV, CSV_HEADER
+                + "t1,event-1,VIP,150.0,10,\"Two\nlines\",1000,2000\n"
+                + "t2,event-1,VIP,150.0,10,Seat,1000,2000\n");
+        
+        records.skipThrough(3);
+        
+        TicketImportRecord record = records.next();
+        assertEquals(4L, record.line());
+        assertEquals("t2", record.ticket().getId());
+    }
+}
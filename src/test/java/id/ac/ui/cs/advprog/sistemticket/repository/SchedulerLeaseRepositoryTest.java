@@ -0,0 +1,44 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class SchedulerLeaseRepositoryTest {
+    
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+    
+    @Test
+    void testOnlyTheHolderRenewsUntilTheLeaseRunsOut() {
+        assertEquals(1, leaseRepository.create("sweeper", "node-a", 1000L));
+        
+        assertEquals(0, leaseRepository.renew("sweeper", "node-b", 1500L, 500L));
+        assertEquals(1, leaseRepository.renew("sweeper", "node-a", 1500L, 500L));
+        assertEquals(0, leaseRepository.renew("sweeper", "node-b", 2500L, 1200L));
+        assertEquals(1, leaseRepository.renew("sweeper", "node-b", 2600L, 1600L));
+        assertEquals("node-b", leaseRepository.findById("sweeper").get().getOwner());
+    }
+    
+    @Test
+    void testReleasedLeaseCanBeTakenRightAway() {
+        leaseRepository.create("sweeper", "node-a", 5000L);
+        
+        assertEquals(0, leaseRepository.release("sweeper", "node-b"));
+        assertEquals(1, leaseRepository.release("sweeper", "node-a"));
+        assertEquals(1, leaseRepository.renew("sweeper", "node-b", 2000L, 1000L));
+    }
+    
+    @Test
+    void testSecondCreateFails() {
+        leaseRepository.create("sweeper", "node-a", 1000L);
+        
+        assertThrows(DataIntegrityViolationException.class, () -> leaseRepository.create("sweeper", "node-b", 1000L));
+    }
+}
@@ -0,0 +1,97 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportJobStatus;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportError;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportJob;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class TicketImportJobRepositoryTest {
+    
+    @Autowired
+    private TicketImportJobRepository jobRepository;
+    
+    @Autowired
+    private TicketImportErrorRepository errorRepository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    private TicketImportJob reload(String id) {
+        entityManager.clear();
+        return jobRepository.findById(id).orElseThrow();
+    }
+    
+    @Test
+    void testRunningJobIsOnlyTakenOverOnceStale() {
+        assertEquals(1, jobRepository.create("job-1", "organizer", "CSV", 1000L));
+        
+        assertEquals(0, jobRepository.claim("job-1", "organizer", ImportFormat.CSV, ImportJobStatus.RUNNING, 1500L, 500L));
+        assertEquals(1, jobRepository.claim("job-1", "organizer", ImportFormat.CSV, ImportJobStatus.RUNNING, 5000L, 2000L));
+        assertEquals(5000L, reload("job-1").getUpdatedAt());
+    }
+    
+    @Test
+    void testFinishedJobIsResumedOnlyByItsOwnerAndFormat() {
+        jobRepository.create("job-1", "organizer", "CSV", 1000L);
+        jobRepository.finish("job-1", ImportJobStatus.INTERRUPTED, "Upload broke off", 1200L);
+        
+        assertEquals(0, jobRepository.claim("job-1", "someone-else", ImportFormat.CSV, ImportJobStatus.RUNNING, 1500L, 0L));
+        assertEquals(0, jobRepository.claim("job-1", "organizer", ImportFormat.NDJSON, ImportJobStatus.RUNNING, 1500L, 0L));
+        assertEquals(1, jobRepository.claim("job-1", "organizer", ImportFormat.CSV, ImportJobStatus.RUNNING, 1500L, 0L));
+        
+        TicketImportJob job = reload("job-1");
+        assertEquals(ImportJobStatus.RUNNING, job.getStatus());
+        assertNull(job.getError());
+    }
+    
+    @Test
+    void testSecondCreateFails() {
+        jobRepository.create("job-1", "organizer", "CSV", 1000L);
+        
+        assertThrows(DataIntegrityViolationException.class, () -> jobRepository.create("job-1", "organizer", "CSV", 1000L));
+    }
+    
+    @Test
+    void testProgressAddsUpPerChunk() {
+        jobRepository.create("job-1", "organizer", "NDJSON", 1000L);
+        
+        jobRepository.recordProgress("job-1", 500L, 480L, 5L, 15L, 2000L);
+        jobRepository.recordProgress("job-1", 900L, 400L, 0L, 0L, 3000L);
+        
+        TicketImportJob job = reload("job-1");
+        assertEquals(900L, job.getCommittedLine());
+        assertEquals(880L, job.getCreated());
+        assertEquals(5L, job.getDuplicates());
+        assertEquals(15L, job.getFailed());
+        assertEquals(3000L, job.getUpdatedAt());
+    }
+    
+    @Test
+    void testErrorsArePagedByLine() {
+        for (long line : new long[] {7, 3, 12, 5}) {
+            entityManager.persist(new TicketImportError("job-1", line, null, "FAILED", "Line " + line));
+        }
+        entityManager.persist(new TicketImportError("job-2", 4, null, "FAILED", "Other job"));
+        entityManager.flush();
+        
+        List<TicketImportError> first = errorRepository.findByJobIdAndLineGreaterThanOrderByLine("job-1", 0, Limit.of(2));
+        List<TicketImportError> second = errorRepository.findByJobIdAndLineGreaterThanOrderByLine("job-1", 5, Limit.of(2));
+        
+        assertEquals(List.of(3L, 5L), first.stream().map(TicketImportError::getLine).toList());
+        assertEquals(List.of(7L, 12L), second.stream().map(TicketImportError::getLine).toList());
+    }
+}
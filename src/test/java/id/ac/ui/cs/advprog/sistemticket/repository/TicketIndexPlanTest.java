@@ -0,0 +1,136 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+// Runs the Flyway migrations on an embedded PostgreSQL and checks that the queries behind
+// TicketRepository are planned on the new indexes. Skipped where PostgreSQL cannot start,
+// for example when the tests run as root.
+class TicketIndexPlanTest {
+    
+    private static final int TICKETS = 20000;
+    
+    private static EmbeddedPostgres postgres;
+    private static DataSource dataSource;
+    
+    @BeforeAll
+    static void startPostgres() throws Exception {
+        try {
+            postgres = EmbeddedPostgres.start();
+        } catch (Exception | LinkageError e) {
+            Assumptions.abort("Embedded PostgreSQL is not available: " + e.getMessage());
+        }
+        dataSource = postgres.getPostgresDatabase();
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        
+        // Few available rows and many events, types and users, the shape the indexes are meant for
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO tickets (id, event_id, type, price, quota, remaining_quota, description, "
+                    + "sale_start, sale_end, status, user_id) "
+                    + "SELECT 'ticket-' || i, 'event-' || (i % 500), 'type-' || (i % 50), 100, 10, "
+                    + "CASE WHEN i % 3 = 0 THEN 0 ELSE 10 END, repeat('x', 200), "
+                    + "i * 10, i * 10 + 5000, CASE WHEN i % 50 = 0 THEN 'AVAILABLE' ELSE 'EXPIRED' END, "
+                    + "'user-' || (i % 1000) "
+                    + "FROM generate_series(1, " + TICKETS + ") AS i");
+            statement.execute("ANALYZE tickets");
+        }
+    }
+    
+    @AfterAll
+    static void stopPostgres() throws Exception {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+    
+    @Test
+    void testEventPageUsesEventIndex() throws Exception {
+        assertPlanUses("idx_tickets_event_id",
+                "SELECT * FROM tickets WHERE event_id = 'event-7' AND id > '' ORDER BY id LIMIT 100");
+    }
+    
+    @Test
+    void testUserLookupUsesUserIndex() throws Exception {
+        assertPlanUses("idx_tickets_user_id", "SELECT * FROM tickets WHERE user_id = 'user-3'");
+    }
+    
+    @Test
+    void testTypeLookupUsesTypeIndex() throws Exception {
+        assertPlanUses("idx_tickets_type", "SELECT * FROM tickets WHERE type = 'type-3'");
+    }
+    
+    @Test
+    void testAvailableQueryUsesPartialIndex() throws Exception {
+        // Many PURCHASED rows still inside their sale window: idx_tickets_expiring holds them and has to
+        // filter them out, idx_tickets_on_sale skips them on status. Rolled back, the other plans keep the shared data
+        String plan = planWith("INSERT INTO tickets (id, event_id, type, price, quota, remaining_quota, description, "
+                        + "sale_start, sale_end, status, user_id) "
+                        + "SELECT 'purchased-' || i, 'event-' || (i % 500), 'type-' || (i % 50), 100, 10, 5, "
+                        + "repeat('x', 200), 0, 200000 + i, 'PURCHASED', 'user-' || (i % 1000) "
+                        + "FROM generate_series(1, " + TICKETS + ") AS i",
+                "SELECT * FROM tickets WHERE status = 'AVAILABLE' AND remaining_quota > 0 "
+                        + "AND 100000 BETWEEN sale_start AND sale_end");
+        assertTrue(plan.contains("idx_tickets_on_sale"), "Expected idx_tickets_on_sale in plan:\n" + plan);
+    }
+    
+    @Test
+    void testExpirationDeadlinesUseExpiringIndex() throws Exception {
+        assertPlanUses("idx_tickets_expiring",
+                "SELECT id, sale_end FROM tickets WHERE sale_end <= 100000 "
+                        + "AND status IN ('AVAILABLE', 'PURCHASED') ORDER BY sale_end LIMIT 10000");
+    }
+    
+    @Test
+    void testMigrationsAreRepeatable() {
+        // Databases created by ddl-auto already have the table, the IF NOT EXISTS guards keep V1 and V2 safe
+        assertEquals(0, Flyway.configure().dataSource(dataSource).load().migrate().migrationsExecuted);
+    }
+    
+    private static void assertPlanUses(String index, String sql) throws Exception {
+        String plan = plan(sql);
+        assertTrue(plan.contains(index), "Expected " + index + " in plan:\n" + plan);
+    }
+    
+    // Plans the query after extra rows that only this transaction sees, then rolls both back
+    private static String planWith(String setupSql, String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(setupSql);
+                statement.execute("ANALYZE tickets");
+                return explain(statement, sql);
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+    
+    private static String plan(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            return explain(statement, sql);
+        }
+    }
+    
+    private static String explain(Statement statement, String sql) throws Exception {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rows = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,118 @@
+package id.ac.ui.cs.advprog.sistemticket.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketDto;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketMapper;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+
+// Compares latency and allocation per page of the entity path (hydrate, dirty-check snapshot,
+// TicketMapper copy) with the projection queries. Excluded from the regular test run, use ./gradlew benchmark
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+class TicketProjectionBenchmarkTest {
+    
+    private static final int TICKETS = 5000;
+    private static final int PAGE_SIZE = 100;
+    private static final int DESCRIPTION_LENGTH = 2000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 10;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private TestEntityManager entityManager;
+    
+    private final TicketMapper ticketMapper = new TicketMapper();
+    
+    @BeforeEach
+    void setUp() {
+        long now = System.currentTimeMillis();
+        String description = "x".repeat(DESCRIPTION_LENGTH);
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < TICKETS; i++) {
+            tickets.add(new Ticket("event-" + (i % 50), i % 2 == 0 ? "REGULAR" : "VIP", 100.0 + i, 100,
+                    description, now, now + 86400000));
+        }
+        ticketRepository.saveAll(tickets);
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    @Test
+    void benchmarkListPages() {
+        Result entity = measure(after -> {
+            List<TicketDto> page = new ArrayList<>();
+            for (Ticket ticket : ticketRepository.findPage(after, null, null, Limit.of(PAGE_SIZE))) {
+                page.add(ticketMapper.toDto(ticket));
+            }
+            return page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        });
+        Result full = measure(after -> lastId(ticketRepository.findViewPage(after, null, null, Limit.of(PAGE_SIZE))));
+        Result summary = measure(after -> lastId(ticketRepository.findSummaryPage(after, null, null, Limit.of(PAGE_SIZE))));
+        
+        report("entity + TicketMapper", entity);
+        report("projection, full", full);
+        report("projection, summary", summary);
+        assertTrue(entity.pages > 0 && full.pages == entity.pages && summary.pages == entity.pages);
+    }
+    
+    private static String lastId(List<TicketView> page) {
+        return page.isEmpty() ? null : page.get(page.size() - 1).id();
+    }
+    
+    // Walks the whole table page by page, the persistence context is cleared after each page as it
+    // would be at the end of a request
+    private Result measure(Function<String, String> readPage) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            walk(readPage);
+        }
+        
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long pages = 0;
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            pages += walk(readPage);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        return new Result(pages, elapsed / 1000.0 / pages, allocated / (double) pages);
+    }
+    
+    private int walk(Function<String, String> readPage) {
+        int pages = 0;
+        String after = "";
+        while ((after = readPage.apply(after)) != null) {
+            entityManager.clear();
+            pages++;
+        }
+        return pages;
+    }
+    
+    private static void report(String name, Result result) {
+        System.out.printf("%s: %.0f us/page, %.1f KB allocated/page over %d pages%n",
+                name, result.microsPerPage, result.bytesPerPage / 1024, result.pages);
+    }
+    
+    private record Result(long pages, double microsPerPage, double bytesPerPage) {
+    }
+}
@@ -1,5 +1,7 @@
 package id.ac.ui.cs.advprog.sistemticket.repository;
 
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.expiration.ExpirationDeadline;
 import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
 import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
 
@@ -7,10 +9,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +30,9 @@ class TicketRepositoryTest {
     @Autowired
     private TicketRepository ticketRepository;
     
+    @Autowired
+    private TestEntityManager entityManager;
+    
     private Ticket ticket1;
     private Ticket ticket2;
     private Ticket ticket3;
@@ -201,6 +213,258 @@ class TicketRepositoryTest {
         assertEquals(ticket3.getId(), availableTickets.get(0).getId());
     }
     
+    @Test
+    void testFindPageWalksIdsInOrder() {
+        List<String> ids = new ArrayList<>(List.of(ticket1.getId(), ticket2.getId(), ticket3.getId()));
+        Collections.sort(ids);
+        
+        List<Ticket> first = ticketRepository.findPage("", null, null, Limit.of(2));
+        List<Ticket> second = ticketRepository.findPage(first.get(1).getId(), null, null, Limit.of(2));
+        
+        assertEquals(ids.subList(0, 2), first.stream().map(Ticket::getId).toList());
+        assertEquals(ids.subList(2, 3), second.stream().map(Ticket::getId).toList());
+        assertEquals(3, ticketRepository.countPage(null, null));
+    }
+    
+    @Test
+    void testFindPageFiltersTypeAndStatus() {
+        List<Ticket> regular = ticketRepository.findPage("", "REGULAR", TicketStatus.AVAILABLE.getValue(), Limit.of(10));
+        
+        assertEquals(2, regular.size());
+        assertEquals(2, ticketRepository.countPage("REGULAR", null));
+        assertEquals(0, ticketRepository.countPage(null, TicketStatus.PURCHASED.getValue()));
+    }
+    
+    @Test
+    void testProjectionPages() {
+        List<TicketView> full = ticketRepository.findViewPage("", null, null, Limit.of(10));
+        List<TicketView> summary = ticketRepository.findSummaryPageByEventId(eventId2, "", Limit.of(10));
+        
+        assertEquals(3, full.size());
+        TicketView first = full.stream().filter(view -> view.id().equals(ticket1.getId())).findFirst().get();
+        assertEquals("Regular ticket for concert", first.description());
+        assertEquals(100, first.remainingQuota());
+        assertEquals(1, summary.size());
+        assertEquals(ticket3.getId(), summary.get(0).id());
+        assertNull(summary.get(0).description());
+        assertEquals(200.0, summary.get(0).price());
+    }
+    
+    @Test
+    void testFindEventAndAvailablePages() {
+        String firstOfEvent = ticket1.getId().compareTo(ticket2.getId()) < 0 ? ticket1.getId() : ticket2.getId();
+        
+        List<Ticket> eventPage = ticketRepository.findByEventIdAndIdGreaterThanOrderByIdAsc(eventId1, firstOfEvent, Limit.of(10));
+        List<Ticket> availablePage = ticketRepository.findAvailablePage(currentTime + 1000, "", Limit.of(2));
+        
+        assertEquals(1, eventPage.size());
+        assertEquals(2, ticketRepository.countByEventId(eventId1));
+        assertEquals(2, availablePage.size());
+        assertEquals(3, ticketRepository.countAvailable(currentTime + 1000));
+    }
+    
+    @Test
+    void testStreamAllInIdOrder() {
+        List<String> ids = new ArrayList<>(List.of(ticket1.getId(), ticket2.getId(), ticket3.getId()));
+        Collections.sort(ids);
+        
+        try (Stream<Ticket> tickets = ticketRepository.streamAll()) {
+            assertEquals(ids, tickets.map(Ticket::getId).toList());
+        }
+        try (Stream<Ticket> tickets = ticketRepository.streamAllByEventId(eventId2)) {
+            assertEquals(List.of(ticket3.getId()), tickets.map(Ticket::getId).toList());
+        }
+    }
+    
+    @Test
+    void testFindAllOnSaleOrUpcoming() {
+        Ticket purchased = ticketRepository.findById(ticket2.getId()).get();
+        purchased.setStatus(TicketStatus.PURCHASED.getValue());
+        ticketRepository.save(purchased);
+        
+        // Sold-out tickets stay in, their quota can come back from a released hold
+        List<Ticket> tickets = ticketRepository.findAllOnSaleOrUpcoming(currentTime + 1000);
+        assertEquals(2, tickets.size());
+        
+        assertTrue(ticketRepository.findAllOnSaleOrUpcoming(currentTime + 2 * 86400000L).isEmpty());
+    }
+    
+    @Test
+    void testDecrementRemainingQuota() {
+        int updatedRows = ticketRepository.decrementRemainingQuota(ticket1.getId(), 10, currentTime + 1000);
+        
+        assertEquals(1, updatedRows);
+        assertEquals(90, ticketRepository.findById(ticket1.getId()).get().getRemainingQuota());
+    }
+    
+    @Test
+    void testDecrementRemainingQuotaRejectsOverselling() {
+        int updatedRows = ticketRepository.decrementRemainingQuota(ticket2.getId(), 51, currentTime + 1000);
+        
+        assertEquals(0, updatedRows);
+        assertEquals(50, ticketRepository.findById(ticket2.getId()).get().getRemainingQuota());
+    }
+    
+    @Test
+    void testDecrementRemainingQuotaOutsideSaleWindow() {
+        int updatedRows = ticketRepository.decrementRemainingQuota(ticket1.getId(), 1, currentTime + 2 * 86400000L);
+        
+        assertEquals(0, updatedRows);
+        assertEquals(100, ticketRepository.findById(ticket1.getId()).get().getRemainingQuota());
+    }
+    
+    @Test
+    void testDecrementRemainingQuotaRequiresAvailableStatus() {
+        Ticket ticket = ticketRepository.findById(ticket3.getId()).get();
+        ticket.setStatus(TicketStatus.EXPIRED.getValue());
+        ticketRepository.save(ticket);
+        
+        int updatedRows = ticketRepository.decrementRemainingQuota(ticket3.getId(), 1, currentTime + 1000);
+        
+        assertEquals(0, updatedRows);
+    }
+    
+    @Test
+    void testIncrementRemainingQuotaIsCappedAtQuota() {
+        ticketRepository.decrementRemainingQuota(ticket1.getId(), 10, currentTime + 1000);
+        
+        ticketRepository.incrementRemainingQuota(ticket1.getId(), 4);
+        assertEquals(94, ticketRepository.findById(ticket1.getId()).get().getRemainingQuota());
+        
+        ticketRepository.incrementRemainingQuota(ticket1.getId(), 50);
+        assertEquals(100, ticketRepository.findById(ticket1.getId()).get().getRemainingQuota());
+    }
+    
+    @Test
+    void testFindAllByIdForUpdateIsOrderedById() {
+        List<String> ids = List.of(ticket3.getId(), ticket1.getId(), ticket2.getId());
+        
+        List<Ticket> locked = ticketRepository.findAllByIdForUpdate(ids);
+        
+        assertEquals(ids.stream().sorted().toList(), locked.stream().map(Ticket::getId).toList());
+    }
+    
+    @Test
+    void testUpdateStatusByEventIdOnlyMovesAllowedStatuses() {
+        Ticket used = ticketRepository.findById(ticket2.getId()).get();
+        used.setStatus(TicketStatus.USED.getValue());
+        ticketRepository.save(used);
+        
+        int updatedRows = ticketRepository.updateStatusByEventId(eventId1, TicketStatus.EXPIRED.getValue(),
+                TicketStatus.EXPIRED.allowedFrom());
+        
+        assertEquals(1, updatedRows);
+        assertEquals("EXPIRED", ticketRepository.findById(ticket1.getId()).get().getStatus());
+        assertEquals("USED", ticketRepository.findById(ticket2.getId()).get().getStatus());
+        assertEquals("AVAILABLE", ticketRepository.findById(ticket3.getId()).get().getStatus());
+    }
+    
+    @Test
+    void testUpdateStatusByIdsBumpsVersion() {
+        long version = ticketRepository.findById(ticket3.getId()).get().getVersion();
+        
+        int updatedRows = ticketRepository.updateStatusByIds(List.of(ticket1.getId(), ticket3.getId()),
+                TicketStatus.PURCHASED.getValue(), TicketStatus.PURCHASED.allowedFrom());
+        
+        assertEquals(2, updatedRows);
+        Ticket updated = ticketRepository.findById(ticket3.getId()).get();
+        assertEquals("PURCHASED", updated.getStatus());
+        assertEquals(version + 1, updated.getVersion());
+        assertEquals("AVAILABLE", ticketRepository.findById(ticket2.getId()).get().getStatus());
+    }
+    
+    @Test
+    void testFindExpirationDeadlinesSoonestFirst() {
+        ticket2.setSaleEnd(currentTime + 2000);
+        ticket3.setSaleEnd(currentTime + 1000);
+        ticketRepository.save(ticket2);
+        ticketRepository.save(ticket3);
+        
+        List<ExpirationDeadline> deadlines = ticketRepository.findExpirationDeadlines(currentTime + 5000,
+                TicketStatus.EXPIRED.allowedFrom(), Limit.of(10));
+        
+        assertEquals(List.of(new ExpirationDeadline(ticket3.getId(), currentTime + 1000),
+                new ExpirationDeadline(ticket2.getId(), currentTime + 2000)), deadlines);
+        
+        Ticket used = ticketRepository.findById(ticket3.getId()).get();
+        used.setStatus(TicketStatus.USED.getValue());
+        ticketRepository.save(used);
+        
+        assertEquals(List.of(ticket2.getId()), ticketRepository.findExpirationDeadlines(currentTime + 5000,
+                TicketStatus.EXPIRED.allowedFrom(), Limit.of(10)).stream().map(ExpirationDeadline::ticketId).toList());
+    }
+    
+    @Test
+    void testExpireByIdsOnlyExpiresEndedSales() {
+        ticket1.setSaleEnd(currentTime + 1000);
+        ticket3.setSaleEnd(currentTime + 1000);
+        ticket3.setStatus(TicketStatus.USED.getValue());
+        ticketRepository.save(ticket1);
+        ticketRepository.save(ticket3);
+        
+        int expiredRows = ticketRepository.expireByIds(List.of(ticket1.getId(), ticket2.getId(), ticket3.getId()),
+                TicketStatus.EXPIRED.allowedFrom(), currentTime + 5000);
+        
+        assertEquals(1, expiredRows);
+        assertEquals("EXPIRED", ticketRepository.findById(ticket1.getId()).get().getStatus());
+        assertEquals("AVAILABLE", ticketRepository.findById(ticket2.getId()).get().getStatus());
+        assertEquals("USED", ticketRepository.findById(ticket3.getId()).get().getStatus());
+    }
+    
+    @Test
+    void testSaveWritesOnlyChangedColumns() {
+        Ticket managed = ticketRepository.findById(ticket1.getId()).get();
+        // Changed behind the managed copy's back without a version bump, a full-row UPDATE would undo it
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Ticket t SET t.description = 'Edited elsewhere' WHERE t.id = :id")
+                .setParameter("id", ticket1.getId())
+                .executeUpdate();
+        
+        managed.setRemainingQuota(90);
+        entityManager.flush();
+        entityManager.clear();
+        
+        Ticket reloaded = ticketRepository.findById(ticket1.getId()).get();
+        assertEquals(90, reloaded.getRemainingQuota());
+        assertEquals("Edited elsewhere", reloaded.getDescription());
+    }
+    
+    @Test
+    void testUpdateFieldsWritesOnlyTheGivenColumns() {
+        long version = ticketRepository.findById(ticket1.getId()).get().getVersion();
+        
+        int updatedRows = ticketRepository.updateFields(ticket1.getId(),
+                Map.of("price", 175.0, "description", "Moved to row B"));
+        
+        assertEquals(1, updatedRows);
+        Ticket updated = ticketRepository.findById(ticket1.getId()).get();
+        assertEquals(175.0, updated.getPrice());
+        assertEquals("Moved to row B", updated.getDescription());
+        assertEquals("REGULAR", updated.getType());
+        assertEquals(100, updated.getRemainingQuota());
+        assertEquals(version + 1, updated.getVersion());
+        assertEquals(300.0, ticketRepository.findById(ticket2.getId()).get().getPrice());
+    }
+    
+    @Test
+    void testUpdateFieldsKeepsTheSaleWindowValid() {
+        assertEquals(0, ticketRepository.updateFields(ticket1.getId(), Map.of("saleEnd", currentTime - 1)));
+        assertEquals(0, ticketRepository.updateFields(ticket1.getId(), Map.of("saleStart", currentTime + 86400000)));
+        assertEquals(1, ticketRepository.updateFields(ticket1.getId(), Map.of("saleEnd", currentTime + 1000)));
+        assertEquals(currentTime + 1000, ticketRepository.findById(ticket1.getId()).get().getSaleEnd());
+    }
+    
+    @Test
+    void testUpdateFieldsOfMissingTicket() {
+        assertEquals(0, ticketRepository.updateFields("missing", Map.of("price", 10.0)));
+    }
+    
+    @Test
+    void testUpdateFieldsRejectsOtherColumns() {
+        assertThrows(InvalidDataAccessApiUsageException.class,
+                () -> ticketRepository.updateFields(ticket1.getId(), Map.of("remainingQuota", 1000)));
+    }
+    
     @Test
     void testFindAll() {
         List<Ticket> allTickets = ticketRepository.findAll();
@@ -0,0 +1,99 @@
+package id.ac.ui.cs.advprog.sistemticket.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PostingListTest {
+    
+    private static PostingList listOf(int count, int step) {
+        PostingList list = new PostingList();
+        for (int i = 0; i < count; i++) {
+            list.add(i * step, i % 5 + 1, 10);
+        }
+        return list;
+    }
+    
+    @Test
+    void testDecodesWhatWasAdded() {
+        PostingList list = new PostingList();
+        list.add(0, 1, 10);
+        list.add(300, 2, 10);
+        list.add(70000, 130, 10);
+        
+        PostingList.Cursor cursor = list.cursor();
+        assertEquals(0, cursor.nextDoc());
+        assertEquals(300, cursor.nextDoc());
+        assertEquals(2, cursor.termFrequency());
+        assertEquals(70000, cursor.nextDoc());
+        assertEquals(130, cursor.termFrequency());
+        assertEquals(PostingList.NO_MORE_DOCS, cursor.nextDoc());
+    }
+    
+    @Test
+    void testAdvanceSkipsBlocks() {
+        PostingList list = listOf(1000, 3);
+        PostingList.Cursor cursor = list.cursor();
+        
+        assertEquals(0, cursor.advance(0));
+        assertEquals(1500, cursor.advance(1499));
+        assertEquals(1500, cursor.advance(1500));
+        assertEquals(2997, cursor.advance(2997));
+        assertEquals(PostingList.NO_MORE_DOCS, cursor.advance(2998));
+    }
+    
+    @Test
+    void testAdvanceMatchesLinearScan() {
+        PostingList list = listOf(500, 7);
+        for (int target = 0; target < 3600; target += 13) {
+            PostingList.Cursor cursor = list.cursor();
+            cursor.nextDoc();
+            int expected = target <= 0 ? 0 : ((target + 6) / 7) * 7;
+            assertEquals(expected >= 3500 ? PostingList.NO_MORE_DOCS : expected, cursor.advance(target));
+            if (expected < 3500) {
+                assertEquals(expected / 7 % 5 + 1, cursor.termFrequency());
+            }
+        }
+    }
+    
+    @Test
+    void testRemapDropsDeadDocs() {
+        PostingList list = listOf(4, 1);
+        
+        PostingList remapped = list.remap(new int[] {-1, 0, -1, 1}, new int[] {10, 10});
+        
+        List<Integer> docs = new ArrayList<>();
+        PostingList.Cursor cursor = remapped.cursor();
+        for (int doc = cursor.nextDoc(); doc != PostingList.NO_MORE_DOCS; doc = cursor.nextDoc()) {
+            docs.add(doc);
+        }
+        assertEquals(List.of(0, 1), docs);
+    }
+    
+    @Test
+    void testBlocksBoundFrequencyAndLength() {
+        PostingList list = new PostingList();
+        for (int doc = 0; doc < PostingList.SKIP_INTERVAL + 1; doc++) {
+            list.add(doc, doc == 3 ? 9 : 1, doc == 5 ? 2 : 20);
+        }
+        
+        assertEquals(0, list.blockAt(0));
+        assertEquals(PostingList.SKIP_INTERVAL - 1, list.blockEnd(0));
+        assertEquals(9, list.blockMaxFrequency(0));
+        assertEquals(2, list.blockMinLength(0));
+        assertEquals(1, list.blockAt(PostingList.SKIP_INTERVAL));
+        assertEquals(1, list.blockMaxFrequency(1));
+        assertEquals(20, list.blockMinLength(1));
+    }
+    
+    @Test
+    void testRejectsOutOfOrderDoc() {
+        PostingList list = new PostingList();
+        list.add(5, 1, 10);
+        
+        assertThrows(IllegalArgumentException.class, () -> list.add(5, 1, 10));
+    }
+}
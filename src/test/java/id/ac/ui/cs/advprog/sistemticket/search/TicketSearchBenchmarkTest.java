@@ -0,0 +1,79 @@
+package id.ac.ui.cs.advprog.sistemticket.search;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+
+// Query latency percentiles of the search index on a catalog of a million tickets with generated
+// descriptions. Excluded from the regular test run, use ./gradlew benchmark
+@Tag("benchmark")
+class TicketSearchBenchmarkTest {
+    
+    private static final int TICKETS = 1_000_000;
+    private static final int EVENTS = 5000;
+    private static final int QUERIES = 2000;
+    private static final int LIMIT = 20;
+    private static final int VOCABULARY = 5000;
+    
+    // Word w is drawn with probability proportional to 1 / (w + 1), like words in natural text
+    private static int zipfWord(Random random) {
+        return (int) Math.floor(Math.pow(VOCABULARY + 1, random.nextDouble())) - 1;
+    }
+    
+    @Test
+    void benchmarkQueries() {
+        TicketSearchIndex searchIndex = new TicketSearchIndex(mock(TicketRepository.class), 8, 5000, 20000);
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (int i = 0; i < TICKETS; i++) {
+            StringBuilder description = new StringBuilder();
+            int length = 5 + random.nextInt(36);
+            for (int w = 0; w < length; w++) {
+                description.append("w").append(zipfWord(random)).append(' ');
+            }
+            searchIndex.index("ticket-" + i, "event-" + (i % EVENTS), i % 3 == 0 ? "VIP" : "REGULAR",
+                    description.toString());
+        }
+        System.out.printf("Indexed %d tickets in %d ms: %s%n", TICKETS,
+                (System.nanoTime() - start) / 1_000_000, searchIndex.snapshot());
+        
+        measure(searchIndex, "rare word", () -> new String[] {"w" + (500 + random.nextInt(4500)), null, null});
+        measure(searchIndex, "word in one event", () -> new String[] {
+            "w" + zipfWord(random), null, "event-" + random.nextInt(EVENTS)});
+        measure(searchIndex, "two mid words", () -> new String[] {
+            "w" + (20 + random.nextInt(80)) + " w" + (100 + random.nextInt(400)), null, null});
+        measure(searchIndex, "random query", () -> new String[] {
+            "w" + zipfWord(random) + " w" + zipfWord(random), null, null});
+        measure(searchIndex, "common word, type filter", () -> new String[] {"w" + random.nextInt(10), "VIP", null});
+    }
+    
+    private static void measure(TicketSearchIndex searchIndex, String name, Supplier<String[]> queries) {
+        for (int i = 0; i < QUERIES / 5; i++) {
+            String[] query = queries.get();
+            searchIndex.search(query[0], query[1], query[2], null, LIMIT);
+        }
+        
+        long[] micros = new long[QUERIES];
+        int hits = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            String[] query = queries.get();
+            long start = System.nanoTime();
+            List<SearchHit> results = searchIndex.search(query[0], query[1], query[2], null, LIMIT);
+            micros[i] = (System.nanoTime() - start) / 1000;
+            hits += results.size();
+        }
+        Arrays.sort(micros);
+        System.out.printf("%s: p50 %d us, p99 %d us, max %d us, %.1f hits/query%n", name,
+                micros[QUERIES / 2], micros[QUERIES * 99 / 100], micros[QUERIES - 1], hits / (double) QUERIES);
+        assertTrue(hits > 0);
+    }
+}
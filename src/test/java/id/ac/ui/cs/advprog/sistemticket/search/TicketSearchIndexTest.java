@@ -0,0 +1,175 @@
+package id.ac.ui.cs.advprog.sistemticket.search;
+    
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+    
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+    
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+    
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+    
+@ExtendWith(MockitoExtension.class)
+class TicketSearchIndexTest {
+    
+    @Mock
+    private TicketRepository ticketRepository;
+    
+    private TicketSearchIndex searchIndex;
+    
+    @BeforeEach
+    void setUp() {
+        searchIndex = new TicketSearchIndex(ticketRepository, 4, 2, 1);
+        searchIndex.index("t1", "event-1", "VIP", "Front-row seat with backstage pass");
+        searchIndex.index("t2", "event-1", "REGULAR", "Standing area, front of the stage");
+        searchIndex.index("t3", "event-2", "VIP", "Balcony seat, backstage backstage tour");
+    }
+    
+    private List<String> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::ticketId).toList();
+    }
+    
+    @Test
+    void testAllWordsMustMatch() {
+        assertEquals(List.of("t1"), ids(searchIndex.search("front seat", null, null, null, 10)));
+        assertEquals(List.of(), ids(searchIndex.search("front balcony", null, null, null, 10)));
+    }
+    
+    @Test
+    void testHyphenatedWordsMatchWholeAndParts() {
+        assertEquals(List.of("t1"), ids(searchIndex.search("front-row", null, null, null, 10)));
+        assertEquals(List.of("t1"), ids(searchIndex.search("ROW", null, null, null, 10)));
+    }
+    
+    @Test
+    void testHigherTermFrequencyRanksFirst() {
+        assertEquals(List.of("t3", "t1"), ids(searchIndex.search("backstage", null, null, null, 10)));
+    }
+    
+    @Test
+    void testTypeAndEventFilter() {
+        assertEquals(List.of("t1"), ids(searchIndex.search("seat", "vip", "event-1", null, 10)));
+        assertEquals(List.of("t1", "t2"), ids(searchIndex.search(null, null, "event-1", null, 10)));
+        assertEquals(List.of("t1", "t3"), ids(searchIndex.search("vip", null, null, null, 10)).stream().sorted().toList());
+    }
+    
+    @Test
+    void testCursorContinuesAfterLastHit() {
+        List<SearchHit> first = searchIndex.search("backstage", null, null, null, 1);
+        List<SearchHit> second = searchIndex.search("backstage", null, null, first.get(0), 1);
+        List<SearchHit> third = searchIndex.search("backstage", null, null, second.get(0), 1);
+        
+        assertEquals(List.of("t3"), ids(first));
+        assertEquals(List.of("t1"), ids(second));
+        assertTrue(third.isEmpty());
+    }
+    
+    @Test
+    void testUpdateAndRemoveAreVisible() {
+        searchIndex.index("t2", "event-1", "REGULAR", "Seated area near the backstage");
+        searchIndex.remove("t3");
+        
+        assertEquals(List.of("t1", "t2"), ids(searchIndex.search("backstage", null, null, null, 10)).stream().sorted().toList());
+        assertTrue(searchIndex.search("balcony", null, null, null, 10).isEmpty());
+        assertEquals(2L, searchIndex.snapshot().get("deletedDocuments"));
+    }
+    
+    @Test
+    void testEditWithCollidingHashIsReindexed() {
+        // "Aa" and "BB" share a String hash code
+        searchIndex.index("t4", "event-3", "REGULAR", "Aa");
+        searchIndex.index("t4", "event-3", "REGULAR", "Aa");
+        assertEquals(0L, searchIndex.snapshot().get("deletedDocuments"));
+        
+        searchIndex.index("t4", "event-3", "REGULAR", "BB");
+        
+        assertEquals(List.of("t4"), ids(searchIndex.search("bb", null, null, null, 10)));
+        assertTrue(searchIndex.search("aa", null, null, null, 10).isEmpty());
+    }
+    
+    @Test
+    void testCompactsWhenMostDocsAreDeleted() {
+        for (int i = 0; i < 5000; i++) {
+            searchIndex.index("x" + i, "event-3", "REGULAR", "Temporary ticket " + i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            searchIndex.remove("x" + i);
+        }
+        
+        assertEquals(3L, searchIndex.snapshot().get("documents"));
+        assertTrue((Long) searchIndex.snapshot().get("deletedDocuments") < 5000);
+        assertEquals(List.of("t3", "t1"), ids(searchIndex.search("backstage", null, null, null, 10)));
+    }
+    
+    @Test
+    void testSkippedBlocksNeverHideABetterHit() {
+        Random random = new Random(7);
+        String[] words = {"alpha", "beta", "gamma", "delta"};
+        for (int i = 0; i < 3000; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int w = random.nextInt(8); w >= 0; w--) {
+                description.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            searchIndex.index("r" + i, "event-4", "REGULAR", description.toString());
+        }
+        
+        for (String query : List.of("alpha", "beta gamma", "delta alpha beta")) {
+            List<SearchHit> all = searchIndex.search(query, null, null, null, 100_000);
+            assertEquals(all.subList(0, 5), searchIndex.search(query, null, null, null, 5));
+            assertEquals(all.subList(5, 10), searchIndex.search(query, null, null, all.get(4), 5));
+        }
+    }
+    
+    @Test
+    void testStopsWhenAnotherWordRunsOutBeforeTheLead() {
+        TicketSearchIndex single = new TicketSearchIndex(ticketRepository, 1, 2, 1);
+        for (int i = 0; i < 64; i++) {
+            single.index("a" + i, "event-1", "VIP", "alpha alpha alpha beta");
+        }
+        for (int i = 0; i < 236; i++) {
+            single.index("b" + i, "event-1", "VIP", "beta one two three four five");
+        }
+        for (int i = 0; i < 100; i++) {
+            single.index("c" + i, "event-1", "VIP", "alpha");
+        }
+    
+        List<SearchHit> hits = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> single.search("alpha beta", null, null, null, 1));
+    
+        assertEquals(1, hits.size());
+        assertTrue(hits.get(0).ticketId().startsWith("a"));
+    }
+    
+    @Test
+    void testRebuildReadsAllPages() {
+        when(ticketRepository.findViewPage(eq(""), isNull(), isNull(), any(Limit.class))).thenReturn(List.of(
+                view("a", "Garden seat"), view("b", "Garden standing")));
+        when(ticketRepository.findViewPage(eq("b"), isNull(), isNull(), any(Limit.class))).thenReturn(List.of(
+                view("c", "Garden lounge")));
+        
+        searchIndex.rebuild();
+        
+        assertEquals(List.of("a", "b", "c"), ids(searchIndex.search("garden", null, null, null, 10)));
+        assertTrue(searchIndex.search("backstage", null, null, null, 10).isEmpty());
+    }
+    
+    @Test
+    void testRejectsEmptyQuery() {
+        assertThrows(IllegalArgumentException.class, () -> searchIndex.search(" ,", null, null, null, 10));
+    }
+    
+    private static TicketView view(String id, String description) {
+        return new TicketView(id, "event-9", "REGULAR", 10.0, 10, 10, description, 0L, 1L, "AVAILABLE", null);
+    }
+}
@@ -0,0 +1,92 @@
+package id.ac.ui.cs.advprog.sistemticket.service;
+
+import id.ac.ui.cs.advprog.sistemticket.exception.TicketConflictException;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ContentionMetrics;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryExecutorTest {
+    
+    private ContentionMetrics contentionMetrics;
+    private OptimisticRetryExecutor retryExecutor;
+    
+    @BeforeEach
+    void setUp() {
+        contentionMetrics = new ContentionMetrics();
+        retryExecutor = new OptimisticRetryExecutor(3, 1, 2, contentionMetrics);
+    }
+    
+    @Test
+    void testReturnsResultWithoutConflict() {
+        String result = retryExecutor.execute("ticket-1", () -> "done");
+        
+        assertEquals("done", result);
+        assertEquals(0, contentionMetrics.getConflicts("ticket-1"));
+    }
+    
+    @Test
+    void testRetriesUntilSuccess() {
+        AtomicInteger calls = new AtomicInteger();
+        
+        String result = retryExecutor.execute("ticket-1", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Ticket.class, "ticket-1");
+            }
+            return "done";
+        });
+        
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, contentionMetrics.getConflicts("ticket-1"));
+        assertEquals(2, contentionMetrics.getRetries("ticket-1"));
+    }
+    
+    @Test
+    void testThrowsConflictWhenAttemptsRunOut() {
+        AtomicInteger calls = new AtomicInteger();
+        
+        TicketConflictException e = assertThrows(TicketConflictException.class, () ->
+                retryExecutor.execute("ticket-1", () -> {
+                    calls.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException(Ticket.class, "ticket-1");
+                }));
+        
+        assertEquals("ticket-1", e.getTicketId());
+        assertEquals(3, calls.get());
+        assertEquals(3, contentionMetrics.getConflicts("ticket-1"));
+        assertEquals(2, contentionMetrics.getRetries("ticket-1"));
+    }
+    
+    @Test
+    void testOtherExceptionsAreNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        
+        assertThrows(IllegalArgumentException.class, () ->
+                retryExecutor.execute("ticket-1", () -> {
+                    calls.incrementAndGet();
+                    throw new IllegalArgumentException("Not enough tickets available");
+                }));
+        
+        assertEquals(1, calls.get());
+    }
+    
+    @Test
+    void testHotspotsAreOrderedByConflicts() {
+        contentionMetrics.recordConflict("cold");
+        contentionMetrics.recordConflict("hot");
+        contentionMetrics.recordConflict("hot");
+        
+        Map<String, Map<String, Long>> hotspots = contentionMetrics.hotspots(1);
+        
+        assertEquals(1, hotspots.size());
+        assertEquals(2L, hotspots.get("hot").get("conflicts"));
+    }
+}
@@ -0,0 +1,221 @@
+package id.ac.ui.cs.advprog.sistemticket.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import id.ac.ui.cs.advprog.sistemticket.event.TicketPurchasedEvent;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketHold;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketHoldRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TicketHoldServiceImplTest {
+    
+    @Mock
+    private TicketService ticketService;
+    
+    @Mock
+    private TicketHoldRepository holdRepository;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    private TicketHoldServiceImpl holdService;
+    private Ticket ticket;
+    // Hold rows in the table, saved holds are added and deleted ones removed
+    private List<TicketHold> rows;
+    
+    @BeforeEach
+    void setUp() {
+        holdService = new TicketHoldServiceImpl(ticketService, holdRepository, eventPublisher, transactionTemplate,
+                60, 100, 1024, 2);
+        rows = new ArrayList<>();
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        lenient().when(holdRepository.save(any(TicketHold.class))).thenAnswer(invocation -> {
+            rows.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        lenient().when(holdRepository.findAllByIdForUpdate(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return rows.stream().filter(hold -> ids.contains(hold.getId())).toList();
+        });
+        lenient().doAnswer(this::deleteRows).when(holdRepository).deleteAllByIdIn(anyCollection());
+        ticket = new Ticket.Builder()
+                .eventId("event-1")
+                .type("VIP")
+                .price(100.0)
+                .quota(10)
+                .saleStart(0L)
+                .saleEnd(Long.MAX_VALUE)
+                .build();
+    }
+    
+    private int deleteRows(InvocationOnMock invocation) {
+        Collection<String> ids = invocation.getArgument(0);
+        int before = rows.size();
+        rows.removeIf(hold -> ids.contains(hold.getId()));
+        return before - rows.size();
+    }
+    
+    @Test
+    void testCreateHoldReservesQuota() {
+        TicketHold hold = holdService.createHold(ticket.getId(), 3, "user-1", 1000L);
+        
+        verify(ticketService).reserveQuota(ticket.getId(), 3, 1000L);
+        verify(holdRepository).save(hold);
+        assertEquals(3, hold.getAmount());
+        assertTrue(hold.getExpiresAt() > hold.getCreatedAt());
+        assertEquals(1, holdService.getActiveHoldCount());
+    }
+    
+    @Test
+    void testCreateHoldReleasesQuotaWhenSaveFails() {
+        doThrow(new IllegalStateException("db down")).when(holdRepository).save(any(TicketHold.class));
+        
+        assertThrows(IllegalStateException.class, () -> holdService.createHold(ticket.getId(), 3, "user-1", 1000L));
+        
+        verify(ticketService).releaseQuota(ticket.getId(), 3);
+        assertEquals(0, holdService.getActiveHoldCount());
+    }
+    
+    @Test
+    void testCreateHoldPropagatesRejection() {
+        when(ticketService.reserveQuota(ticket.getId(), 50, 1000L))
+                .thenThrow(new IllegalArgumentException("Cannot purchase tickets: Not enough tickets available"));
+        
+        assertThrows(IllegalArgumentException.class, () -> holdService.createHold(ticket.getId(), 50, "user-1", 1000L));
+        
+        verify(holdRepository, never()).save(any());
+    }
+    
+    @Test
+    void testConfirmHoldPublishesPurchase() {
+        TicketHold hold = holdService.createHold(ticket.getId(), 2, "user-1", 1000L);
+        when(ticketService.findById(ticket.getId())).thenReturn(ticket);
+        
+        Ticket result = holdService.confirmHold(hold.getId(), "user-1", false);
+        
+        assertEquals(ticket, result);
+        verify(holdRepository).deleteAllByIdIn(Set.of(hold.getId()));
+        verify(eventPublisher).publishEvent(any(TicketPurchasedEvent.class));
+        verify(ticketService, never()).releaseQuota(any(), anyInt());
+        
+        // A confirmed hold can neither be confirmed again nor expire later
+        assertThrows(NoSuchElementException.class, () -> holdService.confirmHold(hold.getId(), "user-1", false));
+        holdService.expireHolds(hold.getExpiresAt() + 1000);
+        verify(ticketService, never()).releaseQuota(any(), anyInt());
+    }
+    
+    @Test
+    void testConfirmHoldOfAnotherUserIsDenied() {
+        TicketHold hold = holdService.createHold(ticket.getId(), 2, "user-1", 1000L);
+        
+        assertThrows(AccessDeniedException.class, () -> holdService.confirmHold(hold.getId(), "user-2", false));
+        assertEquals(1, holdService.getActiveHoldCount());
+    }
+    
+    @Test
+    void testCancelHoldReleasesOnNextTick() {
+        TicketHold hold = holdService.createHold(ticket.getId(), 2, "user-1", 1000L);
+        
+        holdService.cancelHold(hold.getId(), "user-2", true);
+        verify(ticketService, never()).releaseQuota(any(), anyInt());
+        
+        holdService.expireHolds(System.currentTimeMillis());
+        
+        verify(holdRepository).deleteAllByIdIn(Set.of(hold.getId()));
+        verify(ticketService).releaseQuota(ticket.getId(), 2);
+    }
+    
+    @Test
+    void testExpiredHoldsAreReleasedInOneUpdatePerTicket() {
+        TicketHold first = holdService.createHold(ticket.getId(), 2, "user-1", 1000L);
+        holdService.createHold(ticket.getId(), 3, "user-2", 1000L);
+        holdService.createHold(ticket.getId(), 1, "user-3", 1000L);
+        
+        int expired = holdService.expireHolds(first.getExpiresAt() + 1000);
+        
+        assertEquals(3, expired);
+        assertEquals(0, holdService.getActiveHoldCount());
+        verify(ticketService, times(1)).releaseQuota(ticket.getId(), 6);
+        // Release batch size is 2 in this test
+        verify(holdRepository, times(2)).deleteAllByIdIn(anyCollection());
+    }
+    
+    @Test
+    void testReleaseWaitsUntilHoldRowsAreDeleted() {
+        TicketHold hold = holdService.createHold(ticket.getId(), 2, "user-1", 1000L);
+        doThrow(new IllegalStateException("db down")).doAnswer(this::deleteRows)
+                .when(holdRepository).deleteAllByIdIn(anyCollection());
+        
+        holdService.expireHolds(hold.getExpiresAt() + 1000);
+        verify(ticketService, never()).releaseQuota(any(), anyInt());
+        
+        holdService.expireHolds(hold.getExpiresAt() + 2000);
+        verify(ticketService).releaseQuota(ticket.getId(), 2);
+    }
+    
+    @Test
+    void testRecoverHoldsAfterRestart() {
+        long now = System.currentTimeMillis();
+        TicketHold active = new TicketHold(ticket.getId(), 2, "user-1", now, now + 60000);
+        TicketHold stale = new TicketHold(ticket.getId(), 4, "user-2", now - 120000, now - 60000);
+        rows.addAll(List.of(active, stale));
+        when(holdRepository.findAll()).thenReturn(List.of(active, stale));
+        
+        holdService.recoverHolds();
+        
+        assertEquals(1, holdService.getActiveHoldCount());
+        verify(holdRepository).deleteAllByIdIn(Set.of(stale.getId()));
+        verify(ticketService).releaseQuota(ticket.getId(), 4);
+    }
+    
+    @Test
+    void testHoldFinishedOnAnotherNodeIsNotReleasedAgain() {
+        TicketHold settled = holdService.createHold(ticket.getId(), 2, "user-1", 1000L);
+        TicketHold open = holdService.createHold(ticket.getId(), 3, "user-2", 1000L);
+        // Another node confirmed or expired the first hold, its row is already gone
+        rows.remove(settled);
+        
+        holdService.expireHolds(open.getExpiresAt() + 1000);
+        
+        assertEquals(0, holdService.getActiveHoldCount());
+        verify(holdRepository).deleteAllByIdIn(Set.of(open.getId()));
+        verify(ticketService, times(1)).releaseQuota(ticket.getId(), 3);
+        verify(ticketService, never()).releaseQuota(ticket.getId(), 5);
+    }
+    
+    @Test
+    void testConfirmHoldAlreadyFinishedElsewhereIsNotPurchased() {
+        TicketHold hold = holdService.createHold(ticket.getId(), 2, "user-1", 1000L);
+        rows.clear();
+        
+        assertThrows(NoSuchElementException.class, () -> holdService.confirmHold(hold.getId(), "user-1", false));
+        
+        verify(eventPublisher, never()).publishEvent(any());
+        verify(ticketService, never()).releaseQuota(any(), anyInt());
+    }
+}
@@ -0,0 +1,226 @@
+package id.ac.ui.cs.advprog.sistemticket.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportFormat;
+import id.ac.ui.cs.advprog.sistemticket.enums.ImportJobStatus;
+import id.ac.ui.cs.advprog.sistemticket.exception.ImportJobConflictException;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketImportReader;
+import id.ac.ui.cs.advprog.sistemticket.mapper.TicketMapper;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportError;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketImportJob;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketImportErrorRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketImportJobRepository;
+import jakarta.persistence.EntityManager;
+
+@ExtendWith(MockitoExtension.class)
+class TicketImportServiceImplTest {
+    
+    private static final String HEADER = "id,eventId,type,price,quota,description,saleStart,saleEnd\n";
+    
+    @Mock
+    private TicketService ticketService;
+    
+    @Mock
+    private TicketImportJobRepository jobRepository;
+    
+    @Mock
+    private TicketImportErrorRepository errorRepository;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private EntityManager entityManager;
+    
+    @Mock
+    private TicketImportJob job;
+    
+    private TicketImportServiceImpl importService;
+    private final List<List<String>> writtenChunks = new ArrayList<>();
+    private final List<TicketImportError> storedErrors = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        importService = service(2, 1);
+        
+        lenient().when(job.getId()).thenReturn("job-1");
+        lenient().when(job.getCommittedLine()).thenReturn(0L);
+        lenient().when(jobRepository.findById("job-1")).thenReturn(Optional.of(job));
+        lenient().when(jobRepository.claim(eq("job-1"), eq("organizer"), any(), eq(ImportJobStatus.RUNNING), anyLong(), anyLong()))
+                .thenReturn(1);
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().doAnswer(invocation -> {
+            List<Ticket> tickets = invocation.getArgument(0);
+            writtenChunks.add(tickets.stream().map(Ticket::getId).toList());
+            return Collections.nCopies(tickets.size(), BatchItemStatus.CREATED);
+        }).when(ticketService).createTickets(any());
+        lenient().doAnswer(invocation -> storedErrors.add(invocation.getArgument(0)))
+                .when(entityManager).persist(any(TicketImportError.class));
+    }
+    
+    private TicketImportServiceImpl service(int chunkSize, int maxConcurrent) {
+        TicketImportReader importReader = new TicketImportReader();
+        ReflectionTestUtils.setField(importReader, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importReader, "maxLineLength", 1000);
+        TicketImportServiceImpl service = new TicketImportServiceImpl(ticketService, new TicketMapper(), importReader,
+                jobRepository, errorRepository, transactionTemplate, chunkSize, 60000, maxConcurrent);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        return service;
+    }
+    
+    private static InputStream upload(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String row(String id) {
+        return id + ",event-1,VIP,100.0,10,Seat,1000,2000\n";
+    }
+    
+    @Test
+    void testWritesInChunksAndRecordsProgressPerChunk() throws Exception {
+        importService.importTickets("job-1", "organizer", ImportFormat.CSV,
+                upload(HEADER + row("t1") + row("t2") + row("t3")));
+        
+        assertEquals(List.of(List.of("t1", "t2"), List.of("t3")), writtenChunks);
+        verify(jobRepository).recordProgress(eq("job-1"), eq(3L), eq(2L), eq(0L), eq(0L), anyLong());
+        verify(jobRepository).recordProgress(eq("job-1"), eq(4L), eq(1L), eq(0L), eq(0L), anyLong());
+        verify(jobRepository).finish(eq("job-1"), eq(ImportJobStatus.COMPLETED), any(), anyLong());
+    }
+    
+    @Test
+    void testInvalidLinesAreStoredAsErrors() throws Exception {
+        importService.importTickets("job-1", "organizer", ImportFormat.CSV, upload(HEADER
+                + "t1,event-1,GOLD,100.0,10,Seat,1000,2000\n"
+                + "t2,event-1,VIP,100.0,10,Seat,2000,1000\n"
+                + row("t3")));
+        
+        assertEquals(List.of(List.of("t3")), writtenChunks);
+        assertEquals(List.of(2L, 3L), storedErrors.stream().map(TicketImportError::getLine).toList());
+        assertEquals("Invalid ticket type: GOLD", storedErrors.get(0).getMessage());
+        assertEquals("Sale end must be after sale start", storedErrors.get(1).getMessage());
+        verify(jobRepository).recordProgress(eq("job-1"), eq(3L), eq(0L), eq(0L), eq(2L), anyLong());
+        verify(jobRepository).recordProgress(eq("job-1"), eq(4L), eq(1L), eq(0L), eq(0L), anyLong());
+    }
+    
+    @Test
+    void testResumeSkipsCommittedLines() throws Exception {
+        when(job.getCommittedLine()).thenReturn(3L);
+        
+        importService.importTickets("job-1", "organizer", ImportFormat.CSV,
+                upload(HEADER + row("t1") + row("t2") + row("t3")));
+        
+        assertEquals(List.of(List.of("t3")), writtenChunks);
+        verify(jobRepository).recordProgress(eq("job-1"), eq(4L), eq(1L), eq(0L), eq(0L), anyLong());
+    }
+    
+    @Test
+    void testLinesWithoutIdGetTheSameIdWhenReadAgain() throws Exception {
+        doAnswer(invocation -> {
+            List<Ticket> tickets = invocation.getArgument(0);
+            writtenChunks.add(tickets.stream().map(Ticket::getId).toList());
+            return List.of(BatchItemStatus.DUPLICATE, BatchItemStatus.DUPLICATE);
+        }).when(ticketService).createTickets(any());
+        
+        importService.importTickets("job-1", "organizer", ImportFormat.CSV, upload(HEADER + row("") + row("t2")));
+        
+        assertEquals(List.of(TicketImportServiceImpl.lineTicketId("job-1", 2), "t2"), writtenChunks.get(0));
+        verify(jobRepository).recordProgress(eq("job-1"), eq(3L), eq(1L), eq(1L), eq(0L), anyLong());
+        assertEquals(1, storedErrors.size());
+        assertEquals("t2", storedErrors.get(0).getTicketId());
+    }
+    
+    @Test
+    void testBrokenUploadKeepsCommittedChunks() throws Exception {
+        InputStream broken = new SequenceInputStream(upload(HEADER + row("t1") + row("t2") + row("t3")),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+        
+        importService.importTickets("job-1", "organizer", ImportFormat.CSV, broken);
+        
+        assertEquals(List.of(List.of("t1", "t2")), writtenChunks);
+        verify(jobRepository).recordProgress(eq("job-1"), eq(3L), eq(2L), eq(0L), eq(0L), anyLong());
+        verify(jobRepository).finish(eq("job-1"), eq(ImportJobStatus.INTERRUPTED), eq("Connection reset"), anyLong());
+    }
+    
+    @Test
+    void testNewJobIsCreatedWhenNotClaimed() throws Exception {
+        when(jobRepository.claim(eq("job-1"), anyString(), any(), any(), anyLong(), anyLong())).thenReturn(0);
+        when(jobRepository.existsById("job-1")).thenReturn(false);
+        
+        importService.importTickets("job-1", "organizer", ImportFormat.NDJSON, upload(""));
+        
+        verify(jobRepository).create(eq("job-1"), eq("organizer"), eq("NDJSON"), anyLong());
+    }
+    
+    @Test
+    void testRunningJobIsNotTakenTwice() {
+        when(jobRepository.claim(eq("job-1"), anyString(), any(), any(), anyLong(), anyLong())).thenReturn(0);
+        when(jobRepository.existsById("job-1")).thenReturn(true);
+        
+        assertThrows(ImportJobConflictException.class, () ->
+                importService.importTickets("job-1", "organizer", ImportFormat.CSV, upload(HEADER + row("t1"))));
+        verify(ticketService, never()).createTickets(any());
+    }
+    
+    @Test
+    void testBadHeaderFailsBeforeAJobExists() {
+        assertThrows(IllegalArgumentException.class, () ->
+                importService.importTickets("job-1", "organizer", ImportFormat.CSV, upload("eventId,colour\n")));
+        verify(jobRepository, never()).claim(any(), any(), any(), any(), anyLong(), anyLong());
+    }
+    
+    @Test
+    void testTooManyImportsAreRejected() {
+        importService = service(2, 0);
+        
+        assertThrows(RejectedExecutionException.class, () ->
+                importService.importTickets("job-1", "organizer", ImportFormat.CSV, upload(HEADER)));
+    }
+    
+    @Test
+    void testJobsOfOtherOwnersAreHidden() {
+        when(job.getOwner()).thenReturn("organizer");
+        
+        assertSame(job, importService.getJob("job-1", "organizer"));
+        assertThrows(NoSuchElementException.class, () -> importService.getJob("job-1", "someone-else"));
+    }
+}
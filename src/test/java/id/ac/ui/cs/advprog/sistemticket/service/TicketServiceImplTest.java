@@ -3,12 +3,16 @@ package id.ac.ui.cs.advprog.sistemticket.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,18 +20,42 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import id.ac.ui.cs.advprog.sistemticket.cache.AvailabilityIndex;
+import id.ac.ui.cs.advprog.sistemticket.cache.TicketCache;
+import id.ac.ui.cs.advprog.sistemticket.dto.TicketView;
+import id.ac.ui.cs.advprog.sistemticket.enums.BatchItemStatus;
+import id.ac.ui.cs.advprog.sistemticket.enums.PurchaseMode;
+import id.ac.ui.cs.advprog.sistemticket.enums.TicketFields;
 import id.ac.ui.cs.advprog.sistemticket.enums.TicketStatus;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketCartPurchasedEvent;
 import id.ac.ui.cs.advprog.sistemticket.event.TicketPurchasedEvent;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketStatusChangedEvent;
+import id.ac.ui.cs.advprog.sistemticket.expiration.TicketExpirationSweeper;
+import id.ac.ui.cs.advprog.sistemticket.exception.TicketConflictException;
+import id.ac.ui.cs.advprog.sistemticket.inventory.InventoryLedger;
+import id.ac.ui.cs.advprog.sistemticket.inventory.PurchaseBatcher;
+import id.ac.ui.cs.advprog.sistemticket.inventory.ShardedQuotaService;
+import id.ac.ui.cs.advprog.sistemticket.metrics.ContentionMetrics;
 import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
 import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import id.ac.ui.cs.advprog.sistemticket.search.TicketSearchIndex;
+import id.ac.ui.cs.advprog.sistemticket.summary.EventSalesAggregator;
+import jakarta.persistence.EntityManager;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static org.mockito.ArgumentMatchers.argThat;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 @ExtendWith(MockitoExtension.class)
 class TicketServiceImplTest {
@@ -41,6 +69,39 @@ class TicketServiceImplTest {
     @Mock
     private ApplicationEventPublisher eventPublisher;
     
+    @Mock
+    private InventoryLedger inventoryLedger;
+    
+    @Mock
+    private ShardedQuotaService shardedQuotaService;
+    
+    @Mock
+    private PurchaseBatcher purchaseBatcher;
+    
+    @Mock
+    private AvailabilityIndex availabilityIndex;
+    
+    @Mock
+    private EntityManager entityManager;
+    
+    @Mock
+    private EventSalesAggregator salesAggregator;
+    
+    @Mock
+    private TicketSearchIndex searchIndex;
+    
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    
+    @Mock
+    private TicketExpirationSweeper expirationSweeper;
+    
+    @Spy
+    private TicketCache ticketCache = new TicketCache(true, 100, 60);
+    
+    @Spy
+    private OptimisticRetryExecutor retryExecutor = new OptimisticRetryExecutor(3, 0, 0, new ContentionMetrics());
+    
     @Captor
     private ArgumentCaptor<TicketPurchasedEvent> eventCaptor;
     
@@ -106,9 +167,104 @@ class TicketServiceImplTest {
         Ticket result = ticketService.createTicket(ticket);
         
         verify(ticketRepository, times(1)).save(ticket);
+        verify(salesAggregator).track(ticket);
         assertEquals(ticket.getId(), result.getId());
     }
     
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindAllByIdsQueriesMissesInChunks() {
+        ReflectionTestUtils.setField(ticketService, "lookupChunkSize", 2);
+        List<String> ids = List.of(tickets.get(0).getId(), tickets.get(1).getId(), "missing-1", "missing-2");
+        when(ticketRepository.findAllById(any())).thenAnswer(invocation -> tickets.stream()
+                .filter(ticket -> ((List<String>) invocation.getArgument(0)).contains(ticket.getId()))
+                .toList());
+        
+        Map<String, Ticket> result = ticketService.findAllByIds(ids);
+        
+        assertEquals(Set.of(tickets.get(0).getId(), tickets.get(1).getId()), result.keySet());
+        verify(ticketRepository, times(2)).findAllById(argThat(chunk -> ((List<String>) chunk).size() <= 2));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+    
+    @Test
+    void testCreateTicketsSkipsTakenAndRepeatedIds() {
+        ReflectionTestUtils.setField(ticketService, "batchChunkSize", 2);
+        runTransactionsInline();
+        Ticket repeated = new Ticket.Builder().id(tickets.get(1).getId()).eventId(eventId1).type("VIP")
+                .price(1.0).quota(1).saleStart(currentTime).saleEnd(currentTime + 1).build();
+        List<Ticket> batch = List.of(tickets.get(0), tickets.get(1), tickets.get(2), repeated);
+        when(ticketRepository.findExistingIds(any())).thenReturn(List.of(tickets.get(0).getId()), List.of());
+        
+        List<BatchItemStatus> statuses = ticketService.createTickets(batch);
+        
+        assertEquals(List.of(BatchItemStatus.DUPLICATE, BatchItemStatus.CREATED, BatchItemStatus.CREATED,
+                BatchItemStatus.DUPLICATE), statuses);
+        verify(ticketRepository, times(2)).findExistingIds(any());
+        verify(entityManager).persist(tickets.get(1));
+        verify(entityManager).persist(tickets.get(2));
+        verify(entityManager, never()).persist(tickets.get(0));
+        verify(entityManager, never()).persist(repeated);
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(salesAggregator).track(tickets.get(2));
+        verify(ticketRepository, never()).save(any());
+    }
+    
+    @Test
+    void testCreateTicketsRetriesAFailedChunkRowByRow() {
+        ReflectionTestUtils.setField(ticketService, "batchChunkSize", 500);
+        runTransactionsInline();
+        when(ticketRepository.findExistingIds(any())).thenReturn(List.of());
+        // The chunk flush fails, then the first row alone fails again because it was inserted meanwhile
+        doThrow(new IllegalStateException("duplicate key")).doThrow(new IllegalStateException("duplicate key"))
+                .doNothing().when(entityManager).flush();
+        when(ticketRepository.existsById(tickets.get(0).getId())).thenReturn(true);
+        
+        List<BatchItemStatus> statuses = ticketService.createTickets(List.of(tickets.get(0), tickets.get(1)));
+        
+        assertEquals(List.of(BatchItemStatus.DUPLICATE, BatchItemStatus.CREATED), statuses);
+        verify(salesAggregator).track(tickets.get(1));
+        verify(salesAggregator, never()).track(tickets.get(0));
+    }
+    
+    @Test
+    void testUpdateStatusByEventIdPublishesOneEvent() {
+        when(ticketRepository.updateStatusByEventId(eventId1, "EXPIRED", Set.of("AVAILABLE", "PURCHASED"))).thenReturn(2);
+        
+        assertEquals(2, ticketService.updateStatusByEventId(eventId1, "EXPIRED"));
+        
+        ArgumentCaptor<TicketStatusChangedEvent> event = ArgumentCaptor.forClass(TicketStatusChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(eventId1, event.getValue().getEventId());
+        assertEquals(2, event.getValue().getAffected());
+        assertTrue(event.getValue().targets(tickets.get(1)));
+        assertFalse(event.getValue().targets(tickets.get(2)));
+        verify(ticketRepository, never()).save(any());
+    }
+    
+    @Test
+    void testUpdateStatusByIdsWithoutChangesPublishesNothing() {
+        List<String> ids = List.of(tickets.get(0).getId(), tickets.get(0).getId());
+        when(ticketRepository.updateStatusByIds(Set.of(tickets.get(0).getId()), "USED", Set.of("PURCHASED"))).thenReturn(0);
+        
+        assertEquals(0, ticketService.updateStatusByIds(ids, "USED"));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+    
+    @Test
+    void testBulkStatusRejectsUnreachableStatus() {
+        assertThrows(IllegalArgumentException.class, () -> ticketService.updateStatusByEventId(eventId1, "AVAILABLE"));
+        assertThrows(IllegalArgumentException.class, () -> ticketService.updateStatusByEventId(eventId1, "SOLD"));
+        verify(ticketRepository, never()).updateStatusByEventId(any(), any(), any());
+    }
+    
     @Test
     void testCreateTicketIfAlreadyExists() {
         Ticket ticket = tickets.get(0);
@@ -137,6 +293,42 @@ class TicketServiceImplTest {
         assertNull(ticketService.findById("non-existent-id"));
     }
     
+    @Test
+    void testFindTicketByIdServedFromCache() {
+        Ticket ticket = tickets.get(0);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        
+        ticketService.findById(ticket.getId());
+        Ticket cached = ticketService.findById(ticket.getId());
+        
+        assertEquals(ticket.getId(), cached.getId());
+        verify(ticketRepository, times(1)).findById(ticket.getId());
+    }
+    
+    @Test
+    void testUpdateStatusRefreshesCachedTicket() {
+        Ticket ticket = tickets.get(0);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket.copy()));
+        when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ticketService.findById(ticket.getId());
+        
+        ticketService.updateStatus(ticket.getId(), TicketStatus.PURCHASED.getValue());
+        
+        assertEquals(TicketStatus.PURCHASED.getValue(), ticketService.findById(ticket.getId()).getStatus());
+    }
+    
+    @Test
+    void testPurchaseTicketInvalidatesCachedTicket() {
+        Ticket ticket = tickets.get(0);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ticketService.findById(ticket.getId());
+        
+        ticketService.purchaseTicket(ticket.getId(), 1, currentTime + 1000);
+        
+        verify(ticketCache, atLeastOnce()).invalidate(ticket.getId());
+    }
+    
     @Test
     void testFindAllTickets() {
         doReturn(tickets).when(ticketRepository).findAll();
@@ -194,36 +386,105 @@ class TicketServiceImplTest {
     }
     
     @Test
-    void testUpdateTicket() {
-        Ticket originalTicket = tickets.get(0);
-        Ticket updatedTicket = new Ticket(
-            originalTicket.getEventId(),
-            originalTicket.getType(),
-            200.0, // Updated price
-            originalTicket.getQuota(),
-            "Updated description",
-            originalTicket.getSaleStart(),
-            originalTicket.getSaleEnd()
-        );
-        updatedTicket.setId(originalTicket.getId()); // Ensure same ID
+    void testFindPageStartsAtFirstKey() {
+        List<TicketView> views = List.of(mock(TicketView.class));
+        when(ticketRepository.findViewPage(eq(""), eq("VIP"), isNull(), any(Limit.class))).thenReturn(views);
+        
+        assertEquals(views, ticketService.findPage(null, 10, "VIP", null, TicketFields.FULL));
+        verify(ticketRepository, never()).findPage(any(), any(), any(), any());
+    }
+    
+    @Test
+    void testFindPageSummarySkipsDescriptionQuery() {
+        ticketService.findPage("after", 10, null, null, TicketFields.SUMMARY);
+        ticketService.findPageByEventId(eventId1, null, 10, TicketFields.SUMMARY);
+        
+        verify(ticketRepository).findSummaryPage(eq("after"), isNull(), isNull(), any(Limit.class));
+        verify(ticketRepository).findSummaryPageByEventId(eq(eventId1), eq(""), any(Limit.class));
+        verify(ticketRepository, never()).findViewPage(any(), any(), any(), any());
+    }
+    
+    @Test
+    void testFindAvailablePageFallsBackToRepository() {
+        Long testTime = currentTime + 1000;
+        when(ticketRepository.findAvailablePage(eq(testTime), eq("after"), any(Limit.class)))
+                .thenReturn(List.of(tickets.get(2)));
+        
+        List<Ticket> result = ticketService.findAvailablePage(testTime, "after", 10);
+        
+        assertEquals(1, result.size());
+    }
+    
+    @Test
+    void testForEachTicketDetachesEveryRow() {
+        when(ticketRepository.streamAllByEventId(eventId1)).thenReturn(tickets.stream().limit(2));
+        List<String> seen = new ArrayList<>();
         
-        when(ticketRepository.findById(originalTicket.getId())).thenReturn(Optional.of(originalTicket));
-        when(ticketRepository.save(any(Ticket.class))).thenReturn(updatedTicket);
+        long count = ticketService.forEachTicket(eventId1, ticket -> seen.add(ticket.getId()));
         
-        Ticket result = ticketService.updateTicket(updatedTicket);
+        assertEquals(2, count);
+        assertEquals(List.of(tickets.get(0).getId(), tickets.get(1).getId()), seen);
+        verify(entityManager).detach(tickets.get(0));
+        verify(entityManager).detach(tickets.get(1));
+        verify(ticketRepository, never()).streamAll();
+    }
+    
+    @Test
+    void testFindAllAvailableTicketsFromIndex() {
+        Long testTime = currentTime + 1000;
+        when(availabilityIndex.available(testTime)).thenReturn(Optional.of(List.of(tickets.get(2))));
         
-        assertEquals(updatedTicket.getId(), result.getId());
-        assertEquals(200.0, result.getPrice());
-        assertEquals("Updated description", result.getDescription());
+        List<Ticket> result = ticketService.findAllAvailable(testTime);
+        
+        assertEquals(1, result.size());
+        verify(ticketRepository, never()).findAllAvailable(any());
     }
     
     @Test
-    void testUpdateTicketNotFound() {
+    void testPurchaseTicketUpdatesAvailabilityIndex() {
         Ticket ticket = tickets.get(0);
-        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.empty());
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> invocation.getArgument(0));
         
-        assertThrows(NoSuchElementException.class, () -> ticketService.updateTicket(ticket));
-        verify(ticketRepository, times(0)).save(any(Ticket.class));
+        Ticket result = ticketService.purchaseTicket(ticket.getId(), 1, currentTime + 1000);
+        
+        verify(availabilityIndex).update(result);
+    }
+    
+    @Test
+    void testUpdateTicketFieldsWithoutLoadingFirst() {
+        Ticket ticket = tickets.get(0);
+        Map<String, Object> changes = Map.of("description", "Updated description");
+        when(ticketRepository.updateFields(ticket.getId(), changes)).thenReturn(1);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketCache.put(ticket)).thenReturn(ticket);
+        
+        assertEquals(ticket, ticketService.updateTicket(ticket.getId(), changes));
+        
+        InOrder inOrder = inOrder(ticketRepository);
+        inOrder.verify(ticketRepository).updateFields(ticket.getId(), changes);
+        inOrder.verify(ticketRepository).findById(ticket.getId());
+        verify(ticketRepository, never()).save(any());
+        verify(searchIndex).index(ticket.getId(), ticket.getEventId(), ticket.getType(), ticket.getDescription());
+        verify(ticketCache).put(ticket);
+    }
+    
+    @Test
+    void testUpdateTicketFieldsNotFound() {
+        when(ticketRepository.updateFields(eq("missing"), any())).thenReturn(0);
+        when(ticketRepository.existsById("missing")).thenReturn(false);
+        
+        assertThrows(NoSuchElementException.class, () -> ticketService.updateTicket("missing", Map.of("price", 1.0)));
+    }
+    
+    @Test
+    void testUpdateTicketFieldsCrossingSaleWindow() {
+        Ticket ticket = tickets.get(0);
+        when(ticketRepository.updateFields(eq(ticket.getId()), any())).thenReturn(0);
+        when(ticketRepository.existsById(ticket.getId())).thenReturn(true);
+        
+        assertThrows(IllegalArgumentException.class, () -> ticketService.updateTicket(ticket.getId(), Map.of("saleEnd", 1L)));
+        verify(ticketCache, never()).put(any());
     }
     
     @Test
@@ -306,6 +567,263 @@ class TicketServiceImplTest {
         verify(ticketRepository, times(0)).save(any(Ticket.class));
     }
     
+    @Test
+    void testPurchaseTicketRetriesOnVersionConflict() {
+        Ticket ticket = tickets.get(0);
+        
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.save(any(Ticket.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, ticket.getId()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        
+        ticketService.purchaseTicket(ticket.getId(), 1, currentTime + 1000);
+        
+        verify(ticketRepository, times(2)).findById(ticket.getId());
+        verify(ticketRepository, times(2)).save(any(Ticket.class));
+        verify(eventPublisher, times(1)).publishEvent(any(TicketPurchasedEvent.class));
+    }
+    
+    @Test
+    void testPurchaseTicketGivesUpAfterMaxAttempts() {
+        Ticket ticket = tickets.get(0);
+        
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.save(any(Ticket.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, ticket.getId()));
+        
+        assertThrows(TicketConflictException.class,
+                () -> ticketService.purchaseTicket(ticket.getId(), 1, currentTime + 1000));
+        verify(ticketRepository, times(3)).save(any(Ticket.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+    
+    @Test
+    void testUpdateStatusRetriesOnVersionConflict() {
+        Ticket ticket = tickets.get(0);
+        
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.save(any(Ticket.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, ticket.getId()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        
+        Ticket result = ticketService.updateStatus(ticket.getId(), TicketStatus.EXPIRED.getValue());
+        
+        assertEquals(TicketStatus.EXPIRED.getValue(), result.getStatus());
+        verify(ticketRepository, times(2)).save(any(Ticket.class));
+    }
+    
+    @Test
+    void testPurchaseTicketAtomic() {
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.ATOMIC);
+        Ticket ticket = tickets.get(0);
+        ticket.setRemainingQuota(95);
+        Long purchaseTime = currentTime + 1000;
+        
+        when(ticketRepository.decrementRemainingQuota(ticket.getId(), 5, purchaseTime)).thenReturn(1);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        
+        Ticket result = ticketService.purchaseTicket(ticket.getId(), 5, purchaseTime);
+        
+        assertEquals(95, result.getRemainingQuota());
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(5, eventCaptor.getValue().getAmount());
+    }
+    
+    @Test
+    void testPurchaseTicketAtomicNotEnoughQuota() {
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.ATOMIC);
+        Ticket ticket = tickets.get(0);
+        Long purchaseTime = currentTime + 1000;
+        
+        when(ticketRepository.decrementRemainingQuota(ticket.getId(), 500, purchaseTime)).thenReturn(0);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ticketService.purchaseTicket(ticket.getId(), 500, purchaseTime));
+        assertTrue(e.getMessage().contains("Not enough tickets available"));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+    
+    @Test
+    void testPurchaseTicketAtomicOutsideSalePeriod() {
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.ATOMIC);
+        Ticket ticket = tickets.get(0);
+        Long invalidTime = ticket.getSaleEnd() + 1000;
+        
+        when(ticketRepository.decrementRemainingQuota(ticket.getId(), 1, invalidTime)).thenReturn(0);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        
+        assertThrows(IllegalArgumentException.class, () -> ticketService.purchaseTicket(ticket.getId(), 1, invalidTime));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+    
+    @Test
+    void testPurchaseTicketAtomicNotFound() {
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.ATOMIC);
+        
+        when(ticketRepository.decrementRemainingQuota("non-existent-id", 1, currentTime)).thenReturn(0);
+        when(ticketRepository.findById("non-existent-id")).thenReturn(Optional.empty());
+        
+        assertThrows(NoSuchElementException.class, () -> ticketService.purchaseTicket("non-existent-id", 1, currentTime));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+    
+    @Test
+    void testPurchaseTicketFromLedger() {
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.LEDGER);
+        Ticket ticket = tickets.get(0);
+        Long purchaseTime = currentTime + 1000;
+        
+        when(inventoryLedger.reserve(ticket.getId(), 5, purchaseTime)).thenReturn(ticket);
+        
+        Ticket result = ticketService.purchaseTicket(ticket.getId(), 5, purchaseTime);
+        
+        assertEquals(ticket.getId(), result.getId());
+        verify(ticketRepository, never()).findById(any());
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verify(eventPublisher).publishEvent(any(TicketPurchasedEvent.class));
+    }
+    
+    @Test
+    void testPurchaseTicketFromBuckets() {
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.SHARDED);
+        Ticket ticket = tickets.get(0);
+        Long purchaseTime = currentTime + 1000;
+        
+        when(shardedQuotaService.reserve(ticket.getId(), 5, purchaseTime)).thenReturn(ticket);
+        
+        ticketService.purchaseTicket(ticket.getId(), 5, purchaseTime);
+        
+        verify(ticketRepository, never()).save(any(Ticket.class));
+        verify(eventPublisher).publishEvent(any(TicketPurchasedEvent.class));
+    }
+    
+    @Test
+    void testPurchaseTicketThroughBatcher() {
+        Ticket ticket = tickets.get(0);
+        Long purchaseTime = currentTime + 1000;
+        
+        when(purchaseBatcher.isEnabled()).thenReturn(true);
+        when(purchaseBatcher.purchase(ticket.getId(), 2, purchaseTime)).thenReturn(ticket);
+        
+        ticketService.purchaseTicket(ticket.getId(), 2, purchaseTime);
+        
+        verify(ticketRepository, never()).decrementRemainingQuota(any(), anyInt(), any());
+        verify(eventPublisher).publishEvent(any(TicketPurchasedEvent.class));
+    }
+    
+    @Test
+    void testReserveQuotaDoesNotPublishEvent() {
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.ATOMIC);
+        Ticket ticket = tickets.get(0);
+        Long purchaseTime = currentTime + 1000;
+        
+        when(ticketRepository.decrementRemainingQuota(ticket.getId(), 2, purchaseTime)).thenReturn(1);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        
+        ticketService.reserveQuota(ticket.getId(), 2, purchaseTime);
+        
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+    
+    @Test
+    void testReleaseQuotaByMode() {
+        ticketService.releaseQuota("ticket-1", 3);
+        verify(ticketRepository).incrementRemainingQuota("ticket-1", 3);
+        
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.LEDGER);
+        ticketService.releaseQuota("ticket-1", 3);
+        verify(inventoryLedger).release("ticket-1", 3);
+        
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.SHARDED);
+        ticketService.releaseQuota("ticket-1", 3);
+        verify(shardedQuotaService).release("ticket-1", 3);
+    }
+    
+    @Test
+    void testPurchaseCartDecrementsAllRows() {
+        Ticket first = tickets.get(0);
+        Ticket second = tickets.get(1);
+        Long purchaseTime = currentTime + 1000;
+        int firstRemaining = first.getRemainingQuota();
+        int secondRemaining = second.getRemainingQuota();
+        
+        when(ticketRepository.findAllByIdForUpdate(any())).thenReturn(List.of(first, second));
+        when(ticketRepository.saveAllAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        List<Ticket> result = ticketService.purchaseCart(Map.of(first.getId(), 2, second.getId(), 3), purchaseTime);
+        
+        assertEquals(2, result.size());
+        assertEquals(firstRemaining - 2, first.getRemainingQuota());
+        assertEquals(secondRemaining - 3, second.getRemainingQuota());
+        ArgumentCaptor<TicketCartPurchasedEvent> cartEvent = ArgumentCaptor.forClass(TicketCartPurchasedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(cartEvent.capture());
+        assertEquals(5, cartEvent.getValue().getTotalAmount());
+    }
+    
+    @Test
+    void testPurchaseCartChangesNothingWhenOneItemFails() {
+        Ticket first = tickets.get(0);
+        Ticket second = tickets.get(1);
+        int firstRemaining = first.getRemainingQuota();
+        
+        when(ticketRepository.findAllByIdForUpdate(any())).thenReturn(List.of(first, second));
+        
+        assertThrows(IllegalArgumentException.class, () -> ticketService.purchaseCart(
+                Map.of(first.getId(), 1, second.getId(), second.getRemainingQuota() + 1), currentTime + 1000));
+        
+        assertEquals(firstRemaining, first.getRemainingQuota());
+        verify(ticketRepository, never()).saveAllAndFlush(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+    
+    @Test
+    void testPurchaseCartWithMissingTicket() {
+        Ticket first = tickets.get(0);
+        when(ticketRepository.findAllByIdForUpdate(any())).thenReturn(List.of(first));
+        
+        assertThrows(NoSuchElementException.class, () -> ticketService.purchaseCart(
+                Map.of(first.getId(), 1, "missing", 1), currentTime + 1000));
+    }
+    
+    @Test
+    void testPurchaseCartRejectsEmptyCart() {
+        assertThrows(IllegalArgumentException.class, () -> ticketService.purchaseCart(Map.of(), currentTime));
+        verify(ticketRepository, never()).findAllByIdForUpdate(any());
+    }
+    
+    @Test
+    void testPurchaseCartFromLedgerReleasesOnFailure() {
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.LEDGER);
+        Long purchaseTime = currentTime + 1000;
+        Ticket reserved = new Ticket();
+        reserved.setId("a-ticket");
+        
+        when(inventoryLedger.reserve("a-ticket", 2, purchaseTime)).thenReturn(reserved);
+        when(inventoryLedger.reserve("b-ticket", 1, purchaseTime))
+                .thenThrow(new IllegalArgumentException("Cannot purchase tickets: Not enough tickets available"));
+        
+        assertThrows(IllegalArgumentException.class, () -> ticketService.purchaseCart(
+                Map.of("b-ticket", 1, "a-ticket", 2), purchaseTime));
+        
+        verify(inventoryLedger).release("a-ticket", 2);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+    
+    @Test
+    void testUpdateStatusRefreshesLedger() {
+        ReflectionTestUtils.setField(ticketService, "purchaseMode", PurchaseMode.LEDGER);
+        Ticket ticket = tickets.get(0);
+        
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        when(ticketRepository.save(any(Ticket.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        ticketService.updateStatus(ticket.getId(), TicketStatus.EXPIRED.getValue());
+        
+        verify(inventoryLedger).track(ticket);
+    }
+    
     @Test
     void testDeleteTicket() {
         String ticketId = tickets.get(0).getId();
@@ -314,6 +832,7 @@ class TicketServiceImplTest {
         ticketService.deleteTicket(ticketId);
         
         verify(ticketRepository, times(1)).deleteById(ticketId);
+        verify(salesAggregator).forget(ticketId);
     }
     
     @Test
@@ -353,37 +872,36 @@ class TicketServiceImplTest {
         Ticket ticket = tickets.get(0);
         String ticketId = ticket.getId();
 
-        // Set the sale end time to be in the past
-        ticket.setSaleEnd(System.currentTimeMillis() - 10000); // 10 seconds in the past
-
-        when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket));
-        when(ticketRepository.save(any(Ticket.class))).thenReturn(ticket);
-
         // Execute
         CompletableFuture<Void> future = ticketService.processTicketExpiration(ticketId);
 
         // Wait for completion and verify
         future.get(); // This will wait for the async operation to complete
 
-        // Verify the ticket status was updated to EXPIRED
-        verify(ticketRepository).save(argThat(savedTicket ->
-            savedTicket.getStatus().equals(TicketStatus.EXPIRED.getValue())));
+        // The sweeper's guarded UPDATE decides whether the sale has ended, nothing is loaded and saved here
+        verify(expirationSweeper).expire(eq(List.of(ticketId)), anyLong());
+        verify(ticketRepository, never()).save(any(Ticket.class));
     }
 
     @Test
-    void testProcessTicketExpirationNoTicket() throws ExecutionException, InterruptedException {
-        // Setup
-        String nonExistentId = "non-existent";
-        when(ticketRepository.findById(nonExistentId)).thenReturn(Optional.empty());
+    void testProcessTicketExpirationFailure() {
+        when(expirationSweeper.expire(any(), anyLong())).thenThrow(new IllegalStateException("db down"));
 
-        // Execute
-        CompletableFuture<Void> future = ticketService.processTicketExpiration(nonExistentId);
+        CompletableFuture<Void> future = ticketService.processTicketExpiration("non-existent");
 
-        // Wait for completion and verify
-        future.get(); // This will wait for the async operation to complete
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
 
-        verify(ticketRepository).findById(nonExistentId);
-        verify(ticketRepository, never()).save(any(Ticket.class));
+    @Test
+    void testWritesAreTrackedForExpiration() {
+        Ticket ticket = tickets.get(0);
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.empty());
+        when(ticketRepository.save(ticket)).thenReturn(ticket);
+
+        ticketService.createTicket(ticket);
+
+        verify(expirationSweeper).track(ticket);
     }
 }
 
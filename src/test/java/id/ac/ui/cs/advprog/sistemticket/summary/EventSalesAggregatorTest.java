@@ -0,0 +1,225 @@
+package id.ac.ui.cs.advprog.sistemticket.summary;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.EventSummaryDto;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketCartPurchasedEvent;
+import id.ac.ui.cs.advprog.sistemticket.event.TicketPurchasedEvent;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.model.TicketSalesCheckpoint;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketHoldRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketSalesCheckpointRepository;
+
+@ExtendWith(MockitoExtension.class)
+class EventSalesAggregatorTest {
+    
+    @Mock
+    private TicketRepository ticketRepository;
+    
+    @Mock
+    private TicketSalesCheckpointRepository checkpointRepository;
+    
+    @Mock
+    private TicketHoldRepository holdRepository;
+    
+    private EventSalesAggregator aggregator;
+    
+    @BeforeEach
+    void setUp() {
+        aggregator = new EventSalesAggregator(ticketRepository, checkpointRepository, holdRepository, 2);
+    }
+    
+    private Ticket ticket(String id, String eventId, String type, double price, int quota) {
+        Ticket ticket = new Ticket(eventId, type, price, quota, "Ticket " + id, 0L, Long.MAX_VALUE);
+        ticket.setId(id);
+        return ticket;
+    }
+    
+    private EventSummaryDto.TypeSummary type(EventSummaryDto summary, String type) {
+        return summary.types().stream().filter(t -> t.type().equals(type)).findFirst().orElseThrow();
+    }
+    
+    @Test
+    void testSeedsFromTicketsWithoutCheckpoints() {
+        Ticket regular = ticket("a", "event-1", "REGULAR", 100.0, 10);
+        regular.setRemainingQuota(7);
+        when(checkpointRepository.findAll()).thenReturn(List.of());
+        when(ticketRepository.findAll()).thenReturn(List.of(regular, ticket("b", "event-1", "VIP", 500.0, 5)));
+        
+        aggregator.afterSingletonsInstantiated();
+        
+        EventSummaryDto summary = aggregator.summarize("event-1").orElseThrow();
+        assertEquals(15, summary.quota());
+        assertEquals(3, summary.sold());
+        assertEquals(12, summary.remaining());
+        assertEquals(300.0, summary.revenue());
+        assertEquals(List.of("REGULAR", "VIP"), summary.types().stream().map(EventSummaryDto.TypeSummary::type).toList());
+    }
+    
+    @Test
+    void testRestoresRevenueFromMatchingCheckpoints() {
+        Ticket vip = ticket("a", "event-1", "VIP", 600.0, 20);
+        vip.setRemainingQuota(16);
+        when(checkpointRepository.findAll()).thenReturn(List.of(
+                new TicketSalesCheckpoint("a", "event-1", "VIP", 20, 4, 2000.0, 1L)));
+        when(ticketRepository.findAll()).thenReturn(List.of(vip));
+        
+        aggregator.afterSingletonsInstantiated();
+        
+        // Revenue comes from the checkpoint, not the current price
+        EventSummaryDto.TypeSummary summary = type(aggregator.summarize("event-1").orElseThrow(), "VIP");
+        assertEquals(16, summary.remaining());
+        assertEquals(2000.0, summary.revenue());
+        aggregator.checkpoint();
+        verifyNoMoreInteractions(checkpointRepository);
+    }
+    
+    @Test
+    void testReconcilesCheckpointsWithTicketsWrittenAfterThem() {
+        Ticket sold = ticket("a", "event-1", "VIP", 500.0, 20);
+        sold.setRemainingQuota(14);
+        Ticket created = ticket("b", "event-1", "REGULAR", 100.0, 10);
+        created.setRemainingQuota(9);
+        when(checkpointRepository.findAll()).thenReturn(List.of(
+                new TicketSalesCheckpoint("a", "event-1", "VIP", 20, 4, 2000.0, 1L),
+                new TicketSalesCheckpoint("gone", "event-1", "VIP", 5, 1, 500.0, 1L)));
+        when(ticketRepository.findAll()).thenReturn(List.of(sold, created));
+        
+        aggregator.afterSingletonsInstantiated();
+        
+        EventSummaryDto summary = aggregator.summarize("event-1").orElseThrow();
+        assertEquals(6, type(summary, "VIP").sold());
+        assertEquals(3000.0, type(summary, "VIP").revenue());
+        assertEquals(20, type(summary, "VIP").quota());
+        assertEquals(1, type(summary, "REGULAR").sold());
+        assertEquals(30, summary.quota());
+        
+        aggregator.checkpoint();
+        verify(checkpointRepository).saveAll(argThat(saved -> saved.iterator().hasNext()));
+        verify(checkpointRepository).deleteAllByIdInBatch(List.of("gone"));
+    }
+    
+    @Test
+    void testOpenHoldsAreNotCountedAsSoldAtStartup() {
+        Ticket checkpointed = ticket("a", "event-1", "VIP", 500.0, 20);
+        checkpointed.setRemainingQuota(12);
+        Ticket created = ticket("b", "event-1", "REGULAR", 100.0, 10);
+        created.setRemainingQuota(6);
+        when(checkpointRepository.findAll()).thenReturn(List.of(
+                new TicketSalesCheckpoint("a", "event-1", "VIP", 20, 4, 2000.0, 1L)));
+        when(ticketRepository.findAll()).thenReturn(List.of(checkpointed, created));
+        when(holdRepository.sumAmountByTicket()).thenReturn(List.of(new HeldQuota("a", 3), new HeldQuota("b", 4)));
+        
+        aggregator.afterSingletonsInstantiated();
+        
+        EventSummaryDto summary = aggregator.summarize("event-1").orElseThrow();
+        assertEquals(5, type(summary, "VIP").sold());
+        assertEquals(2500.0, type(summary, "VIP").revenue());
+        assertEquals(0, type(summary, "REGULAR").sold());
+        
+        // Confirming the hold is what counts it
+        aggregator.onTicketPurchased(new TicketPurchasedEvent(checkpointed, 3));
+        assertEquals(8, type(aggregator.summarize("event-1").orElseThrow(), "VIP").sold());
+    }
+    
+    @Test
+    void testPurchasesAddSoldAndRevenue() {
+        Ticket regular = ticket("a", "event-1", "REGULAR", 100.0, 10);
+        Ticket vip = ticket("b", "event-1", "VIP", 500.0, 5);
+        aggregator.track(regular);
+        aggregator.track(vip);
+        
+        aggregator.onTicketPurchased(new TicketPurchasedEvent(regular, 3));
+        aggregator.onCartPurchased(new TicketCartPurchasedEvent(List.of(regular, vip), Map.of("a", 1, "b", 2)));
+        
+        EventSummaryDto summary = aggregator.summarize("event-1").orElseThrow();
+        assertEquals(4, type(summary, "REGULAR").sold());
+        assertEquals(6, type(summary, "REGULAR").remaining());
+        assertEquals(1000.0, type(summary, "VIP").revenue());
+        assertEquals(1400.0, summary.revenue());
+    }
+    
+    @Test
+    void testUpdateMovesSalesToNewEventAndType() {
+        Ticket ticket = ticket("a", "event-1", "REGULAR", 100.0, 10);
+        aggregator.track(ticket);
+        aggregator.recordSale(ticket, 2);
+        
+        Ticket moved = ticket("a", "event-2", "VIP", 100.0, 12);
+        aggregator.track(moved);
+        
+        assertTrue(aggregator.summarize("event-1").isEmpty());
+        EventSummaryDto.TypeSummary vip = type(aggregator.summarize("event-2").orElseThrow(), "VIP");
+        assertEquals(12, vip.quota());
+        assertEquals(2, vip.sold());
+        assertEquals(200.0, vip.revenue());
+    }
+    
+    @Test
+    void testForgetDropsTicketAndEmptyEvent() {
+        aggregator.track(ticket("a", "event-1", "REGULAR", 100.0, 10));
+        aggregator.track(ticket("b", "event-1", "VIP", 500.0, 5));
+        
+        aggregator.forget("b");
+        assertEquals(List.of("REGULAR"), aggregator.summarize("event-1").orElseThrow().types().stream()
+                .map(EventSummaryDto.TypeSummary::type).toList());
+        
+        aggregator.forget("a");
+        assertTrue(aggregator.summarize("event-1").isEmpty());
+    }
+    
+    @Test
+    void testLoweredQuotaNeverReportsNegativeRemaining() {
+        Ticket ticket = ticket("a", "event-1", "REGULAR", 100.0, 10);
+        aggregator.track(ticket);
+        aggregator.recordSale(ticket, 8);
+        
+        aggregator.track(ticket("a", "event-1", "REGULAR", 100.0, 5));
+        
+        assertEquals(0, aggregator.summarize("event-1").orElseThrow().remaining());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckpointWritesChangedTicketsInBatches() {
+        aggregator.track(ticket("a", "event-1", "REGULAR", 100.0, 10));
+        aggregator.track(ticket("b", "event-1", "VIP", 500.0, 5));
+        aggregator.track(ticket("c", "event-2", "VIP", 500.0, 5));
+        aggregator.forget("c");
+        
+        aggregator.checkpoint();
+        
+        ArgumentCaptor<List<TicketSalesCheckpoint>> saved = ArgumentCaptor.forClass(List.class);
+        verify(checkpointRepository, times(2)).saveAll(saved.capture());
+        assertEquals(2, saved.getAllValues().stream().mapToInt(List::size).sum());
+        verify(checkpointRepository).deleteAllByIdInBatch(List.of("c"));
+        
+        aggregator.checkpoint();
+        verifyNoMoreInteractions(checkpointRepository);
+    }
+    
+    @Test
+    void testFailedCheckpointIsRetried() {
+        aggregator.track(ticket("a", "event-1", "REGULAR", 100.0, 10));
+        when(checkpointRepository.saveAll(anyIterable())).thenThrow(new RuntimeException("down")).thenReturn(List.of());
+        
+        aggregator.checkpoint();
+        aggregator.checkpoint();
+        
+        verify(checkpointRepository, times(2)).saveAll(any());
+    }
+}
@@ -0,0 +1,69 @@
+package id.ac.ui.cs.advprog.sistemticket.timer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class HashedTimingWheelTest {
+    
+    @Test
+    void testExpiresAtDeadline() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 500);
+        List<String> expired = new ArrayList<>();
+        
+        assertEquals(0, wheel.advance(200, expired::add));
+        assertEquals(1, wheel.advance(300, expired::add));
+        assertEquals(List.of("a"), expired);
+        assertEquals(1, wheel.advance(500, expired::add));
+        assertEquals(List.of("a", "b"), expired);
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void testDeadlineBeyondOneRevolution() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 4, 0);
+        // Hashes to the same slot as tick 2 but belongs to the third revolution
+        wheel.schedule("late", 1000);
+        List<String> expired = new ArrayList<>();
+        
+        wheel.advance(900, expired::add);
+        assertTrue(expired.isEmpty());
+        assertEquals(1, wheel.size());
+        
+        wheel.advance(1000, expired::add);
+        assertEquals(List.of("late"), expired);
+    }
+    
+    @Test
+    void testPastDeadlineFiresOnNextTick() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, 1000);
+        wheel.schedule("past", 500);
+        List<String> expired = new ArrayList<>();
+        
+        wheel.advance(1100, expired::add);
+        
+        assertEquals(List.of("past"), expired);
+    }
+    
+    @Test
+    void testCatchesUpAfterPause() {
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(10, 16, 0);
+        for (int i = 1; i <= 100; i++) {
+            wheel.schedule(i, i * 10L);
+        }
+        
+        assertEquals(100, wheel.advance(5000, value -> { }));
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void testRejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(0, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(100, 0, 0));
+    }
+}
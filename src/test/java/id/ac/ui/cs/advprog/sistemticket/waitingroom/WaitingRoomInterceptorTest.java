@@ -0,0 +1,73 @@
+package id.ac.ui.cs.advprog.sistemticket.waitingroom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+@ExtendWith(MockitoExtension.class)
+class WaitingRoomInterceptorTest {
+    
+    @Mock
+    private WaitingRoomService waitingRoomService;
+    
+    private WaitingRoomInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    
+    @BeforeEach
+    void setUp() {
+        interceptor = new WaitingRoomInterceptor(waitingRoomService);
+        request = new MockHttpServletRequest("POST", "/api/tickets/ticket-1/purchase");
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", "ticket-1"));
+        response = new MockHttpServletResponse();
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("alice", null, "ROLE_ATTENDEE"));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void testPassesWhenNoRoomIsOpen() {
+        when(waitingRoomService.hasOpenRooms()).thenReturn(false);
+        
+        assertTrue(interceptor.preHandle(request, response, null));
+        verify(waitingRoomService, never()).eventIdOfTicket(any());
+    }
+    
+    @Test
+    void testRejectsTokenNotYetAdmitted() {
+        when(waitingRoomService.hasOpenRooms()).thenReturn(true);
+        when(waitingRoomService.eventIdOfTicket("ticket-1")).thenReturn("event-1");
+        when(waitingRoomService.tryEnter("event-1", "queued-token", "alice")).thenReturn(false);
+        request.addHeader(WaitingRoomInterceptor.TOKEN_HEADER, "queued-token");
+        
+        assertFalse(interceptor.preHandle(request, response, null));
+        assertEquals(429, response.getStatus());
+        assertNotNull(response.getHeader("Retry-After"));
+    }
+    
+    @Test
+    void testPassesAdmittedToken() {
+        when(waitingRoomService.hasOpenRooms()).thenReturn(true);
+        when(waitingRoomService.eventIdOfTicket("ticket-1")).thenReturn("event-1");
+        when(waitingRoomService.tryEnter("event-1", "admitted-token", "alice")).thenReturn(true);
+        request.addHeader(WaitingRoomInterceptor.TOKEN_HEADER, "admitted-token");
+        
+        assertTrue(interceptor.preHandle(request, response, null));
+    }
+}
@@ -0,0 +1,147 @@
+package id.ac.ui.cs.advprog.sistemticket.waitingroom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import id.ac.ui.cs.advprog.sistemticket.dto.QueueStatusDto;
+import id.ac.ui.cs.advprog.sistemticket.model.Ticket;
+import id.ac.ui.cs.advprog.sistemticket.repository.TicketRepository;
+
+@ExtendWith(MockitoExtension.class)
+class WaitingRoomServiceTest {
+    
+    @Mock
+    private TicketRepository ticketRepository;
+    
+    private WaitingRoomService waitingRoomService;
+    
+    @BeforeEach
+    void setUp() {
+        waitingRoomService = new WaitingRoomService(ticketRepository, "test-secret", 3600, 2);
+    }
+    
+    @Test
+    void testJoinHandsOutPositionsInOrder() {
+        waitingRoomService.open("event-1", 10, 1);
+        
+        QueueStatusDto first = waitingRoomService.join("event-1", "alice");
+        QueueStatusDto second = waitingRoomService.join("event-1", "alice");
+        
+        assertEquals(1, first.getPosition());
+        assertEquals(2, second.getPosition());
+        assertFalse(second.getAdmitted());
+        verifyNoInteractions(ticketRepository);
+    }
+    
+    @Test
+    void testAdmissionIsLimitedByTokenBucket() {
+        waitingRoomService.open("event-1", 0.001, 2);
+        QueueStatusDto first = waitingRoomService.join("event-1", "alice");
+        QueueStatusDto second = waitingRoomService.join("event-1", "alice");
+        QueueStatusDto third = waitingRoomService.join("event-1", "alice");
+        
+        waitingRoomService.admit();
+        
+        assertTrue(waitingRoomService.tryEnter("event-1", first.getToken(), "alice"));
+        assertTrue(waitingRoomService.tryEnter("event-1", second.getToken(), "alice"));
+        assertFalse(waitingRoomService.tryEnter("event-1", third.getToken(), "alice"));
+        assertEquals(1, waitingRoomService.status(third.getToken()).getPosition());
+    }
+    
+    @Test
+    void testTamperedTokenIsRejected() {
+        waitingRoomService.open("event-1", 100, 100);
+        String token = waitingRoomService.join("event-1", "alice").getToken();
+        waitingRoomService.admit();
+        String forged = token.replaceFirst("\\.1\\.", ".0.");
+        
+        assertFalse(waitingRoomService.tryEnter("event-1", forged, "alice"));
+        assertFalse(waitingRoomService.tryEnter("event-1", null, "alice"));
+        assertThrows(IllegalArgumentException.class, () -> waitingRoomService.status(forged));
+    }
+    
+    @Test
+    void testTokenOfAnotherEventIsNotAdmitted() {
+        waitingRoomService.open("event-1", 100, 100);
+        waitingRoomService.open("event-2", 100, 100);
+        String token = waitingRoomService.join("event-1", "alice").getToken();
+        waitingRoomService.admit();
+        
+        assertTrue(waitingRoomService.tryEnter("event-1", token, "alice"));
+        assertFalse(waitingRoomService.tryEnter("event-2", token, "alice"));
+    }
+    
+    @Test
+    void testAdmittedTokenOnlyWorksForTheUserWhoJoined() {
+        waitingRoomService.open("event-1", 100, 100);
+        String token = waitingRoomService.join("event-1", "alice").getToken();
+        waitingRoomService.admit();
+        
+        assertFalse(waitingRoomService.tryEnter("event-1", token, "mallory"));
+        assertFalse(waitingRoomService.tryEnter("event-1", token, null));
+        assertTrue(waitingRoomService.tryEnter("event-1", token, "alice"));
+    }
+    
+    @Test
+    void testAdmissionAllowsLimitedEntries() {
+        waitingRoomService.open("event-1", 100, 100);
+        String first = waitingRoomService.join("event-1", "alice").getToken();
+        String second = waitingRoomService.join("event-1", "bob").getToken();
+        waitingRoomService.admit();
+        
+        assertTrue(waitingRoomService.tryEnter("event-1", first, "alice"));
+        assertTrue(waitingRoomService.tryEnter("event-1", first, "alice"));
+        assertFalse(waitingRoomService.tryEnter("event-1", first, "alice"));
+        assertTrue(waitingRoomService.tryEnter("event-1", second, "bob"));
+    }
+    
+    @Test
+    void testClosedRoomAdmitsEveryone() {
+        assertTrue(waitingRoomService.tryEnter("event-1", null, "alice"));
+        
+        waitingRoomService.open("event-1", 1, 1);
+        waitingRoomService.close("event-1");
+        
+        assertFalse(waitingRoomService.hasOpenRooms());
+        assertThrows(NoSuchElementException.class, () -> waitingRoomService.join("event-1", "alice"));
+        assertThrows(NoSuchElementException.class, () -> waitingRoomService.close("event-1"));
+    }
+    
+    @Test
+    void testOpeningTwiceIsRejected() {
+        waitingRoomService.open("event-1", 1, 1);
+        
+        assertThrows(IllegalArgumentException.class, () -> waitingRoomService.open("event-1", 1, 1));
+    }
+    
+    @Test
+    void testEventOfTicketIsReadOnce() {
+        Ticket ticket = new Ticket.Builder().eventId("event-1").type("VIP").price(10.0).quota(1)
+                .saleStart(0L).saleEnd(1L).build();
+        when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+        
+        assertEquals("event-1", waitingRoomService.eventIdOfTicket(ticket.getId()));
+        assertEquals("event-1", waitingRoomService.eventIdOfTicket(ticket.getId()));
+        
+        verify(ticketRepository, times(1)).findById(ticket.getId());
+    }
+    
+    @Test
+    void testTokenBucketRefillsOverTime() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+        
+        assertEquals(5, bucket.take(100, 0));
+        assertEquals(0, bucket.take(100, 50_000_000L));
+        assertEquals(1, bucket.take(100, 100_000_000L));
+        assertEquals(5, bucket.take(100, 10_000_000_000L));
+    }
+}